@@ -0,0 +1,48 @@
+package ru.starkov.admin;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The ClassHistogram class summarizes the heap by class, with the {@code GC.class_histogram}
+ * diagnostic command of the JVM. Only live objects are counted, so taking a histogram runs a full
+ * garbage collection first.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ClassHistogram {
+
+  private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+  private static final String OPERATION = "gcClassHistogram";
+  private static final String ENTRY_PREFIX = ":";
+  private static final String TOTAL_PREFIX = "Total";
+
+  /**
+   * Takes a histogram and keeps its header, the given number of largest classes and the total.
+   *
+   * @param limit the maximum number of classes
+   * @return the summary, as printed by the diagnostic command
+   * @throws JMException if the diagnostic command is not available
+   */
+  public static String summary(int limit) throws JMException {
+    var histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+        new ObjectName(DIAGNOSTIC_COMMAND), OPERATION, new Object[]{new String[0]},
+        new String[]{String[].class.getName()});
+    var summary = new StringBuilder();
+    var entries = 0;
+    for (String line : histogram.split("\n")) {
+      var trimmed = line.trim();
+      var isEntry = !trimmed.isEmpty() && Character.isDigit(trimmed.charAt(0))
+          && trimmed.contains(ENTRY_PREFIX);
+      if (isEntry && entries++ >= limit) {
+        continue;
+      }
+      if (isEntry || trimmed.startsWith(TOTAL_PREFIX) || entries == 0) {
+        summary.append(line).append('\n');
+      }
+    }
+    return summary.toString();
+  }
+}
@@ -0,0 +1,173 @@
+package ru.starkov.admin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * The RecordingManager class runs flight recordings on demand, one at a time. A recording uses one
+ * of the configurations shipped with the JDK, stops by itself after its duration and is written to
+ * a temporary file, which is kept until the next recording starts so it can be downloaded. A
+ * recording that reaches its duration is closed by the flight recorder once it is written.
+ */
+public final class RecordingManager {
+
+  public static final Set<String> PROFILES = Set.of("default", "profile");
+  private static final Logger LOGGER = Logger.getLogger(RecordingManager.class.getName());
+  private static final String NONE = "none";
+
+  private final long maxDurationSeconds;
+  private Recording recording;
+  private String profile;
+  private Path dump;
+
+  /**
+   * Creates a manager.
+   *
+   * @param maxDurationSeconds the maximum duration of a recording
+   */
+  public RecordingManager(long maxDurationSeconds) {
+    this.maxDurationSeconds = Math.max(1, maxDurationSeconds);
+  }
+
+  public long getMaxDurationSeconds() {
+    return maxDurationSeconds;
+  }
+
+  /**
+   * Starts a recording, discarding the previous one.
+   *
+   * @param profile         the name of the JDK configuration, one of {@link #PROFILES}
+   * @param durationSeconds the duration of the recording, at most the maximum duration
+   * @throws IllegalArgumentException if the profile is unknown or the duration is out of range
+   * @throws IllegalStateException    if a recording is already running
+   * @throws IOException              if the configuration or the temporary file cannot be read
+   */
+  public synchronized void start(String profile, long durationSeconds) throws IOException {
+    if (!PROFILES.contains(profile)) {
+      throw new IllegalArgumentException("Unknown profile: '" + profile + "'");
+    }
+    if (durationSeconds < 1 || durationSeconds > maxDurationSeconds) {
+      throw new IllegalArgumentException(
+          "The duration must be between 1 and " + maxDurationSeconds + " seconds");
+    }
+    if (isRunning()) {
+      throw new IllegalStateException("A recording is already running");
+    }
+    Configuration configuration;
+    try {
+      configuration = Configuration.getConfiguration(profile);
+    } catch (ParseException e) {
+      throw new IOException(e);
+    }
+    discard();
+    var file = Files.createTempFile("recording-", ".jfr");
+    var newRecording = new Recording(configuration);
+    newRecording.setName("on-demand-" + profile);
+    newRecording.setToDisk(true);
+    newRecording.setDuration(Duration.ofSeconds(durationSeconds));
+    newRecording.setDestination(file);
+    newRecording.start();
+    this.recording = newRecording;
+    this.profile = profile;
+    this.dump = file;
+  }
+
+  /**
+   * Stops the running recording before its duration passes; its data is written to the file.
+   *
+   * @throws IllegalStateException if no recording is running
+   */
+  public synchronized void stop() {
+    if (!isRunning()) {
+      throw new IllegalStateException("No recording is running");
+    }
+    recording.stop();
+  }
+
+  /**
+   * Returns the file of the last recording once it has stopped.
+   *
+   * @return the file, or null if there is no recording
+   * @throws IllegalStateException if the recording is still running
+   */
+  public synchronized Path getDump() {
+    if (isRunning()) {
+      throw new IllegalStateException("The recording is still running");
+    }
+    return recording == null ? null : dump;
+  }
+
+  /**
+   * Describes the last recording as {@code key: value} lines.
+   *
+   * @return the status
+   */
+  public synchronized String getStatus() {
+    if (recording == null) {
+      return "state: " + NONE + "\n";
+    }
+    var status = new StringBuilder()
+        .append("state: ").append(recording.getState().name().toLowerCase(Locale.ROOT)).append('\n')
+        .append("profile: ").append(profile).append('\n')
+        .append("duration: ").append(recording.getDuration().toSeconds()).append(" s\n");
+    var startTime = recording.getStartTime();
+    if (startTime != null) {
+      status.append("started: ").append(startTime).append('\n');
+      if (recording.getState() == RecordingState.RUNNING) {
+        var remaining = startTime.plus(recording.getDuration()).getEpochSecond()
+            - Instant.now().getEpochSecond();
+        status.append("remaining: ").append(Math.max(0, remaining)).append(" s\n");
+      }
+    }
+    if (!isRunning() && dump != null) {
+      status.append("size: ").append(fileSize()).append(" bytes\n");
+    }
+    return status.toString();
+  }
+
+  /**
+   * Stops the running recording and deletes its file.
+   */
+  public synchronized void close() {
+    discard();
+  }
+
+  private boolean isRunning() {
+    return recording != null && (recording.getState() == RecordingState.RUNNING
+        || recording.getState() == RecordingState.DELAYED);
+  }
+
+  private long fileSize() {
+    try {
+      return Files.size(dump);
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  private void discard() {
+    if (recording != null) {
+      recording.close();
+      recording = null;
+    }
+    if (dump != null) {
+      try {
+        Files.deleteIfExists(dump);
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Failed to delete the recording " + dump, e);
+      }
+      dump = null;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package ru.starkov.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import ru.starkov.util.ConnectionManager;
+
+/**
+ * The AdmissionController class decides whether a request doing database work is started or shed.
+ * A request is shed when too many requests are already in flight, or when every pooled connection
+ * is in use and callers have been waiting longer than the allowed queue wait on average. Writes
+ * are held to a fraction of both limits, so they are shed before reads and conversions.
+ */
+public final class AdmissionController {
+
+  private static final long MILLIS_PER_SECOND = 1000;
+
+  private final int maxInFlight;
+  private final int maxWriteInFlight;
+  private final long maxQueueWaitMillis;
+  private final long maxWriteQueueWaitMillis;
+  private final long retryAfterSeconds;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAdder shedWrites = new LongAdder();
+  private final LongAdder shedReads = new LongAdder();
+
+  /**
+   * Creates a controller.
+   *
+   * @param maxInFlight        the maximum number of requests in flight
+   * @param maxQueueWaitMillis the maximum average wait for a connection while the pool is
+   *                           exhausted
+   * @param writeShare         the fraction of both limits available to writes, between 0 and 1
+   * @param retryAfterSeconds  the minimum delay suggested to shed clients
+   */
+  public AdmissionController(int maxInFlight, long maxQueueWaitMillis, double writeShare,
+      long retryAfterSeconds) {
+    this.maxInFlight = maxInFlight;
+    this.maxWriteInFlight = (int) (maxInFlight * writeShare);
+    this.maxQueueWaitMillis = maxQueueWaitMillis;
+    this.maxWriteQueueWaitMillis = (long) (maxQueueWaitMillis * writeShare);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /**
+   * Admits a request if the limits for its priority allow it. Every admitted request must be
+   * followed by a call to {@link #release()} when it completes.
+   *
+   * @param priority the priority of the request
+   * @return true if the request is admitted, false if it must be shed
+   */
+  public boolean tryAdmit(RequestPriority priority) {
+    var write = priority == RequestPriority.WRITE;
+    var limit = write ? maxWriteInFlight : maxInFlight;
+    if (ConnectionManager.isExhausted() && ConnectionManager.getAverageAcquireWaitMillis()
+        > (write ? maxWriteQueueWaitMillis : maxQueueWaitMillis)) {
+      recordShed(write);
+      return false;
+    }
+    while (true) {
+      var current = inFlight.get();
+      if (current >= limit) {
+        recordShed(write);
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Marks an admitted request as completed.
+   */
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  /**
+   * Returns the delay a shed client should wait before retrying: the configured minimum, or the
+   * current average wait for a connection if that is longer.
+   *
+   * @return the delay in whole seconds
+   */
+  public long getRetryAfterSeconds() {
+    var waitMillis = ConnectionManager.getAverageAcquireWaitMillis();
+    return Math.max(retryAfterSeconds, (waitMillis + MILLIS_PER_SECOND - 1) / MILLIS_PER_SECOND);
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public long getShedWrites() {
+    return shedWrites.sum();
+  }
+
+  public long getShedReads() {
+    return shedReads.sum();
+  }
+
+  private void recordShed(boolean write) {
+    if (write) {
+      shedWrites.increment();
+    } else {
+      shedReads.increment();
+    }
+  }
+}
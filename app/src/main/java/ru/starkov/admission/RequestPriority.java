@@ -0,0 +1,37 @@
+package ru.starkov.admission;
+
+import ru.starkov.util.Constants;
+
+/**
+ * The RequestPriority enum ranks requests for admission control. Under overload, requests of a
+ * lower priority are shed first, so reads and conversions keep being served while writes are
+ * turned away.
+ */
+public enum RequestPriority {
+
+  /**
+   * Requests that change data: POST, PATCH, PUT and DELETE.
+   */
+  WRITE,
+
+  /**
+   * Requests that only read data, including conversions, and requests of any other method, such
+   * as HEAD, OPTIONS and CORS preflights.
+   */
+  READ;
+
+  /**
+   * Returns the priority of a request with the given HTTP method.
+   *
+   * @param method the HTTP method of the request
+   * @return the priority of the request
+   */
+  public static RequestPriority of(String method) {
+    return Constants.HTTP_METHOD_POST.equalsIgnoreCase(method)
+        || Constants.HTTP_METHOD_PATCH.equalsIgnoreCase(method)
+        || Constants.HTTP_METHOD_PUT.equalsIgnoreCase(method)
+        || Constants.HTTP_METHOD_DELETE.equalsIgnoreCase(method)
+        ? WRITE
+        : READ;
+  }
+}
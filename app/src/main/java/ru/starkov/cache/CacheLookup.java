@@ -0,0 +1,22 @@
+package ru.starkov.cache;
+
+/**
+ * The CacheLookup enum names the kinds of lookups served by the {@link ExchangeRateCache}, for
+ * counting cache hits and misses separately.
+ */
+public enum CacheLookup {
+
+  CURRENCY("currency"),
+  EXCHANGE_RATE("exchange_rate"),
+  CONVERSION("conversion");
+
+  private final String label;
+
+  CacheLookup(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
@@ -0,0 +1,97 @@
+package ru.starkov.cache;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.ExchangeRateDao;
+
+/**
+ * The CacheRevalidator class reloads a stale {@link ExchangeRateCache} in the background while the
+ * stale data keeps being served. Reloads are single-flight: a whole-cache reload is serialized by
+ * the cache anyway, so at most one runs on a single background thread and staleness seen while it
+ * runs schedules nothing more. After a failed reload the next attempt is delayed, so an unavailable
+ * database is not hammered.
+ */
+public final class CacheRevalidator {
+
+  private static final Logger LOGGER = Logger.getLogger(CacheRevalidator.class.getName());
+
+  private final ExchangeRateCache exchangeRateCache;
+  private final CurrencyDao currencyDao;
+  private final ExchangeRateDao exchangeRateDao;
+  private final long retryDelayMillis;
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final ExecutorService executor;
+  private volatile long nextAttemptMillis;
+  private volatile boolean lastAttemptFailed;
+
+  /**
+   * Creates a revalidator.
+   *
+   * @param exchangeRateCache the cache to reload
+   * @param currencyDao       the source of currencies
+   * @param exchangeRateDao   the source of exchange rates
+   * @param retryDelayMillis  the delay before the next attempt after a failed reload
+   */
+  public CacheRevalidator(ExchangeRateCache exchangeRateCache, CurrencyDao currencyDao,
+      ExchangeRateDao exchangeRateDao, long retryDelayMillis) {
+    this.exchangeRateCache = exchangeRateCache;
+    this.currencyDao = currencyDao;
+    this.exchangeRateDao = exchangeRateDao;
+    this.retryDelayMillis = retryDelayMillis;
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "cache-revalidator");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Schedules a background reload if the cache is stale, no reload is already running and the
+   * retry delay after a failed reload has passed. Never blocks the caller.
+   */
+  public void revalidateIfStale() {
+    if (!exchangeRateCache.isStale() || System.currentTimeMillis() < nextAttemptMillis
+        || !running.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(this::revalidate);
+    } catch (RejectedExecutionException e) {
+      running.set(false);
+    }
+  }
+
+  /**
+   * Tells whether the last reload attempt failed, which means the served data is kept stale
+   * because the database is unavailable.
+   *
+   * @return true if the last reload attempt failed
+   */
+  public boolean isLastAttemptFailed() {
+    return lastAttemptFailed;
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void revalidate() {
+    try {
+      if (exchangeRateCache.isStale()) {
+        exchangeRateCache.refresh(currencyDao, exchangeRateDao);
+      }
+      lastAttemptFailed = false;
+    } catch (RuntimeException e) {
+      lastAttemptFailed = true;
+      nextAttemptMillis = System.currentTimeMillis() + retryDelayMillis;
+      LOGGER.log(Level.WARNING, "Failed to revalidate the cache, serving stale data", e);
+    } finally {
+      running.set(false);
+    }
+  }
+}
@@ -0,0 +1,319 @@
+package ru.starkov.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.CurrencyLookup;
+import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.dao.ExchangeRateLookup;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+
+/**
+ * The ExchangeRateCache class keeps an in-process copy of all currencies and exchange rates. The
+ * data is held in an immutable snapshot which is replaced as a whole on every change, so readers
+ * never take a lock. {@link CurrencyLookup} and {@link ExchangeRateLookup} views are exposed to let
+ * the services run the same lookup logic against the cache and against the database. The cache
+ * becomes stale when it has not been reloaded for longer than its freshness period; stale data is
+ * still served, see {@link CacheRevalidator}. The services record whether a lookup was served by
+ * the cache or had to go to the database, per {@link CacheLookup}.
+ */
+public final class ExchangeRateCache {
+
+  private final long freshnessMillis;
+  private final Object refreshLock = new Object();
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+  private List<Currency> pendingCurrencies;
+  private List<ExchangeRate> pendingExchangeRates;
+  private final CurrencyLookup currencyView = new CachedCurrencyLookup();
+  private final ExchangeRateLookup exchangeRateView = new CachedExchangeRateLookup();
+  private final LongAdder[] hits = newCounters();
+  private final LongAdder[] misses = newCounters();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param freshnessMillis the time after a reload during which the data is considered fresh
+   */
+  public ExchangeRateCache(long freshnessMillis) {
+    this.freshnessMillis = freshnessMillis;
+  }
+
+  /**
+   * Reloads the whole cache from the given data access objects, with their unbounded load queries.
+   * Changes put into the cache while the data is being loaded are applied on top of the loaded
+   * data, so they are not lost.
+   *
+   * @param currencyDao     the source of currencies
+   * @param exchangeRateDao the source of exchange rates
+   */
+  public void refresh(CurrencyDao currencyDao, ExchangeRateDao exchangeRateDao) {
+    synchronized (refreshLock) {
+      synchronized (this) {
+        pendingCurrencies = new ArrayList<>();
+        pendingExchangeRates = new ArrayList<>();
+      }
+      try {
+        var currencies = currencyDao.loadAll();
+        var exchangeRates = exchangeRateDao.loadAll();
+        synchronized (this) {
+          snapshot = Snapshot.of(currencies, exchangeRates)
+              .with(pendingCurrencies, pendingExchangeRates)
+              .loadedAt(System.currentTimeMillis());
+        }
+      } finally {
+        synchronized (this) {
+          pendingCurrencies = null;
+          pendingExchangeRates = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds or replaces a currency in the cache. Does nothing until the cache has been loaded.
+   *
+   * @param currency the currency to put
+   */
+  public synchronized void put(Currency currency) {
+    if (pendingCurrencies != null) {
+      pendingCurrencies.add(currency);
+    }
+    if (snapshot.isLoaded()) {
+      snapshot = snapshot.with(List.of(currency), List.of());
+    }
+  }
+
+  /**
+   * Adds or replaces an exchange rate in the cache. Does nothing until the cache has been loaded.
+   *
+   * @param exchangeRate the exchange rate to put
+   */
+  public synchronized void put(ExchangeRate exchangeRate) {
+    if (pendingExchangeRates != null) {
+      pendingExchangeRates.add(exchangeRate);
+    }
+    if (snapshot.isLoaded()) {
+      snapshot = snapshot.with(List.of(), List.of(exchangeRate));
+    }
+  }
+
+  /**
+   * Adds or replaces many exchange rates in the cache with a single new snapshot. Does nothing
+   * until the cache has been loaded.
+   *
+   * @param exchangeRates the exchange rates to put
+   */
+  public synchronized void putAll(Collection<ExchangeRate> exchangeRates) {
+    if (pendingExchangeRates != null) {
+      pendingExchangeRates.addAll(exchangeRates);
+    }
+    if (snapshot.isLoaded()) {
+      snapshot = snapshot.with(List.of(), exchangeRates);
+    }
+  }
+
+  public boolean isLoaded() {
+    return snapshot.isLoaded();
+  }
+
+  public boolean isStale() {
+    return isLoaded() && getAgeMillis() > freshnessMillis;
+  }
+
+  /**
+   * Returns the time passed since the cache was last reloaded from the database.
+   *
+   * @return the age of the cached data in milliseconds, or 0 if the cache is not loaded
+   */
+  public long getAgeMillis() {
+    var current = snapshot;
+    return current.isLoaded() ? System.currentTimeMillis() - current.loadedAtMillis : 0;
+  }
+
+  public CurrencyLookup currencies() {
+    return currencyView;
+  }
+
+  public ExchangeRateLookup exchangeRates() {
+    return exchangeRateView;
+  }
+
+  /**
+   * Records a lookup that was served by the cache, or missed it and went to the database.
+   *
+   * @param lookup the kind of lookup
+   * @param hit    true if the cache served the lookup
+   */
+  public void recordLookup(CacheLookup lookup, boolean hit) {
+    (hit ? hits : misses)[lookup.ordinal()].increment();
+  }
+
+  /**
+   * Records the outcome of a lookup of several items at once.
+   *
+   * @param lookup    the kind of lookup
+   * @param hitCount  the number of items served by the cache
+   * @param missCount the number of items loaded from the database
+   */
+  public void recordLookups(CacheLookup lookup, int hitCount, int missCount) {
+    hits[lookup.ordinal()].add(hitCount);
+    misses[lookup.ordinal()].add(missCount);
+  }
+
+  public long getHitCount(CacheLookup lookup) {
+    return hits[lookup.ordinal()].sum();
+  }
+
+  public long getMissCount(CacheLookup lookup) {
+    return misses[lookup.ordinal()].sum();
+  }
+
+  private static LongAdder[] newCounters() {
+    var counters = new LongAdder[CacheLookup.values().length];
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = new LongAdder();
+    }
+    return counters;
+  }
+
+  private static String codeKey(String code) {
+    return code.toUpperCase(Locale.ROOT);
+  }
+
+  private static String pairKey(String baseCurrencyCode, String targetCurrencyCode) {
+    return codeKey(baseCurrencyCode) + codeKey(targetCurrencyCode);
+  }
+
+  private static String pairKey(ExchangeRate exchangeRate) {
+    return pairKey(exchangeRate.getBaseCurrency().getCode(),
+        exchangeRate.getTargetCurrency().getCode());
+  }
+
+  private record Snapshot(
+      Map<String, Currency> currencies,
+      Map<String, ExchangeRate> exchangeRates,
+      Map<String, List<ExchangeRate>> byBaseCurrencyCode,
+      Map<String, List<ExchangeRate>> byTargetCurrencyCode,
+      long loadedAtMillis,
+      boolean isLoaded
+  ) {
+
+    private static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), Map.of(), Map.of(),
+        0, false);
+
+    private static Snapshot of(Collection<Currency> currencies,
+        Collection<ExchangeRate> exchangeRates) {
+      return EMPTY.with(currencies, exchangeRates);
+    }
+
+    private Snapshot with(Collection<Currency> changedCurrencies,
+        Collection<ExchangeRate> changedExchangeRates) {
+      Map<String, Currency> currencyMap = new HashMap<>(currencies);
+      for (Currency currency : changedCurrencies) {
+        currencyMap.put(codeKey(currency.getCode()), currency);
+      }
+      Map<String, ExchangeRate> exchangeRateMap = new HashMap<>(exchangeRates);
+      for (ExchangeRate exchangeRate : changedExchangeRates) {
+        exchangeRateMap.put(pairKey(exchangeRate), exchangeRate);
+      }
+      Map<String, List<ExchangeRate>> byBase = new HashMap<>();
+      Map<String, List<ExchangeRate>> byTarget = new HashMap<>();
+      for (ExchangeRate exchangeRate : exchangeRateMap.values()) {
+        byBase.computeIfAbsent(codeKey(exchangeRate.getBaseCurrency().getCode()),
+            key -> new ArrayList<>()).add(exchangeRate);
+        byTarget.computeIfAbsent(codeKey(exchangeRate.getTargetCurrency().getCode()),
+            key -> new ArrayList<>()).add(exchangeRate);
+      }
+      byBase.replaceAll((code, rates) -> List.copyOf(rates));
+      byTarget.replaceAll((code, rates) -> List.copyOf(rates));
+      return new Snapshot(Map.copyOf(currencyMap), Map.copyOf(exchangeRateMap),
+          Map.copyOf(byBase), Map.copyOf(byTarget), loadedAtMillis, true);
+    }
+
+    private Snapshot loadedAt(long millis) {
+      return new Snapshot(currencies, exchangeRates, byBaseCurrencyCode, byTargetCurrencyCode,
+          millis, true);
+    }
+  }
+
+  private final class CachedCurrencyLookup implements CurrencyLookup {
+
+    @Override
+    public Optional<Currency> findByCode(String code) {
+      return Optional.ofNullable(snapshot.currencies.get(codeKey(code)));
+    }
+
+    @Override
+    public List<Currency> findAllByCodes(List<String> codes) {
+      var current = snapshot;
+      List<Currency> currencies = new ArrayList<>(codes.size());
+      for (String code : codes) {
+        var currency = current.currencies.get(codeKey(code));
+        if (currency != null) {
+          currencies.add(currency);
+        }
+      }
+      return currencies;
+    }
+
+    @Override
+    public List<Currency> findAll() {
+      var currencies = new ArrayList<>(snapshot.currencies.values());
+      currencies.sort((first, second) -> Integer.compare(first.getId(), second.getId()));
+      return currencies;
+    }
+  }
+
+  private final class CachedExchangeRateLookup implements ExchangeRateLookup {
+
+    @Override
+    public Optional<ExchangeRate> findByCurrencies(Currency baseCurrency,
+        Currency targetCurrency) {
+      return findByCurrencyCodes(baseCurrency.getCode(), targetCurrency.getCode());
+    }
+
+    @Override
+    public Optional<ExchangeRate> findByCurrencyCodes(String baseCurrencyCode,
+        String targetCurrencyCode) {
+      return Optional.ofNullable(
+          snapshot.exchangeRates.get(pairKey(baseCurrencyCode, targetCurrencyCode)));
+    }
+
+    @Override
+    public List<ExchangeRate> findAllByBaseCurrencyCode(String baseCurrencyCode) {
+      return snapshot.byBaseCurrencyCode.getOrDefault(codeKey(baseCurrencyCode), List.of());
+    }
+
+    @Override
+    public List<ExchangeRate> findAllByTargetCurrencyCode(String targetCurrencyCode) {
+      return snapshot.byTargetCurrencyCode.getOrDefault(codeKey(targetCurrencyCode), List.of());
+    }
+
+    @Override
+    public List<ExchangeRate> findAllByCurrencyPairs(List<String> pairs) {
+      var current = snapshot;
+      List<ExchangeRate> exchangeRates = new ArrayList<>(pairs.size());
+      for (String pair : pairs) {
+        var exchangeRate = current.exchangeRates.get(codeKey(pair));
+        if (exchangeRate != null) {
+          exchangeRates.add(exchangeRate);
+        }
+      }
+      return exchangeRates;
+    }
+
+    @Override
+    public List<ExchangeRate> findAll() {
+      var exchangeRates = new ArrayList<>(snapshot.exchangeRates.values());
+      exchangeRates.sort((first, second) -> Integer.compare(first.getId(), second.getId()));
+      return exchangeRates;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package ru.starkov.dao;
+
+import java.util.List;
+import ru.starkov.model.Currency;
+
+/**
+ * An interface for accessing and managing currency entities in the data store.
+ * Extends the {@link CrudRepository} interface for basic CRUD operations and the
+ * {@link CurrencyLookup} interface for the lookups the cache serves as well.
+ *
+ * @see Currency
+ * @see CrudRepository
+ */
+public interface CurrencyDao extends CrudRepository<Currency>, CurrencyLookup {
+
+  /**
+   * Finds every currency, without the row limit of {@link #findAll()}, to load the cache.
+   *
+   * @return all currencies, ordered by ID
+   */
+  List<Currency> loadAll();
+}
@@ -0,0 +1,26 @@
+package ru.starkov.dao;
+
+import java.util.List;
+import java.util.Optional;
+import ru.starkov.model.Currency;
+
+/**
+ * The read-only lookups of currencies, served both by the {@link CurrencyDao} and by the
+ * in-process cache, so the services run the same lookup logic against either of them.
+ *
+ * @see Currency
+ */
+public interface CurrencyLookup {
+
+  Optional<Currency> findByCode(String code);
+
+  /**
+   * Finds the currencies with the given codes in a single query.
+   *
+   * @param codes the upper-case codes of the currencies
+   * @return the currencies found, ordered by ID; codes without a currency are skipped
+   */
+  List<Currency> findAllByCodes(List<String> codes);
+
+  List<Currency> findAll();
+}
@@ -0,0 +1,30 @@
+package ru.starkov.dao;
+
+import java.util.List;
+import ru.starkov.model.ExchangeRate;
+
+/**
+ * An interface for accessing and managing exchange rate entities in the data store. Extends the
+ * {@link CrudRepository} interface for basic CRUD operations and the {@link ExchangeRateLookup}
+ * interface for the lookups the cache serves as well.
+ *
+ * @see ExchangeRate
+ * @see CrudRepository
+ */
+public interface ExchangeRateDao extends CrudRepository<ExchangeRate>, ExchangeRateLookup {
+
+  /**
+   * Finds every exchange rate, without the row limit of {@link #findAll()}, to load the cache.
+   *
+   * @return all exchange rates, ordered by ID
+   */
+  List<ExchangeRate> loadAll();
+
+  /**
+   * Updates the rates of the given exchange rates, identified by their IDs, in a single batch.
+   *
+   * @param exchangeRates the exchange rates holding the new rates
+   */
+  void updateAll(List<ExchangeRate> exchangeRates);
+
+}
@@ -0,0 +1,34 @@
+package ru.starkov.dao;
+
+import java.util.List;
+import java.util.Optional;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+
+/**
+ * The read-only lookups of exchange rates, served both by the {@link ExchangeRateDao} and by the
+ * in-process cache, so the services run the same lookup logic against either of them.
+ *
+ * @see ExchangeRate
+ */
+public interface ExchangeRateLookup {
+
+  Optional<ExchangeRate> findByCurrencies(Currency baseCurrency, Currency targetCurrency);
+
+  Optional<ExchangeRate> findByCurrencyCodes(String baseCurrencyCode, String targetCurrencyCode);
+
+  List<ExchangeRate> findAllByBaseCurrencyCode(String baseCurrencyCode);
+
+  List<ExchangeRate> findAllByTargetCurrencyCode(String targetCurrencyCode);
+
+  /**
+   * Finds the exchange rates of the given currency pairs in a single query.
+   *
+   * @param pairs the upper-case codes of the base and target currencies of every pair, such as
+   *              {@code USDEUR}
+   * @return the exchange rates found, ordered by ID; pairs without an exchange rate are skipped
+   */
+  List<ExchangeRate> findAllByCurrencyPairs(List<String> pairs);
+
+  List<ExchangeRate> findAll();
+}
@@ -0,0 +1,18 @@
+package ru.starkov.dao;
+
+import java.sql.Connection;
+
+/**
+ * An interface for data access objects that run their statements on JDBC connections and can join
+ * a transaction opened by a service.
+ */
+public interface TransactionalDao {
+
+  /**
+   * Binds a connection to the calling thread, so the statements of this thread run on it instead
+   * of on a pooled connection of their own. Passing null unbinds it.
+   *
+   * @param connection the connection of the transaction
+   */
+  void setTransactionalConnection(Connection connection);
+}
@@ -9,20 +9,22 @@ import java.util.List;
 import java.util.Optional;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 import org.postgresql.util.PSQLException;
 import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.TransactionalDao;
 import ru.starkov.exception.CurrencyAlreadyExistException;
 import ru.starkov.exception.DatabaseException;
+import ru.starkov.metrics.QueryTimer;
 import ru.starkov.model.Currency;
 import ru.starkov.util.ConnectionManager;
+import ru.starkov.util.Deadline;
 
 /**
  * Implementation of the CurrencyDao interface for performing CRUD operations related to currencies
- * in the database.
+ * in the database. Every execution is timed with a {@link QueryTimer} under the name of its query.
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
-public class CurrencyDaoImpl implements CurrencyDao {
+public class CurrencyDaoImpl implements CurrencyDao, TransactionalDao {
 
   private static final String SAVE_SQL = """
       INSERT INTO currency_exchange_app.public.currencies (code, full_name, sign)
@@ -34,6 +36,11 @@ public class CurrencyDaoImpl implements CurrencyDao {
       ORDER BY id
       LIMIT 500;
       """;
+  private static final String LOAD_ALL_SQL = """
+      SELECT id, code, full_name, sign
+      FROM currency_exchange_app.public.currencies
+      ORDER BY id;
+      """;
 
   private static final String FIND_BY_CODE_SQL = """
       SELECT id, code, full_name, sign
@@ -41,6 +48,13 @@ public class CurrencyDaoImpl implements CurrencyDao {
       WHERE LOWER(code) = LOWER(?);
       """;
 
+  private static final String FIND_ALL_BY_CODES_SQL = """
+      SELECT id, code, full_name, sign
+      FROM currency_exchange_app.public.currencies
+      WHERE UPPER(code) = ANY(?)
+      ORDER BY id;
+      """;
+
   private static final String UPDATE_SQL = """
       UPDATE currency_exchange_app.public.currencies
       SET id = ?,
@@ -49,13 +63,18 @@ public class CurrencyDaoImpl implements CurrencyDao {
       sign = ?
       WHERE id = ?;
       """;
+  private static final String SAVE_QUERY = "CurrencyDao.SAVE_SQL";
+  private static final String FIND_ALL_QUERY = "CurrencyDao.FIND_ALL_SQL";
+  private static final String LOAD_ALL_QUERY = "CurrencyDao.LOAD_ALL_SQL";
+  private static final String FIND_BY_CODE_QUERY = "CurrencyDao.FIND_BY_CODE_SQL";
+  private static final String FIND_ALL_BY_CODES_QUERY = "CurrencyDao.FIND_ALL_BY_CODES_SQL";
+  private static final String UPDATE_QUERY = "CurrencyDao.UPDATE_SQL";
   private static final String FAILED_TO_FIND_CURRENCY_BY_CODE_ERROR_MESSAGE =
       "Failed to find currency by code";
 
   private static volatile CurrencyDaoImpl instance;
 
-  @Setter
-  private Connection transactionalConnection;
+  private final ThreadLocal<Connection> transactionalConnection = new ThreadLocal<>();
 
   /**
    * Returns the singleton instance of CurrencyDaoImpl.
@@ -73,21 +92,42 @@ public class CurrencyDaoImpl implements CurrencyDao {
     return instance;
   }
 
+  /**
+   * Binds a connection to the calling thread, so the queries issued by this thread run within the
+   * transaction of that connection. Passing null unbinds it.
+   *
+   * @param connection the transactional connection, or null
+   */
+  @Override
+  public void setTransactionalConnection(Connection connection) {
+    if (connection == null) {
+      transactionalConnection.remove();
+    } else {
+      transactionalConnection.set(connection);
+    }
+  }
+
   @Override
   public Currency save(Currency currency) {
+    var timer = QueryTimer.start(SAVE_QUERY, currency.getCode(), currency.getFullName(),
+        currency.getSign());
     try (var connection = ConnectionManager.getConnection();
         var preparedStatement = connection.prepareStatement(SAVE_SQL,
             Statement.RETURN_GENERATED_KEYS)) {
+      timer.acquired();
+      Deadline.applyTo(preparedStatement);
       preparedStatement.setString(1, currency.getCode());
       preparedStatement.setString(2, currency.getFullName());
       preparedStatement.setString(3, currency.getSign());
-      preparedStatement.executeUpdate();
+      var updated = preparedStatement.executeUpdate();
+      timer.executed();
       try (var generatedKeys = preparedStatement.getGeneratedKeys()) {
         if (generatedKeys.next()) {
           int id = generatedKeys.getInt(1);
           currency.setId(id);
         }
       }
+      timer.fetched(updated);
       return currency;
     } catch (SQLException e) {
       if (e instanceof PSQLException && e.getMessage()
@@ -96,61 +136,129 @@ public class CurrencyDaoImpl implements CurrencyDao {
             String.format("The currency with the code '%s' already exists in the database.",
                 currency.getCode()));
       } else {
-        throw new DatabaseException("Failed to save currency", e);
+        throw Deadline.databaseException("Failed to save currency", e);
       }
+    } finally {
+      timer.finish();
     }
   }
 
   @Override
   public List<Currency> findAll() {
+    return findAll(FIND_ALL_SQL, FIND_ALL_QUERY);
+  }
+
+  @Override
+  public List<Currency> loadAll() {
+    return findAll(LOAD_ALL_SQL, LOAD_ALL_QUERY);
+  }
+
+  private List<Currency> findAll(String sql, String query) {
     List<Currency> currencyList = new ArrayList<>();
+    var timer = QueryTimer.start(query);
     try (var connection = ConnectionManager.getConnection();
-        var preparedStatement = connection.prepareStatement(FIND_ALL_SQL)) {
+        var preparedStatement = connection.prepareStatement(sql)) {
+      timer.acquired();
+      Deadline.applyTo(preparedStatement);
       try (var resultSet = preparedStatement.executeQuery()) {
+        timer.executed();
         while (resultSet.next()) {
           currencyList.add(mapResultSetToCurrency(resultSet));
         }
       }
+      timer.fetched(currencyList.size());
       return currencyList;
     } catch (SQLException e) {
-      throw new DatabaseException("Failed to find currencies", e);
+      throw Deadline.databaseException("Failed to find currencies", e);
+    } finally {
+      timer.finish();
     }
   }
 
   @Override
   public Optional<Currency> findByCode(String code) {
+    var timer = QueryTimer.start(FIND_BY_CODE_QUERY, code);
     Connection connection = null;
     try {
-      connection = (transactionalConnection == null)
-          ? ConnectionManager.getConnection() : transactionalConnection;
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
       try (var preparedStatement = connection.prepareStatement(FIND_BY_CODE_SQL)) {
+        Deadline.applyTo(preparedStatement);
         preparedStatement.setString(1, code);
         try (var resultSet = preparedStatement.executeQuery()) {
+          timer.executed();
           if (resultSet.next()) {
-            return Optional.of(mapResultSetToCurrency(resultSet));
+            var currency = mapResultSetToCurrency(resultSet);
+            timer.fetched(1);
+            return Optional.of(currency);
           } else {
+            timer.fetched(0);
             return Optional.empty();
           }
         }
       }
     } catch (SQLException e) {
-      throw new DatabaseException(FAILED_TO_FIND_CURRENCY_BY_CODE_ERROR_MESSAGE, e);
+      throw Deadline.databaseException(FAILED_TO_FIND_CURRENCY_BY_CODE_ERROR_MESSAGE, e);
     } finally {
+      timer.finish();
+      closeNotTransactionalConnection(connection);
+    }
+  }
+
+  @Override
+  public List<Currency> findAllByCodes(List<String> codes) {
+    List<Currency> currencies = new ArrayList<>(codes.size());
+    var timer = QueryTimer.start(FIND_ALL_BY_CODES_QUERY, codes);
+    Connection connection = null;
+    try {
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
+      try (var preparedStatement = connection.prepareStatement(FIND_ALL_BY_CODES_SQL)) {
+        Deadline.applyTo(preparedStatement);
+        var codeArray = connection.createArrayOf("text", codes.toArray());
+        try {
+          preparedStatement.setArray(1, codeArray);
+          try (var resultSet = preparedStatement.executeQuery()) {
+            timer.executed();
+            while (resultSet.next()) {
+              currencies.add(mapResultSetToCurrency(resultSet));
+            }
+            timer.fetched(currencies.size());
+            return currencies;
+          }
+        } finally {
+          codeArray.free();
+        }
+      }
+    } catch (SQLException e) {
+      throw Deadline.databaseException(FAILED_TO_FIND_CURRENCY_BY_CODE_ERROR_MESSAGE, e);
+    } finally {
+      timer.finish();
       closeNotTransactionalConnection(connection);
     }
   }
 
   @Override
   public void update(Currency currency) {
+    var timer = QueryTimer.start(UPDATE_QUERY, currency.getId(), currency.getCode(),
+        currency.getFullName(), currency.getSign());
     try (var connection = ConnectionManager.getConnection();
         var preparedStatement = connection.prepareStatement(UPDATE_SQL)) {
+      timer.acquired();
+      Deadline.applyTo(preparedStatement);
       preparedStatement.setString(1, currency.getCode());
       preparedStatement.setString(2, currency.getFullName());
       preparedStatement.setString(3, currency.getSign());
       preparedStatement.setInt(4, currency.getId());
-      preparedStatement.executeUpdate();
+      var updated = preparedStatement.executeUpdate();
+      timer.executed();
+      timer.fetched(updated);
     } catch (SQLException e) {
-      throw new DatabaseException("Failed to update currency", e);
+      throw Deadline.databaseException("Failed to update currency", e);
+    } finally {
+      timer.finish();
     }
   }
 
@@ -164,7 +272,7 @@ public class CurrencyDaoImpl implements CurrencyDao {
   }
 
   private void closeNotTransactionalConnection(Connection connection) {
-    if (transactionalConnection == null && connection != null) {
+    if (transactionalConnection.get() == null && connection != null) {
       try {
         connection.close();
       } catch (SQLException e) {
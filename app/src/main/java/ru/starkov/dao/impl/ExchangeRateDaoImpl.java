@@ -9,21 +9,27 @@ import java.util.List;
 import java.util.Optional;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 import org.postgresql.util.PSQLException;
 import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.dao.TransactionalDao;
 import ru.starkov.exception.DatabaseException;
 import ru.starkov.exception.ExchangeRateAlreadyExistException;
+import ru.starkov.exception.ExchangeRateNotFoundException;
+import ru.starkov.metrics.QueryTimer;
 import ru.starkov.model.Currency;
 import ru.starkov.model.ExchangeRate;
 import ru.starkov.util.ConnectionManager;
+import ru.starkov.util.Deadline;
+import ru.starkov.util.PropertiesLoader;
+import ru.starkov.util.RequestParser;
 
 /**
  * Implementation of the ExchangeRateDao interface for performing CRUD operations related to
- * exchange rates in the database.
+ * exchange rates in the database. Every execution is timed with a {@link QueryTimer} under the
+ * name of its query.
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
-public class ExchangeRateDaoImpl implements ExchangeRateDao {
+public class ExchangeRateDaoImpl implements ExchangeRateDao, TransactionalDao {
 
   private static final String SAVE_SQL = """
       INSERT INTO currency_exchange_app.public.exchange_rates (base_currency_id, target_currency_id,
@@ -47,6 +53,22 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
       ORDER BY er.id
       LIMIT 500;
       """;
+  private static final String LOAD_ALL_SQL = """
+      SELECT er.id AS er_id,
+             er.rate AS er_rate,
+             bc.id AS bc_id,
+             bc.code AS bc_code,
+             bc.full_name AS bc_full_name,
+             bc.sign AS bc_sign,
+             tc.id AS tc_id,
+             tc.code AS tc_code,
+             tc.full_name AS tc_full_name,
+             tc.sign AS tc_sign
+      FROM currency_exchange_app.public.exchange_rates AS er
+      JOIN currency_exchange_app.public.currencies AS bc on bc.id = er.base_currency_id
+      JOIN currency_exchange_app.public.currencies AS tc ON er.target_currency_id = tc.id
+      ORDER BY er.id;
+      """;
 
   private static final String FIND_BY_CURRENCY_IDS_SQL = """
         SELECT er.id        AS er_id,
@@ -108,6 +130,12 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
       WHERE id = ?;
       """;
 
+  private static final String UPDATE_RATE_SQL = """
+      UPDATE currency_exchange_app.public.exchange_rates
+      SET rate = ?
+      WHERE id = ?;
+      """;
+
   private static final String FIND_ALL_BY_BASE_CURRENCY_CODE = """
       SELECT er.id AS er_id,
              er.rate AS er_rate,
@@ -151,6 +179,25 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
                      WHERE LOWER(code) = LOWER(?)) AS tc ON er.target_currency_id = tc.id
       LIMIT 500;
       """;
+  private static final String FIND_ALL_BY_CURRENCY_PAIRS_SQL = """
+      SELECT er.id        AS er_id,
+             er.rate      AS er_rate,
+             bc.id        AS bc_id,
+             bc.code      AS bc_code,
+             bc.full_name AS bc_full_name,
+             bc.sign      AS bc_sign,
+             tc.id        AS tc_id,
+             tc.code      AS tc_code,
+             tc.full_name AS tc_full_name,
+             tc.sign      AS tc_sign
+      FROM unnest(?, ?) AS pair(base_code, target_code)
+               JOIN currency_exchange_app.public.currencies AS bc ON UPPER(bc.code) = pair.base_code
+               JOIN currency_exchange_app.public.currencies AS tc
+                    ON UPPER(tc.code) = pair.target_code
+               JOIN currency_exchange_app.public.exchange_rates AS er
+                    ON er.base_currency_id = bc.id AND er.target_currency_id = tc.id
+      ORDER BY er.id;
+      """;
   private static final String FAILED_TO_SAVE_EXCHANGE_RATE_ERROR_MESSAGE =
       "Failed to save the exchange rate";
   private static final String FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE =
@@ -160,10 +207,27 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
   private static final String FAILED_TO_FIND_ALL_EXCHANGE_RATES_ERROR_MESSAGE =
       "Failed to find all exchange rates";
 
+  private static final String SAVE_QUERY = "ExchangeRateDao.SAVE_SQL";
+  private static final String FIND_ALL_QUERY = "ExchangeRateDao.FIND_ALL_SQL";
+  private static final String LOAD_ALL_QUERY = "ExchangeRateDao.LOAD_ALL_SQL";
+  private static final String FIND_BY_CURRENCY_IDS_QUERY =
+      "ExchangeRateDao.FIND_BY_CURRENCY_IDS_SQL";
+  private static final String FIND_BY_CODES_QUERY = "ExchangeRateDao.FIND_BY_CODES_SQL";
+  private static final String UPDATE_QUERY = "ExchangeRateDao.UPDATE_SQL";
+  private static final String UPDATE_RATE_QUERY = "ExchangeRateDao.UPDATE_RATE_SQL";
+  private static final String FIND_ALL_BY_BASE_CURRENCY_CODE_QUERY =
+      "ExchangeRateDao.FIND_ALL_BY_BASE_CURRENCY_CODE";
+  private static final String FIND_ALL_BY_TARGET_CURRENCY_CODE_QUERY =
+      "ExchangeRateDao.FIND_ALL_BY_TARGET_CURRENCY_CODE";
+  private static final String FIND_ALL_BY_CURRENCY_PAIRS_QUERY =
+      "ExchangeRateDao.FIND_ALL_BY_CURRENCY_PAIRS_SQL";
+  private static final String BATCH_SIZE = "db.batch.size";
+  private static final int DEFAULT_BATCH_SIZE = 100;
+
   private static volatile ExchangeRateDaoImpl instance;
 
-  @Setter
-  private Connection transactionalConnection;
+  private final ThreadLocal<Connection> transactionalConnection = new ThreadLocal<>();
+  private final int batchSize = PropertiesLoader.getInt(BATCH_SIZE, DEFAULT_BATCH_SIZE);
 
   /**
    * Returns the singleton instance of ExchangeRateDao.
@@ -181,24 +245,45 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
     return instance;
   }
 
+  /**
+   * Binds a connection to the calling thread, so the queries issued by this thread run within the
+   * transaction of that connection. Passing null unbinds it.
+   *
+   * @param connection the transactional connection, or null
+   */
+  @Override
+  public void setTransactionalConnection(Connection connection) {
+    if (connection == null) {
+      transactionalConnection.remove();
+    } else {
+      transactionalConnection.set(connection);
+    }
+  }
+
   @Override
   public ExchangeRate save(ExchangeRate exchangeRate) {
+    var timer = QueryTimer.start(SAVE_QUERY, exchangeRate.getBaseCurrency().getId(),
+        exchangeRate.getTargetCurrency().getId(), exchangeRate.getRate());
     Connection connection = null;
     try {
-      connection = (transactionalConnection == null)
-          ? ConnectionManager.getConnection() : transactionalConnection;
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
       try (var preparedStatement = connection.prepareStatement(SAVE_SQL,
           Statement.RETURN_GENERATED_KEYS)) {
+        Deadline.applyTo(preparedStatement);
         preparedStatement.setInt(1, exchangeRate.getBaseCurrency().getId());
         preparedStatement.setInt(2, exchangeRate.getTargetCurrency().getId());
         preparedStatement.setBigDecimal(3, exchangeRate.getRate());
-        preparedStatement.executeUpdate();
+        var updated = preparedStatement.executeUpdate();
+        timer.executed();
         try (var generatedKeys = preparedStatement.getGeneratedKeys()) {
           if (generatedKeys.next()) {
             var id = generatedKeys.getInt("id");
             exchangeRate.setId(id);
           }
         }
+        timer.fetched(updated);
         return exchangeRate;
       }
     } catch (SQLException e) {
@@ -210,51 +295,76 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
                 exchangeRate.getBaseCurrency().getCode(),
                 exchangeRate.getTargetCurrency().getCode()));
       } else {
-        throw new DatabaseException(FAILED_TO_SAVE_EXCHANGE_RATE_ERROR_MESSAGE, e);
+        throw Deadline.databaseException(FAILED_TO_SAVE_EXCHANGE_RATE_ERROR_MESSAGE, e);
       }
     } finally {
+      timer.finish();
       closeNotTransactionalConnection(connection, FAILED_TO_SAVE_EXCHANGE_RATE_ERROR_MESSAGE);
     }
   }
 
   @Override
   public List<ExchangeRate> findAll() {
+    return findAll(FIND_ALL_SQL, FIND_ALL_QUERY);
+  }
+
+  @Override
+  public List<ExchangeRate> loadAll() {
+    return findAll(LOAD_ALL_SQL, LOAD_ALL_QUERY);
+  }
+
+  private List<ExchangeRate> findAll(String sql, String query) {
     List<ExchangeRate> exchangeRates = new ArrayList<>();
+    var timer = QueryTimer.start(query);
     try (var connection = ConnectionManager.getConnection();
-        var preparedStatement = connection.prepareStatement(FIND_ALL_SQL)) {
+        var preparedStatement = connection.prepareStatement(sql)) {
+      timer.acquired();
+      Deadline.applyTo(preparedStatement);
       try (var resultSet = preparedStatement.executeQuery()) {
+        timer.executed();
         while (resultSet.next()) {
           var exchangeRate = mapResultSetToExchangeRate(resultSet);
           exchangeRates.add(exchangeRate);
         }
       }
+      timer.fetched(exchangeRates.size());
       return exchangeRates;
     } catch (SQLException e) {
-      throw new DatabaseException(FAILED_TO_FIND_ALL_EXCHANGE_RATES_ERROR_MESSAGE, e);
+      throw Deadline.databaseException(FAILED_TO_FIND_ALL_EXCHANGE_RATES_ERROR_MESSAGE, e);
+    } finally {
+      timer.finish();
     }
   }
 
   @Override
   public Optional<ExchangeRate> findByCurrencies(Currency baseCurrency, Currency targetCurrency) {
+    var timer = QueryTimer.start(FIND_BY_CURRENCY_IDS_QUERY, baseCurrency.getId(),
+        targetCurrency.getId());
     Connection connection = null;
     try {
-      connection = (transactionalConnection == null)
-          ? ConnectionManager.getConnection() : transactionalConnection;
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
       try (var preparedStatement = connection.prepareStatement(FIND_BY_CURRENCY_IDS_SQL)) {
+        Deadline.applyTo(preparedStatement);
         preparedStatement.setInt(1, baseCurrency.getId());
         preparedStatement.setInt(2, targetCurrency.getId());
         try (var resultSet = preparedStatement.executeQuery()) {
+          timer.executed();
           if (resultSet.next()) {
             var exchangeRate = mapResultSetToExchangeRate(resultSet);
+            timer.fetched(1);
             return Optional.of(exchangeRate);
           } else {
+            timer.fetched(0);
             return Optional.empty();
           }
         }
       }
     } catch (SQLException e) {
-      throw new DatabaseException(FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE, e);
+      throw Deadline.databaseException(FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE, e);
     } finally {
+      timer.finish();
       closeNotTransactionalConnection(connection, FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE);
     }
   }
@@ -262,44 +372,98 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
   @Override
   public Optional<ExchangeRate> findByCurrencyCodes(String baseCurrencyCode,
       String targetCurrencyCode) {
+    var timer = QueryTimer.start(FIND_BY_CODES_QUERY, baseCurrencyCode, targetCurrencyCode);
     Connection connection = null;
     try {
-      connection = (transactionalConnection == null)
-          ? ConnectionManager.getConnection() : transactionalConnection;
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
       try (var preparedStatement = connection.prepareStatement(FIND_BY_CODES_SQL)) {
+        Deadline.applyTo(preparedStatement);
         preparedStatement.setString(1, baseCurrencyCode);
         preparedStatement.setString(2, targetCurrencyCode);
         try (var resultSet = preparedStatement.executeQuery()) {
+          timer.executed();
           if (resultSet.next()) {
-            return Optional.of(mapResultSetToExchangeRate(resultSet));
+            var exchangeRate = mapResultSetToExchangeRate(resultSet);
+            timer.fetched(1);
+            return Optional.of(exchangeRate);
           } else {
+            timer.fetched(0);
             return Optional.empty();
           }
         }
       }
     } catch (SQLException e) {
-      throw new DatabaseException(FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES, e);
+      throw Deadline.databaseException(FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES, e);
     } finally {
+      timer.finish();
       closeNotTransactionalConnection(connection, FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES);
     }
   }
 
   @Override
   public void update(ExchangeRate exchangeRate) {
+    var timer = QueryTimer.start(UPDATE_QUERY, exchangeRate.getBaseCurrency().getId(),
+        exchangeRate.getTargetCurrency().getId(), exchangeRate.getRate(), exchangeRate.getId());
     Connection connection = null;
     try {
-      connection = (transactionalConnection == null)
-          ? ConnectionManager.getConnection() : transactionalConnection;
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
       try (var preparedStatement = connection.prepareStatement(UPDATE_SQL)) {
+        Deadline.applyTo(preparedStatement);
         preparedStatement.setInt(1, exchangeRate.getBaseCurrency().getId());
         preparedStatement.setInt(2, exchangeRate.getTargetCurrency().getId());
         preparedStatement.setBigDecimal(3, exchangeRate.getRate());
         preparedStatement.setInt(4, exchangeRate.getId());
-        preparedStatement.executeUpdate();
+        var updated = preparedStatement.executeUpdate();
+        timer.executed();
+        timer.fetched(updated);
+      }
+    } catch (SQLException e) {
+      throw Deadline.databaseException(FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE, e);
+    } finally {
+      timer.finish();
+      closeNotTransactionalConnection(connection, FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE);
+    }
+  }
+
+  /**
+   * Updates the rates in batches of {@code db.batch.size} statements. Should run within a
+   * transactional connection, otherwise every batch is committed on its own.
+   *
+   * @param exchangeRates the exchange rates holding the new rates
+   * @throws ExchangeRateNotFoundException if one of the exchange rates does not exist
+   */
+  @Override
+  public void updateAll(List<ExchangeRate> exchangeRates) {
+    var timer = QueryTimer.start(UPDATE_RATE_QUERY, exchangeRates.size());
+    Connection connection = null;
+    try {
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
+      try (var preparedStatement = connection.prepareStatement(UPDATE_RATE_SQL)) {
+        Deadline.applyTo(preparedStatement);
+        var batchStart = 0;
+        for (int i = 0; i < exchangeRates.size(); i++) {
+          var exchangeRate = exchangeRates.get(i);
+          preparedStatement.setBigDecimal(1, exchangeRate.getRate());
+          preparedStatement.setInt(2, exchangeRate.getId());
+          preparedStatement.addBatch();
+          if (i + 1 - batchStart == batchSize || i + 1 == exchangeRates.size()) {
+            checkUpdateCounts(preparedStatement.executeBatch(), exchangeRates, batchStart);
+            batchStart = i + 1;
+          }
+        }
+        timer.executed();
+        timer.fetched(exchangeRates.size());
       }
     } catch (SQLException e) {
-      throw new DatabaseException(FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE, e);
+      throw Deadline.databaseException(FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE, e);
     } finally {
+      timer.finish();
       closeNotTransactionalConnection(connection, FAILED_TO_UPDATE_EXCHANGE_RATE_ERROR_MESSAGE);
     }
   }
@@ -307,22 +471,28 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
   @Override
   public List<ExchangeRate> findAllByBaseCurrencyCode(String baseCurrencyCode) {
     List<ExchangeRate> exchangeRates = new ArrayList<>();
+    var timer = QueryTimer.start(FIND_ALL_BY_BASE_CURRENCY_CODE_QUERY, baseCurrencyCode);
     Connection connection = null;
     try {
-      connection = (transactionalConnection == null)
-          ? ConnectionManager.getConnection() : transactionalConnection;
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
       try (var preparedStatement = connection.prepareStatement(FIND_ALL_BY_BASE_CURRENCY_CODE)) {
+        Deadline.applyTo(preparedStatement);
         preparedStatement.setString(1, baseCurrencyCode);
         try (var resultSet = preparedStatement.executeQuery()) {
+          timer.executed();
           while (resultSet.next()) {
             exchangeRates.add(mapResultSetToExchangeRate(resultSet));
           }
+          timer.fetched(exchangeRates.size());
           return exchangeRates;
         }
       }
     } catch (SQLException e) {
-      throw new DatabaseException(FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES, e);
+      throw Deadline.databaseException(FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES, e);
     } finally {
+      timer.finish();
       closeNotTransactionalConnection(connection, FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES);
     }
   }
@@ -330,26 +500,88 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
   @Override
   public List<ExchangeRate> findAllByTargetCurrencyCode(String targetCurrencyCode) {
     List<ExchangeRate> exchangeRates = new ArrayList<>();
+    var timer = QueryTimer.start(FIND_ALL_BY_TARGET_CURRENCY_CODE_QUERY, targetCurrencyCode);
     Connection connection = null;
     try {
-      connection = (transactionalConnection == null)
-          ? ConnectionManager.getConnection() : transactionalConnection;
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
       try (var preparedStatement = connection.prepareStatement(FIND_ALL_BY_TARGET_CURRENCY_CODE)) {
+        Deadline.applyTo(preparedStatement);
         preparedStatement.setString(1, targetCurrencyCode);
         try (var resultSet = preparedStatement.executeQuery()) {
+          timer.executed();
           while (resultSet.next()) {
             exchangeRates.add(mapResultSetToExchangeRate(resultSet));
           }
+          timer.fetched(exchangeRates.size());
           return exchangeRates;
         }
       }
     } catch (SQLException e) {
-      throw new DatabaseException(FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES, e);
+      throw Deadline.databaseException(FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES, e);
     } finally {
+      timer.finish();
       closeNotTransactionalConnection(connection, FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES);
     }
   }
 
+  @Override
+  public List<ExchangeRate> findAllByCurrencyPairs(List<String> pairs) {
+    List<ExchangeRate> exchangeRates = new ArrayList<>(pairs.size());
+    var timer = QueryTimer.start(FIND_ALL_BY_CURRENCY_PAIRS_QUERY, pairs);
+    Connection connection = null;
+    try {
+      connection = (transactionalConnection.get() == null)
+          ? ConnectionManager.getConnection() : transactionalConnection.get();
+      timer.acquired();
+      try (var preparedStatement = connection.prepareStatement(FIND_ALL_BY_CURRENCY_PAIRS_SQL)) {
+        Deadline.applyTo(preparedStatement);
+        var baseCodes = new String[pairs.size()];
+        var targetCodes = new String[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+          baseCodes[i] = pairs.get(i).substring(0, RequestParser.CURRENCY_CODE_LENGTH);
+          targetCodes[i] = pairs.get(i).substring(RequestParser.CURRENCY_CODE_LENGTH);
+        }
+        var baseCodeArray = connection.createArrayOf("text", baseCodes);
+        var targetCodeArray = connection.createArrayOf("text", targetCodes);
+        try {
+          preparedStatement.setArray(1, baseCodeArray);
+          preparedStatement.setArray(2, targetCodeArray);
+          try (var resultSet = preparedStatement.executeQuery()) {
+            timer.executed();
+            while (resultSet.next()) {
+              exchangeRates.add(mapResultSetToExchangeRate(resultSet));
+            }
+            timer.fetched(exchangeRates.size());
+            return exchangeRates;
+          }
+        } finally {
+          baseCodeArray.free();
+          targetCodeArray.free();
+        }
+      }
+    } catch (SQLException e) {
+      throw Deadline.databaseException(FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES, e);
+    } finally {
+      timer.finish();
+      closeNotTransactionalConnection(connection, FAILED_TO_FIND_EXCHANGE_RATE_BY_CODES);
+    }
+  }
+
+  private void checkUpdateCounts(int[] updateCounts, List<ExchangeRate> exchangeRates,
+      int batchStart) {
+    for (int i = 0; i < updateCounts.length; i++) {
+      if (updateCounts[i] == 0) {
+        var exchangeRate = exchangeRates.get(batchStart + i);
+        throw new ExchangeRateNotFoundException(String.format(
+            "The exchange rate for the currency pair '%s%s' no longer exists in the database.",
+            exchangeRate.getBaseCurrency().getCode(),
+            exchangeRate.getTargetCurrency().getCode()));
+      }
+    }
+  }
+
   private ExchangeRate mapResultSetToExchangeRate(ResultSet resultSet) throws SQLException {
     var baseCurrency = Currency.builder()
         .id(resultSet.getInt("bc_id"))
@@ -374,7 +606,7 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
   }
 
   private void closeNotTransactionalConnection(Connection connection, String errorMessage) {
-    if (transactionalConnection == null && connection != null) {
+    if (transactionalConnection.get() == null && connection != null) {
       try {
         connection.close();
       } catch (SQLException e) {
@@ -0,0 +1,12 @@
+package ru.starkov.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A DTO (Data Transfer Object) representing a validated conversion request. This record contains
+ * the codes of the currencies to convert between and the amount to convert.
+ */
+public record ConversionRequest(String fromCurrencyCode, String toCurrencyCode,
+                                BigDecimal amount) {
+
+}
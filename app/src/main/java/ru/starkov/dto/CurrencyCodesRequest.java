@@ -0,0 +1,12 @@
+package ru.starkov.dto;
+
+import java.util.List;
+
+/**
+ * A DTO (Data Transfer Object) representing a validated request for many currencies at once. This
+ * record contains the distinct upper-case codes of the requested currencies in the order they were
+ * requested.
+ */
+public record CurrencyCodesRequest(List<String> codes) {
+
+}
@@ -0,0 +1,12 @@
+package ru.starkov.dto;
+
+import java.util.List;
+
+/**
+ * A DTO (Data Transfer Object) representing a validated request for the exchange rates of many
+ * currency pairs at once. This record contains the distinct upper-case pairs, such as
+ * {@code USDEUR}, in the order they were requested.
+ */
+public record CurrencyPairsRequest(List<String> pairs) {
+
+}
@@ -0,0 +1,11 @@
+package ru.starkov.dto;
+
+import java.util.List;
+
+/**
+ * A DTO (Data Transfer Object) representing a validated bulk update of exchange rates. Each entry
+ * holds the codes of a currency pair and its new rate; every pair occurs at most once.
+ */
+public record ExchangeRateBatch(List<ExchangeRateInfo> exchangeRates) {
+
+}
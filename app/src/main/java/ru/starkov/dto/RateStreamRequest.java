@@ -0,0 +1,12 @@
+package ru.starkov.dto;
+
+import ru.starkov.stream.BackpressurePolicy;
+
+/**
+ * A DTO (Data Transfer Object) representing a validated subscription to the exchange rate stream.
+ * This record contains the ID of the last event the client received, which is null for a new
+ * subscription, and the backpressure policy to apply when the client falls behind.
+ */
+public record RateStreamRequest(Long lastEventId, BackpressurePolicy backpressurePolicy) {
+
+}
@@ -0,0 +1,143 @@
+package ru.starkov.dto;
+
+/**
+ * The ResponseFormat enum lists the media types a response body can be encoded in. JSON is the
+ * default; CBOR and MessagePack are offered to service-to-service callers, which parse them with
+ * less CPU and receive fewer bytes.
+ */
+public enum ResponseFormat {
+
+  JSON("application/json"),
+  CBOR("application/cbor"),
+  MESSAGE_PACK("application/msgpack");
+
+  private static final String[] MESSAGE_PACK_ALIASES = {
+      "application/x-msgpack", "application/vnd.msgpack"};
+  private static final String[] JSON_WILDCARDS = {"*/*", "application/*"};
+  private static final String QUALITY_PARAMETER = "q=";
+
+  private final String mediaType;
+
+  ResponseFormat(String mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  public boolean isBinary() {
+    return this != JSON;
+  }
+
+  /**
+   * Chooses the format of a response from the {@code Accept} header of the request. The supported
+   * media range with the highest quality wins, an exact media type beating a wildcard of the same
+   * quality. JSON is chosen when the header is absent or names no supported format, so clients that
+   * ask for something else keep receiving what they always have.
+   *
+   * @param accept the value of the {@code Accept} header, may be null
+   * @return the format of the response
+   */
+  public static ResponseFormat negotiate(String accept) {
+    if (accept == null || accept.isEmpty()) {
+      return JSON;
+    }
+    ResponseFormat best = null;
+    var bestQuality = 0.0;
+    var bestExact = false;
+    var length = accept.length();
+    var start = 0;
+    while (start < length) {
+      var end = accept.indexOf(',', start);
+      if (end == -1) {
+        end = length;
+      }
+      var parametersStart = accept.indexOf(';', start);
+      if (parametersStart == -1 || parametersStart > end) {
+        parametersStart = end;
+      }
+      var typeStart = skipWhitespace(accept, start, parametersStart);
+      var typeEnd = trimWhitespace(accept, typeStart, parametersStart);
+      var format = ofMediaType(accept, typeStart, typeEnd);
+      var exact = format != null;
+      if (format == null && matchesAny(accept, typeStart, typeEnd, JSON_WILDCARDS)) {
+        format = JSON;
+      }
+      if (format != null) {
+        var quality = quality(accept, parametersStart, end);
+        if (quality > bestQuality || quality == bestQuality && quality > 0 && exact && !bestExact) {
+          best = format;
+          bestQuality = quality;
+          bestExact = exact;
+        }
+      }
+      start = end + 1;
+    }
+    return best == null ? JSON : best;
+  }
+
+  private static ResponseFormat ofMediaType(String value, int from, int to) {
+    for (ResponseFormat format : values()) {
+      if (matches(value, from, to, format.mediaType)) {
+        return format;
+      }
+    }
+    return matchesAny(value, from, to, MESSAGE_PACK_ALIASES) ? MESSAGE_PACK : null;
+  }
+
+  /**
+   * Returns the {@code q} parameter of a media range, 1 if it has none and 0 if it is malformed.
+   */
+  private static double quality(String value, int parametersStart, int end) {
+    var start = parametersStart;
+    while (start < end) {
+      var parameterStart = skipWhitespace(value, start + 1, end);
+      var parameterEnd = value.indexOf(';', parameterStart);
+      if (parameterEnd == -1 || parameterEnd > end) {
+        parameterEnd = end;
+      }
+      if (value.regionMatches(true, parameterStart, QUALITY_PARAMETER, 0,
+          QUALITY_PARAMETER.length())) {
+        try {
+          var quality = Double.parseDouble(value.substring(
+              parameterStart + QUALITY_PARAMETER.length(),
+              trimWhitespace(value, parameterStart, parameterEnd)));
+          return quality >= 0 && quality <= 1 ? quality : 0;
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+      start = parameterEnd;
+    }
+    return 1;
+  }
+
+  private static boolean matchesAny(String value, int from, int to, String[] mediaTypes) {
+    for (String mediaType : mediaTypes) {
+      if (matches(value, from, to, mediaType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean matches(String value, int from, int to, String mediaType) {
+    return to - from == mediaType.length()
+        && value.regionMatches(true, from, mediaType, 0, mediaType.length());
+  }
+
+  private static int skipWhitespace(String value, int from, int to) {
+    while (from < to && (value.charAt(from) == ' ' || value.charAt(from) == '\t')) {
+      from++;
+    }
+    return from;
+  }
+
+  private static int trimWhitespace(String value, int from, int to) {
+    while (to > from && (value.charAt(to - 1) == ' ' || value.charAt(to - 1) == '\t')) {
+      to--;
+    }
+    return to;
+  }
+}
@@ -0,0 +1,304 @@
+package ru.starkov.dto.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The BinaryOutput class writes values in a compact binary format into a reusable byte buffer
+ * which is flushed to an output stream whenever it fills up. Maps and arrays are written with
+ * their size up front, so writers count the fields they are going to write. Decimals are written
+ * as integers scaled by a power of ten agreed with the reader, which spares the reader parsing a
+ * decimal string; a decimal that does not fit a long once scaled is written as a plain string.
+ * Instances are not thread-safe and are reused through {@link BinarySerializer}.
+ *
+ * @see CborOutput
+ * @see MessagePackOutput
+ */
+public abstract sealed class BinaryOutput permits CborOutput, MessagePackOutput {
+
+  private static final int MIN_CAPACITY = 64;
+  private static final int MAX_CHAR_BYTES = 4;
+  private static final int MAX_LONG_DIGITS = 18;
+  private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  protected final byte[] buffer;
+  protected int count;
+  private OutputStream sink;
+  private boolean flushed;
+
+  BinaryOutput(int capacity) {
+    this.buffer = new byte[Math.max(capacity, MIN_CAPACITY)];
+  }
+
+  /**
+   * Starts a map of the given number of entries, each written as a key followed by a value.
+   *
+   * @param size the number of entries
+   */
+  public abstract void beginMap(int size) throws IOException;
+
+  /**
+   * Starts an array of the given number of elements.
+   *
+   * @param size the number of elements
+   */
+  public abstract void beginArray(int size) throws IOException;
+
+  /**
+   * Writes an integer value in the shortest encoding the format offers for it.
+   *
+   * @param value the value to write
+   */
+  public abstract void value(long value) throws IOException;
+
+  /**
+   * Writes a null value.
+   */
+  public abstract void nullValue() throws IOException;
+
+  /**
+   * Writes a UTF-8 string value, or null.
+   *
+   * @param value the value to write
+   */
+  public void value(String value) throws IOException {
+    if (value == null) {
+      nullValue();
+      return;
+    }
+    writeStringHeader(utf8Length(value));
+    writeUtf8(value);
+  }
+
+  /**
+   * Writes a decimal value as an integer scaled by {@code 10^scale}, or null.
+   *
+   * @param value the value to write
+   * @param scale the number of decimal places kept, rounding half up
+   */
+  public void scaledValue(BigDecimal value, int scale) throws IOException {
+    if (value == null) {
+      nullValue();
+      return;
+    }
+    var scaled = value.setScale(scale, RoundingMode.HALF_UP);
+    if (scaled.precision() > MAX_LONG_DIGITS) {
+      value(scaled.toPlainString());
+    } else {
+      value(scaled.unscaledValue().longValue());
+    }
+  }
+
+  /**
+   * Writes a decimal given in plain notation, such as {@code "-12.5"}, as an integer scaled by
+   * {@code 10^scale}, or null. The value is parsed in place; a value with more decimal places than
+   * the scale, or too large for a long once scaled, is written as the string.
+   *
+   * @param value the value to write
+   * @param scale the number of decimal places of the integer
+   */
+  public void scaledValue(String value, int scale) throws IOException {
+    if (value == null) {
+      nullValue();
+      return;
+    }
+    var length = value.length();
+    var negative = length > 0 && value.charAt(0) == '-';
+    var unscaled = 0L;
+    var digits = 0;
+    var fractionDigits = -1;
+    var anyDigit = false;
+    for (int i = negative ? 1 : 0; i < length; i++) {
+      var c = value.charAt(i);
+      if (c == '.' && fractionDigits == -1) {
+        fractionDigits = 0;
+      } else if (c >= '0' && c <= '9' && digits < MAX_LONG_DIGITS) {
+        unscaled = unscaled * 10 + (c - '0');
+        anyDigit = true;
+        if (unscaled != 0) {
+          digits++;
+        }
+        if (fractionDigits != -1) {
+          fractionDigits++;
+        }
+      } else {
+        value(value);
+        return;
+      }
+    }
+    fractionDigits = Math.max(fractionDigits, 0);
+    if (!anyDigit || fractionDigits > scale || digits + scale - fractionDigits > MAX_LONG_DIGITS) {
+      value(value);
+      return;
+    }
+    unscaled *= POWERS_OF_TEN[scale - fractionDigits];
+    value(negative ? -unscaled : unscaled);
+  }
+
+  /**
+   * Writes a string field, or nothing if the value is null.
+   *
+   * @param name  the field name
+   * @param value the field value
+   */
+  public void field(FieldName name, String value) throws IOException {
+    if (value != null) {
+      writeBytes(encoded(name));
+      value(value);
+    }
+  }
+
+  /**
+   * Writes a decimal field as an integer scaled by {@code 10^scale}, or nothing if the value is
+   * null.
+   *
+   * @param name  the field name
+   * @param value the field value
+   * @param scale the number of decimal places kept
+   */
+  public void scaledField(FieldName name, BigDecimal value, int scale) throws IOException {
+    if (value != null) {
+      writeBytes(encoded(name));
+      scaledValue(value, scale);
+    }
+  }
+
+  /**
+   * Writes a decimal field given in plain notation as an integer scaled by {@code 10^scale}, or
+   * nothing if the value is null.
+   *
+   * @param name  the field name
+   * @param value the field value
+   * @param scale the number of decimal places of the integer
+   */
+  public void scaledField(FieldName name, String value, int scale) throws IOException {
+    if (value != null) {
+      writeBytes(encoded(name));
+      scaledValue(value, scale);
+    }
+  }
+
+  /**
+   * Writes a field with the given writer, or nothing if the value is null.
+   *
+   * @param name   the field name
+   * @param value  the field value
+   * @param writer the writer of the field value
+   */
+  public <T> void field(FieldName name, T value, BinaryWriter<T> writer) throws IOException {
+    if (value != null) {
+      writeBytes(encoded(name));
+      writer.write(value, this);
+    }
+  }
+
+  abstract byte[] encoded(FieldName name);
+
+  /**
+   * Writes the header of a string of the given length in bytes.
+   */
+  abstract void writeStringHeader(int length) throws IOException;
+
+  void reset(OutputStream sink) {
+    this.sink = sink;
+    this.count = 0;
+    this.flushed = false;
+  }
+
+  boolean isFlushed() {
+    return flushed;
+  }
+
+  int size() {
+    return count;
+  }
+
+  void flush() throws IOException {
+    if (count > 0) {
+      sink.write(buffer, 0, count);
+      count = 0;
+      flushed = true;
+    }
+  }
+
+  void ensureCapacity(int length) throws IOException {
+    if (count + length > buffer.length) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes the lowest bytes of the value in big-endian order. The caller ensures the capacity.
+   */
+  void writeBigEndian(long value, int bytes) {
+    for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+      buffer[count++] = (byte) (value >>> shift);
+    }
+  }
+
+  private void writeBytes(byte[] bytes) throws IOException {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, count, bytes.length);
+    count += bytes.length;
+  }
+
+  /**
+   * Writes the string as UTF-8, replacing unpaired surrogates with {@code '?'} the same way
+   * {@link String#getBytes(java.nio.charset.Charset)} does.
+   */
+  private void writeUtf8(String value) throws IOException {
+    var length = value.length();
+    for (int i = 0; i < length; i++) {
+      ensureCapacity(MAX_CHAR_BYTES);
+      var c = value.charAt(i);
+      if (c < 0x80) {
+        buffer[count++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[count++] = (byte) (0xC0 | c >> 6);
+        buffer[count++] = (byte) (0x80 | c & 0x3F);
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        var codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buffer[count++] = (byte) (0xF0 | codePoint >> 18);
+        buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        buffer[count++] = (byte) (0x80 | codePoint & 0x3F);
+      } else if (Character.isSurrogate(c)) {
+        buffer[count++] = '?';
+      } else {
+        buffer[count++] = (byte) (0xE0 | c >> 12);
+        buffer[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+        buffer[count++] = (byte) (0x80 | c & 0x3F);
+      }
+    }
+  }
+
+  private static int utf8Length(String value) {
+    var length = value.length();
+    var bytes = length;
+    for (int i = 0; i < length; i++) {
+      var c = value.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          bytes++;
+        } else if (Character.isHighSurrogate(c) && i + 1 < length
+            && Character.isLowSurrogate(value.charAt(i + 1))) {
+          bytes += 2;
+          i++;
+        } else if (!Character.isSurrogate(c)) {
+          bytes += 2;
+        }
+      }
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,111 @@
+package ru.starkov.dto.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import ru.starkov.dto.ResponseFormat;
+
+/**
+ * The BinarySerializer class writes values in a binary {@link ResponseFormat} straight to an
+ * output stream through pooled {@link BinaryOutput} buffers, one pool per format. Like the JSON
+ * serializer, a fresh buffer is used when every pooled one is taken, so a request never waits.
+ */
+public final class BinarySerializer {
+
+  private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+  private static final int DEFAULT_POOL_SIZE = 64;
+
+  private final OutputPool cborPool;
+  private final OutputPool messagePackPool;
+
+  public BinarySerializer() {
+    this(DEFAULT_BUFFER_SIZE, DEFAULT_POOL_SIZE);
+  }
+
+  /**
+   * Creates a serializer.
+   *
+   * @param bufferSize the size of every pooled buffer in bytes
+   * @param poolSize   the maximum number of buffers kept for reuse per format
+   */
+  public BinarySerializer(int bufferSize, int poolSize) {
+    this.cborPool = new OutputPool(CborOutput::new, bufferSize, poolSize);
+    this.messagePackPool = new OutputPool(MessagePackOutput::new, bufferSize, poolSize);
+  }
+
+  /**
+   * Writes the value in the given format to the stream. When the whole value fits into the buffer,
+   * its length is reported before the first byte is written. The stream is neither flushed nor
+   * closed.
+   *
+   * @param value          the value to write
+   * @param writer         the writer of the value
+   * @param format         the binary format to write
+   * @param stream         the stream to write to
+   * @param lengthConsumer receives the encoded length if known in advance, may be null
+   * @param <T>            the type of the value
+   * @throws IOException              if an I/O error occurs
+   * @throws IllegalArgumentException if the format is not binary
+   */
+  public <T> void write(T value, BinaryWriter<T> writer, ResponseFormat format,
+      OutputStream stream, IntConsumer lengthConsumer) throws IOException {
+    var pool = switch (format) {
+      case CBOR -> cborPool;
+      case MESSAGE_PACK -> messagePackPool;
+      default -> throw new IllegalArgumentException("Not a binary format: " + format);
+    };
+    var out = pool.acquire();
+    try {
+      out.reset(stream);
+      if (value == null) {
+        out.nullValue();
+      } else {
+        writer.write(value, out);
+      }
+      if (!out.isFlushed() && lengthConsumer != null) {
+        lengthConsumer.accept(out.size());
+      }
+      out.flush();
+    } finally {
+      out.reset(null);
+      pool.release(out);
+    }
+  }
+
+  private static final class OutputPool {
+
+    private final IntFunction<BinaryOutput> factory;
+    private final int bufferSize;
+    private final AtomicReferenceArray<BinaryOutput> slots;
+
+    private OutputPool(IntFunction<BinaryOutput> factory, int bufferSize, int poolSize) {
+      this.factory = factory;
+      this.bufferSize = bufferSize;
+      this.slots = new AtomicReferenceArray<>(poolSize);
+    }
+
+    private BinaryOutput acquire() {
+      var start = (int) (Thread.currentThread().threadId() % slots.length());
+      for (int i = 0; i < slots.length(); i++) {
+        var index = (start + i) % slots.length();
+        var out = slots.getPlain(index);
+        if (out != null && slots.compareAndSet(index, out, null)) {
+          return out;
+        }
+      }
+      return factory.apply(bufferSize);
+    }
+
+    private void release(BinaryOutput out) {
+      var start = (int) (Thread.currentThread().threadId() % slots.length());
+      for (int i = 0; i < slots.length(); i++) {
+        var index = (start + i) % slots.length();
+        if (slots.getPlain(index) == null && slots.compareAndSet(index, null, out)) {
+          return;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package ru.starkov.dto.binary;
+
+import java.io.IOException;
+
+/**
+ * The BinaryWriter functional interface defines how a value is written into a
+ * {@link BinaryOutput}. The same writer serves every binary format. Implementations are stateless
+ * and shared.
+ *
+ * @param <T> the type of the written value
+ */
+@FunctionalInterface
+public interface BinaryWriter<T> {
+
+  /**
+   * Writes the value as a single data item.
+   *
+   * @param value the value to write
+   * @param out   the output to write to
+   * @throws IOException if an I/O error occurs while the output flushes its buffer
+   */
+  void write(T value, BinaryOutput out) throws IOException;
+}
@@ -0,0 +1,105 @@
+package ru.starkov.dto.binary;
+
+import java.util.List;
+import ru.starkov.dto.ConversionResult;
+import ru.starkov.dto.CurrencyRequestDto;
+import ru.starkov.dto.ExchangeRateDto;
+
+/**
+ * The BinaryWriters class holds the hand-written {@link BinaryWriter} instances for the response
+ * DTOs. Maps carry the same field names as the JSON documents and null fields are omitted as well,
+ * but rates are integers scaled by {@code 10^}{@value #RATE_SCALE} and amounts are integers scaled
+ * by {@code 10^}{@value #AMOUNT_SCALE}, so a rate of {@code 0.93} is sent as {@code 930000}.
+ */
+public final class BinaryWriters {
+
+  /**
+   * The number of decimal places of scaled rates, the scale of the rate column.
+   */
+  public static final int RATE_SCALE = 6;
+
+  /**
+   * The number of decimal places of scaled amounts.
+   */
+  public static final int AMOUNT_SCALE = 2;
+
+  private static final FieldName CODE = FieldName.of("code");
+  private static final FieldName NAME = FieldName.of("name");
+  private static final FieldName SIGN = FieldName.of("sign");
+  private static final FieldName BASE_CURRENCY = FieldName.of("baseCurrency");
+  private static final FieldName TARGET_CURRENCY = FieldName.of("targetCurrency");
+  private static final FieldName RATE = FieldName.of("rate");
+  private static final FieldName FROM = FieldName.of("from");
+  private static final FieldName TO = FieldName.of("to");
+  private static final FieldName AMOUNT = FieldName.of("amount");
+  private static final FieldName CONVERTED_AMOUNT = FieldName.of("convertedAmount");
+  private static final FieldName STATUS_FIELD = FieldName.of("status");
+
+  public static final BinaryWriter<CurrencyRequestDto> CURRENCY = (currency, out) -> {
+    out.beginMap(present(currency.code()) + present(currency.name())
+        + present(currency.sign()));
+    out.field(CODE, currency.code());
+    out.field(NAME, currency.name());
+    out.field(SIGN, currency.sign());
+  };
+
+  public static final BinaryWriter<List<CurrencyRequestDto>> CURRENCIES = list(CURRENCY);
+
+  public static final BinaryWriter<ExchangeRateDto> EXCHANGE_RATE = (exchangeRate, out) -> {
+    out.beginMap(present(exchangeRate.baseCurrency()) + present(exchangeRate.targetCurrency())
+        + present(exchangeRate.rate()));
+    out.field(BASE_CURRENCY, exchangeRate.baseCurrency(), CURRENCY);
+    out.field(TARGET_CURRENCY, exchangeRate.targetCurrency(), CURRENCY);
+    out.scaledField(RATE, exchangeRate.rate(), RATE_SCALE);
+  };
+
+  public static final BinaryWriter<List<ExchangeRateDto>> EXCHANGE_RATES = list(EXCHANGE_RATE);
+
+  public static final BinaryWriter<ConversionResult> CONVERSION_RESULT = (result, out) -> {
+    out.beginMap(present(result.from()) + present(result.to()) + present(result.rate())
+        + present(result.amount()) + present(result.convertedAmount()));
+    out.field(FROM, result.from(), CURRENCY);
+    out.field(TO, result.to(), CURRENCY);
+    out.scaledField(RATE, result.rate(), RATE_SCALE);
+    out.scaledField(AMOUNT, result.amount(), AMOUNT_SCALE);
+    out.scaledField(CONVERTED_AMOUNT, result.convertedAmount(), AMOUNT_SCALE);
+  };
+
+  /**
+   * Writes a status map with the single {@code status} field.
+   */
+  public static final BinaryWriter<String> STATUS = (status, out) -> {
+    out.beginMap(1);
+    out.field(STATUS_FIELD, status);
+  };
+
+  private BinaryWriters() {
+  }
+
+  /**
+   * Creates a writer of a list whose elements are written with the given writer. Null elements are
+   * written as null.
+   *
+   * @param elementWriter the writer of the list elements
+   * @param <T>           the type of the list elements
+   * @return the list writer
+   */
+  public static <T> BinaryWriter<List<T>> list(BinaryWriter<T> elementWriter) {
+    return (values, out) -> {
+      var size = values.size();
+      out.beginArray(size);
+      for (int i = 0; i < size; i++) {
+        var value = values.get(i);
+        if (value == null) {
+          out.nullValue();
+        } else {
+          elementWriter.write(value, out);
+        }
+      }
+    };
+  }
+
+  private static int present(Object value) {
+    return value == null ? 0 : 1;
+  }
+}
@@ -0,0 +1,81 @@
+package ru.starkov.dto.binary;
+
+import java.io.IOException;
+
+/**
+ * Writes values as CBOR (RFC 8949). Every item is encoded with definite length and the shortest
+ * argument, which is the preferred serialization of the specification.
+ */
+public final class CborOutput extends BinaryOutput {
+
+  private static final int UNSIGNED_INTEGER = 0;
+  private static final int NEGATIVE_INTEGER = 1 << 5;
+  private static final int TEXT_STRING = 3 << 5;
+  private static final int ARRAY = 4 << 5;
+  private static final int MAP = 5 << 5;
+  private static final int NULL = 0xF6;
+  private static final int MAX_HEADER_BYTES = 9;
+  private static final int MAX_INLINE_ARGUMENT = 23;
+  private static final int ONE_BYTE_ARGUMENT = 24;
+  private static final int TWO_BYTE_ARGUMENT = 25;
+  private static final int FOUR_BYTE_ARGUMENT = 26;
+  private static final int EIGHT_BYTE_ARGUMENT = 27;
+
+  CborOutput(int capacity) {
+    super(capacity);
+  }
+
+  @Override
+  public void beginMap(int size) throws IOException {
+    writeHeader(MAP, size);
+  }
+
+  @Override
+  public void beginArray(int size) throws IOException {
+    writeHeader(ARRAY, size);
+  }
+
+  @Override
+  public void value(long value) throws IOException {
+    if (value >= 0) {
+      writeHeader(UNSIGNED_INTEGER, value);
+    } else {
+      writeHeader(NEGATIVE_INTEGER, -1 - value);
+    }
+  }
+
+  @Override
+  public void nullValue() throws IOException {
+    ensureCapacity(1);
+    buffer[count++] = (byte) NULL;
+  }
+
+  @Override
+  byte[] encoded(FieldName name) {
+    return name.cbor();
+  }
+
+  @Override
+  void writeStringHeader(int length) throws IOException {
+    writeHeader(TEXT_STRING, length);
+  }
+
+  private void writeHeader(int majorType, long argument) throws IOException {
+    ensureCapacity(MAX_HEADER_BYTES);
+    if (argument <= MAX_INLINE_ARGUMENT) {
+      buffer[count++] = (byte) (majorType | argument);
+    } else if (argument <= 0xFF) {
+      buffer[count++] = (byte) (majorType | ONE_BYTE_ARGUMENT);
+      writeBigEndian(argument, 1);
+    } else if (argument <= 0xFFFF) {
+      buffer[count++] = (byte) (majorType | TWO_BYTE_ARGUMENT);
+      writeBigEndian(argument, 2);
+    } else if (argument <= 0xFFFFFFFFL) {
+      buffer[count++] = (byte) (majorType | FOUR_BYTE_ARGUMENT);
+      writeBigEndian(argument, 4);
+    } else {
+      buffer[count++] = (byte) (majorType | EIGHT_BYTE_ARGUMENT);
+      writeBigEndian(argument, 8);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package ru.starkov.dto.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The FieldName class holds a map key encoded in advance for every binary format, so writing a
+ * field name is a single copy of bytes.
+ */
+public final class FieldName {
+
+  private static final int ENCODING_CAPACITY = 64;
+
+  private final byte[] cbor;
+  private final byte[] messagePack;
+
+  private FieldName(byte[] cbor, byte[] messagePack) {
+    this.cbor = cbor;
+    this.messagePack = messagePack;
+  }
+
+  /**
+   * Encodes a field name.
+   *
+   * @param name the field name
+   * @return the encoded field name
+   */
+  public static FieldName of(String name) {
+    return new FieldName(encode(new CborOutput(ENCODING_CAPACITY), name),
+        encode(new MessagePackOutput(ENCODING_CAPACITY), name));
+  }
+
+  byte[] cbor() {
+    return cbor;
+  }
+
+  byte[] messagePack() {
+    return messagePack;
+  }
+
+  private static byte[] encode(BinaryOutput out, String name) {
+    var bytes = new ByteArrayOutputStream();
+    try {
+      out.reset(bytes);
+      out.value(name);
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+}
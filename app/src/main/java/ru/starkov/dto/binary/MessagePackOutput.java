@@ -0,0 +1,119 @@
+package ru.starkov.dto.binary;
+
+import java.io.IOException;
+
+/**
+ * Writes values as MessagePack. Integers, strings, arrays and maps use the smallest format family
+ * member that holds them, such as a positive fixint or a fixstr.
+ */
+public final class MessagePackOutput extends BinaryOutput {
+
+  private static final int MAX_HEADER_BYTES = 9;
+  private static final int POSITIVE_FIXINT_MAX = 0x7F;
+  private static final int NEGATIVE_FIXINT_MIN = -32;
+  private static final int FIXMAP = 0x80;
+  private static final int FIXARRAY = 0x90;
+  private static final int FIXSTR = 0xA0;
+  private static final int MAX_FIX_CONTAINER_SIZE = 15;
+  private static final int MAX_FIXSTR_LENGTH = 31;
+  private static final int NIL = 0xC0;
+  private static final int UINT8 = 0xCC;
+  private static final int UINT16 = 0xCD;
+  private static final int UINT32 = 0xCE;
+  private static final int UINT64 = 0xCF;
+  private static final int INT8 = 0xD0;
+  private static final int INT16 = 0xD1;
+  private static final int INT32 = 0xD2;
+  private static final int INT64 = 0xD3;
+  private static final int STR8 = 0xD9;
+  private static final int STR16 = 0xDA;
+  private static final int STR32 = 0xDB;
+  private static final int ARRAY16 = 0xDC;
+  private static final int ARRAY32 = 0xDD;
+  private static final int MAP16 = 0xDE;
+  private static final int MAP32 = 0xDF;
+
+  MessagePackOutput(int capacity) {
+    super(capacity);
+  }
+
+  @Override
+  public void beginMap(int size) throws IOException {
+    writeContainerHeader(FIXMAP, MAP16, MAP32, size);
+  }
+
+  @Override
+  public void beginArray(int size) throws IOException {
+    writeContainerHeader(FIXARRAY, ARRAY16, ARRAY32, size);
+  }
+
+  @Override
+  public void value(long value) throws IOException {
+    ensureCapacity(MAX_HEADER_BYTES);
+    if (value >= 0) {
+      if (value <= POSITIVE_FIXINT_MAX) {
+        buffer[count++] = (byte) value;
+      } else if (value <= 0xFF) {
+        writeTyped(UINT8, value, 1);
+      } else if (value <= 0xFFFF) {
+        writeTyped(UINT16, value, 2);
+      } else if (value <= 0xFFFFFFFFL) {
+        writeTyped(UINT32, value, 4);
+      } else {
+        writeTyped(UINT64, value, 8);
+      }
+    } else if (value >= NEGATIVE_FIXINT_MIN) {
+      buffer[count++] = (byte) value;
+    } else if (value >= Byte.MIN_VALUE) {
+      writeTyped(INT8, value, 1);
+    } else if (value >= Short.MIN_VALUE) {
+      writeTyped(INT16, value, 2);
+    } else if (value >= Integer.MIN_VALUE) {
+      writeTyped(INT32, value, 4);
+    } else {
+      writeTyped(INT64, value, 8);
+    }
+  }
+
+  @Override
+  public void nullValue() throws IOException {
+    ensureCapacity(1);
+    buffer[count++] = (byte) NIL;
+  }
+
+  @Override
+  byte[] encoded(FieldName name) {
+    return name.messagePack();
+  }
+
+  @Override
+  void writeStringHeader(int length) throws IOException {
+    ensureCapacity(MAX_HEADER_BYTES);
+    if (length <= MAX_FIXSTR_LENGTH) {
+      buffer[count++] = (byte) (FIXSTR | length);
+    } else if (length <= 0xFF) {
+      writeTyped(STR8, length, 1);
+    } else if (length <= 0xFFFF) {
+      writeTyped(STR16, length, 2);
+    } else {
+      writeTyped(STR32, length, 4);
+    }
+  }
+
+  private void writeContainerHeader(int fixType, int type16, int type32, int size)
+      throws IOException {
+    ensureCapacity(MAX_HEADER_BYTES);
+    if (size <= MAX_FIX_CONTAINER_SIZE) {
+      buffer[count++] = (byte) (fixType | size);
+    } else if (size <= 0xFFFF) {
+      writeTyped(type16, size, 2);
+    } else {
+      writeTyped(type32, size, 4);
+    }
+  }
+
+  private void writeTyped(int type, long value, int bytes) {
+    buffer[count++] = (byte) type;
+    writeBigEndian(value, bytes);
+  }
+}
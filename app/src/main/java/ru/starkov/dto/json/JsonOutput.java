@@ -0,0 +1,345 @@
+package ru.starkov.dto.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The JsonOutput class writes UTF-8 encoded JSON into a reusable byte buffer which is flushed to an
+ * output stream whenever it fills up, so no intermediate String of the document is ever built.
+ * Strings are escaped and numbers are formatted the same way the default {@code Gson} instance does
+ * it, which keeps the output byte-for-byte identical. Instances are not thread-safe and are reused
+ * through {@link JsonSerializer}.
+ */
+public final class JsonOutput {
+
+  private static final int MAX_DEPTH = 64;
+  private static final int MIN_CAPACITY = 64;
+  private static final int MAX_CHAR_BYTES = 6;
+  private static final int MAX_LONG_DIGITS = 18;
+  private static final char LINE_SEPARATOR = 0x2028;
+  private static final char PARAGRAPH_SEPARATOR = 0x2029;
+  private static final int MIN_PLAIN_EXPONENT = -6;
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  private final byte[] buffer;
+  private int count;
+  private OutputStream sink;
+  private boolean flushed;
+  private int depth;
+  private long arrays;
+  private long nonEmpty;
+
+  JsonOutput(int capacity) {
+    this.buffer = new byte[Math.max(capacity, MIN_CAPACITY)];
+  }
+
+  /**
+   * Encodes a field name into the bytes written before the field value, that is the quoted name
+   * followed by a colon. Intended for names known in advance, which need no escaping.
+   *
+   * @param name the field name
+   * @return the encoded field name
+   */
+  public static byte[] name(String name) {
+    return ("\"" + name + "\":").getBytes(StandardCharsets.UTF_8);
+  }
+
+  public void beginObject() throws IOException {
+    beforeValue();
+    push(false);
+    writeByte('{');
+  }
+
+  public void endObject() throws IOException {
+    depth--;
+    writeByte('}');
+  }
+
+  public void beginArray() throws IOException {
+    beforeValue();
+    push(true);
+    writeByte('[');
+  }
+
+  public void endArray() throws IOException {
+    depth--;
+    writeByte(']');
+  }
+
+  /**
+   * Writes a string field, or nothing if the value is null.
+   *
+   * @param name  the field name encoded with {@link #name(String)}
+   * @param value the field value
+   */
+  public void field(byte[] name, String value) throws IOException {
+    if (value != null) {
+      name(name);
+      writeString(value);
+    }
+  }
+
+  /**
+   * Writes a number field, or nothing if the value is null.
+   *
+   * @param name  the field name encoded with {@link #name(String)}
+   * @param value the field value
+   */
+  public void field(byte[] name, BigDecimal value) throws IOException {
+    if (value != null) {
+      name(name);
+      writeNumber(value);
+    }
+  }
+
+  /**
+   * Writes an object field with the given writer, or nothing if the value is null.
+   *
+   * @param name   the field name encoded with {@link #name(String)}
+   * @param value  the field value
+   * @param writer the writer of the field value
+   */
+  public <T> void field(byte[] name, T value, JsonWriter<T> writer) throws IOException {
+    if (value != null) {
+      name(name);
+      writer.write(value, this);
+    }
+  }
+
+  /**
+   * Writes a string value, or null.
+   *
+   * @param value the value to write
+   */
+  public void value(String value) throws IOException {
+    beforeValue();
+    if (value == null) {
+      writeNull();
+    } else {
+      writeString(value);
+    }
+  }
+
+  /**
+   * Writes a number value, or null.
+   *
+   * @param value the value to write
+   */
+  public void value(BigDecimal value) throws IOException {
+    beforeValue();
+    if (value == null) {
+      writeNull();
+    } else {
+      writeNumber(value);
+    }
+  }
+
+  /**
+   * Writes a null value.
+   */
+  public void nullValue() throws IOException {
+    beforeValue();
+    writeNull();
+  }
+
+  void reset(OutputStream sink) {
+    this.sink = sink;
+    this.count = 0;
+    this.flushed = false;
+    this.depth = 0;
+    this.arrays = 0;
+    this.nonEmpty = 0;
+  }
+
+  boolean isFlushed() {
+    return flushed;
+  }
+
+  int size() {
+    return count;
+  }
+
+  void flush() throws IOException {
+    if (count > 0) {
+      sink.write(buffer, 0, count);
+      count = 0;
+      flushed = true;
+    }
+  }
+
+  private void push(boolean array) {
+    if (depth == MAX_DEPTH) {
+      throw new IllegalStateException("JSON nesting is too deep");
+    }
+    var bit = 1L << depth;
+    arrays = array ? arrays | bit : arrays & ~bit;
+    nonEmpty &= ~bit;
+    depth++;
+  }
+
+  private void name(byte[] name) throws IOException {
+    separate();
+    writeBytes(name);
+  }
+
+  private void beforeValue() throws IOException {
+    if (depth > 0 && (arrays & 1L << (depth - 1)) != 0) {
+      separate();
+    }
+  }
+
+  private void separate() throws IOException {
+    var bit = 1L << (depth - 1);
+    if ((nonEmpty & bit) != 0) {
+      writeByte(',');
+    } else {
+      nonEmpty |= bit;
+    }
+  }
+
+  private void writeNull() throws IOException {
+    ensureCapacity(4);
+    buffer[count++] = 'n';
+    buffer[count++] = 'u';
+    buffer[count++] = 'l';
+    buffer[count++] = 'l';
+  }
+
+  private void writeString(String value) throws IOException {
+    writeByte('"');
+    var length = value.length();
+    for (int i = 0; i < length; i++) {
+      ensureCapacity(MAX_CHAR_BYTES);
+      var c = value.charAt(i);
+      if (c < 0x80) {
+        writeAscii(c);
+      } else if (c < 0x800) {
+        buffer[count++] = (byte) (0xC0 | c >> 6);
+        buffer[count++] = (byte) (0x80 | c & 0x3F);
+      } else if (c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+        writeUnicodeEscape(c);
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        var codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buffer[count++] = (byte) (0xF0 | codePoint >> 18);
+        buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        buffer[count++] = (byte) (0x80 | codePoint & 0x3F);
+      } else if (Character.isSurrogate(c)) {
+        buffer[count++] = '?';
+      } else {
+        buffer[count++] = (byte) (0xE0 | c >> 12);
+        buffer[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+        buffer[count++] = (byte) (0x80 | c & 0x3F);
+      }
+    }
+    writeByte('"');
+  }
+
+  private void writeAscii(char c) {
+    switch (c) {
+      case '"', '\\' -> {
+        buffer[count++] = '\\';
+        buffer[count++] = (byte) c;
+      }
+      case '\t' -> writeShortEscape('t');
+      case '\b' -> writeShortEscape('b');
+      case '\n' -> writeShortEscape('n');
+      case '\r' -> writeShortEscape('r');
+      case '\f' -> writeShortEscape('f');
+      case '<', '>', '&', '=', '\'' -> writeUnicodeEscape(c);
+      default -> {
+        if (c < 0x20) {
+          writeUnicodeEscape(c);
+        } else {
+          buffer[count++] = (byte) c;
+        }
+      }
+    }
+  }
+
+  private void writeShortEscape(char c) {
+    buffer[count++] = '\\';
+    buffer[count++] = (byte) c;
+  }
+
+  private void writeUnicodeEscape(char c) {
+    buffer[count++] = '\\';
+    buffer[count++] = 'u';
+    buffer[count++] = HEX[c >> 12 & 0xF];
+    buffer[count++] = HEX[c >> 8 & 0xF];
+    buffer[count++] = HEX[c >> 4 & 0xF];
+    buffer[count++] = HEX[c & 0xF];
+  }
+
+  /**
+   * Writes the number as {@link BigDecimal#toString()} would. The common case of a non-negative
+   * scale, an unscaled value that fits a long and no exponent is formatted straight into the
+   * buffer.
+   */
+  private void writeNumber(BigDecimal value) throws IOException {
+    var scale = value.scale();
+    if (scale < 0 || value.precision() > MAX_LONG_DIGITS
+        || value.precision() - 1 - scale < MIN_PLAIN_EXPONENT) {
+      writeAsciiString(value.toString());
+      return;
+    }
+    var unscaled = value.unscaledValue().longValue();
+    ensureCapacity(MAX_LONG_DIGITS + 3);
+    if (unscaled < 0) {
+      buffer[count++] = '-';
+      unscaled = -unscaled;
+    }
+    var digits = value.precision();
+    var integerDigits = digits - scale;
+    var length = scale == 0 ? digits : integerDigits > 0 ? digits + 1 : scale + 2;
+    var position = count + length;
+    for (int i = 0; i < scale; i++) {
+      buffer[--position] = (byte) ('0' + unscaled % 10);
+      unscaled /= 10;
+    }
+    if (scale > 0) {
+      buffer[--position] = '.';
+    }
+    if (integerDigits > 0) {
+      for (int i = 0; i < integerDigits; i++) {
+        buffer[--position] = (byte) ('0' + unscaled % 10);
+        unscaled /= 10;
+      }
+    } else {
+      buffer[--position] = '0';
+    }
+    count += length;
+  }
+
+  private void writeAsciiString(String value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      ensureCapacity(1);
+      buffer[count++] = (byte) value.charAt(i);
+    }
+  }
+
+  private void writeByte(char c) throws IOException {
+    ensureCapacity(1);
+    buffer[count++] = (byte) c;
+  }
+
+  private void writeBytes(byte[] bytes) throws IOException {
+    if (bytes.length > buffer.length) {
+      flush();
+      sink.write(bytes);
+      return;
+    }
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, count, bytes.length);
+    count += bytes.length;
+  }
+
+  private void ensureCapacity(int length) throws IOException {
+    if (count + length > buffer.length) {
+      flush();
+    }
+  }
+}
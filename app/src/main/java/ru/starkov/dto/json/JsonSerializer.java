@@ -0,0 +1,102 @@
+package ru.starkov.dto.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * The JsonSerializer class writes values as UTF-8 JSON straight to an output stream through pooled
+ * {@link JsonOutput} buffers. The pool is a lock-free array of slots; when every slot is taken a
+ * fresh buffer is used and dropped afterwards, so a request never waits for one.
+ */
+public final class JsonSerializer {
+
+  private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+  private static final int DEFAULT_POOL_SIZE = 64;
+
+  private final int bufferSize;
+  private final AtomicReferenceArray<JsonOutput> pool;
+
+  public JsonSerializer() {
+    this(DEFAULT_BUFFER_SIZE, DEFAULT_POOL_SIZE);
+  }
+
+  /**
+   * Creates a serializer.
+   *
+   * @param bufferSize the size of every pooled buffer in bytes
+   * @param poolSize   the maximum number of buffers kept for reuse
+   */
+  public JsonSerializer(int bufferSize, int poolSize) {
+    this.bufferSize = bufferSize;
+    this.pool = new AtomicReferenceArray<>(poolSize);
+  }
+
+  /**
+   * Writes the value as JSON to the stream. The stream is neither flushed nor closed.
+   *
+   * @param value  the value to write
+   * @param writer the writer of the value
+   * @param stream the stream to write to
+   * @param <T>    the type of the value
+   * @throws IOException if an I/O error occurs
+   */
+  public <T> void write(T value, JsonWriter<T> writer, OutputStream stream) throws IOException {
+    write(value, writer, stream, null);
+  }
+
+  /**
+   * Writes the value as JSON to the stream. When the whole document fits into the buffer, its
+   * length is reported before the first byte is written, which lets a servlet set the
+   * {@code Content-Length} header instead of falling back to chunked encoding.
+   *
+   * @param value          the value to write
+   * @param writer         the writer of the value
+   * @param stream         the stream to write to
+   * @param lengthConsumer receives the document length if known in advance, may be null
+   * @param <T>            the type of the value
+   * @throws IOException if an I/O error occurs
+   */
+  public <T> void write(T value, JsonWriter<T> writer, OutputStream stream,
+      IntConsumer lengthConsumer) throws IOException {
+    var out = acquire();
+    try {
+      out.reset(stream);
+      if (value == null) {
+        out.nullValue();
+      } else {
+        writer.write(value, out);
+      }
+      if (!out.isFlushed() && lengthConsumer != null) {
+        lengthConsumer.accept(out.size());
+      }
+      out.flush();
+    } finally {
+      out.reset(null);
+      release(out);
+    }
+  }
+
+  private JsonOutput acquire() {
+    var start = (int) (Thread.currentThread().threadId() % pool.length());
+    for (int i = 0; i < pool.length(); i++) {
+      var index = (start + i) % pool.length();
+      var out = pool.getPlain(index);
+      if (out != null && pool.compareAndSet(index, out, null)) {
+        return out;
+      }
+    }
+    return new JsonOutput(bufferSize);
+  }
+
+  private void release(JsonOutput out) {
+    var start = (int) (Thread.currentThread().threadId() % pool.length());
+    for (int i = 0; i < pool.length(); i++) {
+      var index = (start + i) % pool.length();
+      if (pool.getPlain(index) == null && pool.compareAndSet(index, null, out)) {
+        return;
+      }
+    }
+  }
+}
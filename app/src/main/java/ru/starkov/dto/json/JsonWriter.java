@@ -0,0 +1,22 @@
+package ru.starkov.dto.json;
+
+import java.io.IOException;
+
+/**
+ * The JsonWriter functional interface defines how a value is written as JSON into a
+ * {@link JsonOutput}. Implementations are stateless and shared.
+ *
+ * @param <T> the type of the written value
+ */
+@FunctionalInterface
+public interface JsonWriter<T> {
+
+  /**
+   * Writes the value as a single JSON value.
+   *
+   * @param value the value to write
+   * @param out   the output to write to
+   * @throws IOException if an I/O error occurs while the output flushes its buffer
+   */
+  void write(T value, JsonOutput out) throws IOException;
+}
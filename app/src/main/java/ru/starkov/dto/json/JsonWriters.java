@@ -0,0 +1,91 @@
+package ru.starkov.dto.json;
+
+import java.util.List;
+import ru.starkov.dto.ConversionResult;
+import ru.starkov.dto.CurrencyRequestDto;
+import ru.starkov.dto.ExchangeRateDto;
+
+/**
+ * The JsonWriters class holds the hand-written {@link JsonWriter} instances for the response DTOs.
+ * Fields are written in the declaration order of the record components and null fields are
+ * omitted, the same as the default {@code Gson} instance does it.
+ */
+public final class JsonWriters {
+
+  private static final byte[] CODE = JsonOutput.name("code");
+  private static final byte[] NAME = JsonOutput.name("name");
+  private static final byte[] SIGN = JsonOutput.name("sign");
+  private static final byte[] BASE_CURRENCY = JsonOutput.name("baseCurrency");
+  private static final byte[] TARGET_CURRENCY = JsonOutput.name("targetCurrency");
+  private static final byte[] RATE = JsonOutput.name("rate");
+  private static final byte[] FROM = JsonOutput.name("from");
+  private static final byte[] TO = JsonOutput.name("to");
+  private static final byte[] AMOUNT = JsonOutput.name("amount");
+  private static final byte[] CONVERTED_AMOUNT = JsonOutput.name("convertedAmount");
+  private static final byte[] STATUS_FIELD = JsonOutput.name("status");
+
+  public static final JsonWriter<CurrencyRequestDto> CURRENCY = (currency, out) -> {
+    out.beginObject();
+    out.field(CODE, currency.code());
+    out.field(NAME, currency.name());
+    out.field(SIGN, currency.sign());
+    out.endObject();
+  };
+
+  public static final JsonWriter<List<CurrencyRequestDto>> CURRENCIES = list(CURRENCY);
+
+  public static final JsonWriter<ExchangeRateDto> EXCHANGE_RATE = (exchangeRate, out) -> {
+    out.beginObject();
+    out.field(BASE_CURRENCY, exchangeRate.baseCurrency(), CURRENCY);
+    out.field(TARGET_CURRENCY, exchangeRate.targetCurrency(), CURRENCY);
+    out.field(RATE, exchangeRate.rate());
+    out.endObject();
+  };
+
+  public static final JsonWriter<List<ExchangeRateDto>> EXCHANGE_RATES = list(EXCHANGE_RATE);
+
+  public static final JsonWriter<ConversionResult> CONVERSION_RESULT = (result, out) -> {
+    out.beginObject();
+    out.field(FROM, result.from(), CURRENCY);
+    out.field(TO, result.to(), CURRENCY);
+    out.field(RATE, result.rate());
+    out.field(AMOUNT, result.amount());
+    out.field(CONVERTED_AMOUNT, result.convertedAmount());
+    out.endObject();
+  };
+
+  /**
+   * Writes a status object with the single {@code status} field.
+   */
+  public static final JsonWriter<String> STATUS = (status, out) -> {
+    out.beginObject();
+    out.field(STATUS_FIELD, status);
+    out.endObject();
+  };
+
+  private JsonWriters() {
+  }
+
+  /**
+   * Creates a writer of a list whose elements are written with the given writer. Null elements are
+   * written as JSON null.
+   *
+   * @param elementWriter the writer of the list elements
+   * @param <T>           the type of the list elements
+   * @return the list writer
+   */
+  public static <T> JsonWriter<List<T>> list(JsonWriter<T> elementWriter) {
+    return (values, out) -> {
+      out.beginArray();
+      for (int i = 0, size = values.size(); i < size; i++) {
+        var value = values.get(i);
+        if (value == null) {
+          out.nullValue();
+        } else {
+          elementWriter.write(value, out);
+        }
+      }
+      out.endArray();
+    };
+  }
+}
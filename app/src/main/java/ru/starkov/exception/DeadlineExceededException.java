@@ -0,0 +1,16 @@
+package ru.starkov.exception;
+
+/**
+ * An exception indicating that the deadline of a request has passed. This exception is thrown
+ * instead of starting further work for the request, and when a query is cancelled by its timeout.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+  public DeadlineExceededException(String message) {
+    super(message);
+  }
+
+  public DeadlineExceededException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,12 @@
+package ru.starkov.exception;
+
+/**
+ * An exception indicating that a request body is malformed or exceeds the parser limits. This
+ * exception is thrown while a request body is being parsed.
+ */
+public class InvalidRequestBodyException extends RuntimeException {
+
+  public InvalidRequestBodyException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,26 @@
+package ru.starkov.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a wait for a pooled connection.
+ */
+@Name("ru.starkov.ConnectionWait")
+@Label("Connection Wait")
+@Category({"Currency Exchange", "Database"})
+@Description("A wait for a connection of the pool")
+@StackTrace(false)
+public final class ConnectionWaitEvent extends Event {
+
+  @Label("Queued Callers")
+  @Description("Callers already waiting when the wait began")
+  int queuedCallers;
+
+  @Label("Acquired")
+  boolean acquired;
+}
@@ -0,0 +1,40 @@
+package ru.starkov.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a single currency conversion, with the way it was resolved and the
+ * number of queries it issued.
+ */
+@Name("ru.starkov.Conversion")
+@Label("Conversion")
+@Category({"Currency Exchange", "Service"})
+@Description("A conversion of an amount from one currency to another")
+@StackTrace(false)
+public final class ConversionEvent extends Event {
+
+  @Label("From Currency")
+  String fromCurrency;
+
+  @Label("To Currency")
+  String toCurrency;
+
+  @Label("Source")
+  @Description("Whether the conversion was resolved against the cache or the database")
+  String source;
+
+  @Label("Path")
+  @Description("The exchange rates the conversion was resolved with")
+  String path;
+
+  @Label("Queries")
+  int queries;
+
+  @Label("Failed")
+  boolean failed;
+}
@@ -0,0 +1,23 @@
+package ru.starkov.jfr;
+
+/**
+ * The ConversionPath enum names the ways a conversion can be resolved, from the cheapest to the
+ * most expensive one, for telling conversions apart in {@link ConversionEvent}s.
+ */
+public enum ConversionPath {
+
+  DIRECT("direct"),
+  INVERSE("inverse"),
+  CROSS_VIA_TARGET("cross_via_target"),
+  CROSS_VIA_BASE("cross_via_base");
+
+  private final String label;
+
+  ConversionPath(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
@@ -0,0 +1,170 @@
+package ru.starkov.jfr;
+
+import java.util.function.IntSupplier;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The FlightEvents class emits the flight recorder events of the application. Events are only
+ * created while enabled, so when they are disabled an instrumented call costs a single volatile
+ * read. While enabled, the events are still filtered by the settings of the running recordings,
+ * for example a threshold on the duration.
+ *
+ * <p>The conversion in progress is bound to the calling thread like the {@link
+ * ru.starkov.util.Deadline}, so the queries it issues and the way it is resolved are added to its
+ * event without being passed through every call.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FlightEvents {
+
+  private static final String SOURCE_CACHE = "cache";
+  private static final String SOURCE_DATABASE = "database";
+  private static final ThreadLocal<ConversionEvent> conversion = new ThreadLocal<>();
+  private static volatile boolean enabled;
+
+  public static void setEnabled(boolean enabled) {
+    FlightEvents.enabled = enabled;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Begins the event of a conversion and binds it to the calling thread until
+   * {@link #endConversion(ConversionEvent, boolean)}.
+   *
+   * @param fromCurrencyCode the code of the currency to convert from
+   * @param toCurrencyCode   the code of the currency to convert to
+   * @return the event, or null if events are disabled
+   */
+  public static ConversionEvent beginConversion(String fromCurrencyCode, String toCurrencyCode) {
+    if (!enabled) {
+      return null;
+    }
+    var event = new ConversionEvent();
+    event.fromCurrency = fromCurrencyCode;
+    event.toCurrency = toCurrencyCode;
+    event.source = SOURCE_CACHE;
+    conversion.set(event);
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Marks the conversion of the calling thread as resolved against the database.
+   */
+  public static void conversionFromDatabase() {
+    if (enabled) {
+      var event = conversion.get();
+      if (event != null) {
+        event.source = SOURCE_DATABASE;
+      }
+    }
+  }
+
+  /**
+   * Records the way the conversion of the calling thread was resolved.
+   *
+   * @param path the exchange rates the conversion was resolved with
+   */
+  public static void conversionPath(ConversionPath path) {
+    if (enabled) {
+      var event = conversion.get();
+      if (event != null) {
+        event.path = path.getLabel();
+      }
+    }
+  }
+
+  /**
+   * Commits the event of a conversion and unbinds it from the calling thread.
+   *
+   * @param event  the event returned by {@link #beginConversion(String, String)}, may be null
+   * @param failed whether the conversion threw
+   */
+  public static void endConversion(ConversionEvent event, boolean failed) {
+    if (event == null) {
+      return;
+    }
+    conversion.remove();
+    event.failed = failed;
+    event.commit();
+  }
+
+  /**
+   * Begins the event of a query and counts it towards the conversion of the calling thread.
+   *
+   * @param queryName the name of the query
+   * @return the event, or null if events are disabled
+   */
+  public static QueryEvent beginQuery(String queryName) {
+    if (!enabled) {
+      return null;
+    }
+    var current = conversion.get();
+    if (current != null) {
+      current.queries++;
+    }
+    var event = new QueryEvent();
+    event.query = queryName;
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits the event of a query.
+   *
+   * @param event        the event returned by {@link #beginQuery(String)}, may be null
+   * @param acquireNanos the time spent acquiring the connection
+   * @param executeNanos the time spent executing the statement
+   * @param fetchNanos   the time spent fetching the results
+   * @param rows         the number of rows read or changed
+   * @param failed       whether the execution failed
+   */
+  public static void endQuery(QueryEvent event, long acquireNanos, long executeNanos,
+      long fetchNanos, int rows, boolean failed) {
+    if (event == null) {
+      return;
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.acquire = acquireNanos;
+      event.execute = executeNanos;
+      event.fetch = fetchNanos;
+      event.rows = rows;
+      event.failed = failed;
+      event.commit();
+    }
+  }
+
+  /**
+   * Begins the event of a wait for a pooled connection.
+   *
+   * @param queuedCallers supplies the number of callers already waiting, read only if enabled
+   * @return the event, or null if events are disabled
+   */
+  public static ConnectionWaitEvent beginConnectionWait(IntSupplier queuedCallers) {
+    if (!enabled) {
+      return null;
+    }
+    var event = new ConnectionWaitEvent();
+    event.queuedCallers = queuedCallers.getAsInt();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits the event of a wait for a pooled connection.
+   *
+   * @param event    the event returned by {@link #beginConnectionWait(IntSupplier)}, may be null
+   * @param acquired whether a connection was acquired
+   */
+  public static void endConnectionWait(ConnectionWaitEvent event, boolean acquired) {
+    if (event == null) {
+      return;
+    }
+    event.acquired = acquired;
+    event.commit();
+  }
+}
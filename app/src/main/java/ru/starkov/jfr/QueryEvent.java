@@ -0,0 +1,42 @@
+package ru.starkov.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a single execution of a named query, split into the phases timed by
+ * the {@link ru.starkov.metrics.QueryTimer}.
+ */
+@Name("ru.starkov.Query")
+@Label("Query")
+@Category({"Currency Exchange", "Database"})
+@Description("An execution of a statement by a data access object")
+@StackTrace(false)
+public final class QueryEvent extends Event {
+
+  @Label("Query")
+  String query;
+
+  @Label("Acquire")
+  @Timespan
+  long acquire;
+
+  @Label("Execute")
+  @Timespan
+  long execute;
+
+  @Label("Fetch")
+  @Timespan
+  long fetch;
+
+  @Label("Rows")
+  int rows;
+
+  @Label("Failed")
+  boolean failed;
+}
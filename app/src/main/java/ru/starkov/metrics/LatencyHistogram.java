@@ -0,0 +1,97 @@
+package ru.starkov.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram class counts durations into fixed buckets. Every bucket is a
+ * {@link LongAdder}, so recording takes no lock and concurrent recorders rarely contend; reading
+ * sums the adders and may miss a duration recorded at the same moment, which is fine for a scrape.
+ * Buckets are exported cumulatively in seconds, the way Prometheus expects them.
+ */
+public final class LatencyHistogram {
+
+  /**
+   * The default upper bounds of the buckets in seconds, from half a millisecond to ten seconds.
+   */
+  private static final double[] DEFAULT_BOUNDS_SECONDS = {
+      0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+  private static final String INFINITY_LABEL = "+Inf";
+
+  private final long[] boundsNanos;
+  private final String[] boundLabels;
+  private final LongAdder[] buckets;
+  private final LongAdder sumNanos = new LongAdder();
+
+  public LatencyHistogram() {
+    this(DEFAULT_BOUNDS_SECONDS);
+  }
+
+  /**
+   * Creates a histogram.
+   *
+   * @param boundsSeconds the ascending upper bounds of the buckets in seconds; a bucket for
+   *                      everything above the last bound is added
+   */
+  public LatencyHistogram(double... boundsSeconds) {
+    this.boundsNanos = new long[boundsSeconds.length];
+    this.boundLabels = new String[boundsSeconds.length + 1];
+    this.buckets = new LongAdder[boundsSeconds.length + 1];
+    for (int i = 0; i < boundsSeconds.length; i++) {
+      boundsNanos[i] = (long) (boundsSeconds[i] * TimeUnit.SECONDS.toNanos(1));
+      boundLabels[i] = BigDecimal.valueOf(boundsSeconds[i]).stripTrailingZeros().toPlainString();
+    }
+    boundLabels[boundsSeconds.length] = INFINITY_LABEL;
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos the duration in nanoseconds
+   */
+  public void record(long nanos) {
+    var bucket = 0;
+    while (bucket < boundsNanos.length && nanos > boundsNanos[bucket]) {
+      bucket++;
+    }
+    buckets[bucket].increment();
+    sumNanos.add(nanos);
+  }
+
+  /**
+   * Returns the number of buckets, including the last one without an upper bound.
+   *
+   * @return the number of buckets
+   */
+  public int getBucketCount() {
+    return buckets.length;
+  }
+
+  /**
+   * Returns the upper bound of a bucket as the Prometheus {@code le} label value.
+   *
+   * @param bucket the index of the bucket
+   * @return the upper bound in seconds, or {@code +Inf} for the last bucket
+   */
+  public String getBoundLabel(int bucket) {
+    return boundLabels[bucket];
+  }
+
+  /**
+   * Returns the number of durations recorded in a bucket alone, not including lower buckets.
+   *
+   * @param bucket the index of the bucket
+   * @return the number of durations
+   */
+  public long getCount(int bucket) {
+    return buckets[bucket].sum();
+  }
+
+  public long getSumNanos() {
+    return sumNanos.sum();
+  }
+}
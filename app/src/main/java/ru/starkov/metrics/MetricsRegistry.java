@@ -0,0 +1,66 @@
+package ru.starkov.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The MetricsRegistry class collects the request metrics of every servlet: a latency histogram and
+ * a counter per status code. Recording a request looks up the servlet in a concurrent map and
+ * increments adders; it neither locks nor allocates once the servlet and status have been seen.
+ */
+public final class MetricsRegistry {
+
+  static final int MIN_STATUS = 100;
+  static final int MAX_STATUS = 599;
+
+  private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+  /**
+   * Records a handled request.
+   *
+   * @param servletName the name of the servlet that handled the request
+   * @param status      the status code of the response
+   * @param nanos       the time from receiving the request to completing the response
+   */
+  public void recordRequest(String servletName, int status, long nanos) {
+    var endpoint = endpoints.get(servletName);
+    if (endpoint == null) {
+      endpoint = endpoints.computeIfAbsent(servletName, name -> new EndpointMetrics());
+    }
+    endpoint.latency.record(nanos);
+    if (status >= MIN_STATUS && status <= MAX_STATUS) {
+      var index = status - MIN_STATUS;
+      var counter = endpoint.statusCounts.get(index);
+      if (counter == null) {
+        endpoint.statusCounts.compareAndSet(index, null, new LongAdder());
+        counter = endpoint.statusCounts.get(index);
+      }
+      counter.increment();
+    }
+  }
+
+  Map<String, EndpointMetrics> getEndpoints() {
+    return endpoints;
+  }
+
+  static final class EndpointMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicReferenceArray<LongAdder> statusCounts =
+        new AtomicReferenceArray<>(MAX_STATUS - MIN_STATUS + 1);
+
+    LatencyHistogram getLatency() {
+      return latency;
+    }
+
+    /**
+     * Returns the number of responses with the given status code.
+     */
+    long getStatusCount(int status) {
+      var counter = statusCounts.get(status - MIN_STATUS);
+      return counter == null ? 0 : counter.sum();
+    }
+  }
+}
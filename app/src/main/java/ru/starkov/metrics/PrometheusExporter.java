@@ -0,0 +1,199 @@
+package ru.starkov.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import ru.starkov.admission.AdmissionController;
+import ru.starkov.admission.RequestPriority;
+import ru.starkov.cache.CacheLookup;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.stream.RateChangeBroadcaster;
+import ru.starkov.util.ConnectionManager;
+
+/**
+ * The PrometheusExporter class writes the metrics of the application in the Prometheus text
+ * exposition format, version 0.0.4: request counts and latencies per servlet, the state of the
+ * connection pool, query timings, cache hits and misses, load shedding and stream subscribers.
+ * Values are read when a scrape arrives, so nothing is kept between scrapes.
+ */
+public final class PrometheusExporter {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final MetricsRegistry metricsRegistry;
+  private final ExchangeRateCache exchangeRateCache;
+  private final AdmissionController admissionController;
+  private final RateChangeBroadcaster rateChangeBroadcaster;
+
+  /**
+   * Creates an exporter.
+   *
+   * @param metricsRegistry       the request metrics
+   * @param exchangeRateCache     the cache whose hits and misses are exported
+   * @param admissionController   the admission controller whose shed requests are exported
+   * @param rateChangeBroadcaster the broadcaster whose subscribers are exported
+   */
+  public PrometheusExporter(MetricsRegistry metricsRegistry, ExchangeRateCache exchangeRateCache,
+      AdmissionController admissionController, RateChangeBroadcaster rateChangeBroadcaster) {
+    this.metricsRegistry = metricsRegistry;
+    this.exchangeRateCache = exchangeRateCache;
+    this.admissionController = admissionController;
+    this.rateChangeBroadcaster = rateChangeBroadcaster;
+  }
+
+  /**
+   * Writes all metrics.
+   *
+   * @param writer the writer to write to; it is neither flushed nor closed
+   * @throws IOException if an I/O error occurs
+   */
+  public void write(Writer writer) throws IOException {
+    var out = new StringBuilder(4 * 1024);
+    writeRequests(out);
+    writePool(out);
+    writeQueries(out);
+    writeCache(out);
+    writeAdmission(out);
+    header(out, "rate_stream_subscribers", "Open exchange rate event streams.", "gauge");
+    sample(out, "rate_stream_subscribers", "", rateChangeBroadcaster.getSubscriberCount());
+    writer.write(out.toString());
+  }
+
+  private void writeRequests(StringBuilder out) {
+    var endpoints = new TreeMap<>(metricsRegistry.getEndpoints());
+    header(out, "http_requests_total", "Requests handled per servlet and status code.",
+        "counter");
+    endpoints.forEach((servlet, endpoint) -> {
+      for (int status = MetricsRegistry.MIN_STATUS; status <= MetricsRegistry.MAX_STATUS;
+          status++) {
+        var count = endpoint.getStatusCount(status);
+        if (count > 0) {
+          sample(out, "http_requests_total",
+              "{servlet=\"" + escape(servlet) + "\",code=\"" + status + "\"}", count);
+        }
+      }
+    });
+    header(out, "http_request_duration_seconds",
+        "Time from receiving a request to completing its response.", "histogram");
+    endpoints.forEach((servlet, endpoint) -> histogram(out, "http_request_duration_seconds",
+        "servlet=\"" + escape(servlet) + "\"", endpoint.getLatency()));
+  }
+
+  private void writePool(StringBuilder out) {
+    header(out, "db_pool_connections", "Connections of the pool by state.", "gauge");
+    sample(out, "db_pool_connections", "{state=\"borrowed\"}",
+        ConnectionManager.getBorrowedCount());
+    sample(out, "db_pool_connections", "{state=\"idle\"}", ConnectionManager.getIdleCount());
+    header(out, "db_pool_size", "Connections the pool has open or is opening.", "gauge");
+    sample(out, "db_pool_size", "", ConnectionManager.getSize());
+    header(out, "db_pool_waiting", "Callers waiting for a connection.", "gauge");
+    sample(out, "db_pool_waiting", "", ConnectionManager.getWaitingCount());
+    header(out, "db_pool_acquire_wait_seconds", "Time callers waited for a connection.",
+        "histogram");
+    histogram(out, "db_pool_acquire_wait_seconds", "",
+        ConnectionManager.getAcquireWaitHistogram());
+    header(out, "db_pool_acquire_timeouts_total",
+        "Callers that gave up waiting for a connection.", "counter");
+    sample(out, "db_pool_acquire_timeouts_total", "",
+        ConnectionManager.getAcquireTimeoutCount());
+  }
+
+  private static void writeQueries(StringBuilder out) {
+    var queries = new TreeMap<>(QueryStatistics.getQueries());
+    header(out, "db_query_duration_seconds",
+        "Time spent per query in each phase: acquire, execute and fetch.", "histogram");
+    queries.forEach((name, query) -> {
+      var label = "query=\"" + escape(name) + "\",phase=";
+      histogram(out, "db_query_duration_seconds", label + "\"acquire\"", query.getAcquire());
+      histogram(out, "db_query_duration_seconds", label + "\"execute\"", query.getExecute());
+      histogram(out, "db_query_duration_seconds", label + "\"fetch\"", query.getFetch());
+    });
+    header(out, "db_query_rows_total", "Rows read or changed per query.", "counter");
+    queries.forEach((name, query) -> sample(out, "db_query_rows_total",
+        "{query=\"" + escape(name) + "\"}", query.getRows().sum()));
+    header(out, "db_query_errors_total", "Executions that failed per query.", "counter");
+    queries.forEach((name, query) -> sample(out, "db_query_errors_total",
+        "{query=\"" + escape(name) + "\"}", query.getErrors().sum()));
+    header(out, "db_slow_queries_total", "Executions slower than the slow query threshold.",
+        "counter");
+    sample(out, "db_slow_queries_total", "", SlowQueryLog.getSlowQueryCount());
+    header(out, "db_slow_query_log_dropped_total",
+        "Slow query log entries dropped because the log queue was full.", "counter");
+    sample(out, "db_slow_query_log_dropped_total", "", SlowQueryLog.getDroppedCount());
+  }
+
+  private void writeCache(StringBuilder out) {
+    header(out, "cache_lookups_total", "Lookups served by the cache or by the database.",
+        "counter");
+    for (CacheLookup lookup : CacheLookup.values()) {
+      sample(out, "cache_lookups_total",
+          "{lookup=\"" + lookup.getLabel() + "\",result=\"hit\"}",
+          exchangeRateCache.getHitCount(lookup));
+      sample(out, "cache_lookups_total",
+          "{lookup=\"" + lookup.getLabel() + "\",result=\"miss\"}",
+          exchangeRateCache.getMissCount(lookup));
+    }
+    header(out, "cache_hit_ratio", "Share of lookups served by the cache since start.",
+        "gauge");
+    for (CacheLookup lookup : CacheLookup.values()) {
+      var hits = exchangeRateCache.getHitCount(lookup);
+      var total = hits + exchangeRateCache.getMissCount(lookup);
+      sample(out, "cache_hit_ratio", "{lookup=\"" + lookup.getLabel() + "\"}",
+          total == 0 ? Double.NaN : (double) hits / total);
+    }
+  }
+
+  private void writeAdmission(StringBuilder out) {
+    header(out, "admission_in_flight", "Requests admitted and not yet completed.", "gauge");
+    sample(out, "admission_in_flight", "", admissionController.getInFlight());
+    header(out, "admission_shed_total", "Requests shed by admission control.", "counter");
+    sample(out, "admission_shed_total", priorityLabel(RequestPriority.WRITE),
+        admissionController.getShedWrites());
+    sample(out, "admission_shed_total", priorityLabel(RequestPriority.READ),
+        admissionController.getShedReads());
+  }
+
+  private static String priorityLabel(RequestPriority priority) {
+    return "{priority=\"" + priority.name().toLowerCase(Locale.ROOT) + "\"}";
+  }
+
+  private static void histogram(StringBuilder out, String name, String labels,
+      LatencyHistogram histogram) {
+    var prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+    var braced = labels.isEmpty() ? "" : "{" + labels + "}";
+    var cumulative = 0L;
+    for (int i = 0; i < histogram.getBucketCount(); i++) {
+      cumulative += histogram.getCount(i);
+      sample(out, name + "_bucket", prefix + "le=\"" + histogram.getBoundLabel(i) + "\"}",
+          cumulative);
+    }
+    sample(out, name + "_sum", braced, histogram.getSumNanos() / NANOS_PER_SECOND);
+    sample(out, name + "_count", braced, cumulative);
+  }
+
+  private static void header(StringBuilder out, String name, String help, String type) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, long value) {
+    out.append(name).append(labels).append(' ').append(value).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, double value) {
+    out.append(name).append(labels).append(' ');
+    if (Double.isNaN(value)) {
+      out.append("NaN");
+    } else {
+      out.append(value);
+    }
+    out.append('\n');
+  }
+
+  private static String escape(String labelValue) {
+    return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,57 @@
+package ru.starkov.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The QueryStatistics class aggregates the timings recorded by {@link QueryTimer} per named query:
+ * a histogram for each phase of an execution and a counter of failed executions. Like the
+ * connection pool, it is shared by the whole application, so the data access objects can record
+ * into it without being handed a registry.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class QueryStatistics {
+
+  private static final ConcurrentHashMap<String, Query> queries = new ConcurrentHashMap<>();
+
+  static Query get(String queryName) {
+    var query = queries.get(queryName);
+    return query == null ? queries.computeIfAbsent(queryName, name -> new Query()) : query;
+  }
+
+  static Map<String, Query> getQueries() {
+    return queries;
+  }
+
+  static final class Query {
+
+    private final LatencyHistogram acquire = new LatencyHistogram();
+    private final LatencyHistogram execute = new LatencyHistogram();
+    private final LatencyHistogram fetch = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    LatencyHistogram getAcquire() {
+      return acquire;
+    }
+
+    LatencyHistogram getExecute() {
+      return execute;
+    }
+
+    LatencyHistogram getFetch() {
+      return fetch;
+    }
+
+    LongAdder getRows() {
+      return rows;
+    }
+
+    LongAdder getErrors() {
+      return errors;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package ru.starkov.metrics;
+
+import ru.starkov.jfr.FlightEvents;
+import ru.starkov.jfr.QueryEvent;
+
+/**
+ * The QueryTimer class times a single execution of a named query in three phases: acquiring the
+ * connection, executing the statement and fetching the results. The data access object marks the
+ * end of each phase and calls {@link #finish()} in a {@code finally} block; an execution that never
+ * reached {@link #fetched(int)} is counted as failed. The phases are recorded in
+ * {@link QueryStatistics}, and an execution slower than the threshold of the {@link SlowQueryLog}
+ * is logged with its bind parameters. While flight events are enabled, the execution is also
+ * recorded as a {@link QueryEvent}.
+ *
+ * <p>Almost every query binds at most two parameters, so those are kept in fields and only put in
+ * an array for the log once the execution turns out to be slow; only queries with more parameters
+ * pay for the array of a variable-arity call.
+ */
+public final class QueryTimer {
+
+  private static final Object[] NO_PARAMETERS = {};
+
+  private final String queryName;
+  private final int parameterCount;
+  private final Object first;
+  private final Object second;
+  private final Object[] parameters;
+  private final QueryEvent event;
+  private final long start;
+  private long acquired;
+  private long executed;
+  private long fetched;
+  private int rows;
+
+  private QueryTimer(String queryName, int parameterCount, Object first, Object second,
+      Object[] parameters) {
+    this.queryName = queryName;
+    this.parameterCount = parameterCount;
+    this.first = first;
+    this.second = second;
+    this.parameters = parameters;
+    this.event = FlightEvents.beginQuery(queryName);
+    this.start = System.nanoTime();
+  }
+
+  /**
+   * Starts timing an execution of a query without bind parameters.
+   *
+   * @param queryName the name the timings are aggregated under
+   * @return the timer
+   */
+  public static QueryTimer start(String queryName) {
+    return new QueryTimer(queryName, 0, null, null, null);
+  }
+
+  /**
+   * Starts timing an execution of a query with one bind parameter.
+   *
+   * @param queryName the name the timings are aggregated under
+   * @param parameter the bind parameter, logged if the execution is slow
+   * @return the timer
+   */
+  public static QueryTimer start(String queryName, Object parameter) {
+    return new QueryTimer(queryName, 1, parameter, null, null);
+  }
+
+  /**
+   * Starts timing an execution of a query with two bind parameters.
+   *
+   * @param queryName the name the timings are aggregated under
+   * @param first     the first bind parameter, logged if the execution is slow
+   * @param second    the second bind parameter, logged if the execution is slow
+   * @return the timer
+   */
+  public static QueryTimer start(String queryName, Object first, Object second) {
+    return new QueryTimer(queryName, 2, first, second, null);
+  }
+
+  /**
+   * Starts timing an execution.
+   *
+   * @param queryName  the name the timings are aggregated under
+   * @param parameters the bind parameters, logged if the execution is slow
+   * @return the timer
+   */
+  public static QueryTimer start(String queryName, Object... parameters) {
+    return new QueryTimer(queryName, parameters.length, null, null, parameters);
+  }
+
+  /**
+   * Marks the end of the acquire phase, once the connection is at hand.
+   */
+  public void acquired() {
+    acquired = System.nanoTime();
+  }
+
+  /**
+   * Marks the end of the execute phase, once the statement has returned.
+   */
+  public void executed() {
+    executed = System.nanoTime();
+  }
+
+  /**
+   * Marks the end of the fetch phase, once the results have been read.
+   *
+   * @param rows the number of rows read or changed
+   */
+  public void fetched(int rows) {
+    this.rows = rows;
+    fetched = System.nanoTime();
+  }
+
+  /**
+   * Records the execution. Phases that were not reached are not recorded.
+   */
+  public void finish() {
+    var end = fetched != 0 ? fetched : System.nanoTime();
+    var query = QueryStatistics.get(queryName);
+    var acquireNanos = (acquired != 0 ? acquired : end) - start;
+    var executeNanos = acquired != 0 ? (executed != 0 ? executed : end) - acquired : 0;
+    var fetchNanos = executed != 0 ? end - executed : 0;
+    var failed = fetched == 0;
+    FlightEvents.endQuery(event, acquireNanos, executeNanos, fetchNanos, rows, failed);
+    if (acquired != 0) {
+      query.getAcquire().record(acquireNanos);
+    }
+    if (executed != 0) {
+      query.getExecute().record(executeNanos);
+      RequestTiming.record(RequestStage.SQL, executeNanos + fetchNanos);
+    }
+    if (failed) {
+      query.getErrors().increment();
+    } else {
+      query.getFetch().record(fetchNanos);
+      query.getRows().add(rows);
+    }
+    if (SlowQueryLog.isSlow(end - start)) {
+      SlowQueryLog.log(queryName, failed, acquireNanos, executeNanos, fetchNanos, rows,
+          parameters());
+    }
+  }
+
+  private Object[] parameters() {
+    if (parameters != null) {
+      return parameters;
+    }
+    return switch (parameterCount) {
+      case 0 -> NO_PARAMETERS;
+      case 1 -> new Object[] {first};
+      default -> new Object[] {first, second};
+    };
+  }
+}
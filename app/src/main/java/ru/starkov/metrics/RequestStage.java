@@ -0,0 +1,24 @@
+package ru.starkov.metrics;
+
+/**
+ * The RequestStage enum names the stages of a request timed by {@link RequestTiming}. The stages
+ * may overlap: waiting for the pool and running SQL happen within the service stage.
+ */
+public enum RequestStage {
+
+  VALIDATION("validation"),
+  SERVICE("service"),
+  POOL("pool"),
+  SQL("sql"),
+  SERIALIZATION("serialization");
+
+  private final String label;
+
+  RequestStage(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
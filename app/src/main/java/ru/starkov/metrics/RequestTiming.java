@@ -0,0 +1,182 @@
+package ru.starkov.metrics;
+
+import jakarta.servlet.ServletRequest;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import ru.starkov.util.Constants;
+
+/**
+ * The RequestTiming class accumulates the time a single request spends in each
+ * {@link RequestStage} and the bytes allocated while handling it, for the {@code Server-Timing}
+ * header and the {@link RequestTimingLog}. It is kept as an attribute of the request and, while the
+ * handler runs, bound to the handler thread like the {@link ru.starkov.util.Deadline}, so the
+ * connection pool and the data access objects add their time without a reference to the request.
+ *
+ * <p>Allocated bytes are read from the {@link com.sun.management.ThreadMXBean} of the JVM, which
+ * does not account virtual threads, so only the parts of a request that run on platform threads,
+ * such as the filters on the container thread, are counted.
+ *
+ * <p>The stages of a request are recorded one after another by the container thread and the
+ * handler thread, never at the same time, so the stage times are not synchronized. The allocated
+ * bytes are not: the container thread adds its share when the filter chain returns, which may be
+ * while the handler thread adds its own, so they are added atomically.
+ */
+public final class RequestTiming {
+
+  private static final ThreadLocal<RequestTiming> current = new ThreadLocal<>();
+  private static final com.sun.management.ThreadMXBean threadMxBean = threadMxBean();
+  private static volatile boolean enabled;
+
+  private final long[] stageNanos = new long[RequestStage.values().length];
+  private final AtomicLong allocatedBytes = new AtomicLong(-1);
+  private long serviceStart;
+
+  public static void setEnabled(boolean enabled) {
+    RequestTiming.enabled = enabled;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the timing of the request, creating it on first use.
+   *
+   * @param request the request
+   * @return the timing, or null if timing is disabled
+   */
+  public static RequestTiming of(ServletRequest request) {
+    if (!enabled) {
+      return null;
+    }
+    if (request.getAttribute(Constants.REQUEST_TIMING) instanceof RequestTiming timing) {
+      return timing;
+    }
+    var timing = new RequestTiming();
+    request.setAttribute(Constants.REQUEST_TIMING, timing);
+    return timing;
+  }
+
+  /**
+   * Binds a timing to the calling thread. Passing null unbinds it.
+   *
+   * @param timing the timing of the request handled by the thread
+   */
+  public static void bind(RequestTiming timing) {
+    if (timing == null) {
+      current.remove();
+    } else {
+      current.set(timing);
+    }
+  }
+
+  /**
+   * Adds time to a stage of the request bound to the calling thread, if any.
+   *
+   * @param stage the stage
+   * @param nanos the time spent in the stage
+   */
+  public static void record(RequestStage stage, long nanos) {
+    if (enabled) {
+      var timing = current.get();
+      if (timing != null) {
+        timing.add(stage, nanos);
+      }
+    }
+  }
+
+  /**
+   * Returns the bytes allocated so far by the calling thread, to be passed to
+   * {@link #addAllocatedSince(long)}.
+   *
+   * @return the allocated bytes, or -1 if they cannot be read for the calling thread
+   */
+  public static long allocatedBytes() {
+    return threadMxBean == null ? -1 : threadMxBean.getCurrentThreadAllocatedBytes();
+  }
+
+  /**
+   * Adds the bytes the calling thread allocated since the mark.
+   *
+   * @param mark the value of {@link #allocatedBytes()} at the start
+   */
+  public void addAllocatedSince(long mark) {
+    if (mark < 0) {
+      return;
+    }
+    var now = allocatedBytes();
+    if (now >= mark) {
+      allocatedBytes.accumulateAndGet(now - mark, (total, added) -> Math.max(total, 0) + added);
+    }
+  }
+
+  public void add(RequestStage stage, long nanos) {
+    stageNanos[stage.ordinal()] += nanos;
+  }
+
+  /**
+   * Marks the start of the service stage, when the handler starts.
+   */
+  public void startService() {
+    serviceStart = System.nanoTime();
+  }
+
+  /**
+   * Marks the end of the service stage, when the handler writes the response or returns, whichever
+   * is first.
+   */
+  public void finishService() {
+    if (serviceStart != 0) {
+      add(RequestStage.SERVICE, System.nanoTime() - serviceStart);
+      serviceStart = 0;
+    }
+  }
+
+  public long getNanos(RequestStage stage) {
+    return stageNanos[stage.ordinal()];
+  }
+
+  /**
+   * Returns the bytes allocated while handling the request.
+   *
+   * @return the allocated bytes, or -1 if none could be read
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes.get();
+  }
+
+  /**
+   * Formats the timing as the value of a {@code Server-Timing} header, for example
+   * {@code validation;dur=0.042, service;dur=3.125, alloc;desc="48216 bytes"}. Durations are in
+   * milliseconds.
+   *
+   * @return the header value
+   */
+  public String toServerTiming() {
+    var header = new StringBuilder(160);
+    for (RequestStage stage : RequestStage.values()) {
+      if (!header.isEmpty()) {
+        header.append(", ");
+      }
+      header.append(stage.getLabel()).append(";dur=")
+          .append(String.format(Locale.ROOT, "%.3f", getNanos(stage) / 1_000_000.0));
+    }
+    var bytes = allocatedBytes.get();
+    if (bytes >= 0) {
+      header.append(", alloc;desc=\"").append(bytes).append(" bytes\"");
+    }
+    return header.toString();
+  }
+
+  private static com.sun.management.ThreadMXBean threadMxBean() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+        && bean.isThreadAllocatedMemorySupported()) {
+      if (!bean.isThreadAllocatedMemoryEnabled()) {
+        bean.setThreadAllocatedMemoryEnabled(true);
+      }
+      return bean;
+    }
+    return null;
+  }
+}
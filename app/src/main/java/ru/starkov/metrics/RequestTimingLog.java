@@ -0,0 +1,119 @@
+package ru.starkov.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The RequestTimingLog class aggregates the {@link RequestTiming} of completed requests per
+ * servlet and logs the average of every stage once per interval, so the breakdown of a busy
+ * endpoint can be followed without logging every request. The averages are reset after each
+ * entry, and servlets without requests in the interval are not logged.
+ */
+public final class RequestTimingLog {
+
+  private static final Logger LOGGER = Logger.getLogger(RequestTimingLog.class.getName());
+
+  private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a log writing an entry every interval.
+   *
+   * @param intervalMillis the time between two entries
+   */
+  public RequestTimingLog(long intervalMillis) {
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "request-timing-log");
+      thread.setDaemon(true);
+      return thread;
+    });
+    var interval = Math.max(1, intervalMillis);
+    scheduler.scheduleAtFixedRate(this::log, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Adds the timing of a completed request.
+   *
+   * @param servletName the name of the servlet that handled the request
+   * @param timing      the timing of the request
+   */
+  public void record(String servletName, RequestTiming timing) {
+    var aggregate = aggregates.get(servletName);
+    if (aggregate == null) {
+      aggregate = aggregates.computeIfAbsent(servletName, name -> new Aggregate());
+    }
+    aggregate.add(timing);
+  }
+
+  public void shutdown() {
+    scheduler.shutdown();
+  }
+
+  private void log() {
+    if (!LOGGER.isLoggable(Level.INFO)) {
+      return;
+    }
+    new TreeMap<>(aggregates).forEach((servletName, aggregate) -> {
+      var entry = aggregate.drain();
+      if (entry != null) {
+        LOGGER.info(servletName + ": " + entry);
+      }
+    });
+  }
+
+  private static final class Aggregate {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder[] stageNanos = new LongAdder[RequestStage.values().length];
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder allocationSamples = new LongAdder();
+
+    private Aggregate() {
+      for (int i = 0; i < stageNanos.length; i++) {
+        stageNanos[i] = new LongAdder();
+      }
+    }
+
+    private void add(RequestTiming timing) {
+      for (RequestStage stage : RequestStage.values()) {
+        stageNanos[stage.ordinal()].add(timing.getNanos(stage));
+      }
+      if (timing.getAllocatedBytes() >= 0) {
+        allocatedBytes.add(timing.getAllocatedBytes());
+        allocationSamples.increment();
+      }
+      requests.increment();
+    }
+
+    /**
+     * Formats the averages since the last call and resets them. Concurrent additions may be split
+     * between two entries.
+     */
+    private String drain() {
+      var count = requests.sumThenReset();
+      if (count == 0) {
+        return null;
+      }
+      var entry = new StringBuilder().append(count).append(" requests, avg");
+      for (RequestStage stage : RequestStage.values()) {
+        entry.append(' ').append(stage.getLabel()).append(' ')
+            .append(String.format("%.3f",
+                stageNanos[stage.ordinal()].sumThenReset() / 1_000_000.0 / count))
+            .append(" ms");
+      }
+      var samples = allocationSamples.sumThenReset();
+      var bytes = allocatedBytes.sumThenReset();
+      if (samples > 0) {
+        entry.append(", alloc ").append(bytes / samples).append(" bytes");
+      }
+      return entry.toString();
+    }
+  }
+}
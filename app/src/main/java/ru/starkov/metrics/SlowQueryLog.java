@@ -0,0 +1,100 @@
+package ru.starkov.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The SlowQueryLog class logs the query executions that took longer than a threshold, together
+ * with their bind parameters. Entries are handed to a single background thread through a bounded
+ * queue, so a query never waits for the log; when the queue is full the entry is dropped and
+ * counted. Nothing is logged until the log is started.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SlowQueryLog {
+
+  private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+  private static final int MAX_PARAMETERS_LENGTH = 512;
+  private static final String TRUNCATED = "...";
+  private static final LongAdder slowQueries = new LongAdder();
+  private static final LongAdder dropped = new LongAdder();
+  private static volatile long thresholdNanos = Long.MAX_VALUE;
+  private static volatile ThreadPoolExecutor executor;
+
+  /**
+   * Starts logging the executions slower than the threshold.
+   *
+   * @param thresholdMillis the minimum duration of a logged execution
+   * @param capacity        the maximum number of entries waiting to be logged
+   */
+  public static synchronized void start(long thresholdMillis, int capacity) {
+    if (executor != null) {
+      return;
+    }
+    executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, capacity)), runnable -> {
+          var thread = new Thread(runnable, "slow-query-log");
+          thread.setDaemon(true);
+          return thread;
+        }, (runnable, pool) -> dropped.increment());
+    thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+  }
+
+  /**
+   * Stops logging; entries still queued are logged before the thread ends.
+   */
+  public static synchronized void stop() {
+    thresholdNanos = Long.MAX_VALUE;
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  public static long getSlowQueryCount() {
+    return slowQueries.sum();
+  }
+
+  public static long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  static boolean isSlow(long nanos) {
+    return nanos >= thresholdNanos;
+  }
+
+  /**
+   * Queues an entry for a slow execution. The parameters are formatted on the log thread.
+   */
+  static void log(String queryName, boolean failed, long acquireNanos, long executeNanos,
+      long fetchNanos, int rows, Object[] parameters) {
+    var current = executor;
+    if (current == null) {
+      return;
+    }
+    slowQueries.increment();
+    current.execute(() -> LOGGER.log(Level.WARNING,
+        "Slow query {0}{1}: {2} ms (acquire {3} ms, execute {4} ms, fetch {5} ms), {6} rows, "
+            + "parameters {7}",
+        new Object[] {queryName, failed ? " failed" : "",
+            toMillis(acquireNanos + executeNanos + fetchNanos), toMillis(acquireNanos),
+            toMillis(executeNanos), toMillis(fetchNanos), rows, format(parameters)}));
+  }
+
+  private static String toMillis(long nanos) {
+    return String.format("%.3f", nanos / 1_000_000.0);
+  }
+
+  private static String format(Object[] parameters) {
+    var formatted = Arrays.deepToString(parameters);
+    return formatted.length() <= MAX_PARAMETERS_LENGTH
+        ? formatted
+        : formatted.substring(0, MAX_PARAMETERS_LENGTH) + TRUNCATED;
+  }
+}
@@ -0,0 +1,82 @@
+package ru.starkov.service;
+
+import static ru.starkov.util.Constants.ERROR_CURRENCY_NOT_FOUND_MESSAGE;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import ru.starkov.cache.CacheLookup;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dto.CurrencyRequestDto;
+import ru.starkov.dto.mapper.CurrencyMapper;
+import ru.starkov.exception.CurrencyNotFoundException;
+import ru.starkov.model.Currency;
+
+@RequiredArgsConstructor
+public final class CurrencyService {
+
+  private final CurrencyDao currencyDao;
+  private final ExchangeRateCache exchangeRateCache;
+
+
+  public List<Currency> findAll() {
+    var loaded = exchangeRateCache.isLoaded();
+    exchangeRateCache.recordLookup(CacheLookup.CURRENCY, loaded);
+    if (loaded) {
+      return exchangeRateCache.currencies().findAll();
+    }
+    return currencyDao.findAll();
+  }
+
+  public Currency findByCode(String code) throws CurrencyNotFoundException {
+    Objects.requireNonNull(code, "Currency code cannot ve null");
+    var cached = exchangeRateCache.currencies().findByCode(code);
+    exchangeRateCache.recordLookup(CacheLookup.CURRENCY, cached.isPresent());
+    return cached
+        .or(() -> currencyDao.findByCode(code))
+        .orElseThrow(() -> new CurrencyNotFoundException(
+            String.format(ERROR_CURRENCY_NOT_FOUND_MESSAGE, code)));
+  }
+
+  /**
+   * Finds the currencies with the given codes. Currencies missing from the cache are loaded with
+   * a single query.
+   *
+   * @param codes the distinct upper-case codes of the currencies
+   * @return the currencies found, in the order of the codes; unknown codes are skipped
+   */
+  public List<Currency> findAllByCodes(List<String> codes) {
+    Objects.requireNonNull(codes, "Currency codes cannot be null");
+    var cached = exchangeRateCache.currencies().findAllByCodes(codes);
+    exchangeRateCache.recordLookups(CacheLookup.CURRENCY, cached.size(),
+        codes.size() - cached.size());
+    if (cached.size() == codes.size()) {
+      return cached;
+    }
+    Map<String, Currency> found = new HashMap<>();
+    cached.forEach(currency -> found.put(currency.getCode().toUpperCase(Locale.ROOT), currency));
+    var missing = codes.stream().filter(code -> !found.containsKey(code)).toList();
+    currencyDao.findAllByCodes(missing).forEach(
+        currency -> found.put(currency.getCode().toUpperCase(Locale.ROOT), currency));
+    List<Currency> currencies = new ArrayList<>(found.size());
+    for (String code : codes) {
+      var currency = found.get(code);
+      if (currency != null) {
+        currencies.add(currency);
+      }
+    }
+    return currencies;
+  }
+
+  public Currency save(CurrencyRequestDto currencyRequestDto) {
+    Objects.requireNonNull(currencyRequestDto, "Currency cannot be null");
+    var currency = currencyDao.save(CurrencyMapper.INSTANCE.toModel(currencyRequestDto));
+    exchangeRateCache.put(currency);
+    return currency;
+  }
+}
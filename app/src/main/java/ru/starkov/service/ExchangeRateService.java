@@ -0,0 +1,336 @@
+package ru.starkov.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import ru.starkov.cache.CacheLookup;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.dao.TransactionalDao;
+import ru.starkov.dto.ExchangeRateInfo;
+import ru.starkov.exception.CurrencyNotFoundException;
+import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.ExchangeRateNotFoundException;
+import ru.starkov.model.ExchangeRate;
+import ru.starkov.stream.RateChangeBroadcaster;
+import ru.starkov.util.ConnectionManager;
+import ru.starkov.util.Deadline;
+import ru.starkov.util.ValidationUtils;
+
+/**
+ * The ExchangeRateService class provides services related to exchange rates, such as finding all
+ * exchange rates, finding exchange rates by currency codes, updating exchange rates, and saving new
+ * exchange rates. It interacts with the ExchangeRateDao and CurrencyDao to perform database
+ * operations. Reads are served from the {@link ExchangeRateCache} once it is loaded, and every
+ * committed change is written through to it and published to the rate stream subscribers through
+ * the {@link RateChangeBroadcaster}. Writes of the same currency pair hold its lock from the start
+ * of their transaction until they are published, so the cache and the subscribers see the changes
+ * of a pair in the order they were committed.
+ */
+@RequiredArgsConstructor
+public final class ExchangeRateService {
+
+  private final ExchangeRateDao exchangeRateDao;
+  private final CurrencyDao currencyDao;
+  private final ExchangeRateCache exchangeRateCache;
+  private final RateChangeBroadcaster rateChangeBroadcaster;
+  private final ReentrantLock[] pairLocks = newPairLocks();
+
+  private static final String EXCHANGE_RATES_NOT_FOUND_MSG = "Exchange rates not found";
+  private static final String NULL_OR_BLANK_CURRENCY_CODES_MSG =
+      "Base and target currency codes cannot be null or blank.";
+  private static final String NULL_EXCHANGE_RATE_INFO_MSG = "Exchange rate info cannot be null.";
+  private static final String FAILED_TO_UPDATE_CURRENCY_NOT_FOUND_MSG =
+      "Failed to update an exchange rate, one or both currencies is not found in database.";
+  private static final String FAILED_TO_UPDATE_EXCHANGE_RATE_NOT_FOUND_MSG =
+      "Failed to update an exchange rate, it's not found in database.";
+  private static final String FAILED_TO_SAVE_EXCHANGE_RATE_MSG = "Failed to save exchange rate.";
+  private static final String FAILED_TO_UPDATE_EXCHANGE_RATES_MSG =
+      "Failed to update exchange rates.";
+  private static final String NULL_EXCHANGE_RATE_INFOS_MSG =
+      "Exchange rate infos cannot be null.";
+  private static final String NULL_CURRENCY_PAIRS_MSG = "Currency pairs cannot be null.";
+  private static final int PAIR_LOCK_STRIPES = 64;
+
+  /**
+   * Retrieves all exchange rates from the database.
+   *
+   * @return a list of all exchange rates
+   * @throws ExchangeRateNotFoundException if no exchange rates are found in the database
+   */
+  public List<ExchangeRate> findAll() throws ExchangeRateNotFoundException {
+    var loaded = exchangeRateCache.isLoaded();
+    exchangeRateCache.recordLookup(CacheLookup.EXCHANGE_RATE, loaded);
+    List<ExchangeRate> all = loaded
+        ? exchangeRateCache.exchangeRates().findAll() : exchangeRateDao.findAll();
+    if (all.isEmpty()) {
+      throw new ExchangeRateNotFoundException(EXCHANGE_RATES_NOT_FOUND_MSG);
+    }
+    return all;
+  }
+
+  /**
+   * Retrieves an exchange rate from the database by the given base and target currency codes.
+   *
+   * @param baseCurrencyCode   the code of the base currency
+   * @param targetCurrencyCode the code of the target currency
+   * @return the exchange rate corresponding to the given currency codes
+   * @throws ExchangeRateNotFoundException if the exchange rate is not found in the database
+   * @throws IllegalArgumentException      if either baseCurrencyCode or targetCurrencyCode is null
+   *                                       or blank
+   */
+  public ExchangeRate findByCurrencyCodes(String baseCurrencyCode,
+      String targetCurrencyCode) throws ExchangeRateNotFoundException {
+    if (ValidationUtils.isNullOrBlank(baseCurrencyCode)
+        || ValidationUtils.isNullOrBlank(targetCurrencyCode)) {
+      throw new IllegalArgumentException(NULL_OR_BLANK_CURRENCY_CODES_MSG);
+    }
+    var cached = exchangeRateCache.exchangeRates()
+        .findByCurrencyCodes(baseCurrencyCode, targetCurrencyCode);
+    exchangeRateCache.recordLookup(CacheLookup.EXCHANGE_RATE, cached.isPresent());
+    return cached
+        .or(() -> exchangeRateDao.findByCurrencyCodes(baseCurrencyCode, targetCurrencyCode))
+        .orElseThrow(() -> new ExchangeRateNotFoundException(String.format(
+            "An exchange rate for the following currency code pair was not found: %s %s",
+            baseCurrencyCode,
+            targetCurrencyCode)));
+  }
+
+  /**
+   * Retrieves the exchange rates of the given currency pairs. Exchange rates missing from the cache
+   * are loaded with a single query.
+   *
+   * @param pairs the distinct upper-case codes of the base and target currencies of every pair
+   * @return the exchange rates found, in the order of the pairs; unknown pairs are skipped
+   */
+  public List<ExchangeRate> findAllByCurrencyPairs(List<String> pairs) {
+    Objects.requireNonNull(pairs, NULL_CURRENCY_PAIRS_MSG);
+    var cached = exchangeRateCache.exchangeRates().findAllByCurrencyPairs(pairs);
+    exchangeRateCache.recordLookups(CacheLookup.EXCHANGE_RATE, cached.size(),
+        pairs.size() - cached.size());
+    if (cached.size() == pairs.size()) {
+      return cached;
+    }
+    Map<String, ExchangeRate> found = new HashMap<>();
+    cached.forEach(exchangeRate -> found.put(getPair(exchangeRate), exchangeRate));
+    var missing = pairs.stream().filter(pair -> !found.containsKey(pair)).toList();
+    exchangeRateDao.findAllByCurrencyPairs(missing).forEach(
+        exchangeRate -> found.put(getPair(exchangeRate), exchangeRate));
+    List<ExchangeRate> exchangeRates = new ArrayList<>(found.size());
+    for (String pair : pairs) {
+      var exchangeRate = found.get(pair);
+      if (exchangeRate != null) {
+        exchangeRates.add(exchangeRate);
+      }
+    }
+    return exchangeRates;
+  }
+
+  /**
+   * Updates an existing exchange rate in the database with the information provided in the
+   * ExchangeRateInfo object.
+   *
+   * @param exchangeRateInfo the ExchangeRateInfo containing the information to update the exchange
+   *                         rate
+   * @throws DatabaseException             if a database error occurs during the update operation
+   * @throws CurrencyNotFoundException     if either the base or target currency is not found in the
+   *                                       database
+   * @throws ExchangeRateNotFoundException if the exchange rate to be updated is not found in the
+   *                                       database
+   */
+  public void update(ExchangeRateInfo exchangeRateInfo) {
+    Objects.requireNonNull(exchangeRateInfo, NULL_EXCHANGE_RATE_INFO_MSG);
+    var locked = lockPairs(List.of(exchangeRateInfo));
+    try {
+      var exchangeRate = inTransaction(() -> {
+        var rate = exchangeRateInfo.rate();
+        var baseCurrencyCode = exchangeRateInfo.baseCurrencyCode();
+        var targetCurrencyCode = exchangeRateInfo.targetCurrencyCode();
+        var baseCurrencyOptional = currencyDao.findByCode(baseCurrencyCode);
+        var targetCurrencyOptional = currencyDao.findByCode(targetCurrencyCode);
+        if (baseCurrencyOptional.isEmpty() || targetCurrencyOptional.isEmpty()) {
+          throw new CurrencyNotFoundException(FAILED_TO_UPDATE_CURRENCY_NOT_FOUND_MSG);
+        }
+        var found = exchangeRateDao.findByCurrencies(baseCurrencyOptional.get(),
+                targetCurrencyOptional.get())
+            .orElseThrow(() -> new ExchangeRateNotFoundException(
+                FAILED_TO_UPDATE_EXCHANGE_RATE_NOT_FOUND_MSG));
+        found.setRate(rate);
+        found.setBaseCurrency(baseCurrencyOptional.get());
+        found.setTargetCurrency(targetCurrencyOptional.get());
+        exchangeRateDao.update(found);
+        return found;
+      }, FAILED_TO_SAVE_EXCHANGE_RATE_MSG);
+      exchangeRateCache.put(exchangeRate);
+      rateChangeBroadcaster.publish(exchangeRate);
+    } finally {
+      unlockPairs(locked);
+    }
+  }
+
+  /**
+   * Updates the rates of many existing exchange rates in a single transaction. The pairs are
+   * resolved from the cache where possible, and the updates are sent to the database as a JDBC
+   * batch. Either all rates are updated or none.
+   *
+   * @param exchangeRateInfos the new rates with the codes of their currency pairs
+   * @return the updated exchange rates, in the order of the given infos
+   * @throws DatabaseException             if a database error occurs during the update operation
+   * @throws ExchangeRateNotFoundException if one of the exchange rates is not found in the
+   *                                       database
+   */
+  public List<ExchangeRate> updateAll(List<ExchangeRateInfo> exchangeRateInfos) {
+    Objects.requireNonNull(exchangeRateInfos, NULL_EXCHANGE_RATE_INFOS_MSG);
+    var locked = lockPairs(exchangeRateInfos);
+    List<ExchangeRate> exchangeRates;
+    try {
+      exchangeRates = inTransaction(() -> {
+        List<ExchangeRate> updated = new ArrayList<>(exchangeRateInfos.size());
+        for (ExchangeRateInfo exchangeRateInfo : exchangeRateInfos) {
+          Deadline.check();
+          var baseCurrencyCode = exchangeRateInfo.baseCurrencyCode();
+          var targetCurrencyCode = exchangeRateInfo.targetCurrencyCode();
+          var current = exchangeRateCache.exchangeRates()
+              .findByCurrencyCodes(baseCurrencyCode, targetCurrencyCode)
+              .or(() -> exchangeRateDao.findByCurrencyCodes(baseCurrencyCode, targetCurrencyCode))
+              .orElseThrow(() -> new ExchangeRateNotFoundException(String.format(
+                  "An exchange rate for the following currency code pair was not found: %s %s",
+                  baseCurrencyCode,
+                  targetCurrencyCode)));
+          updated.add(ExchangeRate.builder()
+              .id(current.getId())
+              .baseCurrency(current.getBaseCurrency())
+              .targetCurrency(current.getTargetCurrency())
+              .rate(exchangeRateInfo.rate())
+              .build());
+        }
+        exchangeRateDao.updateAll(updated);
+        return updated;
+      }, FAILED_TO_UPDATE_EXCHANGE_RATES_MSG);
+      exchangeRateCache.putAll(exchangeRates);
+      rateChangeBroadcaster.publishAll(exchangeRates);
+    } finally {
+      unlockPairs(locked);
+    }
+    return exchangeRates;
+  }
+
+  /**
+   * Saves a new exchange rate to the database with the information provided in the ExchangeRateInfo
+   * object.
+   *
+   * @param exchangeRateInfo the ExchangeRateInfo containing the information to save the exchange
+   *                         rate
+   * @return the saved exchange rate
+   * @throws DatabaseException         if a database error occurs during the save operation
+   * @throws CurrencyNotFoundException if either the base or target currency is not found in the
+   *                                   database
+   */
+  public ExchangeRate save(ExchangeRateInfo exchangeRateInfo)
+      throws DatabaseException, CurrencyNotFoundException {
+    Objects.requireNonNull(exchangeRateInfo, NULL_EXCHANGE_RATE_INFO_MSG);
+    var locked = lockPairs(List.of(exchangeRateInfo));
+    ExchangeRate saved;
+    try {
+      saved = inTransaction(() -> {
+        var rate = exchangeRateInfo.rate();
+        var baseCurrencyCode = exchangeRateInfo.baseCurrencyCode();
+        var targetCurrencyCode = exchangeRateInfo.targetCurrencyCode();
+        var baseCurrencyOptional = currencyDao.findByCode(baseCurrencyCode);
+        var targetCurrencyOptional = currencyDao.findByCode(targetCurrencyCode);
+        if (baseCurrencyOptional.isEmpty() || targetCurrencyOptional.isEmpty()) {
+          throw new CurrencyNotFoundException(FAILED_TO_UPDATE_CURRENCY_NOT_FOUND_MSG);
+        }
+        return exchangeRateDao.save(ExchangeRate.builder()
+            .rate(rate)
+            .baseCurrency(baseCurrencyOptional.get())
+            .targetCurrency(targetCurrencyOptional.get())
+            .build());
+      }, FAILED_TO_SAVE_EXCHANGE_RATE_MSG);
+      exchangeRateCache.put(saved);
+      rateChangeBroadcaster.publish(saved);
+    } finally {
+      unlockPairs(locked);
+    }
+    return saved;
+  }
+
+  /**
+   * Takes the locks of the currency pairs of the given infos, in the order of the lock stripes so
+   * that writes of overlapping pairs cannot deadlock.
+   *
+   * @return the stripes of the locks taken, to pass to {@link #unlockPairs(BitSet)}
+   */
+  private BitSet lockPairs(List<ExchangeRateInfo> exchangeRateInfos) {
+    var stripes = new BitSet(pairLocks.length);
+    for (ExchangeRateInfo exchangeRateInfo : exchangeRateInfos) {
+      var pair = (exchangeRateInfo.baseCurrencyCode() + exchangeRateInfo.targetCurrencyCode())
+          .toUpperCase(Locale.ROOT);
+      stripes.set(Math.floorMod(pair.hashCode(), pairLocks.length));
+    }
+    for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+      pairLocks[i].lock();
+    }
+    return stripes;
+  }
+
+  private void unlockPairs(BitSet locked) {
+    for (int i = locked.nextSetBit(0); i >= 0; i = locked.nextSetBit(i + 1)) {
+      pairLocks[i].unlock();
+    }
+  }
+
+  private static ReentrantLock[] newPairLocks() {
+    var locks = new ReentrantLock[PAIR_LOCK_STRIPES];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    return locks;
+  }
+
+  private static String getPair(ExchangeRate exchangeRate) {
+    return (exchangeRate.getBaseCurrency().getCode() + exchangeRate.getTargetCurrency().getCode())
+        .toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * Runs the work in a read-committed transaction when both DAOs run on JDBC connections,
+   * committing it if the work completes and rolling it back otherwise. With other DAOs, such as
+   * in-memory ones, the work runs as is.
+   */
+  private <T> T inTransaction(Supplier<T> work, String failureMessage) {
+    if (!(currencyDao instanceof TransactionalDao transactionalCurrencyDao)
+        || !(exchangeRateDao instanceof TransactionalDao transactionalExchangeRateDao)) {
+      return work.get();
+    }
+    try (var connection = ConnectionManager.getConnection()) {
+      connection.setAutoCommit(false);
+      connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      transactionalExchangeRateDao.setTransactionalConnection(connection);
+      transactionalCurrencyDao.setTransactionalConnection(connection);
+      try {
+        var result = work.get();
+        connection.commit();
+        return result;
+      } catch (RuntimeException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        transactionalExchangeRateDao.setTransactionalConnection(null);
+        transactionalCurrencyDao.setTransactionalConnection(null);
+      }
+    } catch (SQLException e) {
+      throw Deadline.databaseException(failureMessage, e);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package ru.starkov.service;
+
+import static ru.starkov.util.Constants.ERROR_CURRENCY_NOT_FOUND_MESSAGE;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import ru.starkov.cache.CacheLookup;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.CurrencyLookup;
+import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.dao.ExchangeRateLookup;
+import ru.starkov.dao.TransactionalDao;
+import ru.starkov.dto.ConversionResult;
+import ru.starkov.dto.mapper.CurrencyMapper;
+import ru.starkov.exception.CurrencyNotFoundException;
+import ru.starkov.exception.ExchangeRateNotFoundException;
+import ru.starkov.jfr.ConversionPath;
+import ru.starkov.jfr.FlightEvents;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+import ru.starkov.util.ConnectionManager;
+import ru.starkov.util.Deadline;
+
+@RequiredArgsConstructor
+public class ExchangeService {
+
+  private final ExchangeRateDao exchangeRateDao;
+  private final CurrencyDao currencyDao;
+  private final CurrencyMapper currencyMapper;
+  private final ExchangeRateCache exchangeRateCache;
+
+  private static final String FAILED_TO_CONVERT_MSG = "Failed to convert the amount.";
+
+  /**
+   * Converts the amount from one currency to another. The conversion is resolved against the
+   * {@link ExchangeRateCache} when it is loaded, and against the database otherwise or when the
+   * cache cannot resolve it. Against the database, the conversion runs in a single read-committed
+   * transaction; data access objects that do not join transactions, such as in-memory ones, are
+   * queried as they are. While flight events are enabled, each conversion is recorded with the
+   * way it was resolved and the queries it issued.
+   *
+   * @param fromCurrencyCode the code of the currency to convert from
+   * @param toCurrencyCode   the code of the currency to convert to
+   * @param amount           the amount to convert
+   * @return the result of the conversion
+   */
+  public ConversionResult convert(String fromCurrencyCode, String toCurrencyCode,
+      BigDecimal amount) {
+    var event = FlightEvents.beginConversion(fromCurrencyCode, toCurrencyCode);
+    var failed = true;
+    try {
+      var result = resolve(fromCurrencyCode, toCurrencyCode, amount);
+      failed = false;
+      return result;
+    } finally {
+      FlightEvents.endConversion(event, failed);
+    }
+  }
+
+  private ConversionResult resolve(String fromCurrencyCode, String toCurrencyCode,
+      BigDecimal amount) {
+    if (exchangeRateCache.isLoaded()) {
+      try {
+        var result = convert(exchangeRateCache.currencies(), exchangeRateCache.exchangeRates(),
+            fromCurrencyCode, toCurrencyCode, amount);
+        exchangeRateCache.recordLookup(CacheLookup.CONVERSION, true);
+        return result;
+      } catch (CurrencyNotFoundException | ExchangeRateNotFoundException e) {
+        // The cache may lag behind the database, fall through to it
+      }
+    }
+    exchangeRateCache.recordLookup(CacheLookup.CONVERSION, false);
+    FlightEvents.conversionFromDatabase();
+    if (!(currencyDao instanceof TransactionalDao transactionalCurrencyDao)
+        || !(exchangeRateDao instanceof TransactionalDao transactionalExchangeRateDao)) {
+      return convert(currencyDao, exchangeRateDao, fromCurrencyCode, toCurrencyCode, amount);
+    }
+    try (var connection = ConnectionManager.getConnection()) {
+      connection.setAutoCommit(false);
+      connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      transactionalExchangeRateDao.setTransactionalConnection(connection);
+      transactionalCurrencyDao.setTransactionalConnection(connection);
+      try {
+        return convert(currencyDao, exchangeRateDao, fromCurrencyCode, toCurrencyCode, amount);
+      } finally {
+        transactionalExchangeRateDao.setTransactionalConnection(null);
+        transactionalCurrencyDao.setTransactionalConnection(null);
+      }
+    } catch (SQLException e) {
+      throw Deadline.databaseException(FAILED_TO_CONVERT_MSG, e);
+    }
+  }
+
+  private ConversionResult convert(CurrencyLookup currencySource,
+      ExchangeRateLookup exchangeRateSource, String fromCurrencyCode, String toCurrencyCode,
+      BigDecimal amount) {
+    var fromCurrency = findCurrencyByCode(currencySource, fromCurrencyCode);
+    var toCurrency = findCurrencyByCode(currencySource, toCurrencyCode);
+    var rate = determineExchangeRate(exchangeRateSource, fromCurrencyCode, toCurrencyCode);
+    return createConversionResult(fromCurrency, toCurrency, rate, amount);
+  }
+
+  private Currency findCurrencyByCode(CurrencyLookup currencySource, String currencyCode) {
+    return currencySource.findByCode(currencyCode)
+        .orElseThrow(() -> new CurrencyNotFoundException(
+            String.format(ERROR_CURRENCY_NOT_FOUND_MESSAGE, currencyCode)));
+  }
+
+  private BigDecimal determineExchangeRate(ExchangeRateLookup exchangeRateSource,
+      String fromCurrencyCode, String toCurrencyCode) {
+    return exchangeRateSource.findByCurrencyCodes(fromCurrencyCode, toCurrencyCode)
+        .map(exchangeRate -> {
+          FlightEvents.conversionPath(ConversionPath.DIRECT);
+          return exchangeRate.getRate();
+        })
+        .orElseGet(
+            () -> findIndirectExchangeRate(exchangeRateSource, fromCurrencyCode, toCurrencyCode));
+  }
+
+
+  private BigDecimal findIndirectExchangeRate(ExchangeRateLookup exchangeRateSource,
+      String fromCurrencyCode, String toCurrencyCode) {
+    return exchangeRateSource.findByCurrencyCodes(toCurrencyCode, fromCurrencyCode)
+        .map(exchangeRate -> {
+          FlightEvents.conversionPath(ConversionPath.INVERSE);
+          return BigDecimal.ONE.divide(exchangeRate.getRate(), 6, RoundingMode.HALF_UP);
+        })
+        .orElseGet(() -> calculateIndirectCrossExchangeRate(exchangeRateSource, fromCurrencyCode,
+            toCurrencyCode));
+  }
+
+  private BigDecimal calculateIndirectCrossExchangeRate(ExchangeRateLookup exchangeRateSource,
+      String fromCurrencyCode, String toCurrencyCode) {
+    var allByFrom = exchangeRateSource.findAllByBaseCurrencyCode(fromCurrencyCode);
+    var allByTo = exchangeRateSource.findAllByBaseCurrencyCode(toCurrencyCode);
+
+    var fromTargetCurrencyCodes = allByFrom.stream()
+        .flatMap(rate -> Stream.of(rate.getTargetCurrency().getCode()))
+        .toList();
+    var byTargetCurrencyCodes = allByTo.stream()
+        .flatMap(rate -> Stream.of(rate.getTargetCurrency().getCode()))
+        .toList();
+
+    List<String> sharedCurrencyCodes = new ArrayList<>(fromTargetCurrencyCodes);
+    sharedCurrencyCodes.retainAll(byTargetCurrencyCodes);
+    var sharedCurrencyCode = sharedCurrencyCodes.stream()
+        .findAny();
+    if (sharedCurrencyCode.isEmpty()) {
+      return calculateDirectCrossExchangeRate(exchangeRateSource,
+          fromCurrencyCode, toCurrencyCode);
+    }
+    var from = allByFrom.stream()
+        .filter(
+            rate -> rate.getTargetCurrency().getCode().equalsIgnoreCase(sharedCurrencyCode.get()))
+        .findAny();
+    var to = allByTo.stream()
+        .filter(
+            rate -> rate.getTargetCurrency().getCode().equalsIgnoreCase(sharedCurrencyCode.get()))
+        .findAny();
+    if (from.isEmpty() || to.isEmpty()) {
+      return calculateDirectCrossExchangeRate(exchangeRateSource,
+          fromCurrencyCode, toCurrencyCode);
+    }
+
+    FlightEvents.conversionPath(ConversionPath.CROSS_VIA_TARGET);
+    return from.get().getRate().divide(to.get().getRate(), 6, RoundingMode.HALF_UP);
+  }
+
+  private BigDecimal calculateDirectCrossExchangeRate(ExchangeRateLookup exchangeRateSource,
+      String fromCurrencyCode, String toCurrencyCode) {
+    var allByFrom = exchangeRateSource.findAllByTargetCurrencyCode(fromCurrencyCode);
+    var allByTo = exchangeRateSource.findAllByTargetCurrencyCode(toCurrencyCode);
+
+    var fromTargetCurrencyCodes = allByFrom.stream()
+        .flatMap(rate -> Stream.of(rate.getBaseCurrency().getCode()))
+        .toList();
+    var byTargetCurrencyCodes = allByTo.stream()
+        .flatMap(rate -> Stream.of(rate.getBaseCurrency().getCode()))
+        .toList();
+
+    List<String> sharedCurrencyCodes = new ArrayList<>(fromTargetCurrencyCodes);
+    sharedCurrencyCodes.retainAll(byTargetCurrencyCodes);
+    var sharedCurrencyCode = sharedCurrencyCodes.stream()
+        .findAny()
+        .orElseThrow(() -> new ExchangeRateNotFoundException("Exchange rate not found."));
+
+    var from = allByFrom.stream()
+        .filter(rate -> rate.getBaseCurrency().getCode().equalsIgnoreCase(sharedCurrencyCode))
+        .findAny();
+    var to = allByTo.stream()
+        .filter(rate -> rate.getBaseCurrency().getCode().equalsIgnoreCase(sharedCurrencyCode))
+        .findAny();
+    if (from.isEmpty() || to.isEmpty()) {
+      throw new ExchangeRateNotFoundException("Exchange rate not found.");
+    }
+
+    FlightEvents.conversionPath(ConversionPath.CROSS_VIA_BASE);
+    return to.get().getRate().divide(from.get().getRate(), 6, RoundingMode.HALF_UP);
+  }
+
+  private ConversionResult createConversionResult(Currency fromCurrency, Currency toCurrency,
+      BigDecimal rate, BigDecimal amount) {
+    return new ConversionResult(
+        currencyMapper.toDto(fromCurrency),
+        currencyMapper.toDto(toCurrency),
+        rate.setScale(6, RoundingMode.HALF_UP).toPlainString(),
+        amount.setScale(2, RoundingMode.HALF_UP).toPlainString(),
+        rate.multiply(amount).setScale(2, RoundingMode.HALF_UP).toPlainString()
+    );
+  }
+}
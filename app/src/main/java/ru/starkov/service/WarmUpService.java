@@ -0,0 +1,178 @@
+package ru.starkov.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.json.JsonWriters;
+import ru.starkov.exception.CurrencyNotFoundException;
+import ru.starkov.exception.ExchangeRateNotFoundException;
+import ru.starkov.model.Currency;
+import ru.starkov.util.PropertiesLoader;
+
+/**
+ * The WarmUpService class prepares a freshly started instance for traffic. On a background thread
+ * it runs the configured conversions once against the database, preloads the
+ * {@link ExchangeRateCache} and then repeats the conversions against the cache to let the JIT
+ * compile the hot paths. The instance reports itself as ready only after the warm-up has succeeded;
+ * a failed warm-up, such as one started before the database accepts connections, is retried after
+ * a delay until it succeeds or the service is stopped.
+ */
+public final class WarmUpService {
+
+  private static final Logger LOGGER = Logger.getLogger(WarmUpService.class.getName());
+  private static final String ENABLED = "warmup.enabled";
+  private static final String ITERATIONS = "warmup.iterations";
+  private static final String CONVERSIONS = "warmup.conversions";
+  private static final String RETRY_DELAY = "warmup.retry.ms";
+  private static final int DEFAULT_ITERATIONS = 1000;
+  private static final long DEFAULT_RETRY_DELAY_MILLIS = 5000;
+  private static final int MAX_GENERATED_PAIRS = 100;
+  private static final int CURRENCY_CODE_LENGTH = 3;
+  private static final BigDecimal AMOUNT = BigDecimal.TEN;
+
+  private final CurrencyDao currencyDao;
+  private final ExchangeRateDao exchangeRateDao;
+  private final ExchangeRateCache exchangeRateCache;
+  private final ExchangeService exchangeService;
+  private final JsonSerializer jsonSerializer;
+  private final ScheduledExecutorService executor;
+  private volatile boolean ready;
+
+  /**
+   * Creates a warm-up service.
+   *
+   * @param currencyDao       the source of currencies to preload
+   * @param exchangeRateDao   the source of exchange rates to preload
+   * @param exchangeRateCache the cache to preload
+   * @param exchangeService   the service to run the synthetic conversions through
+   * @param jsonSerializer    the serializer to run the conversion results through
+   */
+  public WarmUpService(CurrencyDao currencyDao, ExchangeRateDao exchangeRateDao,
+      ExchangeRateCache exchangeRateCache, ExchangeService exchangeService,
+      JsonSerializer jsonSerializer) {
+    this.currencyDao = currencyDao;
+    this.exchangeRateDao = exchangeRateDao;
+    this.exchangeRateCache = exchangeRateCache;
+    this.exchangeService = exchangeService;
+    this.jsonSerializer = jsonSerializer;
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "warm-up");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts the warm-up in the background, or marks the instance as ready straight away if the
+   * warm-up is disabled.
+   */
+  public void start() {
+    if (PropertiesLoader.getBoolean(ENABLED, true)) {
+      executor.execute(this::warmUp);
+    } else {
+      ready = true;
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Interrupts the warm-up if it is still running and cancels its pending retry.
+   */
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  private void warmUp() {
+    var start = System.nanoTime();
+    try {
+      var pairs = getConfiguredPairs();
+      // Touch every statement once before the cache takes the reads over
+      runConversions(pairs, 1);
+      exchangeRateCache.refresh(currencyDao, exchangeRateDao);
+      if (pairs.isEmpty()) {
+        pairs = generatePairs();
+      }
+      runConversions(pairs, PropertiesLoader.getInt(ITERATIONS, DEFAULT_ITERATIONS));
+      LOGGER.info(() -> String.format("Warm-up finished in %d ms",
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+      ready = true;
+      executor.shutdown();
+    } catch (IOException | RuntimeException e) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      var retryDelay = PropertiesLoader.getLong(RETRY_DELAY, DEFAULT_RETRY_DELAY_MILLIS);
+      LOGGER.log(Level.WARNING, "Warm-up failed, the instance stays not ready and retries in "
+          + retryDelay + " ms", e);
+      try {
+        executor.schedule(this::warmUp, retryDelay, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException stopped) {
+        // Stopped meanwhile
+      }
+    }
+  }
+
+  private void runConversions(List<String[]> pairs, int iterations) throws IOException {
+    var sink = OutputStream.nullOutputStream();
+    for (int i = 0; i < iterations && !Thread.currentThread().isInterrupted(); i++) {
+      for (String[] pair : pairs) {
+        try {
+          jsonSerializer.write(exchangeService.convert(pair[0], pair[1], AMOUNT),
+              JsonWriters.CONVERSION_RESULT, sink);
+        } catch (CurrencyNotFoundException | ExchangeRateNotFoundException e) {
+          // Unresolvable pairs still exercise the lookup paths
+        }
+      }
+    }
+  }
+
+  private List<String[]> getConfiguredPairs() {
+    List<String[]> pairs = new ArrayList<>();
+    var conversions = PropertiesLoader.get(CONVERSIONS);
+    if (conversions == null) {
+      return pairs;
+    }
+    for (String pair : conversions.split(",")) {
+      var codes = pair.trim();
+      if (codes.length() == 2 * CURRENCY_CODE_LENGTH) {
+        pairs.add(new String[]{codes.substring(0, CURRENCY_CODE_LENGTH),
+            codes.substring(CURRENCY_CODE_LENGTH)});
+      } else if (!codes.isEmpty()) {
+        LOGGER.warning(() -> "Skipping malformed warm-up conversion: " + codes);
+      }
+    }
+    return pairs;
+  }
+
+  private List<String[]> generatePairs() {
+    List<String[]> pairs = new ArrayList<>();
+    var currencies = exchangeRateCache.currencies().findAll();
+    for (Currency from : currencies) {
+      for (Currency to : currencies) {
+        if (pairs.size() == MAX_GENERATED_PAIRS) {
+          return pairs;
+        }
+        if (!from.getCode().equalsIgnoreCase(to.getCode())) {
+          pairs.add(new String[]{from.getCode(), to.getCode()});
+        }
+      }
+    }
+    return pairs;
+  }
+}
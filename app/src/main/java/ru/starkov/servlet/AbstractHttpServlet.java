@@ -0,0 +1,353 @@
+package ru.starkov.servlet;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import ru.starkov.cache.CacheRevalidator;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dto.ResponseFormat;
+import ru.starkov.dto.binary.BinarySerializer;
+import ru.starkov.dto.binary.BinaryWriter;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.json.JsonWriter;
+import ru.starkov.exception.DeadlineExceededException;
+import ru.starkov.metrics.RequestStage;
+import ru.starkov.metrics.RequestTiming;
+import ru.starkov.util.Constants;
+import ru.starkov.util.Deadline;
+import ru.starkov.util.PropertiesLoader;
+import ru.starkov.util.RequestParser;
+
+/**
+ * An abstract servlet providing common functionality for HTTP servlets. Extends
+ * {@link HttpServlet}. Intended for initializing fields used in servlet subclasses and for running
+ * their work asynchronously on the request executor, within the deadline of the request.
+ */
+@WebServlet(asyncSupported = true)
+public abstract class AbstractHttpServlet extends HttpServlet {
+  protected static final String DEFAULT_UNKNOWN_ERROR_MESSAGE =
+      "Error occurred, please try again later";
+  private static final Logger LOGGER = Logger.getLogger(AbstractHttpServlet.class.getName());
+  private static final String ASYNC_TIMEOUT = "async.timeout.ms";
+  private static final long DEFAULT_ASYNC_TIMEOUT_MILLIS = 30_000;
+  private static final String TIMEOUT_MESSAGE = "The request timed out";
+  private static final String DEFAULT_DEADLINE = "deadline.default.ms";
+  private static final String MAX_DEADLINE = "deadline.max.ms";
+  private static final long DEFAULT_DEADLINE_MILLIS = 10_000;
+  /**
+   * The time kept between the longest deadline and the asynchronous timeout, for query timeouts,
+   * which are rounded up to whole seconds, and for writing the response.
+   */
+  private static final long DEADLINE_MARGIN_MILLIS = 2_000;
+  private static final String AGE_HEADER = "Age";
+  private static final String WARNING_HEADER = "Warning";
+  private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+  private static final String REVALIDATION_FAILED_WARNING = "111 - \"Revalidation Failed\"";
+  private JsonSerializer jsonSerializer;
+  private BinarySerializer binarySerializer;
+  private ExchangeRateCache exchangeRateCache;
+  private CacheRevalidator cacheRevalidator;
+  private ExecutorService requestExecutor;
+  private long asyncTimeoutMillis;
+  private long defaultDeadlineMillis;
+  private long maxDeadlineMillis;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    var servletContext = config.getServletContext();
+    this.jsonSerializer = (JsonSerializer) servletContext.getAttribute(
+        JsonSerializer.class.getName());
+    this.binarySerializer = (BinarySerializer) servletContext.getAttribute(
+        BinarySerializer.class.getName());
+    this.exchangeRateCache = (ExchangeRateCache) servletContext.getAttribute(
+        ExchangeRateCache.class.getName());
+    this.cacheRevalidator = (CacheRevalidator) servletContext.getAttribute(
+        CacheRevalidator.class.getName());
+    this.requestExecutor = (ExecutorService) servletContext.getAttribute(
+        ExecutorService.class.getName());
+    this.asyncTimeoutMillis = PropertiesLoader.getLong(ASYNC_TIMEOUT,
+        DEFAULT_ASYNC_TIMEOUT_MILLIS);
+    var deadlineCeilingMillis = asyncTimeoutMillis <= 0
+        ? Long.MAX_VALUE
+        : Math.max(asyncTimeoutMillis - DEADLINE_MARGIN_MILLIS, asyncTimeoutMillis / 2);
+    this.maxDeadlineMillis = Math.min(
+        PropertiesLoader.getLong(MAX_DEADLINE, deadlineCeilingMillis), deadlineCeilingMillis);
+    this.defaultDeadlineMillis = Math.min(
+        PropertiesLoader.getLong(DEFAULT_DEADLINE, DEFAULT_DEADLINE_MILLIS), maxDeadlineMillis);
+  }
+
+  /**
+   * Puts the request into asynchronous mode and runs the handler on the request executor, which
+   * releases the container thread while the handler waits for the database. The response is
+   * completed when the handler returns.
+   *
+   * <p>The deadline of the request starts now and is bound to the handler thread as
+   * {@link Deadline}. Its budget is taken from the {@code X-Request-Timeout} header in
+   * milliseconds, capped at the configured maximum, or is the configured default. The maximum is
+   * kept below the asynchronous timeout, by two seconds unless that is more than half of it, so a
+   * query timed out at the deadline is answered by the handler rather than by the container. A
+   * request whose deadline passes while it waits for the executor is answered with 504 and not run
+   * at all.
+   *
+   * <p>While request timing is enabled, the {@link RequestTiming} of the request is bound to the
+   * handler thread too, and the handler is timed as the service stage.
+   *
+   * <p>An exception escaping the handler is logged and answered with 500 if the response is not
+   * committed yet. When the asynchronous timeout fires first, the request is answered with 504
+   * and marked as abandoned, so the handler, which may still be running, no longer writes a body
+   * to a response the container may have recycled.
+   *
+   * <p>The listeners filters registered with {@link AsyncListeners} are added to the asynchronous
+   * context before the handler is dispatched, so none of them misses the end of the request.
+   *
+   * @param req     the request to handle
+   * @param resp    the response to write to
+   * @param handler the work to run for the request
+   */
+  protected void executeAsync(HttpServletRequest req, HttpServletResponse resp,
+      RequestHandler handler) throws IOException {
+    executeAsync(req, resp, handler, asyncTimeoutMillis);
+  }
+
+  /**
+   * Runs the handler asynchronously like {@link #executeAsync(HttpServletRequest,
+   * HttpServletResponse, RequestHandler)}, with its own timeout. Long-lived responses such as
+   * event streams pass 0, which disables the timeout.
+   *
+   * @param req           the request to handle
+   * @param resp          the response to write to
+   * @param handler       the work to run for the request
+   * @param timeoutMillis the timeout of the asynchronous request, 0 for none
+   */
+  protected void executeAsync(HttpServletRequest req, HttpServletResponse resp,
+      RequestHandler handler, long timeoutMillis) throws IOException {
+    var deadline = Deadline.after(getDeadlineBudgetMillis(req));
+    var timing = RequestTiming.of(req);
+    var asyncContext = req.startAsync(req, resp);
+    asyncContext.setTimeout(timeoutMillis);
+    var timeoutListener = new TimeoutListener(resp);
+    req.setAttribute(Constants.TIMEOUT_LISTENER, timeoutListener);
+    asyncContext.addListener(timeoutListener);
+    AsyncListeners.attach(req, asyncContext);
+    try {
+      requestExecutor.execute(() -> {
+        Deadline.set(deadline);
+        RequestTiming.bind(timing);
+        var allocationMark = timing == null ? -1 : RequestTiming.allocatedBytes();
+        try {
+          Deadline.check();
+          if (timing != null) {
+            timing.startService();
+          }
+          handler.handle(req, resp);
+        } catch (DeadlineExceededException e) {
+          sendDeadlineExceeded(resp, e);
+        } catch (IOException | RuntimeException e) {
+          LOGGER.log(Level.WARNING, "Failed to handle an asynchronous request", e);
+          sendUnknownError(resp, timeoutListener);
+        } finally {
+          if (timing != null) {
+            timing.finishService();
+            timing.addAllocatedSince(allocationMark);
+          }
+          RequestTiming.bind(null);
+          Deadline.set(null);
+          try {
+            asyncContext.complete();
+          } catch (IllegalStateException e) {
+            // The container has already completed the request on timeout
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, DEFAULT_UNKNOWN_ERROR_MESSAGE);
+      asyncContext.complete();
+    }
+  }
+
+  private static void sendUnknownError(HttpServletResponse resp, TimeoutListener timeoutListener) {
+    try {
+      if (!timeoutListener.isAbandoned() && !resp.isCommitted()) {
+        resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+            DEFAULT_UNKNOWN_ERROR_MESSAGE);
+      }
+    } catch (IOException | IllegalStateException e) {
+      LOGGER.log(Level.FINE, "Failed to report a failed request", e);
+    }
+  }
+
+  /**
+   * Tells whether the asynchronous timeout of the request has fired, so the container has already
+   * answered it and the handler must not write to the response any more.
+   *
+   * @param req the request
+   * @return true if the request has been abandoned
+   */
+  protected boolean isAbandoned(HttpServletRequest req) {
+    return req.getAttribute(Constants.TIMEOUT_LISTENER) instanceof TimeoutListener listener
+        && listener.isAbandoned();
+  }
+
+  /**
+   * Answers a request whose deadline has passed with {@code 504 Gateway Timeout}.
+   *
+   * @param resp the response to write to
+   * @param e    the exception reporting the passed deadline
+   */
+  protected void sendDeadlineExceeded(HttpServletResponse resp, DeadlineExceededException e) {
+    try {
+      if (!resp.isCommitted()) {
+        resp.sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT, e.getMessage());
+      }
+    } catch (IOException | IllegalStateException ioException) {
+      LOGGER.log(Level.FINE, "Failed to report a passed deadline", ioException);
+    }
+  }
+
+  /**
+   * Returns the request values parsed by the validation filter of the servlet.
+   *
+   * @param req  the request
+   * @param type the type of the parsed values
+   * @param <T>  the type of the parsed values
+   * @return the parsed values
+   */
+  protected <T> T getParsedRequest(HttpServletRequest req, Class<T> type) {
+    return type.cast(req.getAttribute(Constants.PARSED_REQUEST));
+  }
+
+  /**
+   * Writes the value as the body of the response with the given status, in the
+   * {@link ResponseFormat} negotiated for the request: JSON with the JSON writer, CBOR or
+   * MessagePack with the binary writer. The body is encoded straight into the response output
+   * stream, and {@code Content-Length} is set when the body fits into a single buffer.
+   *
+   * <p>While request timing is enabled, the {@code Server-Timing} header is set before the body is
+   * encoded and set again with the serialization stage once the body fits into a single buffer,
+   * which is the last moment before the response is committed.
+   *
+   * <p>Nothing is written once the request has been abandoned on its asynchronous timeout.
+   *
+   * @param req          the request
+   * @param resp         the response to write to
+   * @param status       the status code of the response
+   * @param value        the value to write
+   * @param jsonWriter   the JSON writer of the value
+   * @param binaryWriter the binary writer of the value
+   * @param <T>          the type of the value
+   */
+  protected <T> void writeBody(HttpServletRequest req, HttpServletResponse resp, int status,
+      T value, JsonWriter<T> jsonWriter, BinaryWriter<T> binaryWriter) throws IOException {
+    if (isAbandoned(req)) {
+      return;
+    }
+    var format = req.getAttribute(Constants.RESPONSE_FORMAT) instanceof ResponseFormat negotiated
+        ? negotiated
+        : ResponseFormat.JSON;
+    resp.setStatus(status);
+    var timing = RequestTiming.of(req);
+    IntConsumer lengthConsumer = resp::setContentLength;
+    if (timing != null) {
+      timing.finishService();
+      resp.setHeader(Constants.SERVER_TIMING_HEADER, timing.toServerTiming());
+      var start = System.nanoTime();
+      lengthConsumer = length -> {
+        timing.add(RequestStage.SERIALIZATION, System.nanoTime() - start);
+        resp.setHeader(Constants.SERVER_TIMING_HEADER, timing.toServerTiming());
+        resp.setContentLength(length);
+      };
+    }
+    try (var stream = resp.getOutputStream()) {
+      if (format.isBinary()) {
+        binarySerializer.write(value, binaryWriter, format, stream, lengthConsumer);
+      } else {
+        jsonSerializer.write(value, jsonWriter, stream, lengthConsumer);
+      }
+    }
+  }
+
+  /**
+   * Marks a response to a read request as stale when it is served from a cache that has outlived
+   * its freshness period, and schedules the background revalidation of the cache. Must be called
+   * before the response is committed.
+   *
+   * @param resp the response to mark
+   */
+  protected void markStaleness(HttpServletResponse resp) {
+    if (!exchangeRateCache.isStale()) {
+      return;
+    }
+    cacheRevalidator.revalidateIfStale();
+    resp.setHeader(AGE_HEADER,
+        String.valueOf(TimeUnit.MILLISECONDS.toSeconds(exchangeRateCache.getAgeMillis())));
+    resp.setHeader(WARNING_HEADER, STALE_WARNING);
+    if (cacheRevalidator.isLastAttemptFailed()) {
+      resp.addHeader(WARNING_HEADER, REVALIDATION_FAILED_WARNING);
+    }
+  }
+
+  private long getDeadlineBudgetMillis(HttpServletRequest req) {
+    var budget = RequestParser.parseNonNegativeLong(
+        req.getHeader(Constants.REQUEST_TIMEOUT_HEADER));
+    return budget <= 0 ? defaultDeadlineMillis : Math.min(budget, maxDeadlineMillis);
+  }
+
+  /**
+   * Answers a request whose asynchronous timeout fires before its handler completes it, and marks
+   * it as abandoned for the handler.
+   */
+  private static final class TimeoutListener implements AsyncListener {
+
+    private final HttpServletResponse response;
+    private volatile boolean abandoned;
+
+    private TimeoutListener(HttpServletResponse response) {
+      this.response = response;
+    }
+
+    private boolean isAbandoned() {
+      return abandoned;
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      abandoned = true;
+      try {
+        if (!response.isCommitted()) {
+          response.sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT, TIMEOUT_MESSAGE);
+        }
+      } catch (IOException | IllegalStateException e) {
+        LOGGER.log(Level.FINE, "Failed to report a timed out request", e);
+      }
+      event.getAsyncContext().complete();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      // Nothing to release
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      abandoned = true;
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // Not restarted
+    }
+  }
+}
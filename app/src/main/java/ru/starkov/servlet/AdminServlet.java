@@ -0,0 +1,258 @@
+package ru.starkov.servlet;
+
+import static ru.starkov.util.Constants.ADMIN_PATH;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import ru.starkov.admin.ClassHistogram;
+import ru.starkov.admin.RecordingManager;
+import ru.starkov.util.PropertiesLoader;
+import ru.starkov.util.RequestParser;
+
+/**
+ * Servlet for profiling the running application without shell access. It is disabled unless an
+ * admin token is configured, and every request must carry it as a bearer token.
+ * <ul>
+ *   <li>{@code GET /admin/recording} describes the last flight recording</li>
+ *   <li>{@code POST /admin/recording?profile=default&duration=60} starts a recording with one of
+ *   the JDK configurations, {@code default} or {@code profile}, for the given number of
+ *   seconds</li>
+ *   <li>{@code DELETE /admin/recording} stops the running recording early</li>
+ *   <li>{@code GET /admin/recording.jfr} downloads the stopped recording</li>
+ *   <li>{@code GET /admin/heap-histogram?limit=30} summarizes the heap by class</li>
+ * </ul>
+ * Requests run on a single admin thread of their own, never on the request executor, so at most
+ * one of them works at a time and a busy admin thread answers with 503.
+ */
+@WebServlet(
+    name = "AdminServlet",
+    description = "Starts flight recordings and takes class histograms on demand",
+    value = ADMIN_PATH + "/*",
+    asyncSupported = true
+)
+public final class AdminServlet extends HttpServlet {
+
+  private static final Logger LOGGER = Logger.getLogger(AdminServlet.class.getName());
+  private static final String TOKEN = "admin.token";
+  private static final String QUEUE_CAPACITY = "admin.queue.capacity";
+  private static final int DEFAULT_QUEUE_CAPACITY = 4;
+  private static final long ASYNC_TIMEOUT_MILLIS = 120_000;
+  private static final String RECORDING = "/recording";
+  private static final String RECORDING_FILE = "/recording.jfr";
+  private static final String HEAP_HISTOGRAM = "/heap-histogram";
+  private static final String PROFILE = "profile";
+  private static final String DURATION = "duration";
+  private static final String LIMIT = "limit";
+  private static final String DEFAULT_PROFILE = "default";
+  private static final long DEFAULT_DURATION_SECONDS = 60;
+  private static final int DEFAULT_LIMIT = 30;
+  private static final String BEARER_PREFIX = "Bearer ";
+  private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+  private static final String JFR_CONTENT_TYPE = "application/octet-stream";
+  private static final String BUSY_MESSAGE = "The admin thread is busy, please try again later";
+
+  private byte[] token;
+  private RecordingManager recordingManager;
+  private ThreadPoolExecutor adminExecutor;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    var configuredToken = PropertiesLoader.get(TOKEN);
+    this.token = configuredToken == null || configuredToken.isBlank()
+        ? null
+        : configuredToken.trim().getBytes(StandardCharsets.UTF_8);
+    this.recordingManager = (RecordingManager) config.getServletContext().getAttribute(
+        RecordingManager.class.getName());
+    this.adminExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(
+            Math.max(1, PropertiesLoader.getInt(QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY))),
+        runnable -> {
+          var thread = new Thread(runnable, "admin");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @Override
+  public void destroy() {
+    adminExecutor.shutdownNow();
+    super.destroy();
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    var path = req.getPathInfo();
+    if (RECORDING.equals(path)) {
+      executeAdmin(req, resp, this::sendStatus);
+    } else if (RECORDING_FILE.equals(path)) {
+      executeAdmin(req, resp, this::sendRecording);
+    } else if (HEAP_HISTOGRAM.equals(path)) {
+      executeAdmin(req, resp, this::sendHeapHistogram);
+    } else {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    if (RECORDING.equals(req.getPathInfo())) {
+      executeAdmin(req, resp, this::startRecording);
+    } else {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+  }
+
+  @Override
+  protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    if (RECORDING.equals(req.getPathInfo())) {
+      executeAdmin(req, resp, this::stopRecording);
+    } else {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+  }
+
+  /**
+   * Authenticates the request and runs the handler on the admin thread.
+   */
+  private void executeAdmin(HttpServletRequest req, HttpServletResponse resp,
+      RequestHandler handler) throws IOException {
+    if (token == null || recordingManager == null) {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    if (!isAuthorized(req)) {
+      resp.setHeader("WWW-Authenticate", "Bearer");
+      resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+    var asyncContext = req.startAsync(req, resp);
+    asyncContext.setTimeout(ASYNC_TIMEOUT_MILLIS);
+    AsyncListeners.attach(req, asyncContext);
+    try {
+      adminExecutor.execute(() -> {
+        try {
+          handler.handle(req, resp);
+        } catch (IOException | RuntimeException e) {
+          LOGGER.log(Level.WARNING, "Failed to handle an admin request", e);
+          sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+        } finally {
+          try {
+            asyncContext.complete();
+          } catch (IllegalStateException e) {
+            // The container has already completed the request on timeout
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, BUSY_MESSAGE);
+      asyncContext.complete();
+    }
+  }
+
+  private boolean isAuthorized(HttpServletRequest req) {
+    var authorization = req.getHeader("Authorization");
+    if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+      return false;
+    }
+    var presented = authorization.substring(BEARER_PREFIX.length()).trim()
+        .getBytes(StandardCharsets.UTF_8);
+    return MessageDigest.isEqual(token, presented);
+  }
+
+  private void sendStatus(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    sendText(resp, HttpServletResponse.SC_OK, recordingManager.getStatus());
+  }
+
+  private void startRecording(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    var profile = req.getParameter(PROFILE) == null ? DEFAULT_PROFILE : req.getParameter(PROFILE);
+    var duration = req.getParameter(DURATION) == null
+        ? Math.min(DEFAULT_DURATION_SECONDS, recordingManager.getMaxDurationSeconds())
+        : RequestParser.parseNonNegativeLong(req.getParameter(DURATION));
+    try {
+      recordingManager.start(profile, duration);
+      sendText(resp, HttpServletResponse.SC_ACCEPTED, recordingManager.getStatus());
+    } catch (IllegalArgumentException e) {
+      sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+    } catch (IllegalStateException e) {
+      sendError(resp, HttpServletResponse.SC_CONFLICT, e.getMessage());
+    }
+  }
+
+  private void stopRecording(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    try {
+      recordingManager.stop();
+      sendText(resp, HttpServletResponse.SC_OK, recordingManager.getStatus());
+    } catch (IllegalStateException e) {
+      sendError(resp, HttpServletResponse.SC_CONFLICT, e.getMessage());
+    }
+  }
+
+  private void sendRecording(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    try {
+      var dump = recordingManager.getDump();
+      if (dump == null || !Files.exists(dump)) {
+        sendError(resp, HttpServletResponse.SC_NOT_FOUND, "There is no recording");
+        return;
+      }
+      resp.setStatus(HttpServletResponse.SC_OK);
+      resp.setContentType(JFR_CONTENT_TYPE);
+      resp.setHeader("Content-Disposition", "attachment; filename=\"" + dump.getFileName() + "\"");
+      resp.setContentLengthLong(Files.size(dump));
+      try (var stream = resp.getOutputStream()) {
+        Files.copy(dump, stream);
+      }
+    } catch (IllegalStateException e) {
+      sendError(resp, HttpServletResponse.SC_CONFLICT, e.getMessage());
+    }
+  }
+
+  private void sendHeapHistogram(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    var limit = RequestParser.parseNonNegativeLong(req.getParameter(LIMIT));
+    try {
+      sendText(resp, HttpServletResponse.SC_OK, ClassHistogram.summary(
+          limit <= 0 ? DEFAULT_LIMIT : (int) Math.min(limit, Integer.MAX_VALUE)));
+    } catch (JMException e) {
+      LOGGER.log(Level.WARNING, "Failed to take a class histogram", e);
+      sendError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+    }
+  }
+
+  private static void sendText(HttpServletResponse resp, int status, String text)
+      throws IOException {
+    resp.setStatus(status);
+    resp.setContentType(TEXT_CONTENT_TYPE);
+    try (var writer = resp.getWriter()) {
+      writer.write(text);
+    }
+  }
+
+  private static void sendError(HttpServletResponse resp, int status, String message) {
+    try {
+      if (!resp.isCommitted()) {
+        resp.sendError(status, message);
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "Failed to report an admin error", e);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package ru.starkov.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.starkov.util.Constants;
+
+/**
+ * The AsyncListeners class lets filters listen to the asynchronous processing a servlet starts
+ * further down the chain. A listener added once {@code chain.doFilter} has returned may miss the
+ * end of a request the handler thread has already completed, so filters register their listeners
+ * before passing the request on, and the servlet adds them to the {@link AsyncContext} right after
+ * starting it, before the work is dispatched.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AsyncListeners {
+
+  /**
+   * Registers a listener for the asynchronous processing of the request.
+   *
+   * @param request  the request
+   * @param listener the listener
+   */
+  @SuppressWarnings("unchecked")
+  public static void register(ServletRequest request, AsyncListener listener) {
+    var listeners = (List<AsyncListener>) request.getAttribute(Constants.ASYNC_LISTENERS);
+    if (listeners == null) {
+      listeners = new ArrayList<>(2);
+      request.setAttribute(Constants.ASYNC_LISTENERS, listeners);
+    }
+    listeners.add(listener);
+  }
+
+  /**
+   * Adds the listeners registered for the request to its asynchronous context. Each listener is
+   * added once, so filters may call this after the chain in case a servlet did not.
+   *
+   * @param request      the request
+   * @param asyncContext the asynchronous context started for the request
+   */
+  @SuppressWarnings("unchecked")
+  public static void attach(ServletRequest request, AsyncContext asyncContext) {
+    var listeners = (List<AsyncListener>) request.getAttribute(Constants.ASYNC_LISTENERS);
+    if (listeners != null) {
+      request.removeAttribute(Constants.ASYNC_LISTENERS);
+      listeners.forEach(asyncContext::addListener);
+    }
+  }
+}
@@ -1,10 +1,7 @@
 package ru.starkov.servlet;
 
-import static ru.starkov.util.Constants.CODE;
 import static ru.starkov.util.Constants.CURRENCIES_PATH;
 import static ru.starkov.util.Constants.CURRENCY_PATH;
-import static ru.starkov.util.Constants.NAME;
-import static ru.starkov.util.Constants.SIGN;
 import static ru.starkov.util.Constants.WEB_APP_PATH;
 
 import jakarta.servlet.ServletConfig;
@@ -13,19 +10,25 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import ru.starkov.dto.CurrencyCodesRequest;
 import ru.starkov.dto.CurrencyRequestDto;
+import ru.starkov.dto.binary.BinaryWriters;
+import ru.starkov.dto.json.JsonWriters;
 import ru.starkov.dto.mapper.CurrencyMapper;
 import ru.starkov.exception.CurrencyAlreadyExistException;
 import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.DeadlineExceededException;
 import ru.starkov.service.CurrencyService;
 
 /**
- * Servlet to manage currency-related requests. Extends {@link AbstractHttpServlet}.
+ * Servlet to manage currency-related requests. A GET request with {@code ?codes=} returns only the
+ * listed currencies. Extends {@link AbstractHttpServlet}.
  */
 @WebServlet(
     name = "CurrenciesServlet",
     description = "Handles operations related to currencies",
-    value = CURRENCIES_PATH
+    value = CURRENCIES_PATH,
+    asyncSupported = true
 )
 public final class CurrenciesServlet extends AbstractHttpServlet {
 
@@ -44,8 +47,20 @@ public final class CurrenciesServlet extends AbstractHttpServlet {
 
   @Override
   protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    executeAsync(req, resp, this::handleGetRequest);
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    executeAsync(req, resp, this::handlePostRequest);
+  }
+
+  private void handleGetRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
     try {
-      handleCurrencyListRequest(resp);
+      handleCurrencyListRequest(req, resp);
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
     } catch (DatabaseException e) {
       resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
           e.getMessage());
@@ -55,23 +70,16 @@ public final class CurrenciesServlet extends AbstractHttpServlet {
     }
   }
 
-  @Override
-  protected void doPatch(HttpServletRequest req, HttpServletResponse resp)
-      throws ServletException, IOException {
-    super.doPatch(req, resp);
-  }
-
-  @Override
-  protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+  private void handlePostRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
     try {
-      var code = (String) req.getAttribute(CODE);
-      var name = (String) req.getAttribute(NAME);
-      var sign = (String) req.getAttribute(SIGN);
-      var currencyDto = new CurrencyRequestDto(code, name, sign);
+      var currencyDto = getParsedRequest(req, CurrencyRequestDto.class);
       var currency = currencyService.save(currencyDto);
       resp.sendRedirect(WEB_APP_PATH + CURRENCY_PATH + "/" + currency.getCode());
     } catch (CurrencyAlreadyExistException e) {
       resp.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage());
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
     } catch (DatabaseException e) {
       resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
     } catch (Exception e) {
@@ -79,11 +87,13 @@ public final class CurrenciesServlet extends AbstractHttpServlet {
     }
   }
 
-  private void handleCurrencyListRequest(HttpServletResponse resp) throws IOException {
-    var currencies = currencyService.findAll();
-    try (var writer = resp.getWriter()) {
-      resp.setStatus(HttpServletResponse.SC_OK);
-      writer.write(gson.toJson(currencyMapper.collectionToDto(currencies)));
-    }
+  private void handleCurrencyListRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    var codesRequest = getParsedRequest(req, CurrencyCodesRequest.class);
+    var currencies = codesRequest == null
+        ? currencyService.findAll() : currencyService.findAllByCodes(codesRequest.codes());
+    markStaleness(resp);
+    writeBody(req, resp, HttpServletResponse.SC_OK, currencyMapper.collectionToDto(currencies),
+        JsonWriters.CURRENCIES, BinaryWriters.CURRENCIES);
   }
 }
@@ -1,6 +1,5 @@
 package ru.starkov.servlet;
 
-import static ru.starkov.util.Constants.CODE;
 import static ru.starkov.util.Constants.CURRENCY_PATH;
 
 import jakarta.servlet.ServletConfig;
@@ -9,9 +8,12 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import ru.starkov.dto.binary.BinaryWriters;
+import ru.starkov.dto.json.JsonWriters;
 import ru.starkov.dto.mapper.CurrencyMapper;
 import ru.starkov.exception.CurrencyNotFoundException;
 import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.DeadlineExceededException;
 import ru.starkov.service.CurrencyService;
 
 
@@ -21,7 +23,8 @@ import ru.starkov.service.CurrencyService;
 @WebServlet(
     name = "CurrencyServlet",
     description = "Handle operations related to a single currency",
-    value = CURRENCY_PATH + "/*"
+    value = CURRENCY_PATH + "/*",
+    asyncSupported = true
 )
 public final class CurrencyServlet extends AbstractHttpServlet {
 
@@ -42,10 +45,17 @@ public final class CurrencyServlet extends AbstractHttpServlet {
 
   @Override
   protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    executeAsync(req, resp, this::handleGetRequest);
+  }
+
+  private void handleGetRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
     try {
       handleSingleCurrencyRequest(req, resp);
     } catch (CurrencyNotFoundException e) {
       resp.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
     } catch (DatabaseException e) {
       resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
           e.getMessage());
@@ -57,11 +67,10 @@ public final class CurrencyServlet extends AbstractHttpServlet {
 
   private void handleSingleCurrencyRequest(HttpServletRequest req, HttpServletResponse resp)
       throws IOException, CurrencyNotFoundException {
-    var code = (String) req.getAttribute(CODE);
+    var code = getParsedRequest(req, String.class);
     var currency = currencyService.findByCode(code);
-    try (var writer = resp.getWriter()) {
-      resp.setStatus(HttpServletResponse.SC_OK);
-      writer.write(gson.toJson(currencyMapper.toDto(currency)));
-    }
+    markStaleness(resp);
+    writeBody(req, resp, HttpServletResponse.SC_OK, currencyMapper.toDto(currency),
+        JsonWriters.CURRENCY, BinaryWriters.CURRENCY);
   }
 }
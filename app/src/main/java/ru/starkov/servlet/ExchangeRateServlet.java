@@ -1,10 +1,7 @@
 package ru.starkov.servlet;
 
-import static ru.starkov.util.Constants.BASE_CURRENCY_CODE;
 import static ru.starkov.util.Constants.EXCHANGE_RATE_PATH;
 import static ru.starkov.util.Constants.HTTP_METHOD_PATCH;
-import static ru.starkov.util.Constants.RATE;
-import static ru.starkov.util.Constants.TARGET_CURRENCY_CODE;
 import static ru.starkov.util.Constants.WEB_APP_PATH;
 
 import jakarta.servlet.ServletConfig;
@@ -13,10 +10,12 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.math.BigDecimal;
 import ru.starkov.dto.ExchangeRateInfo;
+import ru.starkov.dto.binary.BinaryWriters;
+import ru.starkov.dto.json.JsonWriters;
 import ru.starkov.dto.mapper.ExchangeRateMapper;
 import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.DeadlineExceededException;
 import ru.starkov.exception.ExchangeRateNotFoundException;
 import ru.starkov.service.ExchangeRateService;
 
@@ -27,7 +26,8 @@ import ru.starkov.service.ExchangeRateService;
 @WebServlet(
     name = "ExchangeRateServlet",
     description = "Handles operations related to a single exchange rate",
-    value = EXCHANGE_RATE_PATH + "/*"
+    value = EXCHANGE_RATE_PATH + "/*",
+    asyncSupported = true
 )
 public final class ExchangeRateServlet extends AbstractHttpServlet {
 
@@ -46,17 +46,32 @@ public final class ExchangeRateServlet extends AbstractHttpServlet {
 
   @Override
   protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    executeAsync(req, resp, this::handleGetRequest);
+  }
+
+  @Override
+  protected void service(HttpServletRequest req, HttpServletResponse resp)
+      throws ServletException, IOException {
+    if (req.getMethod().equals(HTTP_METHOD_PATCH)) {
+      executeAsync(req, resp, this::handlePatchRequest);
+    } else {
+      super.service(req, resp);
+    }
+  }
+
+  private void handleGetRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
     try {
-      var baseCurrencyCode = (String) req.getAttribute(BASE_CURRENCY_CODE);
-      var targetCurrencyCode = (String) req.getAttribute(TARGET_CURRENCY_CODE);
-      var exchangeRate = exchangeRateService
-          .findByCurrencyCodes(baseCurrencyCode, targetCurrencyCode);
-      try (var writer = resp.getWriter()) {
-        resp.setStatus(HttpServletResponse.SC_OK);
-        writer.write(gson.toJson(exchangeRateMapper.toDto(exchangeRate)));
-      }
+      var exchangeRateInfo = getParsedRequest(req, ExchangeRateInfo.class);
+      var exchangeRate = exchangeRateService.findByCurrencyCodes(
+          exchangeRateInfo.baseCurrencyCode(), exchangeRateInfo.targetCurrencyCode());
+      markStaleness(resp);
+      writeBody(req, resp, HttpServletResponse.SC_OK, exchangeRateMapper.toDto(exchangeRate),
+          JsonWriters.EXCHANGE_RATE, BinaryWriters.EXCHANGE_RATE);
     } catch (ExchangeRateNotFoundException e) {
       resp.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
     } catch (DatabaseException e) {
       resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
     } catch (Exception e) {
@@ -64,28 +79,21 @@ public final class ExchangeRateServlet extends AbstractHttpServlet {
     }
   }
 
-  @Override
-  protected void service(HttpServletRequest req, HttpServletResponse resp)
-      throws ServletException, IOException {
-    if (req.getMethod().equals(HTTP_METHOD_PATCH)) {
-      try {
-        var baseCurrencyCode = (String) req.getAttribute(BASE_CURRENCY_CODE);
-        var targetCurrencyCode = (String) req.getAttribute(TARGET_CURRENCY_CODE);
-        var rate = (BigDecimal) req.getAttribute(RATE);
-        var exchangeRateInfo = new ExchangeRateInfo(baseCurrencyCode, targetCurrencyCode,
-            rate);
-        exchangeRateService.update(exchangeRateInfo);
-        resp.sendRedirect(
-            WEB_APP_PATH + EXCHANGE_RATE_PATH + "/" + baseCurrencyCode + targetCurrencyCode);
-      } catch (ExchangeRateNotFoundException e) {
-        resp.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
-      } catch (DatabaseException e) {
-        resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
-      } catch (Exception e) {
-        resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, DEFAULT_UNKNOWN_ERROR_MESSAGE);
-      }
-    } else {
-      super.service(req, resp);
+  private void handlePatchRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    try {
+      var exchangeRateInfo = getParsedRequest(req, ExchangeRateInfo.class);
+      exchangeRateService.update(exchangeRateInfo);
+      resp.sendRedirect(WEB_APP_PATH + EXCHANGE_RATE_PATH + "/"
+          + exchangeRateInfo.baseCurrencyCode() + exchangeRateInfo.targetCurrencyCode());
+    } catch (ExchangeRateNotFoundException e) {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
+    } catch (DatabaseException e) {
+      resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+    } catch (Exception e) {
+      resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, DEFAULT_UNKNOWN_ERROR_MESSAGE);
     }
   }
 }
@@ -0,0 +1,161 @@
+package ru.starkov.servlet;
+
+import static ru.starkov.util.Constants.EXCHANGE_RATES_STREAM_PATH;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import ru.starkov.dto.ExchangeRateDto;
+import ru.starkov.dto.RateStreamRequest;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.json.JsonWriters;
+import ru.starkov.dto.mapper.ExchangeRateMapper;
+import ru.starkov.exception.ExchangeRateNotFoundException;
+import ru.starkov.service.ExchangeRateService;
+import ru.starkov.stream.RateChangeBroadcaster;
+import ru.starkov.stream.RateChangeEvent;
+import ru.starkov.stream.RateChangeSubscription;
+import ru.starkov.util.PropertiesLoader;
+
+/**
+ * Servlet to stream committed exchange rate changes as server-sent events. A client resuming with
+ * {@code Last-Event-ID} is sent the changes it missed, or a {@code snapshot} event with all
+ * current rates when they are no longer in the replay ring. Idle streams carry a comment every
+ * heartbeat interval, which also detects disconnected clients. Extends {@link AbstractHttpServlet}.
+ */
+@WebServlet(
+    name = "ExchangeRateStreamServlet",
+    description = "Streams exchange rate changes as server-sent events",
+    value = EXCHANGE_RATES_STREAM_PATH,
+    asyncSupported = true
+)
+public final class ExchangeRateStreamServlet extends AbstractHttpServlet {
+
+  private static final String CONTENT_TYPE = "text/event-stream";
+  private static final String CACHE_CONTROL_HEADER = "Cache-Control";
+  private static final String NO_CACHE = "no-cache";
+  private static final String HEARTBEAT = "stream.heartbeat.ms";
+  private static final String RETRY = "stream.retry.ms";
+  private static final long DEFAULT_HEARTBEAT_MILLIS = 15_000;
+  private static final long DEFAULT_RETRY_MILLIS = 3_000;
+  private static final byte[] HEARTBEAT_FRAME = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+  private static final String TOO_MANY_SUBSCRIBERS_MESSAGE =
+      "Too many subscribers, please try again later";
+
+  private RateChangeBroadcaster rateChangeBroadcaster;
+  private ExchangeRateService exchangeRateService;
+  private ExchangeRateMapper exchangeRateMapper;
+  private JsonSerializer jsonSerializer;
+  private long heartbeatMillis;
+  private long retryMillis;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    var servletContext = config.getServletContext();
+    this.rateChangeBroadcaster = (RateChangeBroadcaster) servletContext.getAttribute(
+        RateChangeBroadcaster.class.getName());
+    this.exchangeRateService = (ExchangeRateService) servletContext.getAttribute(
+        ExchangeRateService.class.getName());
+    this.exchangeRateMapper = (ExchangeRateMapper) servletContext.getAttribute(
+        ExchangeRateMapper.class.getName());
+    this.jsonSerializer = (JsonSerializer) servletContext.getAttribute(
+        JsonSerializer.class.getName());
+    this.heartbeatMillis = PropertiesLoader.getLong(HEARTBEAT, DEFAULT_HEARTBEAT_MILLIS);
+    this.retryMillis = PropertiesLoader.getLong(RETRY, DEFAULT_RETRY_MILLIS);
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    executeAsync(req, resp, this::handleGetRequest, 0);
+  }
+
+  private void handleGetRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    var streamRequest = getParsedRequest(req, RateStreamRequest.class);
+    var subscription = rateChangeBroadcaster.subscribe(streamRequest.lastEventId(),
+        streamRequest.backpressurePolicy());
+    if (subscription == null) {
+      resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, TOO_MANY_SUBSCRIBERS_MESSAGE);
+      return;
+    }
+    try {
+      resp.setStatus(HttpServletResponse.SC_OK);
+      resp.setContentType(CONTENT_TYPE);
+      resp.setHeader(CACHE_CONTROL_HEADER, NO_CACHE);
+      try (var stream = resp.getOutputStream()) {
+        writePrelude(stream, subscription);
+        stream.flush();
+        streamEvents(stream, subscription);
+      }
+    } finally {
+      rateChangeBroadcaster.unsubscribe(subscription);
+    }
+  }
+
+  /**
+   * Writes the reconnection delay and the position of the client in the stream: the missed events
+   * if they could be replayed, a snapshot otherwise, and for a new subscriber an empty event that
+   * only carries the ID to resume from.
+   */
+  private void writePrelude(ServletOutputStream stream, RateChangeSubscription subscription)
+      throws IOException {
+    var startEventId = subscription.getStartEventId();
+    if (!subscription.isReplayComplete()) {
+      writeSnapshot(stream, startEventId);
+    } else if (subscription.getReplay().isEmpty()) {
+      stream.write(("retry: " + retryMillis + "\nid: " + startEventId + "\n\n")
+          .getBytes(StandardCharsets.US_ASCII));
+    } else {
+      stream.write(("retry: " + retryMillis + "\n\n").getBytes(StandardCharsets.US_ASCII));
+      writeEvents(stream, subscription.getReplay());
+    }
+  }
+
+  private void writeSnapshot(ServletOutputStream stream, long eventId) throws IOException {
+    List<ExchangeRateDto> exchangeRates;
+    try {
+      exchangeRates = exchangeRateMapper.collectionToListDto(exchangeRateService.findAll());
+    } catch (ExchangeRateNotFoundException e) {
+      exchangeRates = List.of();
+    }
+    var data = new ByteArrayOutputStream();
+    jsonSerializer.write(exchangeRates, JsonWriters.EXCHANGE_RATES, data);
+    stream.write(("retry: " + retryMillis + "\nid: " + eventId + "\nevent: snapshot\ndata: ")
+        .getBytes(StandardCharsets.US_ASCII));
+    data.writeTo(stream);
+    stream.write('\n');
+    stream.write('\n');
+  }
+
+  private void streamEvents(ServletOutputStream stream, RateChangeSubscription subscription)
+      throws IOException {
+    try {
+      List<RateChangeEvent> events;
+      while ((events = subscription.take(heartbeatMillis)) != null) {
+        if (events.isEmpty()) {
+          stream.write(HEARTBEAT_FRAME);
+        } else {
+          writeEvents(stream, events);
+        }
+        stream.flush();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void writeEvents(ServletOutputStream stream, List<RateChangeEvent> events)
+      throws IOException {
+    for (RateChangeEvent event : events) {
+      stream.write(event.frame());
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package ru.starkov.servlet;
+
+import static ru.starkov.util.Constants.EXCHANGE_RATES_PATH;
+import static ru.starkov.util.Constants.EXCHANGE_RATE_PATH;
+import static ru.starkov.util.Constants.HTTP_METHOD_PATCH;
+import static ru.starkov.util.Constants.WEB_APP_PATH;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import ru.starkov.dto.CurrencyPairsRequest;
+import ru.starkov.dto.ExchangeRateBatch;
+import ru.starkov.dto.ExchangeRateInfo;
+import ru.starkov.dto.binary.BinaryWriters;
+import ru.starkov.dto.json.JsonWriters;
+import ru.starkov.dto.mapper.ExchangeRateMapper;
+import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.DeadlineExceededException;
+import ru.starkov.exception.ExchangeRateAlreadyExistException;
+import ru.starkov.exception.ExchangeRateNotFoundException;
+import ru.starkov.model.ExchangeRate;
+import ru.starkov.service.ExchangeRateService;
+
+
+/**
+ * Servlet to manage exchange rates-related requests. A GET request with {@code ?pairs=} returns
+ * only the exchange rates of the listed currency pairs. Extends {@link AbstractHttpServlet}.
+ */
+@WebServlet(
+    name = "ExchangeRatesServlet",
+    description = "Handles operations related to exchange rates",
+    value = EXCHANGE_RATES_PATH,
+    asyncSupported = true
+)
+public final class ExchangeRatesServlet extends AbstractHttpServlet {
+
+
+  private ExchangeRateService exchangeRateService;
+  private ExchangeRateMapper exchangeRateMapper;
+
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    var servletContext = config.getServletContext();
+    this.exchangeRateService = (ExchangeRateService) servletContext.getAttribute(
+        ExchangeRateService.class.getName());
+    this.exchangeRateMapper = (ExchangeRateMapper) servletContext.getAttribute(
+        ExchangeRateMapper.class.getName());
+  }
+
+  @Override
+  protected void service(HttpServletRequest req, HttpServletResponse resp)
+      throws ServletException, IOException {
+    if (req.getMethod().equals(HTTP_METHOD_PATCH)) {
+      executeAsync(req, resp, this::handlePatchRequest);
+    } else {
+      super.service(req, resp);
+    }
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    executeAsync(req, resp, this::handleGetRequest);
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    executeAsync(req, resp, this::handlePostRequest);
+  }
+
+  private void handleGetRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    try {
+      var pairsRequest = getParsedRequest(req, CurrencyPairsRequest.class);
+      List<ExchangeRate> exchangeRates = pairsRequest == null
+          ? exchangeRateService.findAll()
+          : exchangeRateService.findAllByCurrencyPairs(pairsRequest.pairs());
+      markStaleness(resp);
+      writeBody(req, resp, HttpServletResponse.SC_OK,
+          exchangeRateMapper.collectionToListDto(exchangeRates), JsonWriters.EXCHANGE_RATES,
+          BinaryWriters.EXCHANGE_RATES);
+    } catch (ExchangeRateNotFoundException e) {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
+    } catch (DatabaseException e) {
+      resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+    } catch (Exception e) {
+      resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, DEFAULT_UNKNOWN_ERROR_MESSAGE);
+    }
+  }
+
+  private void handlePostRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    try {
+      var exchangeRateInfo = getParsedRequest(req, ExchangeRateInfo.class);
+      var exchangeRate = exchangeRateService.save(exchangeRateInfo);
+      resp.sendRedirect(
+          WEB_APP_PATH + EXCHANGE_RATE_PATH + "/"
+              + exchangeRate.getBaseCurrency().getCode()
+              + exchangeRate.getTargetCurrency().getCode());
+    } catch (ExchangeRateAlreadyExistException e) {
+      resp.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage());
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
+    } catch (DatabaseException e) {
+      resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+    } catch (Exception e) {
+      resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, DEFAULT_UNKNOWN_ERROR_MESSAGE);
+    }
+  }
+
+  private void handlePatchRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    try {
+      var exchangeRateBatch = getParsedRequest(req, ExchangeRateBatch.class);
+      List<ExchangeRate> exchangeRates =
+          exchangeRateService.updateAll(exchangeRateBatch.exchangeRates());
+      writeBody(req, resp, HttpServletResponse.SC_OK,
+          exchangeRateMapper.collectionToListDto(exchangeRates), JsonWriters.EXCHANGE_RATES,
+          BinaryWriters.EXCHANGE_RATES);
+    } catch (ExchangeRateNotFoundException e) {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
+    } catch (DatabaseException e) {
+      resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+    } catch (Exception e) {
+      resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, DEFAULT_UNKNOWN_ERROR_MESSAGE);
+    }
+  }
+}
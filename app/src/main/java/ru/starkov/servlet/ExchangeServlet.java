@@ -1,9 +1,6 @@
 package ru.starkov.servlet;
 
-import static ru.starkov.util.Constants.AMOUNT;
 import static ru.starkov.util.Constants.EXCHANGE_PATH;
-import static ru.starkov.util.Constants.FROM_CURRENCY_CODE;
-import static ru.starkov.util.Constants.TO_CURRENCY_CODE;
 
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletException;
@@ -11,9 +8,12 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.math.BigDecimal;
+import ru.starkov.dto.ConversionRequest;
+import ru.starkov.dto.binary.BinaryWriters;
+import ru.starkov.dto.json.JsonWriters;
 import ru.starkov.exception.CurrencyNotFoundException;
 import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.DeadlineExceededException;
 import ru.starkov.exception.ExchangeRateNotFoundException;
 import ru.starkov.service.ExchangeService;
 
@@ -25,7 +25,8 @@ import ru.starkov.service.ExchangeService;
 @WebServlet(
     name = "ExchangeServlet",
     description = "Handles currency conversion operations",
-    value = EXCHANGE_PATH
+    value = EXCHANGE_PATH,
+    asyncSupported = true
 )
 public class ExchangeServlet extends AbstractHttpServlet {
 
@@ -43,18 +44,22 @@ public class ExchangeServlet extends AbstractHttpServlet {
   @Override
   protected void doGet(HttpServletRequest req, HttpServletResponse resp)
       throws IOException {
-    try {
-      var fromCurrencyCode = (String) req.getAttribute(FROM_CURRENCY_CODE);
-      var toCurrencyCode = (String) req.getAttribute(TO_CURRENCY_CODE);
-      var amount = (BigDecimal) req.getAttribute(AMOUNT);
+    executeAsync(req, resp, this::handleGetRequest);
+  }
 
-      var conversionResult = exchangeService.convert(fromCurrencyCode, toCurrencyCode,
-          amount);
-      try (var writer = resp.getWriter()) {
-        writer.write(gson.toJson(conversionResult));
-      }
+  private void handleGetRequest(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    try {
+      var conversionRequest = getParsedRequest(req, ConversionRequest.class);
+      var conversionResult = exchangeService.convert(conversionRequest.fromCurrencyCode(),
+          conversionRequest.toCurrencyCode(), conversionRequest.amount());
+      markStaleness(resp);
+      writeBody(req, resp, HttpServletResponse.SC_OK, conversionResult,
+          JsonWriters.CONVERSION_RESULT, BinaryWriters.CONVERSION_RESULT);
     } catch (CurrencyNotFoundException | ExchangeRateNotFoundException e) {
       resp.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+    } catch (DeadlineExceededException e) {
+      sendDeadlineExceeded(resp, e);
     } catch (DatabaseException e) {
       resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
     } catch (Exception e) {
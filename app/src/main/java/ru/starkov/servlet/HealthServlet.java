@@ -0,0 +1,51 @@
+package ru.starkov.servlet;
+
+import static ru.starkov.util.Constants.HEALTH_PATH;
+import static ru.starkov.util.Constants.READY_PATH;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import ru.starkov.dto.binary.BinaryWriters;
+import ru.starkov.dto.json.JsonWriters;
+import ru.starkov.service.WarmUpService;
+
+/**
+ * Servlet to report the health of the application to load balancers. The readiness endpoint answers
+ * with 503 until the warm-up has finished. Extends {@link AbstractHttpServlet}.
+ */
+@WebServlet(
+    name = "HealthServlet",
+    description = "Reports the readiness of the application",
+    value = HEALTH_PATH + "/*"
+)
+public final class HealthServlet extends AbstractHttpServlet {
+
+  private static final String READY = "READY";
+  private static final String WARMING_UP = "WARMING_UP";
+
+  private WarmUpService warmUpService;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    var servletContext = config.getServletContext();
+    this.warmUpService = (WarmUpService) servletContext.getAttribute(
+        WarmUpService.class.getName());
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    if (!READY_PATH.equals(req.getPathInfo())) {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    var ready = warmUpService.isReady();
+    writeBody(req, resp,
+        ready ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+        ready ? READY : WARMING_UP, JsonWriters.STATUS, BinaryWriters.STATUS);
+  }
+}
@@ -0,0 +1,51 @@
+package ru.starkov.servlet;
+
+import static ru.starkov.util.Constants.METRICS_PATH;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import ru.starkov.metrics.PrometheusExporter;
+import ru.starkov.util.PropertiesLoader;
+
+/**
+ * Servlet to expose the metrics of the application to Prometheus. The metrics are read on every
+ * scrape without touching the database, so the servlet answers on the container thread.
+ */
+@WebServlet(
+    name = "MetricsServlet",
+    description = "Exposes the metrics in the Prometheus text format",
+    value = METRICS_PATH
+)
+public final class MetricsServlet extends HttpServlet {
+
+  private static final String ENABLED = "metrics.enabled";
+
+  private boolean enabled;
+  private PrometheusExporter prometheusExporter;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    this.enabled = PropertiesLoader.getBoolean(ENABLED, true);
+    this.prometheusExporter = (PrometheusExporter) config.getServletContext().getAttribute(
+        PrometheusExporter.class.getName());
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    if (!enabled) {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    resp.setStatus(HttpServletResponse.SC_OK);
+    resp.setContentType(PrometheusExporter.CONTENT_TYPE);
+    try (var writer = resp.getWriter()) {
+      prometheusExporter.write(writer);
+    }
+  }
+}
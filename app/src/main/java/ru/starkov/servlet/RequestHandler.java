@@ -0,0 +1,22 @@
+package ru.starkov.servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * The RequestHandler functional interface defines the work a servlet does for a request. It is run
+ * off the container thread by {@link AbstractHttpServlet#executeAsync}.
+ */
+@FunctionalInterface
+public interface RequestHandler {
+
+  /**
+   * Handles the request and writes the response.
+   *
+   * @param request  the HttpServletRequest to handle
+   * @param response the HttpServletResponse to write to
+   * @throws IOException if an I/O error occurs while writing the response
+   */
+  void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+}
@@ -8,14 +8,20 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.util.regex.Pattern;
+import ru.starkov.metrics.RequestStage;
+import ru.starkov.metrics.RequestTiming;
 import ru.starkov.util.Constants;
+import ru.starkov.util.RequestParser;
 
 /**
  * The AbstractValidationFilter class provides common functionality for validation filters used in
  * servlets. It implements the Filter interface and defines methods for filtering requests based on
- * validation logic.
+ * validation logic. Validation runs on the container thread before the servlet goes asynchronous,
+ * so subclasses must be registered with {@code asyncSupported = true} and must pass the parsed
+ * values on as a single typed request attribute with {@link #setParsedRequest}, which stays
+ * available to the asynchronous handler. Values are checked with {@link RequestParser}, which
+ * scans them in place. While request timing is enabled, the time until the request is passed on
+ * is recorded as its validation stage.
  */
 public abstract class AbstractValidationFilter implements Filter {
 
@@ -31,9 +37,10 @@ public abstract class AbstractValidationFilter implements Filter {
       "Request form doesn't match server-side form";
   protected static final String ERROR_FORM_PARAM_IS_NULL_OR_BLANK =
       "Currency %s cannot be null or blank";
+  protected static final String ERROR_INVALID_CODE_LIST =
+      "This is not a valid comma-separated list of up to %d %s: '%s'";
 
-  protected static final int CURRENCY_CODE_LENGTH = 3;
-  private static final Pattern CURRENCY_CODE_PATTERN = Pattern.compile("^[a-zA-Z]{3}$");
+  protected static final int CURRENCY_CODE_LENGTH = RequestParser.CURRENCY_CODE_LENGTH;
 
 
   protected abstract void validateRequest(HttpServletRequest request, HttpServletResponse response,
@@ -55,7 +62,16 @@ public abstract class AbstractValidationFilter implements Filter {
     if (request instanceof HttpServletRequest httpServletRequest
         && response instanceof HttpServletResponse httpServletResponse) {
       FilterLogic filterLogic = this::validateRequest;
-      filterLogic.apply(httpServletRequest, httpServletResponse, chain);
+      var timing = RequestTiming.of(httpServletRequest);
+      if (timing == null) {
+        filterLogic.apply(httpServletRequest, httpServletResponse, chain);
+        return;
+      }
+      var start = System.nanoTime();
+      filterLogic.apply(httpServletRequest, httpServletResponse, (req, resp) -> {
+        timing.add(RequestStage.VALIDATION, System.nanoTime() - start);
+        chain.doFilter(req, resp);
+      });
     } else {
       chain.doFilter(request, response);
     }
@@ -66,10 +82,18 @@ public abstract class AbstractValidationFilter implements Filter {
     httpServletResponse.sendError(HttpServletResponse.SC_BAD_REQUEST, errorMessage);
   }
 
-  @SuppressWarnings("all")
+  /**
+   * Passes the parsed request values on to the servlet.
+   *
+   * @param request       the request being filtered
+   * @param parsedRequest the parsed values
+   */
+  protected void setParsedRequest(HttpServletRequest request, Object parsedRequest) {
+    request.setAttribute(Constants.PARSED_REQUEST, parsedRequest);
+  }
+
   protected boolean isCurrencyCodeValid(String currencyCode) {
-    var codeMatcher = CURRENCY_CODE_PATTERN.matcher(currencyCode);
-    return codeMatcher.matches();
+    return RequestParser.isCurrencyCode(currencyCode);
   }
 
   protected boolean isGetMethod(HttpServletRequest request) {
@@ -83,14 +107,4 @@ public abstract class AbstractValidationFilter implements Filter {
   protected boolean isPatchMethod(HttpServletRequest request) {
     return request.getMethod().equalsIgnoreCase(Constants.HTTP_METHOD_PATCH);
   }
-
-  @SuppressWarnings("all")
-  protected boolean isANumberAndGreaterThanZero(String value) {
-    try {
-      var bigDecimal = new BigDecimal(value);
-      return bigDecimal.compareTo(BigDecimal.ZERO) > 0;
-    } catch (NumberFormatException e) {
-      return false;
-    }
-  }
 }
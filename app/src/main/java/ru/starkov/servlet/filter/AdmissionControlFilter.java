@@ -0,0 +1,102 @@
+package ru.starkov.servlet.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import ru.starkov.admission.AdmissionController;
+import ru.starkov.admission.RequestPriority;
+import ru.starkov.servlet.AsyncListeners;
+
+/**
+ * A filter for shedding load before requests reach the database. Each request to a servlet that
+ * queries the database is admitted by the {@link AdmissionController} or answered at once with
+ * {@code 503 Service Unavailable} and a {@code Retry-After} header. An admitted request counts as
+ * in flight until its asynchronous processing completes. The listener that releases it is
+ * registered before the request is passed on, so it is added to the asynchronous context before
+ * the handler can complete it.
+ */
+public class AdmissionControlFilter implements Filter {
+
+  private static final String RETRY_AFTER_HEADER = "Retry-After";
+  private static final String OVERLOADED_MESSAGE =
+      "The service is overloaded, please try again later";
+
+  private AdmissionController admissionController;
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    this.admissionController = (AdmissionController) filterConfig.getServletContext()
+        .getAttribute(AdmissionController.class.getName());
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    if (!(request instanceof HttpServletRequest httpServletRequest)
+        || !(response instanceof HttpServletResponse httpServletResponse)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    if (!admissionController.tryAdmit(RequestPriority.of(httpServletRequest.getMethod()))) {
+      httpServletResponse.setHeader(RETRY_AFTER_HEADER,
+          String.valueOf(admissionController.getRetryAfterSeconds()));
+      httpServletResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+          OVERLOADED_MESSAGE);
+      return;
+    }
+    var releasingListener = new ReleasingListener();
+    AsyncListeners.register(request, releasingListener);
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      if (request.isAsyncStarted()) {
+        AsyncListeners.attach(request, request.getAsyncContext());
+      } else {
+        releasingListener.release();
+      }
+    }
+  }
+
+  /**
+   * Releases the admission of an asynchronous request exactly once, whichever way it ends.
+   */
+  private final class ReleasingListener implements AsyncListener {
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // The request stays in flight when asynchronous processing is restarted
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        admissionController.release();
+      }
+    }
+  }
+}
@@ -5,7 +5,6 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
-import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -15,7 +14,6 @@ import java.io.IOException;
  * requests. It intercepts incoming requests and adds appropriate CORS headers to allow
  * communication between different origins.
  */
-@WebFilter(value = "/*")
 public class CorsFilter implements Filter {
 
   private static final String[] allowedOrigins = {
@@ -50,7 +48,7 @@ public class CorsFilter implements Filter {
 
   private boolean isAllowedOrigin(String origin) {
     for (String allowedOrigin : allowedOrigins) {
-      if (origin.equals(allowedOrigin)) {
+      if (allowedOrigin.equals(origin)) {
         return true;
       }
     }
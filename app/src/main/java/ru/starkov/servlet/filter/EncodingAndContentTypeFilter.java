@@ -0,0 +1,44 @@
+package ru.starkov.servlet.filter;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import ru.starkov.dto.ResponseFormat;
+import ru.starkov.util.Constants;
+
+/**
+ * A filter for setting character encoding and content type for servlet responses.
+ *
+ * <p>This filter negotiates the {@link ResponseFormat} of the response from the {@code Accept}
+ * header and stores it as the {@link Constants#RESPONSE_FORMAT} request attribute. JSON responses
+ * are sent as UTF-8; CBOR and MessagePack responses carry no character encoding.
+ */
+public class EncodingAndContentTypeFilter implements Filter {
+
+  private static final String CHARSET = "UTF-8";
+  private static final String ACCEPT = "Accept";
+  private static final String VARY = "Vary";
+
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    var format = request instanceof HttpServletRequest httpServletRequest
+        ? ResponseFormat.negotiate(httpServletRequest.getHeader(ACCEPT))
+        : ResponseFormat.JSON;
+    request.setAttribute(Constants.RESPONSE_FORMAT, format);
+    if (!format.isBinary()) {
+      response.setCharacterEncoding(CHARSET);
+    }
+    response.setContentType(format.getMediaType());
+    if (response instanceof HttpServletResponse httpServletResponse) {
+      httpServletResponse.addHeader(VARY, ACCEPT);
+    }
+    chain.doFilter(request, response);
+  }
+}
@@ -0,0 +1,105 @@
+package ru.starkov.servlet.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import ru.starkov.metrics.MetricsRegistry;
+import ru.starkov.servlet.AsyncListeners;
+import ru.starkov.util.PropertiesLoader;
+
+/**
+ * A filter for recording the status code and latency of every request in the
+ * {@link MetricsRegistry}, labelled with the name of the servlet that handled it. Asynchronous
+ * requests are recorded when their processing completes, which the container signals after a
+ * timeout or an error as well.
+ */
+public class MetricsFilter implements Filter {
+
+  private static final String ENABLED = "metrics.enabled";
+
+  private boolean enabled;
+  private MetricsRegistry metricsRegistry;
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    this.enabled = PropertiesLoader.getBoolean(ENABLED, true);
+    this.metricsRegistry = (MetricsRegistry) filterConfig.getServletContext()
+        .getAttribute(MetricsRegistry.class.getName());
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    if (!enabled || !(request instanceof HttpServletRequest httpServletRequest)
+        || !(response instanceof HttpServletResponse httpServletResponse)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    var start = System.nanoTime();
+    var servletName = httpServletRequest.getHttpServletMapping().getServletName();
+    var recordingListener = new RecordingListener(servletName, start);
+    AsyncListeners.register(request, recordingListener);
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      if (request.isAsyncStarted()) {
+        AsyncListeners.attach(request, request.getAsyncContext());
+      } else {
+        recordingListener.record(httpServletResponse.getStatus());
+      }
+    }
+  }
+
+  /**
+   * Records a request exactly once, an asynchronous one when its response is complete.
+   */
+  private final class RecordingListener implements AsyncListener {
+
+    private final String servletName;
+    private final long start;
+    private final AtomicBoolean recorded = new AtomicBoolean();
+
+    private RecordingListener(String servletName, long start) {
+      this.servletName = servletName;
+      this.start = start;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      var status = event.getSuppliedResponse() instanceof HttpServletResponse response
+          ? response.getStatus()
+          : HttpServletResponse.SC_OK;
+      record(status);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      // Recorded on completion, which follows the timeout
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      // Recorded on completion, which follows the error
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // The request is still being processed when asynchronous processing is restarted
+    }
+
+    private void record(int status) {
+      if (recorded.compareAndSet(false, true)) {
+        metricsRegistry.recordRequest(servletName, status, System.nanoTime() - start);
+      }
+    }
+  }
+}
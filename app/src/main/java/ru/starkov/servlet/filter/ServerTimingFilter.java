@@ -0,0 +1,99 @@
+package ru.starkov.servlet.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import ru.starkov.metrics.RequestTiming;
+import ru.starkov.metrics.RequestTimingLog;
+import ru.starkov.servlet.AsyncListeners;
+
+/**
+ * A filter for timing the stages of every request while request timing is enabled. It starts the
+ * {@link RequestTiming} of the request, counts the bytes allocated on the container thread and
+ * hands the timing to the {@link RequestTimingLog} once the response is complete. The
+ * {@code Server-Timing} header itself is written by the servlet, before the response is committed.
+ */
+public class ServerTimingFilter implements Filter {
+
+  private RequestTimingLog requestTimingLog;
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    this.requestTimingLog = (RequestTimingLog) filterConfig.getServletContext()
+        .getAttribute(RequestTimingLog.class.getName());
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    var timing = RequestTiming.of(request);
+    if (timing == null || !(request instanceof HttpServletRequest httpServletRequest)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    var servletName = httpServletRequest.getHttpServletMapping().getServletName();
+    var allocationMark = RequestTiming.allocatedBytes();
+    var loggingListener = new LoggingListener(servletName, timing);
+    AsyncListeners.register(request, loggingListener);
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      timing.addAllocatedSince(allocationMark);
+      if (request.isAsyncStarted()) {
+        AsyncListeners.attach(request, request.getAsyncContext());
+      } else {
+        loggingListener.log();
+      }
+    }
+  }
+
+  /**
+   * Logs the timing of a request exactly once, of an asynchronous one when its response is
+   * complete.
+   */
+  private final class LoggingListener implements AsyncListener {
+
+    private final String servletName;
+    private final RequestTiming timing;
+    private final AtomicBoolean logged = new AtomicBoolean();
+
+    private LoggingListener(String servletName, RequestTiming timing) {
+      this.servletName = servletName;
+      this.timing = timing;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      log();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      // Logged on completion, which follows the timeout
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      // Logged on completion, which follows the error
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // The request is still being processed when asynchronous processing is restarted
+    }
+
+    private void log() {
+      if (requestTimingLog != null && logged.compareAndSet(false, true)) {
+        requestTimingLog.record(servletName, timing);
+      }
+    }
+  }
+}
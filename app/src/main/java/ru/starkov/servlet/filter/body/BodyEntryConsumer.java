@@ -0,0 +1,17 @@
+package ru.starkov.servlet.filter.body;
+
+/**
+ * The BodyEntryConsumer functional interface receives the name and value pairs of a request body
+ * one by one, as a {@link BodyParser} reads them.
+ */
+@FunctionalInterface
+public interface BodyEntryConsumer {
+
+  /**
+   * Accepts one entry of the request body.
+   *
+   * @param name  the decoded entry name
+   * @param value the decoded entry value, empty if the entry has no value
+   */
+  void accept(String name, String value);
+}
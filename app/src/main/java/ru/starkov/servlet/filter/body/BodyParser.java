@@ -0,0 +1,119 @@
+package ru.starkov.servlet.filter.body;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import ru.starkov.exception.InvalidRequestBodyException;
+
+/**
+ * The BodyParser class reads the name and value pairs of a request body straight from the input
+ * stream. Memory use is bounded whatever the body size: the stream is read through a fixed buffer,
+ * a single name or value may not exceed {@link #MAX_TOKEN_BYTES}, and a body may not contain more
+ * than the given number of entries. Instances hold the buffers and are used for one body only.
+ *
+ * @see FormBodyParser
+ * @see JsonBodyParser
+ */
+public abstract class BodyParser {
+
+  public static final int MAX_TOKEN_BYTES = 256;
+  protected static final int END_OF_STREAM = -1;
+  private static final int READ_BUFFER_SIZE = 4 * 1024;
+  private static final String JSON_MEDIA_TYPE = "application/json";
+  private static final String ERROR_TOKEN_TOO_LONG =
+      "A request body name or value is longer than %d bytes";
+  private static final String ERROR_TOO_MANY_ENTRIES =
+      "The request body has more than %d entries";
+
+  private final InputStream inputStream;
+  private final int maxEntries;
+  private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+  private final byte[] token = new byte[MAX_TOKEN_BYTES];
+  private int readPosition;
+  private int readLimit;
+  private int tokenLength;
+  private int entries;
+
+  protected BodyParser(InputStream inputStream, int maxEntries) {
+    this.inputStream = inputStream;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Creates the parser for the content type of a request body. JSON bodies are parsed as JSON,
+   * everything else as {@code application/x-www-form-urlencoded}.
+   *
+   * @param contentType the content type of the body, may be null
+   * @param inputStream the body
+   * @param maxEntries  the maximum number of entries the body may contain
+   * @return the parser
+   */
+  public static BodyParser forContentType(String contentType, InputStream inputStream,
+      int maxEntries) {
+    if (contentType != null
+        && contentType.toLowerCase(Locale.ROOT).startsWith(JSON_MEDIA_TYPE)) {
+      return new JsonBodyParser(inputStream, maxEntries);
+    }
+    return new FormBodyParser(inputStream, maxEntries);
+  }
+
+  /**
+   * Reads the whole body and passes every entry to the consumer in the order of the body.
+   *
+   * @param consumer the receiver of the entries
+   * @throws IOException                 if the body cannot be read
+   * @throws InvalidRequestBodyException if the body is malformed or exceeds the limits
+   */
+  public abstract void parse(BodyEntryConsumer consumer) throws IOException;
+
+  protected int read() throws IOException {
+    if (readPosition == readLimit) {
+      readLimit = inputStream.read(readBuffer, 0, readBuffer.length);
+      readPosition = 0;
+      if (readLimit <= 0) {
+        readLimit = 0;
+        return END_OF_STREAM;
+      }
+    }
+    return readBuffer[readPosition++] & 0xFF;
+  }
+
+  protected void append(int b) {
+    if (tokenLength == MAX_TOKEN_BYTES) {
+      throw new InvalidRequestBodyException(String.format(ERROR_TOKEN_TOO_LONG, MAX_TOKEN_BYTES));
+    }
+    token[tokenLength++] = (byte) b;
+  }
+
+  protected void appendCodePoint(int codePoint) {
+    if (codePoint < 0x80) {
+      append(codePoint);
+    } else if (codePoint < 0x800) {
+      append(0xC0 | codePoint >> 6);
+      append(0x80 | codePoint & 0x3F);
+    } else if (codePoint < 0x10000) {
+      append(0xE0 | codePoint >> 12);
+      append(0x80 | codePoint >> 6 & 0x3F);
+      append(0x80 | codePoint & 0x3F);
+    } else {
+      append(0xF0 | codePoint >> 18);
+      append(0x80 | codePoint >> 12 & 0x3F);
+      append(0x80 | codePoint >> 6 & 0x3F);
+      append(0x80 | codePoint & 0x3F);
+    }
+  }
+
+  protected String takeToken() {
+    var value = tokenLength == 0 ? "" : new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    tokenLength = 0;
+    return value;
+  }
+
+  protected void emit(BodyEntryConsumer consumer, String name, String value) {
+    if (++entries > maxEntries) {
+      throw new InvalidRequestBodyException(String.format(ERROR_TOO_MANY_ENTRIES, maxEntries));
+    }
+    consumer.accept(name, value);
+  }
+}
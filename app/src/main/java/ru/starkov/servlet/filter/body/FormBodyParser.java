@@ -0,0 +1,76 @@
+package ru.starkov.servlet.filter.body;
+
+import java.io.IOException;
+import java.io.InputStream;
+import ru.starkov.exception.InvalidRequestBodyException;
+
+/**
+ * Parses an {@code application/x-www-form-urlencoded} body. Entries are separated by {@code &};
+ * line breaks are accepted as separators too, for clients that send one entry per line. Names and
+ * values are percent-decoded as UTF-8 and {@code +} stands for a space.
+ */
+public final class FormBodyParser extends BodyParser {
+
+  private static final String ERROR_INVALID_ESCAPE =
+      "The request body contains an invalid percent-encoded sequence";
+
+  public FormBodyParser(InputStream inputStream, int maxEntries) {
+    super(inputStream, maxEntries);
+  }
+
+  @Override
+  public void parse(BodyEntryConsumer consumer) throws IOException {
+    String name = null;
+    var empty = true;
+    while (true) {
+      var b = read();
+      switch (b) {
+        case END_OF_STREAM, '&', '\r', '\n' -> {
+          if (name != null) {
+            emit(consumer, name, takeToken());
+          } else if (!empty) {
+            emit(consumer, takeToken(), "");
+          }
+          if (b == END_OF_STREAM) {
+            return;
+          }
+          name = null;
+          empty = true;
+        }
+        case '=' -> {
+          if (name == null) {
+            name = takeToken();
+          } else {
+            append(b);
+          }
+          empty = false;
+        }
+        case '+' -> {
+          append(' ');
+          empty = false;
+        }
+        case '%' -> {
+          append(hexDigit(read()) << 4 | hexDigit(read()));
+          empty = false;
+        }
+        default -> {
+          append(b);
+          empty = false;
+        }
+      }
+    }
+  }
+
+  private static int hexDigit(int b) {
+    if (b >= '0' && b <= '9') {
+      return b - '0';
+    }
+    if (b >= 'a' && b <= 'f') {
+      return b - 'a' + 10;
+    }
+    if (b >= 'A' && b <= 'F') {
+      return b - 'A' + 10;
+    }
+    throw new InvalidRequestBodyException(ERROR_INVALID_ESCAPE);
+  }
+}
@@ -0,0 +1,158 @@
+package ru.starkov.servlet.filter.body;
+
+import java.io.IOException;
+import java.io.InputStream;
+import ru.starkov.exception.InvalidRequestBodyException;
+
+/**
+ * Parses an {@code application/json} body holding a single flat object, for example
+ * {@code {"USDEUR": 0.93, "USDRUB": "91.5"}}. Member values must be strings or numbers; numbers
+ * are passed on as written, so no precision is lost.
+ */
+public final class JsonBodyParser extends BodyParser {
+
+  private static final String ERROR_MALFORMED = "The request body is not a flat JSON object";
+
+  public JsonBodyParser(InputStream inputStream, int maxEntries) {
+    super(inputStream, maxEntries);
+  }
+
+  @Override
+  public void parse(BodyEntryConsumer consumer) throws IOException {
+    expect(nextNonWhitespace(), '{');
+    var b = nextNonWhitespace();
+    if (b == '}') {
+      expectEnd();
+      return;
+    }
+    while (true) {
+      expect(b, '"');
+      readString();
+      var name = takeToken();
+      expect(nextNonWhitespace(), ':');
+      b = nextNonWhitespace();
+      if (b == '"') {
+        readString();
+        b = nextNonWhitespace();
+      } else {
+        b = readNumber(b);
+      }
+      emit(consumer, name, takeToken());
+      if (b == '}') {
+        expectEnd();
+        return;
+      }
+      expect(b, ',');
+      b = nextNonWhitespace();
+    }
+  }
+
+  private void readString() throws IOException {
+    while (true) {
+      var b = read();
+      switch (b) {
+        case END_OF_STREAM -> throw new InvalidRequestBodyException(ERROR_MALFORMED);
+        case '"' -> {
+          return;
+        }
+        case '\\' -> readEscape();
+        default -> {
+          if (b < 0x20) {
+            throw new InvalidRequestBodyException(ERROR_MALFORMED);
+          }
+          append(b);
+        }
+      }
+    }
+  }
+
+  private void readEscape() throws IOException {
+    var b = read();
+    switch (b) {
+      case '"', '\\', '/' -> append(b);
+      case 'b' -> append('\b');
+      case 'f' -> append('\f');
+      case 'n' -> append('\n');
+      case 'r' -> append('\r');
+      case 't' -> append('\t');
+      case 'u' -> {
+        var c = readHex();
+        if (Character.isHighSurrogate(c)) {
+          if (read() != '\\' || read() != 'u') {
+            throw new InvalidRequestBodyException(ERROR_MALFORMED);
+          }
+          var low = readHex();
+          if (!Character.isLowSurrogate(low)) {
+            throw new InvalidRequestBodyException(ERROR_MALFORMED);
+          }
+          appendCodePoint(Character.toCodePoint(c, low));
+        } else if (Character.isLowSurrogate(c)) {
+          throw new InvalidRequestBodyException(ERROR_MALFORMED);
+        } else {
+          appendCodePoint(c);
+        }
+      }
+      default -> throw new InvalidRequestBodyException(ERROR_MALFORMED);
+    }
+  }
+
+  private char readHex() throws IOException {
+    var value = 0;
+    for (int i = 0; i < 4; i++) {
+      var b = read();
+      int digit;
+      if (b >= '0' && b <= '9') {
+        digit = b - '0';
+      } else if (b >= 'a' && b <= 'f') {
+        digit = b - 'a' + 10;
+      } else if (b >= 'A' && b <= 'F') {
+        digit = b - 'A' + 10;
+      } else {
+        throw new InvalidRequestBodyException(ERROR_MALFORMED);
+      }
+      value = value << 4 | digit;
+    }
+    return (char) value;
+  }
+
+  /**
+   * Reads the characters of a number starting with the given byte and returns the first
+   * non-whitespace byte after it.
+   */
+  private int readNumber(int b) throws IOException {
+    var length = 0;
+    while (b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E' || b >= '0' && b <= '9') {
+      append(b);
+      length++;
+      b = read();
+    }
+    if (length == 0) {
+      throw new InvalidRequestBodyException(ERROR_MALFORMED);
+    }
+    return isWhitespace(b) ? nextNonWhitespace() : b;
+  }
+
+  private int nextNonWhitespace() throws IOException {
+    int b;
+    do {
+      b = read();
+    } while (isWhitespace(b));
+    return b;
+  }
+
+  private void expectEnd() throws IOException {
+    if (nextNonWhitespace() != END_OF_STREAM) {
+      throw new InvalidRequestBodyException(ERROR_MALFORMED);
+    }
+  }
+
+  private static void expect(int b, char expected) {
+    if (b != expected) {
+      throw new InvalidRequestBodyException(ERROR_MALFORMED);
+    }
+  }
+
+  private static boolean isWhitespace(int b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+}
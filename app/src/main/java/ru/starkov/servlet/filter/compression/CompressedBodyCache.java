@@ -0,0 +1,123 @@
+package ru.starkov.servlet.filter.compression;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import ru.starkov.util.Constants;
+
+/**
+ * The CompressedBodyCache class remembers the last compressed body per request and encoding. A
+ * cached entry is only used when the new body is byte-for-byte the same as the one it was
+ * compressed from, so responses never go stale; comparing the bytes is far cheaper than deflating
+ * them again.
+ *
+ * <p>Requests are keyed on their path and the request values parsed by the validation filters,
+ * not on the raw query string, so that parameters the application ignores do not create new
+ * entries. The cache holds at most the configured number of entries and bytes, uncompressed and
+ * compressed bodies together, and evicts the least recently used entries beyond either bound.
+ */
+public final class CompressedBodyCache {
+
+  private final int maxEntries;
+  private final long maxBytes;
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxEntries the maximum number of cached bodies
+   * @param maxBytes   the maximum number of bytes of the cached bodies
+   */
+  public CompressedBodyCache(int maxEntries, long maxBytes) {
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Makes the key of the response to a GET request. Requests with a query string the validation
+   * filters have not parsed have no canonical form and are not cached.
+   *
+   * @param request  the request
+   * @param encoding the encoding of the compressed body
+   * @return the key, or null if the response must not be cached
+   */
+  public static Key keyOf(HttpServletRequest request, ContentEncoding encoding) {
+    var parsedRequest = request.getAttribute(Constants.PARSED_REQUEST);
+    if (parsedRequest == null && request.getQueryString() != null) {
+      return null;
+    }
+    var pathInfo = request.getPathInfo();
+    var path = pathInfo == null ? request.getServletPath() : request.getServletPath() + pathInfo;
+    return new Key(path, parsedRequest, request.getAttribute(Constants.RESPONSE_FORMAT),
+        encoding);
+  }
+
+  /**
+   * Looks up the compressed form of the body.
+   *
+   * @param key    the key of the response
+   * @param body   the buffer holding the uncompressed body
+   * @param length the length of the uncompressed body
+   * @return the compressed body, or null if it is not cached
+   */
+  public byte[] get(Key key, byte[] body, int length) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key);
+    }
+    if (entry == null
+        || !Arrays.equals(entry.body(), 0, entry.body().length, body, 0, length)) {
+      return null;
+    }
+    return entry.compressed();
+  }
+
+  /**
+   * Caches the compressed form of the body, replacing the previous one for the key and evicting
+   * the least recently used entries over the bounds.
+   *
+   * @param key        the key of the response
+   * @param body       the buffer holding the uncompressed body
+   * @param length     the length of the uncompressed body
+   * @param compressed the compressed body
+   */
+  public void put(Key key, byte[] body, int length, byte[] compressed) {
+    var entry = new Entry(Arrays.copyOf(body, length), compressed);
+    if (entry.size() > maxBytes) {
+      return;
+    }
+    synchronized (this) {
+      var previous = entries.put(key, entry);
+      if (previous != null) {
+        bytes -= previous.size();
+      }
+      bytes += entry.size();
+      var iterator = entries.values().iterator();
+      while (!entries.isEmpty() && (entries.size() > maxEntries || bytes > maxBytes)) {
+        bytes -= iterator.next().size();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * The key of a cached response.
+   *
+   * @param path          the servlet path and path info of the request
+   * @param parsedRequest the request values parsed by the validation filter, or null
+   * @param format        the negotiated response format, or null
+   * @param encoding      the encoding of the compressed body
+   */
+  public record Key(String path, Object parsedRequest, Object format, ContentEncoding encoding) {
+
+  }
+
+  private record Entry(byte[] body, byte[] compressed) {
+
+    long size() {
+      return (long) body.length + compressed.length;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package ru.starkov.servlet.filter.compression;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import ru.starkov.servlet.AsyncListeners;
+import ru.starkov.util.Constants;
+import ru.starkov.util.PropertiesLoader;
+
+/**
+ * A filter for compressing response bodies with gzip or deflate, whichever the client prefers in
+ * its {@code Accept-Encoding} header. Bodies under the configured threshold are sent as they are.
+ * Deflaters are pooled, and compressed bodies of GET responses are cached so that an unchanged
+ * body is not compressed again on every request.
+ *
+ * <p>Servlets run asynchronously and usually close the response stream when they are done, which
+ * is when the compressed body is completed. Whatever a servlet leaves open is completed when the
+ * asynchronous processing completes, and for synchronous requests when the chain returns, so the
+ * pooled deflater is always returned.
+ */
+public class CompressionFilter implements Filter {
+
+  private static final String ENABLED = "compression.enabled";
+  private static final String THRESHOLD = "compression.threshold.bytes";
+  private static final String LEVEL = "compression.level";
+  private static final String POOL_SIZE = "compression.deflater.pool.size";
+  private static final String CACHE_ENTRIES = "compression.cache.entries";
+  private static final String CACHE_MAX_BODY = "compression.cache.max.body.bytes";
+  private static final String CACHE_MAX_BYTES = "compression.cache.max.bytes";
+  private static final int DEFAULT_THRESHOLD = 1024;
+  private static final int DEFAULT_POOL_SIZE = 64;
+  private static final int DEFAULT_CACHE_ENTRIES = 256;
+  private static final int DEFAULT_CACHE_MAX_BODY = 1024 * 1024;
+  private static final long DEFAULT_CACHE_MAX_BYTES = 16L * 1024 * 1024;
+  private static final String ACCEPT_ENCODING = "Accept-Encoding";
+  private static final String CONTENT_ENCODING = "Content-Encoding";
+  private static final String VARY = "Vary";
+  private static final Logger LOGGER = Logger.getLogger(CompressionFilter.class.getName());
+
+  private boolean enabled;
+  private int threshold;
+  private int maxCachedBodyBytes;
+  private DeflaterPool deflaterPool;
+  private CompressedBodyCache bodyCache;
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    this.enabled = PropertiesLoader.getBoolean(ENABLED, true);
+    this.threshold = PropertiesLoader.getInt(THRESHOLD, DEFAULT_THRESHOLD);
+    this.maxCachedBodyBytes = PropertiesLoader.getInt(CACHE_MAX_BODY, DEFAULT_CACHE_MAX_BODY);
+    this.deflaterPool = new DeflaterPool(
+        PropertiesLoader.getInt(LEVEL, Deflater.DEFAULT_COMPRESSION),
+        PropertiesLoader.getInt(POOL_SIZE, DEFAULT_POOL_SIZE));
+    this.bodyCache = new CompressedBodyCache(
+        PropertiesLoader.getInt(CACHE_ENTRIES, DEFAULT_CACHE_ENTRIES),
+        PropertiesLoader.getLong(CACHE_MAX_BYTES, DEFAULT_CACHE_MAX_BYTES));
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    if (!enabled || !(request instanceof HttpServletRequest httpServletRequest)
+        || !(response instanceof HttpServletResponse httpServletResponse)
+        || httpServletResponse.containsHeader(CONTENT_ENCODING)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    httpServletResponse.addHeader(VARY, ACCEPT_ENCODING);
+    var encoding = ContentEncoding.negotiate(httpServletRequest.getHeader(ACCEPT_ENCODING));
+    if (encoding == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    var wrapper = new CompressionResponseWrapper(httpServletResponse, encoding, deflaterPool,
+        bodyCache, httpServletRequest, isGetMethod(httpServletRequest), threshold,
+        maxCachedBodyBytes);
+    AsyncListeners.register(request, new FinishingListener(wrapper));
+    chain.doFilter(request, wrapper);
+    if (request.isAsyncStarted()) {
+      AsyncListeners.attach(request, request.getAsyncContext());
+    } else {
+      wrapper.finish();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    deflaterPool.close();
+  }
+
+  private boolean isGetMethod(HttpServletRequest request) {
+    return request.getMethod().equalsIgnoreCase(Constants.HTTP_METHOD_GET);
+  }
+
+  /**
+   * Completes the compressed body of an asynchronous request the servlet did not close.
+   */
+  private record FinishingListener(CompressionResponseWrapper wrapper) implements AsyncListener {
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      try {
+        wrapper.finish();
+      } catch (IOException | IllegalStateException e) {
+        LOGGER.log(Level.FINE, "Failed to complete a compressed response", e);
+      }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      // The request completes after the timeout, which finishes the body
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      // The request completes after the error, which finishes the body
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+  }
+}
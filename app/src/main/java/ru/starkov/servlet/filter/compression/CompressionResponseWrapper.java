@@ -0,0 +1,315 @@
+package ru.starkov.servlet.filter.compression;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.Deflater;
+
+/**
+ * The CompressionResponseWrapper class compresses the response body on its way to the client. The
+ * body is held back until it reaches the threshold: smaller bodies go out unchanged, larger ones
+ * are compressed. Bodies of known length and GET bodies are buffered whole as long as they fit the
+ * cache limit; their compressed form is looked up in the {@link CompressedBodyCache} before
+ * anything is deflated, and the compressed length is sent as {@code Content-Length}. Anything
+ * larger is compressed as it is written. Event streams are sent unchanged, since every event must
+ * reach the client as soon as it is flushed.
+ */
+final class CompressionResponseWrapper extends HttpServletResponseWrapper {
+
+  private static final String CONTENT_ENCODING = "Content-Encoding";
+  private static final String EVENT_STREAM_MEDIA_TYPE = "text/event-stream";
+  private static final int UNKNOWN_LENGTH = -1;
+
+  private final ContentEncoding encoding;
+  private final DeflaterPool deflaterPool;
+  private final CompressedBodyCache bodyCache;
+  private final HttpServletRequest request;
+  private final boolean cacheable;
+  private final int threshold;
+  private final int maxCachedBodyBytes;
+  private long declaredLength = UNKNOWN_LENGTH;
+  private CompressionOutputStream outputStream;
+  private PrintWriter writer;
+
+  /**
+   * Creates a wrapper.
+   *
+   * @param response           the response to wrap
+   * @param encoding           the negotiated encoding
+   * @param deflaterPool       the pool to borrow deflaters from
+   * @param bodyCache          the cache of compressed bodies
+   * @param request            the request the response is for
+   * @param cacheable          whether the body may be cached
+   * @param threshold          the minimum body length in bytes to compress
+   * @param maxCachedBodyBytes the maximum length of a cached body
+   */
+  CompressionResponseWrapper(HttpServletResponse response, ContentEncoding encoding,
+      DeflaterPool deflaterPool, CompressedBodyCache bodyCache, HttpServletRequest request,
+      boolean cacheable, int threshold, int maxCachedBodyBytes) {
+    super(response);
+    this.encoding = encoding;
+    this.deflaterPool = deflaterPool;
+    this.bodyCache = bodyCache;
+    this.request = request;
+    this.cacheable = cacheable;
+    this.threshold = threshold;
+    this.maxCachedBodyBytes = maxCachedBodyBytes;
+  }
+
+  @Override
+  public void setContentLength(int len) {
+    setContentLengthLong(len);
+  }
+
+  @Override
+  public void setContentLengthLong(long len) {
+    declaredLength = len;
+    if (len < threshold && (outputStream == null || outputStream.isUntouched())) {
+      getOutputStreamInternal().passThrough();
+    }
+    if (outputStream != null && outputStream.isPassThrough()) {
+      super.setContentLengthLong(len);
+    }
+  }
+
+  @Override
+  public void setContentType(String type) {
+    super.setContentType(type);
+    if (type != null && type.startsWith(EVENT_STREAM_MEDIA_TYPE)
+        && (outputStream == null || outputStream.isUntouched())) {
+      getOutputStreamInternal().passThrough();
+    }
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (writer != null) {
+      throw new IllegalStateException("getWriter() has already been called");
+    }
+    return getOutputStreamInternal();
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      if (outputStream != null) {
+        throw new IllegalStateException("getOutputStream() has already been called");
+      }
+      writer = new PrintWriter(
+          new OutputStreamWriter(getOutputStreamInternal(), getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  @Override
+  public void flushBuffer() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    } else if (outputStream != null) {
+      outputStream.flush();
+    }
+    super.flushBuffer();
+  }
+
+  @Override
+  public void resetBuffer() {
+    super.resetBuffer();
+    if (outputStream != null) {
+      outputStream.discard();
+    }
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    declaredLength = UNKNOWN_LENGTH;
+    if (outputStream != null) {
+      outputStream.discard();
+    }
+  }
+
+  /**
+   * Writes out whatever the servlet left in the buffer. Does nothing if the body stream has
+   * already been closed.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  void finish() throws IOException {
+    if (writer != null) {
+      writer.close();
+    } else if (outputStream != null) {
+      outputStream.close();
+    }
+  }
+
+  private CompressionOutputStream getOutputStreamInternal() {
+    if (outputStream == null) {
+      outputStream = new CompressionOutputStream();
+    }
+    return outputStream;
+  }
+
+  private boolean isBufferedWhole(int bufferedLength) {
+    if (declaredLength != UNKNOWN_LENGTH) {
+      return declaredLength <= maxCachedBodyBytes;
+    }
+    return cacheable && bufferedLength <= maxCachedBodyBytes;
+  }
+
+  private final class CompressionOutputStream extends ServletOutputStream {
+
+    private BodyBuffer pending = new BodyBuffer(0);
+    private ServletOutputStream target;
+    private Deflater deflater;
+    private DeflatingOutputStream deflating;
+    private boolean passThrough;
+    private boolean closed;
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      if (closed) {
+        throw new IOException("The response body is already closed");
+      }
+      if (passThrough) {
+        target().write(bytes, offset, length);
+      } else if (deflating != null) {
+        deflating.write(bytes, offset, length);
+      } else {
+        pending.write(bytes, offset, length);
+        if (pending.size() >= threshold && !isBufferedWhole(pending.size())) {
+          startDeflating();
+        }
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (deflating != null) {
+        deflating.flush();
+      } else if (passThrough) {
+        target().flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        if (deflating != null) {
+          deflating.finish();
+        } else if (!passThrough) {
+          writePending();
+        }
+        target().close();
+      } finally {
+        releaseDeflater();
+      }
+    }
+
+    @Override
+    public boolean isReady() {
+      return target == null || target.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      try {
+        target().setWriteListener(writeListener);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    boolean isUntouched() {
+      return !passThrough && deflating == null && pending.size() == 0;
+    }
+
+    boolean isPassThrough() {
+      return passThrough;
+    }
+
+    void passThrough() {
+      passThrough = true;
+    }
+
+    void discard() {
+      if (deflating == null) {
+        pending.reset();
+      }
+    }
+
+    private void writePending() throws IOException {
+      var length = pending.size();
+      if (length < threshold) {
+        CompressionResponseWrapper.super.setContentLengthLong(length);
+        pending.writeTo(target());
+        return;
+      }
+      var body = pending.array();
+      var cacheKey = cacheable && length <= maxCachedBodyBytes
+          ? CompressedBodyCache.keyOf(request, encoding)
+          : null;
+      byte[] compressed = null;
+      if (cacheKey != null) {
+        compressed = bodyCache.get(cacheKey, body, length);
+      }
+      if (compressed == null) {
+        deflater = deflaterPool.acquire(encoding);
+        compressed = DeflatingOutputStream.compress(body, length, deflater, encoding);
+        if (cacheKey != null) {
+          bodyCache.put(cacheKey, body, length, compressed);
+        }
+      }
+      setHeader(CONTENT_ENCODING, encoding.getToken());
+      CompressionResponseWrapper.super.setContentLengthLong(compressed.length);
+      target().write(compressed);
+    }
+
+    private void startDeflating() throws IOException {
+      setHeader(CONTENT_ENCODING, encoding.getToken());
+      deflater = deflaterPool.acquire(encoding);
+      deflating = new DeflatingOutputStream(target(), deflater, encoding);
+      pending.writeTo(deflating);
+      pending = new BodyBuffer(0);
+    }
+
+    private void releaseDeflater() {
+      if (deflater != null) {
+        deflaterPool.release(encoding, deflater);
+        deflater = null;
+      }
+    }
+
+    private ServletOutputStream target() throws IOException {
+      if (target == null) {
+        target = CompressionResponseWrapper.super.getOutputStream();
+      }
+      return target;
+    }
+  }
+
+  private static final class BodyBuffer extends ByteArrayOutputStream {
+
+    BodyBuffer(int size) {
+      super(size);
+    }
+
+    byte[] array() {
+      return buf;
+    }
+  }
+}
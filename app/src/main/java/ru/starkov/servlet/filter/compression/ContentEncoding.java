@@ -0,0 +1,82 @@
+package ru.starkov.servlet.filter.compression;
+
+import java.util.Locale;
+
+/**
+ * The ContentEncoding enum lists the response encodings the {@link CompressionFilter} can produce.
+ * Both are produced by a {@link java.util.zip.Deflater}: gzip uses raw deflate data wrapped into a
+ * gzip header and trailer, deflate uses the zlib format.
+ */
+public enum ContentEncoding {
+
+  GZIP("gzip", true),
+  DEFLATE("deflate", false);
+
+  private static final String ANY = "*";
+  private static final String QUALITY = "q=";
+
+  private final String token;
+  private final boolean nowrap;
+
+  ContentEncoding(String token, boolean nowrap) {
+    this.token = token;
+    this.nowrap = nowrap;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  boolean isNowrap() {
+    return nowrap;
+  }
+
+  /**
+   * Picks the encoding with the highest quality value from an {@code Accept-Encoding} header.
+   * Gzip wins a tie, and a wildcard stands for gzip unless gzip is listed explicitly.
+   *
+   * @param acceptEncoding the header value, may be null
+   * @return the preferred encoding, or null if the client accepts none of them
+   */
+  public static ContentEncoding negotiate(String acceptEncoding) {
+    if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+      return null;
+    }
+    var gzipQuality = -1.0;
+    var deflateQuality = -1.0;
+    var anyQuality = -1.0;
+    for (String element : acceptEncoding.split(",")) {
+      var parameters = element.split(";");
+      var coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+      var quality = parseQuality(parameters);
+      if (GZIP.token.equals(coding)) {
+        gzipQuality = quality;
+      } else if (DEFLATE.token.equals(coding)) {
+        deflateQuality = quality;
+      } else if (ANY.equals(coding)) {
+        anyQuality = quality;
+      }
+    }
+    if (gzipQuality < 0) {
+      gzipQuality = anyQuality;
+    }
+    if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+      return GZIP;
+    }
+    return deflateQuality > 0 ? DEFLATE : null;
+  }
+
+  private static double parseQuality(String[] parameters) {
+    for (int i = 1; i < parameters.length; i++) {
+      var parameter = parameters[i].trim();
+      if (parameter.startsWith(QUALITY)) {
+        try {
+          return Double.parseDouble(parameter.substring(QUALITY.length()));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+}
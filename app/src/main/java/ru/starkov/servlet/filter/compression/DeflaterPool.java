@@ -0,0 +1,90 @@
+package ru.starkov.servlet.filter.compression;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.Deflater;
+
+/**
+ * The DeflaterPool class keeps reset {@link Deflater} instances for reuse, which avoids allocating
+ * the native zlib state on every compressed response. The pool is a lock-free array of slots per
+ * encoding; when every slot is taken a fresh deflater is created, and surplus deflaters are ended
+ * when they are released.
+ */
+public final class DeflaterPool {
+
+  private final int level;
+  private final AtomicReferenceArray<Deflater> gzipDeflaters;
+  private final AtomicReferenceArray<Deflater> zlibDeflaters;
+
+  /**
+   * Creates a pool.
+   *
+   * @param level    the compression level of the created deflaters
+   * @param poolSize the maximum number of idle deflaters kept per encoding
+   */
+  public DeflaterPool(int level, int poolSize) {
+    this.level = level;
+    this.gzipDeflaters = new AtomicReferenceArray<>(poolSize);
+    this.zlibDeflaters = new AtomicReferenceArray<>(poolSize);
+  }
+
+  /**
+   * Takes a deflater producing data for the given encoding.
+   *
+   * @param encoding the encoding to produce
+   * @return a deflater ready for new input
+   */
+  public Deflater acquire(ContentEncoding encoding) {
+    var slots = slots(encoding);
+    var start = start(slots);
+    for (int i = 0; i < slots.length(); i++) {
+      var index = (start + i) % slots.length();
+      var deflater = slots.getPlain(index);
+      if (deflater != null && slots.compareAndSet(index, deflater, null)) {
+        return deflater;
+      }
+    }
+    return new Deflater(level, encoding.isNowrap());
+  }
+
+  /**
+   * Resets the deflater and returns it to the pool.
+   *
+   * @param encoding the encoding the deflater was acquired for
+   * @param deflater the deflater to return
+   */
+  public void release(ContentEncoding encoding, Deflater deflater) {
+    deflater.reset();
+    var slots = slots(encoding);
+    var start = start(slots);
+    for (int i = 0; i < slots.length(); i++) {
+      var index = (start + i) % slots.length();
+      if (slots.getPlain(index) == null && slots.compareAndSet(index, null, deflater)) {
+        return;
+      }
+    }
+    deflater.end();
+  }
+
+  /**
+   * Ends every idle deflater in the pool.
+   */
+  public void close() {
+    for (var slots : List.of(gzipDeflaters, zlibDeflaters)) {
+      for (int i = 0; i < slots.length(); i++) {
+        var deflater = slots.getAndSet(i, null);
+        if (deflater != null) {
+          deflater.end();
+        }
+      }
+    }
+  }
+
+  private AtomicReferenceArray<Deflater> slots(ContentEncoding encoding) {
+    return encoding.isNowrap() ? gzipDeflaters : zlibDeflaters;
+  }
+
+  private static int start(AtomicReferenceArray<Deflater> slots) {
+    return (int) (Thread.currentThread().threadId() % slots.length());
+  }
+}
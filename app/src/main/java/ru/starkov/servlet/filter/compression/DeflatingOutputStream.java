@@ -0,0 +1,139 @@
+package ru.starkov.servlet.filter.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The DeflatingOutputStream class compresses everything written to it with a borrowed
+ * {@link Deflater} and writes the result to the target stream in the given encoding. Unlike
+ * {@link java.util.zip.GZIPOutputStream}, it accepts a pooled deflater. {@link #finish()} writes
+ * the remaining data and does not close the target stream.
+ */
+final class DeflatingOutputStream extends OutputStream {
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0,
+      0, (byte) 0xff};
+
+  private final OutputStream target;
+  private final Deflater deflater;
+  private final ContentEncoding encoding;
+  private final CRC32 crc;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private boolean started;
+  private boolean finished;
+
+  DeflatingOutputStream(OutputStream target, Deflater deflater, ContentEncoding encoding) {
+    this.target = target;
+    this.deflater = deflater;
+    this.encoding = encoding;
+    this.crc = encoding == ContentEncoding.GZIP ? new CRC32() : null;
+  }
+
+  /**
+   * Compresses the whole body in one go.
+   *
+   * @param body     the buffer holding the body
+   * @param length   the length of the body
+   * @param deflater the deflater to use
+   * @param encoding the encoding to produce
+   * @return the compressed body
+   */
+  static byte[] compress(byte[] body, int length, Deflater deflater, ContentEncoding encoding) {
+    var out = new ByteArrayOutputStream(Math.max(length / 4, 64));
+    try (var deflating = new DeflatingOutputStream(out, deflater, encoding)) {
+      deflating.write(body, 0, length);
+      deflating.finish();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    if (finished) {
+      throw new IOException("The compressed stream is already finished");
+    }
+    start();
+    if (length == 0) {
+      return;
+    }
+    if (crc != null) {
+      crc.update(bytes, offset, length);
+    }
+    deflater.setInput(bytes, offset, length);
+    while (!deflater.needsInput()) {
+      deflate(Deflater.NO_FLUSH);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (started && !finished) {
+      deflate(Deflater.SYNC_FLUSH);
+    }
+    target.flush();
+  }
+
+  /**
+   * Writes the remaining compressed data and the trailer to the target stream.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+    start();
+    deflater.finish();
+    while (!deflater.finished()) {
+      deflate(Deflater.NO_FLUSH);
+    }
+    if (crc != null) {
+      writeInt((int) crc.getValue());
+      writeInt((int) deflater.getBytesRead());
+    }
+    finished = true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    finish();
+  }
+
+  private void start() throws IOException {
+    if (!started) {
+      started = true;
+      if (encoding == ContentEncoding.GZIP) {
+        target.write(GZIP_HEADER);
+      }
+    }
+  }
+
+  private void deflate(int flush) throws IOException {
+    int length;
+    do {
+      length = deflater.deflate(buffer, 0, buffer.length, flush);
+      if (length > 0) {
+        target.write(buffer, 0, length);
+      }
+    } while (length == buffer.length);
+  }
+
+  private void writeInt(int value) throws IOException {
+    target.write(value & 0xff);
+    target.write(value >> 8 & 0xff);
+    target.write(value >> 16 & 0xff);
+    target.write(value >> 24 & 0xff);
+  }
+}
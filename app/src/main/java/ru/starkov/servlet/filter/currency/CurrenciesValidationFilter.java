@@ -1,6 +1,9 @@
 package ru.starkov.servlet.filter.currency;
 
 import static ru.starkov.util.Constants.CODE;
+import static ru.starkov.util.Constants.CODES;
+import static ru.starkov.util.Constants.DEFAULT_MULTI_GET_MAX_ITEMS;
+import static ru.starkov.util.Constants.MULTI_GET_MAX_ITEMS;
 import static ru.starkov.util.Constants.NAME;
 import static ru.starkov.util.Constants.SIGN;
 import static ru.starkov.util.ValidationUtils.isClientFormMatchesServerSideForm;
@@ -8,26 +11,38 @@ import static ru.starkov.util.ValidationUtils.isNullOrBlank;
 import static ru.starkov.util.ValidationUtils.isNullOrEmpty;
 
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Set;
+import ru.starkov.dto.CurrencyCodesRequest;
+import ru.starkov.dto.CurrencyRequestDto;
 import ru.starkov.servlet.filter.AbstractValidationFilter;
+import ru.starkov.util.PropertiesLoader;
+import ru.starkov.util.RequestParser;
 
 
 /**
  * The CurrenciesValidationFilter class is a servlet filter responsible for validating requests to
  * the CurrenciesServlet based on specific validation criteria. It extends the
  * {@link AbstractValidationFilter} and implements the validation logic for POST and GET requests.
+ * A GET request may ask for many currencies at once with {@code ?codes=USD,EUR}.
  *
  * @see ru.starkov.servlet.CurrenciesServlet
  */
-@WebFilter(servletNames = "CurrenciesServlet")
 public class CurrenciesValidationFilter extends AbstractValidationFilter {
 
   private static final Set<String> FORM_PARAMS = Set.of(CODE, NAME, SIGN);
+  private static final String CODES_DESCRIPTION = "currency codes";
+
+  private int maxCodes;
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    this.maxCodes = PropertiesLoader.getInt(MULTI_GET_MAX_ITEMS, DEFAULT_MULTI_GET_MAX_ITEMS);
+  }
 
   @Override
   protected void validateRequest(HttpServletRequest request, HttpServletResponse response,
@@ -35,12 +50,27 @@ public class CurrenciesValidationFilter extends AbstractValidationFilter {
     if (isPostMethod(request)) {
       handlePostRequest(request, response, chain);
     } else if (isGetMethod(request)) {
-      chain.doFilter(request, response);
+      handleGetRequest(request, response, chain);
     } else {
       response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
     }
   }
 
+  private void handleGetRequest(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws IOException, ServletException {
+    var codesParameter = request.getParameter(CODES);
+    if (codesParameter != null) {
+      var codes = RequestParser.parseCodeList(codesParameter, 1, maxCodes);
+      if (codes == null) {
+        sendBadRequestError(response, String.format(ERROR_INVALID_CODE_LIST, maxCodes,
+            CODES_DESCRIPTION, codesParameter));
+        return;
+      }
+      setParsedRequest(request, new CurrencyCodesRequest(codes));
+    }
+    chain.doFilter(request, response);
+  }
+
   private void handlePostRequest(HttpServletRequest request, HttpServletResponse response,
       FilterChain chain) throws IOException, ServletException {
     var parameterMap = request.getParameterMap();
@@ -48,7 +78,7 @@ public class CurrenciesValidationFilter extends AbstractValidationFilter {
       response.sendError(HttpServletResponse.SC_BAD_REQUEST, ERROR_FORM_PARAMS_IS_MISSING);
       return;
     }
-    if (!isClientFormMatchesServerSideForm(parameterMap.keySet(), FORM_PARAMS)) {
+    if (!isClientFormMatchesServerSideForm(parameterMap, FORM_PARAMS)) {
       response.sendError(HttpServletResponse.SC_BAD_REQUEST, ERROR_FORM_PARAMS_NOT_VALID);
       return;
     }
@@ -70,9 +100,7 @@ public class CurrenciesValidationFilter extends AbstractValidationFilter {
           String.format(ERROR_FORM_PARAM_IS_NULL_OR_BLANK, sign));
       return;
     }
-    request.setAttribute(CODE, code);
-    request.setAttribute(NAME, fullName);
-    request.setAttribute(SIGN, sign);
+    setParsedRequest(request, new CurrencyRequestDto(code, fullName, sign));
     chain.doFilter(request, response);
   }
 }
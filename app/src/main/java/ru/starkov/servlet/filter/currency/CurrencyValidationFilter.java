@@ -1,14 +1,12 @@
 package ru.starkov.servlet.filter.currency;
 
-import static ru.starkov.util.Constants.CODE;
-
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import ru.starkov.servlet.filter.AbstractValidationFilter;
+import ru.starkov.util.RequestParser;
 
 /**
  * The CurrencyValidationFilter class is a servlet filter responsible for validating requests to the
@@ -17,7 +15,6 @@ import ru.starkov.servlet.filter.AbstractValidationFilter;
  *
  * @see ru.starkov.servlet.CurrencyServlet
  */
-@WebFilter(servletNames = "CurrencyServlet")
 public class CurrencyValidationFilter extends AbstractValidationFilter {
 
   @Override
@@ -25,29 +22,22 @@ public class CurrencyValidationFilter extends AbstractValidationFilter {
       FilterChain chain) throws ServletException, IOException {
     if (isGetMethod(request)) {
       var requestUri = request.getRequestURI();
-      var codeFromRequest = getCodeFromRequest(requestUri);
-      if (codeFromRequest == null) {
+      var codeStart = RequestParser.lastSegmentStart(requestUri);
+      if (codeStart == -1) {
         response.sendError(HttpServletResponse.SC_BAD_REQUEST,
             ERROR_MISSING_CURRENCY_CODE);
         return;
       }
-      if (!isCurrencyCodeValid(codeFromRequest)) {
+      if (requestUri.length() - codeStart != CURRENCY_CODE_LENGTH
+          || !RequestParser.isCurrencyCode(requestUri, codeStart)) {
         sendBadRequestError(response,
-            String.format(ERROR_INVALID_CURRENCY_CODE, codeFromRequest));
+            String.format(ERROR_INVALID_CURRENCY_CODE, requestUri.substring(codeStart)));
         return;
       }
-      request.setAttribute(CODE, codeFromRequest);
+      setParsedRequest(request, requestUri.substring(codeStart));
       chain.doFilter(request, response);
     } else {
       response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
     }
   }
-
-  private String getCodeFromRequest(String requestUri) {
-    int lastSlashIndex = requestUri.lastIndexOf("/");
-    if (lastSlashIndex != -1 && lastSlashIndex + 1 < requestUri.length()) {
-      return requestUri.substring(lastSlashIndex + 1);
-    }
-    return null;
-  }
 }
@@ -8,13 +8,13 @@ import static ru.starkov.util.ValidationUtils.isNullOrEmpty;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.util.Set;
+import ru.starkov.dto.ConversionRequest;
 import ru.starkov.servlet.filter.AbstractValidationFilter;
+import ru.starkov.util.RequestParser;
 
 
 /**
@@ -24,7 +24,6 @@ import ru.starkov.servlet.filter.AbstractValidationFilter;
  *
  * @see ru.starkov.servlet.ExchangeServlet
  */
-@WebFilter(servletNames = "ExchangeServlet")
 public class ExchangeValidationFilter extends AbstractValidationFilter {
 
 
@@ -44,7 +43,7 @@ public class ExchangeValidationFilter extends AbstractValidationFilter {
         sendBadRequestError(response, ERROR_FORM_PARAMS_IS_MISSING);
         return;
       }
-      if (!isClientFormMatchesServerSideForm(parameterMap.keySet(), GET_URL_QUERY_PARAMS)) {
+      if (!isClientFormMatchesServerSideForm(parameterMap, GET_URL_QUERY_PARAMS)) {
         sendBadRequestError(response, ERROR_FORM_PARAMS_NOT_VALID);
         return;
       }
@@ -58,14 +57,13 @@ public class ExchangeValidationFilter extends AbstractValidationFilter {
         sendBadRequestError(response, String.format(ERROR_INVALID_CURRENCY_CODE, toCurrencyCode));
         return;
       }
-      var amount = parameterMap.get(AMOUNT)[0].replace(",", ".");
-      if (!isANumberAndGreaterThanZero(amount)) {
-        sendBadRequestError(response, String.format(ERROR_AMOUNT_NOT_VALID, amount));
+      var amountParameter = parameterMap.get(AMOUNT)[0];
+      var amount = RequestParser.parsePositiveDecimal(amountParameter);
+      if (amount == null) {
+        sendBadRequestError(response, String.format(ERROR_AMOUNT_NOT_VALID, amountParameter));
         return;
       }
-      request.setAttribute(FROM_CURRENCY_CODE, fromCurrencyCode);
-      request.setAttribute(TO_CURRENCY_CODE, toCurrencyCode);
-      request.setAttribute(AMOUNT, new BigDecimal(amount));
+      setParsedRequest(request, new ConversionRequest(fromCurrencyCode, toCurrencyCode, amount));
       chain.doFilter(request, response);
     } else {
       response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
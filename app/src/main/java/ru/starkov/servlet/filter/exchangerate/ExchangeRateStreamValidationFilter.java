@@ -0,0 +1,64 @@
+package ru.starkov.servlet.filter.exchangerate;
+
+import static ru.starkov.util.Constants.BACKPRESSURE;
+import static ru.starkov.util.Constants.LAST_EVENT_ID_HEADER;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import ru.starkov.dto.RateStreamRequest;
+import ru.starkov.servlet.filter.AbstractValidationFilter;
+import ru.starkov.stream.BackpressurePolicy;
+import ru.starkov.util.PropertiesLoader;
+import ru.starkov.util.RequestParser;
+
+/**
+ * The ExchangeRateStreamValidationFilter class is a servlet filter responsible for validating
+ * requests to the ExchangeRateStreamServlet. It extends the {@link AbstractValidationFilter} and
+ * implements the validation logic for GET requests. A {@code Last-Event-ID} header that is not an
+ * event ID of this server is passed on as an unknown position, so the client is sent the current
+ * state instead of being rejected.
+ *
+ * @see ru.starkov.servlet.ExchangeRateStreamServlet
+ */
+public class ExchangeRateStreamValidationFilter extends AbstractValidationFilter {
+
+  private static final String DEFAULT_BACKPRESSURE = "stream.backpressure";
+  private static final String ERROR_INVALID_BACKPRESSURE =
+      "This is not a valid backpressure policy: '%s'";
+
+  private BackpressurePolicy defaultBackpressurePolicy;
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    var policy = BackpressurePolicy.fromName(PropertiesLoader.get(DEFAULT_BACKPRESSURE));
+    this.defaultBackpressurePolicy = policy == null ? BackpressurePolicy.CONFLATE : policy;
+  }
+
+  @Override
+  protected void validateRequest(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    if (!isGetMethod(request)) {
+      response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+      return;
+    }
+    var policy = defaultBackpressurePolicy;
+    var backpressureParameter = request.getParameter(BACKPRESSURE);
+    if (backpressureParameter != null) {
+      policy = BackpressurePolicy.fromName(backpressureParameter);
+      if (policy == null) {
+        sendBadRequestError(response,
+            String.format(ERROR_INVALID_BACKPRESSURE, backpressureParameter));
+        return;
+      }
+    }
+    var lastEventIdHeader = request.getHeader(LAST_EVENT_ID_HEADER);
+    Long lastEventId = lastEventIdHeader == null
+        ? null : RequestParser.parseNonNegativeLong(lastEventIdHeader.trim());
+    setParsedRequest(request, new RateStreamRequest(lastEventId, policy));
+    chain.doFilter(request, response);
+  }
+}
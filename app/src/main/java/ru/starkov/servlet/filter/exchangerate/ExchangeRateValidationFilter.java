@@ -0,0 +1,108 @@
+package ru.starkov.servlet.filter.exchangerate;
+
+import static ru.starkov.util.Constants.RATE;
+import static ru.starkov.util.ValidationUtils.isClientFormMatchesServerSideForm;
+import static ru.starkov.util.ValidationUtils.isNullOrEmpty;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import ru.starkov.dto.ExchangeRateInfo;
+import ru.starkov.exception.InvalidRequestBodyException;
+import ru.starkov.servlet.filter.AbstractValidationFilter;
+import ru.starkov.servlet.filter.body.BodyParser;
+import ru.starkov.util.RequestParser;
+
+
+/**
+ * The ExchangeRateValidationFilter class is a servlet filter responsible for validating requests to
+ * the ExchangeRateServlet based on specific validation criteria. It extends the
+ * {@link AbstractValidationFilter} and implements the validation logic for GET and PATCH requests.
+ *
+ * @see ru.starkov.servlet.ExchangeRateServlet
+ */
+public class ExchangeRateValidationFilter extends AbstractValidationFilter {
+
+  private static final Set<String> PATCH_FORM_PARAMS = Set.of(RATE);
+  private static final int MAX_PATCH_FORM_ENTRIES = 16;
+
+  @Override
+  protected void validateRequest(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    var requestUri = request.getRequestURI();
+    var pairStart = RequestParser.lastSegmentStart(requestUri);
+    if (pairStart == -1 || requestUri.length() - pairStart != RequestParser.CURRENCY_PAIR_LENGTH) {
+      sendBadRequestError(response, ERROR_MISSING_CURRENCY_CODE);
+      return;
+    }
+    var targetStart = pairStart + CURRENCY_CODE_LENGTH;
+    if (!RequestParser.isCurrencyCode(requestUri, pairStart)) {
+      sendBadRequestError(response, String.format(ERROR_INVALID_CURRENCY_CODE,
+          requestUri.substring(pairStart, targetStart)));
+      return;
+    }
+    if (!RequestParser.isCurrencyCode(requestUri, targetStart)) {
+      sendBadRequestError(response, String.format(ERROR_INVALID_CURRENCY_CODE,
+          requestUri.substring(targetStart)));
+      return;
+    }
+    var baseCurrencyCode = requestUri.substring(pairStart, targetStart);
+    var targetCurrencyCode = requestUri.substring(targetStart);
+    if (isGetMethod(request)) {
+      handleGetRequest(request, response, chain,
+          new ExchangeRateInfo(baseCurrencyCode, targetCurrencyCode, null));
+    } else if (isPatchMethod(request)) {
+      handlePatchRequest(request, response, chain, baseCurrencyCode, targetCurrencyCode);
+    } else {
+      response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+    }
+  }
+
+  private void handleGetRequest(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain, ExchangeRateInfo exchangeRateInfo) throws IOException, ServletException {
+    setParsedRequest(request, exchangeRateInfo);
+    chain.doFilter(request, response);
+  }
+
+  private void handlePatchRequest(HttpServletRequest request,
+      HttpServletResponse response, FilterChain chain, String baseCurrencyCode,
+      String targetCurrencyCode) throws IOException, ServletException {
+    Map<String, String[]> parameterMap;
+    try {
+      parameterMap = getParameterMap(request);
+    } catch (InvalidRequestBodyException e) {
+      sendBadRequestError(response, e.getMessage());
+      return;
+    }
+
+    if (isNullOrEmpty(parameterMap)) {
+      sendBadRequestError(response, ERROR_FORM_PARAMS_IS_MISSING);
+      return;
+    }
+    if (!isClientFormMatchesServerSideForm(parameterMap, PATCH_FORM_PARAMS)) {
+      sendBadRequestError(response, ERROR_FORM_PARAMS_NOT_VALID);
+      return;
+    }
+    var rateParameter = parameterMap.get(RATE)[0];
+    var rate = RequestParser.parsePositiveDecimal(rateParameter);
+    if (rate == null) {
+      sendBadRequestError(response, String.format(ERROR_INVALID_RATE, rateParameter));
+      return;
+    }
+    setParsedRequest(request, new ExchangeRateInfo(baseCurrencyCode, targetCurrencyCode, rate));
+    chain.doFilter(request, response);
+  }
+
+  private Map<String, String[]> getParameterMap(HttpServletRequest request) throws IOException {
+    Map<String, String[]> parameterMap = new HashMap<>();
+    BodyParser.forContentType(request.getContentType(), request.getInputStream(),
+            MAX_PATCH_FORM_ENTRIES)
+        .parse((name, value) -> parameterMap.putIfAbsent(name, new String[] {value}));
+    return parameterMap;
+  }
+}
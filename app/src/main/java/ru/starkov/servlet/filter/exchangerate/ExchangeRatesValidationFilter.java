@@ -0,0 +1,160 @@
+package ru.starkov.servlet.filter.exchangerate;
+
+import static ru.starkov.util.Constants.BASE_CURRENCY_CODE;
+import static ru.starkov.util.Constants.DEFAULT_MULTI_GET_MAX_ITEMS;
+import static ru.starkov.util.Constants.MULTI_GET_MAX_ITEMS;
+import static ru.starkov.util.Constants.PAIRS;
+import static ru.starkov.util.Constants.RATE;
+import static ru.starkov.util.Constants.TARGET_CURRENCY_CODE;
+import static ru.starkov.util.ValidationUtils.isClientFormMatchesServerSideForm;
+import static ru.starkov.util.ValidationUtils.isNullOrEmpty;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import ru.starkov.dto.CurrencyPairsRequest;
+import ru.starkov.dto.ExchangeRateBatch;
+import ru.starkov.dto.ExchangeRateInfo;
+import ru.starkov.exception.InvalidRequestBodyException;
+import ru.starkov.servlet.filter.AbstractValidationFilter;
+import ru.starkov.servlet.filter.body.BodyParser;
+import ru.starkov.util.PropertiesLoader;
+import ru.starkov.util.RequestParser;
+
+
+/**
+ * The ExchangeRatesValidationFilter class is a servlet filter responsible for validating requests
+ * to the ExchangeRatesServlet based on specific validation criteria. It extends the
+ * {@link AbstractValidationFilter} and implements the validation logic for GET requests, which may
+ * ask for many currency pairs at once with {@code ?pairs=USDEUR,EURRUB}, for POST requests,
+ * and for PATCH requests carrying many {@code pair=rate} entries, as a form or a JSON object, which
+ * are validated entry by entry while the body is read.
+ *
+ * @see ru.starkov.servlet.ExchangeRatesServlet
+ */
+public class ExchangeRatesValidationFilter extends AbstractValidationFilter {
+
+  private static final Set<String> POST_FORM_PARAMS =
+      Set.of(BASE_CURRENCY_CODE, TARGET_CURRENCY_CODE, RATE);
+  private static final String BATCH_MAX_ENTRIES = "exchangeRates.batch.max.entries";
+  private static final int DEFAULT_BATCH_MAX_ENTRIES = 1000;
+  private static final String ERROR_INVALID_CURRENCY_PAIR =
+      "This is not a valid currency pair: '%s'";
+
+  private static final String PAIRS_DESCRIPTION = "currency pairs";
+
+  private int batchMaxEntries;
+  private int maxPairs;
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    this.batchMaxEntries = PropertiesLoader.getInt(BATCH_MAX_ENTRIES, DEFAULT_BATCH_MAX_ENTRIES);
+    this.maxPairs = PropertiesLoader.getInt(MULTI_GET_MAX_ITEMS, DEFAULT_MULTI_GET_MAX_ITEMS);
+  }
+
+  @Override
+  protected void validateRequest(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    if (isGetMethod(request)) {
+      handeGetMethod(request, response, chain);
+    } else if (isPostMethod(request)) {
+      handlePostMethod(request, response, chain);
+    } else if (isPatchMethod(request)) {
+      handlePatchMethod(request, response, chain);
+    } else {
+      response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+    }
+  }
+
+  private void handeGetMethod(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws IOException, ServletException {
+    var pairsParameter = request.getParameter(PAIRS);
+    if (pairsParameter != null) {
+      var pairs = RequestParser.parseCodeList(pairsParameter, 2, maxPairs);
+      if (pairs == null) {
+        sendBadRequestError(response, String.format(ERROR_INVALID_CODE_LIST, maxPairs,
+            PAIRS_DESCRIPTION, pairsParameter));
+        return;
+      }
+      setParsedRequest(request, new CurrencyPairsRequest(pairs));
+    }
+    chain.doFilter(request, response);
+  }
+
+  private void handlePostMethod(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws IOException, ServletException {
+    var parameterMap = request.getParameterMap();
+    if (isNullOrEmpty(parameterMap)) {
+      sendBadRequestError(response, ERROR_FORM_PARAMS_IS_MISSING);
+      return;
+    }
+    if (!isClientFormMatchesServerSideForm(parameterMap, POST_FORM_PARAMS)) {
+      sendBadRequestError(response, ERROR_FORM_PARAMS_NOT_VALID);
+      return;
+    }
+    var baseCurrencyCode = parameterMap.get(BASE_CURRENCY_CODE)[0];
+    if (!isCurrencyCodeValid(baseCurrencyCode)) {
+      sendBadRequestError(response,
+          String.format(ERROR_INVALID_CURRENCY_CODE, baseCurrencyCode));
+      return;
+    }
+    var targetCurrencyCode = parameterMap.get(TARGET_CURRENCY_CODE)[0];
+    if (!isCurrencyCodeValid(targetCurrencyCode)) {
+      sendBadRequestError(response,
+          String.format(ERROR_INVALID_CURRENCY_CODE, targetCurrencyCode));
+      return;
+    }
+    var rateParameter = parameterMap.get(RATE)[0];
+    var rate = RequestParser.parsePositiveDecimal(rateParameter);
+    if (rate == null) {
+      sendBadRequestError(response, String.format(ERROR_INVALID_RATE, rateParameter));
+      return;
+    }
+    setParsedRequest(request, new ExchangeRateInfo(baseCurrencyCode, targetCurrencyCode, rate));
+    chain.doFilter(request, response);
+  }
+
+  private void handlePatchMethod(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws IOException, ServletException {
+    Map<String, BigDecimal> rates = new LinkedHashMap<>();
+    try {
+      BodyParser.forContentType(request.getContentType(), request.getInputStream(),
+          batchMaxEntries).parse((pair, rateParameter) -> {
+            if (pair.length() != RequestParser.CURRENCY_PAIR_LENGTH
+                || !RequestParser.isCurrencyCode(pair, 0)
+                || !RequestParser.isCurrencyCode(pair, CURRENCY_CODE_LENGTH)) {
+              throw new InvalidRequestBodyException(
+                  String.format(ERROR_INVALID_CURRENCY_PAIR, pair));
+            }
+            var rate = RequestParser.parsePositiveDecimal(rateParameter);
+            if (rate == null) {
+              throw new InvalidRequestBodyException(
+                  String.format(ERROR_INVALID_RATE, rateParameter));
+            }
+            rates.put(pair.toUpperCase(Locale.ROOT), rate);
+          });
+    } catch (InvalidRequestBodyException e) {
+      sendBadRequestError(response, e.getMessage());
+      return;
+    }
+    if (rates.isEmpty()) {
+      sendBadRequestError(response, ERROR_FORM_PARAMS_IS_MISSING);
+      return;
+    }
+    List<ExchangeRateInfo> exchangeRates = new ArrayList<>(rates.size());
+    rates.forEach((pair, rate) -> exchangeRates.add(new ExchangeRateInfo(
+        pair.substring(0, CURRENCY_CODE_LENGTH), pair.substring(CURRENCY_CODE_LENGTH), rate)));
+    setParsedRequest(request, new ExchangeRateBatch(exchangeRates));
+    chain.doFilter(request, response);
+  }
+}
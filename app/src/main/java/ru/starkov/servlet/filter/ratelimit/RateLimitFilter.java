@@ -0,0 +1,107 @@
+package ru.starkov.servlet.filter.ratelimit;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import ru.starkov.util.PropertiesLoader;
+
+/**
+ * A filter for limiting the request rate of every client with token buckets, so that a single
+ * client cannot monopolize the connection pool. Clients are told apart by their {@code X-API-Key}
+ * header if it holds one of the keys configured as {@code ratelimit.api.keys}, and otherwise by
+ * their address, so a client cannot escape its limit by sending a new key with every request.
+ * Every route group has its own rate and burst,
+ * configured as {@code ratelimit.<group>.rate} in requests per second and
+ * {@code ratelimit.<group>.burst}; a rate of 0 disables the limit of the group. Requests over the
+ * limit are answered with {@code 429 Too Many Requests} and a {@code Retry-After} header.
+ */
+public class RateLimitFilter implements Filter {
+
+  private static final String ENABLED = "ratelimit.enabled";
+  private static final String PROPERTY_PREFIX = "ratelimit.";
+  private static final String RATE_SUFFIX = ".rate";
+  private static final String BURST_SUFFIX = ".burst";
+  private static final String STRIPES = "ratelimit.stripes";
+  private static final String IDLE_EVICTION = "ratelimit.idle.eviction.ms";
+  private static final String MAX_BUCKETS = "ratelimit.max.buckets";
+  private static final String API_KEYS = "ratelimit.api.keys";
+  private static final int DEFAULT_STRIPES = 16;
+  private static final long DEFAULT_IDLE_EVICTION_MILLIS = 60_000;
+  private static final int DEFAULT_MAX_BUCKETS = 100_000;
+  private static final String API_KEY_HEADER = "X-API-Key";
+  private static final String RETRY_AFTER_HEADER = "Retry-After";
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+  private static final String TOO_MANY_REQUESTS_MESSAGE =
+      "Too many requests, please slow down";
+
+  private boolean enabled;
+  private Set<String> apiKeys;
+  private final TokenBucketStore[] stores = new TokenBucketStore[RouteGroup.values().length];
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    this.enabled = PropertiesLoader.getBoolean(ENABLED, true);
+    this.apiKeys = parseApiKeys(PropertiesLoader.get(API_KEYS));
+    var stripes = PropertiesLoader.getInt(STRIPES, DEFAULT_STRIPES);
+    var idleMillis = PropertiesLoader.getLong(IDLE_EVICTION, DEFAULT_IDLE_EVICTION_MILLIS);
+    var maxBuckets = PropertiesLoader.getInt(MAX_BUCKETS, DEFAULT_MAX_BUCKETS);
+    for (RouteGroup group : RouteGroup.values()) {
+      var prefix = PROPERTY_PREFIX + group.getPropertyName();
+      var rate = PropertiesLoader.getDouble(prefix + RATE_SUFFIX, 0);
+      if (rate > 0) {
+        stores[group.ordinal()] = new TokenBucketStore(rate,
+            PropertiesLoader.getInt(prefix + BURST_SUFFIX, (int) Math.ceil(rate)), stripes,
+            idleMillis, maxBuckets);
+      }
+    }
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    if (!enabled || !(request instanceof HttpServletRequest httpServletRequest)
+        || !(response instanceof HttpServletResponse httpServletResponse)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    var group = RouteGroup.of(httpServletRequest);
+    var store = group == null ? null : stores[group.ordinal()];
+    if (store == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    var waitNanos = store.tryAcquire(getClientKey(httpServletRequest), System.nanoTime());
+    if (waitNanos > 0) {
+      var waitSeconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+      httpServletResponse.setHeader(RETRY_AFTER_HEADER, String.valueOf(waitSeconds));
+      httpServletResponse.sendError(SC_TOO_MANY_REQUESTS, TOO_MANY_REQUESTS_MESSAGE);
+      return;
+    }
+    chain.doFilter(request, response);
+  }
+
+  private String getClientKey(HttpServletRequest request) {
+    var apiKey = request.getHeader(API_KEY_HEADER);
+    return apiKey != null && apiKeys.contains(apiKey) ? apiKey : request.getRemoteAddr();
+  }
+
+  private static Set<String> parseApiKeys(String value) {
+    if (value == null) {
+      return Set.of();
+    }
+    return Arrays.stream(value.split(","))
+        .map(String::trim)
+        .filter(apiKey -> !apiKey.isEmpty())
+        .collect(Collectors.toUnmodifiableSet());
+  }
+}
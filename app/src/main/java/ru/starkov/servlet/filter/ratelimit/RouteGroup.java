@@ -0,0 +1,47 @@
+package ru.starkov.servlet.filter.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import ru.starkov.admission.RequestPriority;
+import ru.starkov.util.Constants;
+
+/**
+ * The RouteGroup enum groups the routes that share a rate limit. Writes are grouped regardless of
+ * their path, since they all compete for the same transactions, and conversions are kept apart
+ * from plain reads because a cache miss may cost them several queries. A request is a write when
+ * admission control ranks it as one, see {@link RequestPriority}.
+ */
+enum RouteGroup {
+
+  CONVERSION("conversion"),
+  READ("read"),
+  WRITE("write");
+
+  private final String propertyName;
+
+  RouteGroup(String propertyName) {
+    this.propertyName = propertyName;
+  }
+
+  String getPropertyName() {
+    return propertyName;
+  }
+
+  /**
+   * Returns the group of a request.
+   *
+   * @param request the request
+   * @return the group, or null if the request is not rate limited
+   */
+  static RouteGroup of(HttpServletRequest request) {
+    var servletPath = request.getServletPath();
+    if (servletPath.startsWith(Constants.HEALTH_PATH)
+        || servletPath.equals(Constants.METRICS_PATH)
+        || servletPath.equals(Constants.ADMIN_PATH)) {
+      return null;
+    }
+    if (RequestPriority.of(request.getMethod()) == RequestPriority.WRITE) {
+      return WRITE;
+    }
+    return Constants.EXCHANGE_PATH.equals(servletPath) ? CONVERSION : READ;
+  }
+}
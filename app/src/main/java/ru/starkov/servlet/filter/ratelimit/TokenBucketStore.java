@@ -0,0 +1,108 @@
+package ru.starkov.servlet.filter.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The TokenBucketStore class keeps a token bucket per client for one route group. A bucket is a
+ * single {@link AtomicLong} holding the moment it will be full again, so tokens are refilled
+ * lazily by comparing that moment with the clock, and taking a token is one compare-and-set.
+ * Buckets are spread over independent stripes to keep concurrent inserts apart. Each stripe drops
+ * the buckets that have been full for the idle period on the first request after the period ends;
+ * a full bucket is the same as a new one, so eviction never grants or takes tokens. Once a stripe
+ * holds its share of the maximum number of buckets, the clients without a bucket of their own
+ * share a single overflow bucket until idle buckets are evicted.
+ */
+final class TokenBucketStore {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final long emissionIntervalNanos;
+  private final long burstToleranceNanos;
+  private final long idleNanos;
+  private final int maxBucketsPerStripe;
+  private final Stripe[] stripes;
+  private final int stripeMask;
+  private final AtomicLong overflowBucket = new AtomicLong(System.nanoTime());
+
+  /**
+   * Creates a store.
+   *
+   * @param ratePerSecond the number of tokens refilled per second
+   * @param burst         the capacity of a bucket
+   * @param stripes       the number of stripes, rounded up to a power of two
+   * @param idleMillis    the time a bucket stays full before it is evicted
+   * @param maxBuckets    the maximum number of buckets; clients beyond it share one bucket
+   */
+  TokenBucketStore(double ratePerSecond, int burst, int stripes, long idleMillis,
+      int maxBuckets) {
+    this.emissionIntervalNanos = Math.max(1, (long) (NANOS_PER_SECOND / ratePerSecond));
+    this.burstToleranceNanos = emissionIntervalNanos * (Math.max(1, burst) - 1);
+    this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    var stripeCount = stripes <= 1 ? 1 : Integer.highestOneBit((stripes - 1) << 1);
+    this.maxBucketsPerStripe = Math.max(1, maxBuckets / stripeCount);
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      this.stripes[i] = new Stripe();
+    }
+    this.stripeMask = stripeCount - 1;
+  }
+
+  /**
+   * Takes a token from the bucket of the client.
+   *
+   * @param clientKey the key of the client
+   * @param nowNanos  the current {@link System#nanoTime()}
+   * @return 0 if a token was taken, otherwise the nanoseconds until the next token is available
+   */
+  long tryAcquire(String clientKey, long nowNanos) {
+    var hash = clientKey.hashCode();
+    var stripe = stripes[(hash ^ hash >>> 16) & stripeMask];
+    evictIdleBuckets(stripe, nowNanos);
+    var bucket = stripe.buckets.get(clientKey);
+    if (bucket == null) {
+      bucket = stripe.buckets.size() >= maxBucketsPerStripe
+          ? overflowBucket
+          : stripe.buckets.computeIfAbsent(clientKey, key -> new AtomicLong(nowNanos));
+    }
+    return take(bucket, nowNanos);
+  }
+
+  int size() {
+    var size = 0;
+    for (Stripe stripe : stripes) {
+      size += stripe.buckets.size();
+    }
+    return size;
+  }
+
+  private long take(AtomicLong bucket, long nowNanos) {
+    while (true) {
+      var fullAt = bucket.get();
+      var start = Math.max(fullAt, nowNanos);
+      var waitNanos = start - nowNanos - burstToleranceNanos;
+      if (waitNanos > 0) {
+        return waitNanos;
+      }
+      if (bucket.compareAndSet(fullAt, start + emissionIntervalNanos)) {
+        return 0;
+      }
+    }
+  }
+
+  private void evictIdleBuckets(Stripe stripe, long nowNanos) {
+    var nextEviction = stripe.nextEvictionNanos.get();
+    if (nowNanos - nextEviction < 0
+        || !stripe.nextEvictionNanos.compareAndSet(nextEviction, nowNanos + idleNanos)) {
+      return;
+    }
+    stripe.buckets.values().removeIf(bucket -> nowNanos - bucket.get() > idleNanos);
+  }
+
+  private static final class Stripe {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextEvictionNanos = new AtomicLong(System.nanoTime());
+  }
+}
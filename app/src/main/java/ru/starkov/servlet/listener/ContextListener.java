@@ -0,0 +1,275 @@
+package ru.starkov.servlet.listener;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterRegistration;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import ru.starkov.admin.RecordingManager;
+import ru.starkov.admission.AdmissionController;
+import ru.starkov.cache.CacheRevalidator;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.dao.TransactionalDao;
+import ru.starkov.dao.impl.CurrencyDaoImpl;
+import ru.starkov.dao.impl.ExchangeRateDaoImpl;
+import ru.starkov.dto.binary.BinarySerializer;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.mapper.CurrencyMapper;
+import ru.starkov.dto.mapper.ExchangeRateMapper;
+import ru.starkov.jfr.FlightEvents;
+import ru.starkov.metrics.MetricsRegistry;
+import ru.starkov.metrics.PrometheusExporter;
+import ru.starkov.metrics.RequestTiming;
+import ru.starkov.metrics.RequestTimingLog;
+import ru.starkov.metrics.SlowQueryLog;
+import ru.starkov.service.CurrencyService;
+import ru.starkov.service.ExchangeRateService;
+import ru.starkov.service.ExchangeService;
+import ru.starkov.service.WarmUpService;
+import ru.starkov.servlet.filter.AdmissionControlFilter;
+import ru.starkov.servlet.filter.CorsFilter;
+import ru.starkov.servlet.filter.EncodingAndContentTypeFilter;
+import ru.starkov.servlet.filter.MetricsFilter;
+import ru.starkov.servlet.filter.ServerTimingFilter;
+import ru.starkov.servlet.filter.compression.CompressionFilter;
+import ru.starkov.servlet.filter.currency.CurrenciesValidationFilter;
+import ru.starkov.servlet.filter.currency.CurrencyValidationFilter;
+import ru.starkov.servlet.filter.exchange.ExchangeValidationFilter;
+import ru.starkov.servlet.filter.exchangerate.ExchangeRateStreamValidationFilter;
+import ru.starkov.servlet.filter.exchangerate.ExchangeRateValidationFilter;
+import ru.starkov.servlet.filter.exchangerate.ExchangeRatesValidationFilter;
+import ru.starkov.servlet.filter.ratelimit.RateLimitFilter;
+import ru.starkov.stream.RateChangeBroadcaster;
+import ru.starkov.util.ConnectionManager;
+import ru.starkov.util.PropertiesLoader;
+
+/**
+ * The ContextListener class is a servlet context listener responsible for initializing and destroying resources
+ * when the servlet context is created and destroyed.
+ * It initializes SQL driver, initializes beans, registers the filters, manages the connection pool
+ * and starts the warm-up.
+ * A {@link CurrencyDao} or {@link ExchangeRateDao} registered as a context attribute before the
+ * listener runs takes the place of the JDBC one, and the connection pool is opened only while a
+ * JDBC DAO is in use.
+ *
+ * <p>Filters are registered here rather than by annotations, because the container applies
+ * annotated filters in no specified order. The filters mapped to every request run first, in the
+ * order they are added, then the validation filter of the servlet and the admission control.
+ */
+@WebListener
+public class ContextListener implements ServletContextListener {
+
+  private static final String CACHE_FRESHNESS = "cache.freshness.ms";
+  private static final String CACHE_REVALIDATION_RETRY_DELAY = "cache.revalidation.retry.ms";
+  private static final long DEFAULT_CACHE_FRESHNESS_MILLIS = 30_000;
+  private static final long DEFAULT_CACHE_REVALIDATION_RETRY_DELAY_MILLIS = 5_000;
+  private static final String STREAM_REPLAY_CAPACITY = "stream.replay.capacity";
+  private static final String STREAM_SUBSCRIBER_CAPACITY = "stream.subscriber.capacity";
+  private static final String STREAM_MAX_SUBSCRIBERS = "stream.max.subscribers";
+  private static final int DEFAULT_STREAM_REPLAY_CAPACITY = 1024;
+  private static final int DEFAULT_STREAM_SUBSCRIBER_CAPACITY = 256;
+  private static final int DEFAULT_STREAM_MAX_SUBSCRIBERS = 1000;
+  private static final String ADMISSION_MAX_IN_FLIGHT = "admission.max.inflight";
+  private static final String ADMISSION_MAX_QUEUE_WAIT = "admission.max.queue.wait.ms";
+  private static final String ADMISSION_WRITE_SHARE = "admission.write.share";
+  private static final String ADMISSION_RETRY_AFTER = "admission.retry.after.seconds";
+  private static final int DEFAULT_ADMISSION_MAX_IN_FLIGHT = 200;
+  private static final long DEFAULT_ADMISSION_MAX_QUEUE_WAIT_MILLIS = 500;
+  private static final double DEFAULT_ADMISSION_WRITE_SHARE = 0.5;
+  private static final long DEFAULT_ADMISSION_RETRY_AFTER_SECONDS = 1;
+  private static final String SLOW_QUERY_THRESHOLD = "db.slow.query.threshold.ms";
+  private static final String SLOW_QUERY_QUEUE_CAPACITY = "db.slow.query.queue.capacity";
+  private static final long DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS = 200;
+  private static final int DEFAULT_SLOW_QUERY_QUEUE_CAPACITY = 1024;
+  private static final String JFR_EVENTS_ENABLED = "jfr.events.enabled";
+  private static final String TIMING_ENABLED = "timing.enabled";
+  private static final String TIMING_LOG_INTERVAL = "timing.log.interval.ms";
+  private static final long DEFAULT_TIMING_LOG_INTERVAL_MILLIS = 60_000;
+  private static final String ADMIN_JFR_MAX_DURATION = "admin.jfr.max.duration.seconds";
+  private static final long DEFAULT_ADMIN_JFR_MAX_DURATION_SECONDS = 600;
+
+  private static void initSqlDriver() {
+    try {
+      Class.forName("org.postgresql.Driver");
+    } catch (ClassNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void contextInitialized(ServletContextEvent sce) {
+    ServletContextListener.super.contextInitialized(sce);
+    initSqlDriver();
+    FlightEvents.setEnabled(PropertiesLoader.getBoolean(JFR_EVENTS_ENABLED, false));
+    RequestTiming.setEnabled(PropertiesLoader.getBoolean(TIMING_ENABLED, false));
+    initBeans(sce);
+    initFilters(sce.getServletContext());
+    if (usesDatabase(sce)) {
+      ConnectionManager.initConnectionPool();
+    }
+    SlowQueryLog.start(
+        PropertiesLoader.getLong(SLOW_QUERY_THRESHOLD, DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS),
+        PropertiesLoader.getInt(SLOW_QUERY_QUEUE_CAPACITY, DEFAULT_SLOW_QUERY_QUEUE_CAPACITY));
+    getWarmUpService(sce).start();
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent sce) {
+    ServletContextListener.super.contextDestroyed(sce);
+    getWarmUpService(sce).stop();
+    ((RateChangeBroadcaster) sce.getServletContext()
+        .getAttribute(RateChangeBroadcaster.class.getName())).shutdown();
+    ((ExecutorService) sce.getServletContext().getAttribute(ExecutorService.class.getName()))
+        .shutdown();
+    ((CacheRevalidator) sce.getServletContext().getAttribute(CacheRevalidator.class.getName()))
+        .shutdown();
+    SlowQueryLog.stop();
+    ((RecordingManager) sce.getServletContext().getAttribute(RecordingManager.class.getName()))
+        .close();
+    var requestTimingLog = (RequestTimingLog) sce.getServletContext()
+        .getAttribute(RequestTimingLog.class.getName());
+    if (requestTimingLog != null) {
+      requestTimingLog.shutdown();
+    }
+    ConnectionManager.closeConnections();
+  }
+
+  private void initBeans(ServletContextEvent sce) {
+    ServletContext servletContext = sce.getServletContext();
+
+    ExecutorService requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    servletContext.setAttribute(ExecutorService.class.getName(), requestExecutor);
+
+    AdmissionController admissionController = new AdmissionController(
+        PropertiesLoader.getInt(ADMISSION_MAX_IN_FLIGHT, DEFAULT_ADMISSION_MAX_IN_FLIGHT),
+        PropertiesLoader.getLong(ADMISSION_MAX_QUEUE_WAIT,
+            DEFAULT_ADMISSION_MAX_QUEUE_WAIT_MILLIS),
+        PropertiesLoader.getDouble(ADMISSION_WRITE_SHARE, DEFAULT_ADMISSION_WRITE_SHARE),
+        PropertiesLoader.getLong(ADMISSION_RETRY_AFTER, DEFAULT_ADMISSION_RETRY_AFTER_SECONDS));
+    servletContext.setAttribute(AdmissionController.class.getName(), admissionController);
+
+    ExchangeRateCache exchangeRateCache = new ExchangeRateCache(
+        PropertiesLoader.getLong(CACHE_FRESHNESS, DEFAULT_CACHE_FRESHNESS_MILLIS));
+    servletContext.setAttribute(ExchangeRateCache.class.getName(), exchangeRateCache);
+
+    JsonSerializer jsonSerializer = new JsonSerializer();
+    servletContext.setAttribute(JsonSerializer.class.getName(), jsonSerializer);
+
+    BinarySerializer binarySerializer = new BinarySerializer();
+    servletContext.setAttribute(BinarySerializer.class.getName(), binarySerializer);
+
+    ExchangeRateMapper exchangeRateMapper = ExchangeRateMapper.INSTANCE;
+    servletContext.setAttribute(ExchangeRateMapper.class.getName(), exchangeRateMapper);
+
+    RateChangeBroadcaster rateChangeBroadcaster = new RateChangeBroadcaster(jsonSerializer,
+        exchangeRateMapper,
+        PropertiesLoader.getInt(STREAM_REPLAY_CAPACITY, DEFAULT_STREAM_REPLAY_CAPACITY),
+        PropertiesLoader.getInt(STREAM_SUBSCRIBER_CAPACITY, DEFAULT_STREAM_SUBSCRIBER_CAPACITY),
+        PropertiesLoader.getInt(STREAM_MAX_SUBSCRIBERS, DEFAULT_STREAM_MAX_SUBSCRIBERS));
+    servletContext.setAttribute(RateChangeBroadcaster.class.getName(), rateChangeBroadcaster);
+
+    CurrencyDao currencyDao = getOrRegister(servletContext, CurrencyDao.class,
+        CurrencyDaoImpl::getInstance);
+    CurrencyService currencyService = new CurrencyService(currencyDao, exchangeRateCache);
+    servletContext.setAttribute(CurrencyService.class.getName(), currencyService);
+
+    ExchangeRateDao exchangeRateDao = getOrRegister(servletContext, ExchangeRateDao.class,
+        ExchangeRateDaoImpl::getInstance);
+    ExchangeRateService exchangeRateService = new ExchangeRateService(exchangeRateDao, currencyDao,
+        exchangeRateCache, rateChangeBroadcaster);
+    servletContext.setAttribute(ExchangeRateService.class.getName(), exchangeRateService);
+
+    CacheRevalidator cacheRevalidator = new CacheRevalidator(exchangeRateCache, currencyDao,
+        exchangeRateDao, PropertiesLoader.getLong(CACHE_REVALIDATION_RETRY_DELAY,
+            DEFAULT_CACHE_REVALIDATION_RETRY_DELAY_MILLIS));
+    servletContext.setAttribute(CacheRevalidator.class.getName(), cacheRevalidator);
+
+    CurrencyMapper currencyMapper = CurrencyMapper.INSTANCE;
+    servletContext.setAttribute(CurrencyMapper.class.getName(), currencyMapper);
+
+    ExchangeService exchangeService = new ExchangeService(exchangeRateDao, currencyDao,
+        currencyMapper, exchangeRateCache);
+    servletContext.setAttribute(ExchangeService.class.getName(), exchangeService);
+
+    WarmUpService warmUpService = new WarmUpService(currencyDao, exchangeRateDao,
+        exchangeRateCache, exchangeService, jsonSerializer);
+    servletContext.setAttribute(WarmUpService.class.getName(), warmUpService);
+
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    servletContext.setAttribute(MetricsRegistry.class.getName(), metricsRegistry);
+
+    PrometheusExporter prometheusExporter = new PrometheusExporter(metricsRegistry,
+        exchangeRateCache, admissionController, rateChangeBroadcaster);
+    servletContext.setAttribute(PrometheusExporter.class.getName(), prometheusExporter);
+
+    RecordingManager recordingManager = new RecordingManager(
+        PropertiesLoader.getLong(ADMIN_JFR_MAX_DURATION, DEFAULT_ADMIN_JFR_MAX_DURATION_SECONDS));
+    servletContext.setAttribute(RecordingManager.class.getName(), recordingManager);
+
+    if (RequestTiming.isEnabled()) {
+      RequestTimingLog requestTimingLog = new RequestTimingLog(
+          PropertiesLoader.getLong(TIMING_LOG_INTERVAL, DEFAULT_TIMING_LOG_INTERVAL_MILLIS));
+      servletContext.setAttribute(RequestTimingLog.class.getName(), requestTimingLog);
+    }
+  }
+
+  private static void initFilters(ServletContext servletContext) {
+    addFilter(servletContext, MetricsFilter.class).addMappingForUrlPatterns(null, true, "/*");
+    addFilter(servletContext, ServerTimingFilter.class).addMappingForUrlPatterns(null, true, "/*");
+    addFilter(servletContext, CorsFilter.class).addMappingForUrlPatterns(null, true, "/*");
+    addFilter(servletContext, RateLimitFilter.class).addMappingForUrlPatterns(null, true, "/*");
+    addFilter(servletContext, CompressionFilter.class).addMappingForUrlPatterns(null, true, "/*");
+    addFilter(servletContext, EncodingAndContentTypeFilter.class)
+        .addMappingForUrlPatterns(null, true, "/*");
+
+    addFilter(servletContext, CurrenciesValidationFilter.class)
+        .addMappingForServletNames(null, true, "CurrenciesServlet");
+    addFilter(servletContext, CurrencyValidationFilter.class)
+        .addMappingForServletNames(null, true, "CurrencyServlet");
+    addFilter(servletContext, ExchangeRatesValidationFilter.class)
+        .addMappingForServletNames(null, true, "ExchangeRatesServlet");
+    addFilter(servletContext, ExchangeRateValidationFilter.class)
+        .addMappingForServletNames(null, true, "ExchangeRateServlet");
+    addFilter(servletContext, ExchangeRateStreamValidationFilter.class)
+        .addMappingForServletNames(null, true, "ExchangeRateStreamServlet");
+    addFilter(servletContext, ExchangeValidationFilter.class)
+        .addMappingForServletNames(null, true, "ExchangeServlet");
+    addFilter(servletContext, AdmissionControlFilter.class)
+        .addMappingForServletNames(null, true, "CurrenciesServlet", "CurrencyServlet",
+            "ExchangeRatesServlet", "ExchangeRateServlet", "ExchangeServlet");
+  }
+
+  private static FilterRegistration.Dynamic addFilter(ServletContext servletContext,
+      Class<? extends Filter> type) {
+    var registration = servletContext.addFilter(type.getSimpleName(), type);
+    registration.setAsyncSupported(true);
+    return registration;
+  }
+
+  private static <T> T getOrRegister(ServletContext servletContext, Class<T> type,
+      Supplier<T> defaultBean) {
+    var registered = type.cast(servletContext.getAttribute(type.getName()));
+    if (registered != null) {
+      return registered;
+    }
+    T bean = defaultBean.get();
+    servletContext.setAttribute(type.getName(), bean);
+    return bean;
+  }
+
+  private static boolean usesDatabase(ServletContextEvent sce) {
+    var servletContext = sce.getServletContext();
+    return servletContext.getAttribute(CurrencyDao.class.getName()) instanceof TransactionalDao
+        || servletContext.getAttribute(ExchangeRateDao.class.getName()) instanceof TransactionalDao;
+  }
+
+  private WarmUpService getWarmUpService(ServletContextEvent sce) {
+    return (WarmUpService) sce.getServletContext().getAttribute(WarmUpService.class.getName());
+  }
+}
@@ -0,0 +1,34 @@
+package ru.starkov.stream;
+
+/**
+ * The BackpressurePolicy enum defines what happens to a stream subscriber that reads slower than
+ * rate changes are published and whose buffer is full.
+ */
+public enum BackpressurePolicy {
+
+  /**
+   * The subscriber is disconnected. It resumes from its last event ID when it reconnects.
+   */
+  DROP,
+
+  /**
+   * Only the latest pending change of every currency pair is kept. The subscriber is disconnected
+   * when there are more pairs with pending changes than its buffer holds.
+   */
+  CONFLATE;
+
+  /**
+   * Returns the policy with the given name, ignoring case.
+   *
+   * @param name the name of the policy
+   * @return the policy, or null if there is no policy with this name
+   */
+  public static BackpressurePolicy fromName(String name) {
+    for (BackpressurePolicy policy : values()) {
+      if (policy.name().equalsIgnoreCase(name)) {
+        return policy;
+      }
+    }
+    return null;
+  }
+}
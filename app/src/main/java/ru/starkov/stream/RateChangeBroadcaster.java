@@ -0,0 +1,184 @@
+package ru.starkov.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.json.JsonWriters;
+import ru.starkov.dto.mapper.ExchangeRateMapper;
+import ru.starkov.model.ExchangeRate;
+
+/**
+ * The RateChangeBroadcaster class fans committed exchange rate changes out to the subscribers of
+ * the rate stream. Every change gets an increasing event ID and is encoded once as a server-sent
+ * event. The latest events are kept in a bounded replay ring, so a subscriber that reconnects with
+ * its last event ID receives what it missed. Each subscriber has its own bounded buffer, see
+ * {@link RateChangeSubscription}.
+ */
+public final class RateChangeBroadcaster {
+
+  private static final String EVENT_NAME = "rate";
+
+  private final JsonSerializer jsonSerializer;
+  private final ExchangeRateMapper exchangeRateMapper;
+  private final RateChangeEvent[] replayRing;
+  private final int subscriberCapacity;
+  private final int maxSubscribers;
+  private final List<RateChangeSubscription> subscriptions = new ArrayList<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private long lastEventId;
+
+  /**
+   * Creates a broadcaster.
+   *
+   * @param jsonSerializer     the serializer of the event data
+   * @param exchangeRateMapper the mapper of the changed exchange rates
+   * @param replayCapacity     the number of latest events kept for reconnecting subscribers
+   * @param subscriberCapacity the number of events buffered for a subscriber that falls behind
+   * @param maxSubscribers     the maximum number of subscribers at the same time
+   */
+  public RateChangeBroadcaster(JsonSerializer jsonSerializer, ExchangeRateMapper exchangeRateMapper,
+      int replayCapacity, int subscriberCapacity, int maxSubscribers) {
+    this.jsonSerializer = jsonSerializer;
+    this.exchangeRateMapper = exchangeRateMapper;
+    this.replayRing = new RateChangeEvent[Math.max(1, replayCapacity)];
+    this.subscriberCapacity = subscriberCapacity;
+    this.maxSubscribers = maxSubscribers;
+  }
+
+  /**
+   * Publishes a committed exchange rate change.
+   *
+   * @param exchangeRate the changed exchange rate
+   */
+  public void publish(ExchangeRate exchangeRate) {
+    publishAll(List.of(exchangeRate));
+  }
+
+  /**
+   * Publishes committed exchange rate changes in the given order.
+   *
+   * @param exchangeRates the changed exchange rates
+   */
+  public void publishAll(List<ExchangeRate> exchangeRates) {
+    List<byte[]> data = new ArrayList<>(exchangeRates.size());
+    for (ExchangeRate exchangeRate : exchangeRates) {
+      data.add(encode(exchangeRate));
+    }
+    lock.lock();
+    try {
+      for (int i = 0; i < exchangeRates.size(); i++) {
+        var id = ++lastEventId;
+        var event = new RateChangeEvent(id, getPair(exchangeRates.get(i)),
+            frame(id, data.get(i)));
+        replayRing[(int) (id % replayRing.length)] = event;
+        subscriptions.removeIf(subscription -> !subscription.offer(event));
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Starts a subscription. The events published after the given last event ID are replayed if
+   * they are all still in the replay ring.
+   *
+   * @param lastEventId the ID of the last event the subscriber received, or null to start with
+   *                    the next published event
+   * @param policy      the backpressure policy of the subscriber
+   * @return the subscription, or null if the maximum number of subscribers is reached
+   */
+  public RateChangeSubscription subscribe(Long lastEventId, BackpressurePolicy policy) {
+    lock.lock();
+    try {
+      if (subscriptions.size() >= maxSubscribers) {
+        return null;
+      }
+      List<RateChangeEvent> replay = Collections.emptyList();
+      var replayComplete = true;
+      if (lastEventId != null) {
+        replayComplete = lastEventId >= 0 && lastEventId <= this.lastEventId
+            && this.lastEventId - lastEventId <= replayRing.length;
+        if (replayComplete) {
+          replay = new ArrayList<>((int) (this.lastEventId - lastEventId));
+          for (long id = lastEventId + 1; id <= this.lastEventId; id++) {
+            replay.add(replayRing[(int) (id % replayRing.length)]);
+          }
+        }
+      }
+      var subscription = new RateChangeSubscription(policy, subscriberCapacity,
+          this.lastEventId, replay, replayComplete);
+      subscriptions.add(subscription);
+      return subscription;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Ends a subscription.
+   *
+   * @param subscription the subscription to end
+   */
+  public void unsubscribe(RateChangeSubscription subscription) {
+    subscription.close();
+    lock.lock();
+    try {
+      subscriptions.remove(subscription);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getSubscriberCount() {
+    lock.lock();
+    try {
+      return subscriptions.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes every subscription, which ends the streams of all subscribers.
+   */
+  public void shutdown() {
+    lock.lock();
+    try {
+      subscriptions.forEach(RateChangeSubscription::close);
+      subscriptions.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private byte[] encode(ExchangeRate exchangeRate) {
+    var out = new ByteArrayOutputStream(256);
+    try {
+      jsonSerializer.write(exchangeRateMapper.toDto(exchangeRate), JsonWriters.EXCHANGE_RATE, out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] frame(long id, byte[] data) {
+    var header = ("id: " + id + "\nevent: " + EVENT_NAME + "\ndata: ")
+        .getBytes(StandardCharsets.US_ASCII);
+    var frame = new byte[header.length + data.length + 2];
+    System.arraycopy(header, 0, frame, 0, header.length);
+    System.arraycopy(data, 0, frame, header.length, data.length);
+    frame[frame.length - 2] = '\n';
+    frame[frame.length - 1] = '\n';
+    return frame;
+  }
+
+  private static String getPair(ExchangeRate exchangeRate) {
+    return exchangeRate.getBaseCurrency().getCode() + exchangeRate.getTargetCurrency().getCode();
+  }
+}
@@ -0,0 +1,13 @@
+package ru.starkov.stream;
+
+/**
+ * A committed exchange rate change as it is sent to the stream subscribers. The frame holds the
+ * complete server-sent event, encoded once and shared by every subscriber.
+ *
+ * @param id    the ID of the event, increasing with every change
+ * @param pair  the codes of the base and target currencies, used to conflate changes
+ * @param frame the event in the {@code text/event-stream} format
+ */
+public record RateChangeEvent(long id, String pair, byte[] frame) {
+
+}
@@ -0,0 +1,163 @@
+package ru.starkov.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SequencedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The RateChangeSubscription class is the buffer between the {@link RateChangeBroadcaster} and the
+ * thread writing the events to one subscriber. The buffer is bounded: when the subscriber falls
+ * behind, its {@link BackpressurePolicy} decides whether changes are conflated to the latest one
+ * per currency pair or the subscription is closed. Publishing never waits for a subscriber.
+ */
+public final class RateChangeSubscription {
+
+  private final BackpressurePolicy policy;
+  private final int capacity;
+  private final long startEventId;
+  private final List<RateChangeEvent> replay;
+  private final boolean replayComplete;
+  private final ArrayDeque<RateChangeEvent> queue = new ArrayDeque<>();
+  private final SequencedMap<String, RateChangeEvent> latestByPair = new LinkedHashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+  private boolean closed;
+  private boolean overflowed;
+
+  RateChangeSubscription(BackpressurePolicy policy, int capacity, long startEventId,
+      List<RateChangeEvent> replay, boolean replayComplete) {
+    this.policy = policy;
+    this.capacity = capacity;
+    this.startEventId = startEventId;
+    this.replay = replay;
+    this.replayComplete = replayComplete;
+  }
+
+  /**
+   * Returns the ID of the last event published before the subscription started.
+   *
+   * @return the ID of the last published event, 0 if there is none
+   */
+  public long getStartEventId() {
+    return startEventId;
+  }
+
+  /**
+   * Returns the events published after the last event ID the subscriber asked to resume from.
+   *
+   * @return the events to send before the live ones, in publishing order
+   */
+  public List<RateChangeEvent> getReplay() {
+    return replay;
+  }
+
+  /**
+   * Tells whether the replay holds every event the subscriber missed. It does not when the last
+   * event ID is older than the replay buffer or unknown to this server, and the subscriber must
+   * then be sent the current state instead.
+   *
+   * @return true if the replay is complete
+   */
+  public boolean isReplayComplete() {
+    return replayComplete;
+  }
+
+  /**
+   * Tells whether the subscription was closed because the subscriber fell too far behind.
+   *
+   * @return true if the buffer overflowed
+   */
+  public boolean isOverflowed() {
+    lock.lock();
+    try {
+      return overflowed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits for published events and takes all of them.
+   *
+   * @param timeoutMillis the maximum time to wait
+   * @return the pending events in publishing order, an empty list if none were published within
+   *     the timeout, or null if the subscription is closed
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public List<RateChangeEvent> take(long timeoutMillis) throws InterruptedException {
+    lock.lock();
+    try {
+      var nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      while (!closed && size() == 0 && nanos > 0) {
+        nanos = available.awaitNanos(nanos);
+      }
+      if (closed) {
+        return null;
+      }
+      List<RateChangeEvent> events;
+      if (policy == BackpressurePolicy.CONFLATE) {
+        events = new ArrayList<>(latestByPair.values());
+        latestByPair.clear();
+      } else {
+        events = new ArrayList<>(queue);
+        queue.clear();
+      }
+      return events;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes the subscription and wakes up the writing thread.
+   */
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      available.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds a published event to the buffer, applying the backpressure policy if the buffer is full.
+   *
+   * @param event the published event
+   * @return false if the subscription is closed
+   */
+  boolean offer(RateChangeEvent event) {
+    lock.lock();
+    try {
+      if (closed) {
+        return false;
+      }
+      if (policy == BackpressurePolicy.CONFLATE) {
+        latestByPair.remove(event.pair());
+        latestByPair.put(event.pair(), event);
+      } else {
+        queue.add(event);
+      }
+      if (size() > capacity) {
+        overflowed = true;
+        closed = true;
+        queue.clear();
+        latestByPair.clear();
+      }
+      available.signal();
+      return !closed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int size() {
+    return policy == BackpressurePolicy.CONFLATE ? latestByPair.size() : queue.size();
+  }
+}
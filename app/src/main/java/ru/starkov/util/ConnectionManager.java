@@ -0,0 +1,486 @@
+package ru.starkov.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.DeadlineExceededException;
+import ru.starkov.jfr.FlightEvents;
+import ru.starkov.metrics.LatencyHistogram;
+import ru.starkov.metrics.RequestStage;
+import ru.starkov.metrics.RequestTiming;
+
+/**
+ * The ConnectionManager class provides methods to manage a connection pool for JDBC connections. It
+ * hands every lease of a {@link PooledConnection} out as a handle of its own, which resets the
+ * transaction state and returns the connection to the pool when closed. Callers wait for a
+ * connection on a fair semaphore holding a permit per idle connection, so any number of (virtual)
+ * threads can queue up for the database in arrival order. The time spent waiting is tracked as a
+ * moving average, which admission control uses to detect saturation, and as a histogram exported
+ * with the other metrics, and each wait is a flight recorder event while those are enabled.
+ *
+ * <p>The pool is elastic. It starts with its minimum number of connections, opened in parallel.
+ * A caller that waits longer than the grow threshold asks for another connection, up to the
+ * maximum, and idle connections above the minimum are closed once they have not been borrowed for
+ * the idle timeout. Idle connections are handed out most recently returned first, so under light
+ * load the surplus stays idle long enough to be closed. A single background thread opens the new
+ * connections, closes the surplus, validates the connections that sat idle for a maintenance
+ * interval and replaces the broken ones, so a request thread never connects to the database.
+ */
+public final class ConnectionManager {
+
+  private static final Logger LOGGER = Logger.getLogger(ConnectionManager.class.getName());
+  private static final String URL = "db.url";
+  private static final String USER = "db.username";
+  private static final String PASSWORD = "db.password";
+  private static final String MIN_SIZE = "db.pool.min";
+  private static final String MAX_SIZE = "db.pool.max";
+  private static final String LEGACY_SIZE = "db.pool.size";
+  private static final String GROW_THRESHOLD = "db.pool.grow.threshold.ms";
+  private static final String IDLE_TIMEOUT = "db.pool.idle.timeout.ms";
+  private static final String MAINTENANCE_INTERVAL = "db.pool.maintenance.interval.ms";
+  private static final String VALIDATION_TIMEOUT = "db.pool.validation.timeout.seconds";
+  private static final String ACQUIRE_TIMEOUT = "db.pool.acquire.timeout.ms";
+  private static final String SOCKET_TIMEOUT = "db.socket.timeout.seconds";
+  private static final int DEFAULT_MIN_SIZE = 2;
+  private static final int DEFAULT_MAX_SIZE = 10;
+  private static final long DEFAULT_GROW_THRESHOLD_MILLIS = 50;
+  private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 600_000;
+  private static final long DEFAULT_MAINTENANCE_INTERVAL_MILLIS = 30_000;
+  private static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 5;
+  private static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 30_000;
+  private static final String ACQUIRE_TIMEOUT_MESSAGE =
+      "Timed out waiting for a database connection";
+  private static final int WAIT_AVERAGE_SHIFT = 3;
+  private static final AtomicLong averageAcquireWaitNanos = new AtomicLong();
+  private static final LatencyHistogram acquireWaitHistogram = new LatencyHistogram();
+  private static final LongAdder acquireTimeouts = new LongAdder();
+  private static final AtomicInteger size = new AtomicInteger();
+  private static final AtomicInteger opening = new AtomicInteger();
+  private static final AtomicInteger borrowed = new AtomicInteger();
+  private static int minSize;
+  private static int maxSize;
+  private static long growThresholdMillis;
+  private static long acquireTimeoutMillis;
+  private static long idleTimeoutNanos;
+  private static long maintenanceIntervalNanos;
+  private static int validationTimeoutSeconds;
+  private static Deque<PooledConnection> pool;
+  private static Semaphore permits;
+  private static Set<PooledConnection> connections;
+  private static ScheduledExecutorService maintainer;
+  private static volatile boolean closed;
+
+
+  private ConnectionManager() {
+  }
+
+  /**
+   * Initializes the connection pool based on the properties loaded from the properties file. The
+   * minimum number of connections is opened in parallel, each physical connection wrapped in a
+   * {@link PooledConnection} that returns it to the pool on close, and the background maintenance
+   * of the pool is started. {@code db.pool.size} is still read as the maximum when
+   * {@code db.pool.max} is not set.
+   *
+   * @throws RuntimeException if any of the initial connections cannot be opened
+   */
+  public static void initConnectionPool() {
+    maxSize = Math.max(1,
+        PropertiesLoader.getInt(MAX_SIZE, PropertiesLoader.getInt(LEGACY_SIZE, DEFAULT_MAX_SIZE)));
+    minSize = Math.clamp(PropertiesLoader.getInt(MIN_SIZE, DEFAULT_MIN_SIZE), 0, maxSize);
+    growThresholdMillis = Math.max(0,
+        PropertiesLoader.getLong(GROW_THRESHOLD, DEFAULT_GROW_THRESHOLD_MILLIS));
+    acquireTimeoutMillis =
+        PropertiesLoader.getLong(ACQUIRE_TIMEOUT, DEFAULT_ACQUIRE_TIMEOUT_MILLIS);
+    idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(
+        PropertiesLoader.getLong(IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT_MILLIS));
+    var maintenanceInterval = Math.max(1,
+        PropertiesLoader.getLong(MAINTENANCE_INTERVAL, DEFAULT_MAINTENANCE_INTERVAL_MILLIS));
+    maintenanceIntervalNanos = TimeUnit.MILLISECONDS.toNanos(maintenanceInterval);
+    validationTimeoutSeconds = Math.max(1,
+        PropertiesLoader.getInt(VALIDATION_TIMEOUT, DEFAULT_VALIDATION_TIMEOUT_SECONDS));
+    pool = new ConcurrentLinkedDeque<>();
+    permits = new Semaphore(0, true);
+    connections = ConcurrentHashMap.newKeySet();
+    size.set(0);
+    opening.set(0);
+    borrowed.set(0);
+    closed = false;
+
+    List<Future<PooledConnection>> initial = new ArrayList<>(minSize);
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < minSize; i++) {
+        initial.add(executor.submit(ConnectionManager::openPooled));
+      }
+    }
+    Throwable failure = null;
+    for (var future : initial) {
+      if (future.state() == Future.State.SUCCESS) {
+        size.incrementAndGet();
+        add(future.resultNow());
+      } else if (failure == null) {
+        failure = future.exceptionNow();
+      }
+    }
+    if (failure != null) {
+      closeConnections();
+      throw failure instanceof RuntimeException e ? e : new RuntimeException(failure);
+    }
+
+    maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "connection-pool");
+      thread.setDaemon(true);
+      return thread;
+    });
+    maintainer.scheduleWithFixedDelay(ConnectionManager::maintain, maintenanceInterval,
+        maintenanceInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Retrieves a connection from the connection pool. Blocks until a connection is available or the
+   * acquire timeout passes, whichever is earlier of the configured timeout and the
+   * {@link Deadline} of the calling thread. A caller still waiting after the grow threshold has
+   * another connection opened in the background, if the pool is below its maximum, and takes
+   * whichever connection becomes available first.
+   *
+   * @return a Connection object from the pool
+   * @throws DatabaseException         if no connection becomes available within the acquire
+   *                                   timeout
+   * @throws DeadlineExceededException if the deadline passes before a connection is available
+   */
+  public static Connection getConnection() {
+    Deadline.check();
+    var timeout = Math.min(acquireTimeoutMillis, Deadline.remainingMillis());
+    var waitEvent = FlightEvents.beginConnectionWait(ConnectionManager::getWaitingCount);
+    var start = System.nanoTime();
+    try {
+      var firstWait = Math.min(growThresholdMillis, timeout);
+      var acquired = permits.tryAcquire(firstWait, TimeUnit.MILLISECONDS);
+      if (!acquired && firstWait < timeout) {
+        grow();
+        acquired = permits.tryAcquire(timeout - firstWait, TimeUnit.MILLISECONDS);
+      }
+      recordAcquireWait(System.nanoTime() - start);
+      FlightEvents.endConnectionWait(waitEvent, acquired);
+      if (!acquired) {
+        acquireTimeouts.increment();
+        Deadline.check();
+        throw new DatabaseException(ACQUIRE_TIMEOUT_MESSAGE,
+            new SQLTransientConnectionException(ACQUIRE_TIMEOUT_MESSAGE));
+      }
+      // A permit is released only after its connection is in the pool, so it is never empty here
+      var connection = pool.pollFirst();
+      borrowed.incrementAndGet();
+      return connection.lease();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatabaseException(ACQUIRE_TIMEOUT_MESSAGE, e);
+    }
+  }
+
+  /**
+   * Tells whether every connection of the pool is in use and the pool cannot grow, so a new caller
+   * has to wait for a connection to be returned.
+   *
+   * @return true if no connection is available
+   */
+  public static boolean isExhausted() {
+    return permits != null && permits.availablePermits() == 0 && size.get() >= maxSize;
+  }
+
+  /**
+   * Returns the number of callers waiting for a connection.
+   *
+   * @return the estimated number of waiting callers
+   */
+  public static int getWaitingCount() {
+    return permits == null ? 0 : permits.getQueueLength();
+  }
+
+  /**
+   * Returns the number of connections handed out and not yet returned.
+   *
+   * @return the number of borrowed connections
+   */
+  public static int getBorrowedCount() {
+    return borrowed.get();
+  }
+
+  /**
+   * Returns the number of connections waiting in the pool.
+   *
+   * @return the number of idle connections
+   */
+  public static int getIdleCount() {
+    return pool == null ? 0 : pool.size();
+  }
+
+  /**
+   * Returns the number of connections the pool has open or is opening, borrowed or idle.
+   *
+   * @return the current size of the pool
+   */
+  public static int getSize() {
+    return size.get();
+  }
+
+  public static LatencyHistogram getAcquireWaitHistogram() {
+    return acquireWaitHistogram;
+  }
+
+  /**
+   * Returns the number of callers that gave up waiting for a connection, on the acquire timeout
+   * or on their deadline.
+   *
+   * @return the number of failed acquisitions
+   */
+  public static long getAcquireTimeoutCount() {
+    return acquireTimeouts.sum();
+  }
+
+  /**
+   * Returns the moving average of the time callers waited for a connection, weighting the latest
+   * acquisitions most.
+   *
+   * @return the average wait in milliseconds
+   */
+  public static long getAverageAcquireWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(averageAcquireWaitNanos.get());
+  }
+
+  /**
+   * Stops the maintenance of the pool and closes all its connections, if it was initialized. A
+   * connection still being opened is closed as soon as it is.
+   */
+  public static void closeConnections() {
+    if (connections == null) {
+      return;
+    }
+    closed = true;
+    if (maintainer != null) {
+      maintainer.shutdownNow();
+    }
+    for (PooledConnection connection : connections) {
+      discard(connection);
+    }
+  }
+
+  private static void release(PooledConnection connection) {
+    borrowed.decrementAndGet();
+    if (connection.isBroken()) {
+      // Closing and reopening can block on the network, so the replacement is left to the
+      // background thread; its slot stays reserved meanwhile
+      opening.incrementAndGet();
+      execute(() -> {
+        discard(connection);
+        openReserved();
+      });
+      return;
+    }
+    pool.addFirst(connection);
+    permits.release();
+  }
+
+  /**
+   * Asks the background thread for another connection, unless the pool is at its maximum or
+   * enough connections are already being opened for the callers waiting.
+   */
+  private static void grow() {
+    if (opening.get() > permits.getQueueLength() || !reserve(maxSize)) {
+      return;
+    }
+    opening.incrementAndGet();
+    execute(ConnectionManager::openReserved);
+  }
+
+  /**
+   * Runs a task on the background thread. A task refused because the pool is closing gives up the
+   * slot it was opening a connection for.
+   */
+  private static void execute(Runnable task) {
+    try {
+      maintainer.execute(task);
+    } catch (RejectedExecutionException e) {
+      opening.decrementAndGet();
+      size.decrementAndGet();
+    }
+  }
+
+  /**
+   * Retires, validates and tops up the idle connections. The connections idle the longest are
+   * taken from the pool one by one, together with their permits: one idle past the idle timeout is
+   * closed while the pool is above its minimum, one idle for a maintenance interval is validated
+   * and replaced if broken, and the walk stops at the first connection returned more recently.
+   * The connections kept go back in the order they were idle in.
+   */
+  private static void maintain() {
+    try {
+      var now = System.nanoTime();
+      List<PooledConnection> kept = new ArrayList<>();
+      try {
+        while (permits.tryAcquire()) {
+          var connection = pool.pollLast();
+          var idleNanos = connection.getIdleNanos(now);
+          if (idleNanos >= idleTimeoutNanos && shrink()) {
+            discard(connection);
+          } else if (idleNanos < maintenanceIntervalNanos) {
+            kept.add(connection);
+            break;
+          } else if (connection.validate(validationTimeoutSeconds)) {
+            kept.add(connection);
+          } else {
+            discard(connection);
+            opening.incrementAndGet();
+            openReserved();
+          }
+        }
+      } finally {
+        for (int i = kept.size() - 1; i >= 0; i--) {
+          pool.addLast(kept.get(i));
+        }
+        permits.release(kept.size());
+      }
+      while (!closed && reserve(minSize)) {
+        opening.incrementAndGet();
+        openReserved();
+      }
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Connection pool maintenance failed", e);
+    }
+  }
+
+  /**
+   * Opens a connection for a slot already counted in the size of the pool and adds it to the
+   * pool. The slot is given up if the connection cannot be opened; maintenance fills it again
+   * while the pool is below its minimum.
+   */
+  private static void openReserved() {
+    try {
+      add(openPooled());
+    } catch (RuntimeException e) {
+      size.decrementAndGet();
+      LOGGER.log(Level.WARNING, "Could not open a database connection", e);
+    } finally {
+      opening.decrementAndGet();
+    }
+  }
+
+  private static void add(PooledConnection connection) {
+    connections.add(connection);
+    if (closed) {
+      discard(connection);
+      return;
+    }
+    pool.addFirst(connection);
+    permits.release();
+  }
+
+  private static void discard(PooledConnection connection) {
+    connections.remove(connection);
+    try {
+      connection.discard();
+    } catch (SQLException e) {
+      LOGGER.log(Level.FINE, "Could not close a database connection", e);
+    }
+  }
+
+  /**
+   * Counts another connection in the size of the pool, if that stays within a limit.
+   *
+   * @return true if the slot was reserved
+   */
+  private static boolean reserve(int limit) {
+    int current;
+    do {
+      current = size.get();
+      if (current >= limit) {
+        return false;
+      }
+    } while (!size.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /**
+   * Uncounts a connection from the size of the pool, if that stays at or above the minimum.
+   *
+   * @return true if the slot was given up
+   */
+  private static boolean shrink() {
+    int current;
+    do {
+      current = size.get();
+      if (current <= minSize) {
+        return false;
+      }
+    } while (!size.compareAndSet(current, current - 1));
+    return true;
+  }
+
+  private static void recordAcquireWait(long waitNanos) {
+    acquireWaitHistogram.record(waitNanos);
+    RequestTiming.record(RequestStage.POOL, waitNanos);
+    averageAcquireWaitNanos.getAndUpdate(
+        average -> average + ((waitNanos - average) >> WAIT_AVERAGE_SHIFT));
+  }
+
+  private static PooledConnection openPooled() {
+    var connection = open();
+    try {
+      return new PooledConnection(connection, ConnectionManager::release);
+    } catch (SQLException e) {
+      try {
+        connection.close();
+      } catch (SQLException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Opens a new database connection based on the properties loaded from the properties file. The
+   * socket timeout, when configured, keeps a stalled database from blocking a query forever.
+   *
+   * @return a new Connection object
+   */
+  private static Connection open() {
+    var url = PropertiesLoader.get(URL);
+    var user = PropertiesLoader.get(USER);
+    var password = PropertiesLoader.get(PASSWORD);
+    var info = new Properties();
+    if (user != null) {
+      info.setProperty("user", user);
+    }
+    if (password != null) {
+      info.setProperty("password", password);
+    }
+    var socketTimeout = PropertiesLoader.get(SOCKET_TIMEOUT);
+    if (socketTimeout != null) {
+      info.setProperty("socketTimeout", socketTimeout.trim());
+    }
+    try {
+      return DriverManager.getConnection(url, info);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
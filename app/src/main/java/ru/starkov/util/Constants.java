@@ -15,10 +15,17 @@ public final class Constants {
   public static final String CURRENCIES_PATH = "/currencies";
   public static final String EXCHANGE_RATE_PATH = "/exchangeRate";
   public static final String EXCHANGE_RATES_PATH = "/exchangeRates";
+  public static final String EXCHANGE_RATES_STREAM_PATH = EXCHANGE_RATES_PATH + "/stream";
   public static final String EXCHANGE_PATH = "/exchange";
+  public static final String HEALTH_PATH = "/health";
+  public static final String READY_PATH = "/ready";
+  public static final String METRICS_PATH = "/metrics";
+  public static final String ADMIN_PATH = "/admin";
   public static final String HTTP_METHOD_GET = "GET";
   public static final String HTTP_METHOD_POST = "POST";
   public static final String HTTP_METHOD_PATCH = "PATCH";
+  public static final String HTTP_METHOD_PUT = "PUT";
+  public static final String HTTP_METHOD_DELETE = "DELETE";
   public static final String CODE = "code";
   public static final String NAME = "name";
   public static final String SIGN = "sign";
@@ -28,6 +35,19 @@ public final class Constants {
   public static final String TO_CURRENCY_CODE = "to";
   public static final String AMOUNT = "amount";
   public static final String RATE = "rate";
+  public static final String CODES = "codes";
+  public static final String PAIRS = "pairs";
+  public static final String MULTI_GET_MAX_ITEMS = "multiget.max.items";
+  public static final int DEFAULT_MULTI_GET_MAX_ITEMS = 100;
+  public static final String BACKPRESSURE = "backpressure";
+  public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+  public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+  public static final String PARSED_REQUEST = "parsedRequest";
+  public static final String RESPONSE_FORMAT = "responseFormat";
+  public static final String REQUEST_TIMING = "requestTiming";
+  public static final String TIMEOUT_LISTENER = "timeoutListener";
+  public static final String ASYNC_LISTENERS = "asyncListeners";
+  public static final String SERVER_TIMING_HEADER = "Server-Timing";
   public static final String ERROR_CURRENCY_NOT_FOUND_MESSAGE =
       "Currency with following code is not found: %S";
 }
@@ -0,0 +1,113 @@
+package ru.starkov.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.DeadlineExceededException;
+
+/**
+ * The Deadline class holds the deadline of the request handled by the calling thread. It is bound
+ * to the thread like the transactional connection of the DAOs, so services and DAOs read the
+ * remaining budget without it being passed through every call. The budget bounds the wait for a
+ * pooled connection and is applied to every statement as its query timeout, and no new work is
+ * started once it is spent.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Deadline {
+
+  private static final String DEADLINE_EXCEEDED_MESSAGE = "The request deadline has passed";
+  private static final String QUERY_CANCELED_SQL_STATE = "57014";
+  private static final long MILLIS_PER_SECOND = 1000;
+  private static final ThreadLocal<Long> expiresAtNanos = new ThreadLocal<>();
+
+  /**
+   * Returns the moment, on the {@link System#nanoTime()} scale, that lies the given budget ahead.
+   *
+   * @param budgetMillis the budget in milliseconds
+   * @return the moment the budget is spent
+   */
+  public static long after(long budgetMillis) {
+    return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+  }
+
+  /**
+   * Binds a deadline to the calling thread. Passing null unbinds it.
+   *
+   * @param deadlineNanos the moment the deadline passes, as returned by {@link #after(long)}
+   */
+  public static void set(Long deadlineNanos) {
+    if (deadlineNanos == null) {
+      expiresAtNanos.remove();
+    } else {
+      expiresAtNanos.set(deadlineNanos);
+    }
+  }
+
+  /**
+   * Returns the budget left until the deadline of the calling thread.
+   *
+   * @return the remaining milliseconds, at most 0 if the deadline has passed, or
+   *     {@link Long#MAX_VALUE} if no deadline is bound
+   */
+  public static long remainingMillis() {
+    var deadline = expiresAtNanos.get();
+    if (deadline == null) {
+      return Long.MAX_VALUE;
+    }
+    return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+  }
+
+  public static boolean isExpired() {
+    return remainingMillis() <= 0;
+  }
+
+  /**
+   * Checks that the deadline of the calling thread has not passed.
+   *
+   * @throws DeadlineExceededException if the deadline has passed
+   */
+  public static void check() {
+    if (isExpired()) {
+      throw new DeadlineExceededException(DEADLINE_EXCEEDED_MESSAGE);
+    }
+  }
+
+  /**
+   * Applies the remaining budget to the statement as its query timeout, rounded up to whole
+   * seconds, which is the granularity JDBC offers.
+   *
+   * @param statement the statement to limit
+   * @throws SQLException              if the timeout cannot be set
+   * @throws DeadlineExceededException if the deadline has already passed
+   */
+  public static void applyTo(Statement statement) throws SQLException {
+    var remaining = remainingMillis();
+    if (remaining == Long.MAX_VALUE) {
+      return;
+    }
+    if (remaining <= 0) {
+      throw new DeadlineExceededException(DEADLINE_EXCEEDED_MESSAGE);
+    }
+    var seconds = (remaining + MILLIS_PER_SECOND - 1) / MILLIS_PER_SECOND;
+    statement.setQueryTimeout((int) Math.min(Integer.MAX_VALUE, seconds));
+  }
+
+  /**
+   * Wraps a failed database call. A query cancelled by its timeout or a call failed after the
+   * deadline is reported as {@link DeadlineExceededException}, anything else as
+   * {@link DatabaseException}.
+   *
+   * @param message the message of a database error
+   * @param cause   the failure
+   * @return the exception to throw
+   */
+  public static RuntimeException databaseException(String message, SQLException cause) {
+    if (isExpired() || QUERY_CANCELED_SQL_STATE.equals(cause.getSQLState())) {
+      return new DeadlineExceededException(DEADLINE_EXCEEDED_MESSAGE, cause);
+    }
+    return new DatabaseException(message, cause);
+  }
+}
@@ -0,0 +1,529 @@
+package ru.starkov.util;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The PooledConnection class is a physical connection kept by the {@link ConnectionManager}. It is
+ * handed out as a new handle for every lease. Every call on the handle is delegated to the
+ * physical connection directly, without reflection, except {@code close()}, which returns the
+ * connection to the pool instead of closing it. A handle is closed for good once it has been
+ * closed, so a holder that keeps it can neither return the connection twice nor roll back the
+ * transaction of the next borrower.
+ *
+ * <p>Before the connection goes back, a transaction left open is rolled back and the
+ * auto-commit, isolation level and read-only settings changed by the borrower are restored to the
+ * values the physical connection had when the pool opened it, so the next borrower starts clean.
+ * Only the settings that were changed are reset, which spares a round trip to the database on
+ * most returns. A connection is used by one thread at a time and handed over through the pool's
+ * queue, so its state needs no synchronization.
+ *
+ * <p>A connection that could not be reset, or whose physical connection was closed under the
+ * borrower, is broken: the pool retires it instead of handing it out again.
+ */
+public final class PooledConnection {
+
+  private static final String CLOSED_MESSAGE = "Connection has been returned to the pool";
+
+  private final Connection delegate;
+  private final Consumer<PooledConnection> release;
+  private final boolean defaultAutoCommit;
+  private final int defaultTransactionIsolation;
+  private final boolean defaultReadOnly;
+  private final AtomicLong leases = new AtomicLong();
+  private boolean autoCommit;
+  private boolean transactionIsolationChanged;
+  private boolean readOnlyChanged;
+  private boolean broken;
+  private long idleSinceNanos = System.nanoTime();
+
+  /**
+   * Wraps a physical connection, taking its current settings as the ones to restore on every
+   * return.
+   *
+   * @param delegate the physical connection
+   * @param release  called with this connection once it is reset and can be borrowed again
+   * @throws SQLException if the settings of the connection cannot be read
+   */
+  public PooledConnection(Connection delegate, Consumer<PooledConnection> release)
+      throws SQLException {
+    this.delegate = delegate;
+    this.release = release;
+    this.defaultAutoCommit = delegate.getAutoCommit();
+    this.defaultTransactionIsolation = delegate.getTransactionIsolation();
+    this.defaultReadOnly = delegate.isReadOnly();
+    this.autoCommit = defaultAutoCommit;
+  }
+
+  /**
+   * Borrows the connection from the pool. Every lease gets a handle of its own, which accepts
+   * calls until it is closed; a handle kept after its close, even by another thread, never reaches
+   * the connection again, whoever borrows it next.
+   *
+   * @return the handle of the lease
+   */
+  public Connection lease() {
+    return new Lease(leases.incrementAndGet());
+  }
+
+  /**
+   * Tells whether the connection must not be handed out again, because it could not be reset on
+   * its last return or its physical connection is closed.
+   *
+   * @return true if the connection is broken
+   */
+  boolean isBroken() {
+    if (broken) {
+      return true;
+    }
+    try {
+      return delegate.isClosed();
+    } catch (SQLException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Returns how long the connection has been waiting in the pool since its last return, or since
+   * it was opened if it was never borrowed.
+   *
+   * @param nowNanos the current {@link System#nanoTime()}
+   * @return the idle time in nanoseconds
+   */
+  long getIdleNanos(long nowNanos) {
+    return nowNanos - idleSinceNanos;
+  }
+
+  /**
+   * Checks with the database that the physical connection still works. Called by the pool on an
+   * idle connection it holds, never on a borrowed one.
+   *
+   * @param timeoutSeconds the time to wait for the database
+   * @return true if the connection is usable
+   */
+  boolean validate(int timeoutSeconds) {
+    try {
+      return delegate.isValid(timeoutSeconds);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Closes the physical connection once the pool has taken it out for good.
+   *
+   * @throws SQLException if the connection could not be closed
+   */
+  void discard() throws SQLException {
+    delegate.close();
+  }
+
+  private void reset() throws SQLException {
+    if (!autoCommit) {
+      delegate.rollback();
+    }
+    if (autoCommit != defaultAutoCommit) {
+      delegate.setAutoCommit(defaultAutoCommit);
+      autoCommit = defaultAutoCommit;
+    }
+    if (transactionIsolationChanged) {
+      delegate.setTransactionIsolation(defaultTransactionIsolation);
+      transactionIsolationChanged = false;
+    }
+    if (readOnlyChanged) {
+      delegate.setReadOnly(defaultReadOnly);
+      readOnlyChanged = false;
+    }
+  }
+
+  /**
+   * The handle of a single lease. It is open while the lease count of the connection is still the
+   * one it was created with; closing it advances the count, which closes it for good.
+   */
+  private final class Lease implements Connection {
+
+    private final long generation;
+
+    private Lease(long generation) {
+      this.generation = generation;
+    }
+
+    /**
+     * Returns the connection to the pool. Uncommitted work is rolled back and the changed settings
+     * are restored first; the connection is returned even if that fails, and the failure is thrown
+     * afterwards. Closing a handle already closed does nothing.
+     *
+     * @throws SQLException if the connection could not be reset
+     */
+    @Override
+    public void close() throws SQLException {
+      if (!leases.compareAndSet(generation, generation + 1)) {
+        return;
+      }
+      try {
+        reset();
+      } catch (SQLException | RuntimeException e) {
+        broken = true;
+        throw e;
+      } finally {
+        idleSinceNanos = System.nanoTime();
+        release.accept(PooledConnection.this);
+      }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+      return leases.get() != generation || delegate.isClosed();
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+      checkOpen();
+      delegate.setAutoCommit(autoCommit);
+      PooledConnection.this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+      checkOpen();
+      return autoCommit;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+      checkOpen();
+      delegate.setTransactionIsolation(level);
+      transactionIsolationChanged = level != defaultTransactionIsolation;
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+      checkOpen();
+      return delegate.getTransactionIsolation();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+      checkOpen();
+      delegate.setReadOnly(readOnly);
+      readOnlyChanged = readOnly != defaultReadOnly;
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+      checkOpen();
+      return delegate.isReadOnly();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+      checkOpen();
+      if (iface.isInstance(this)) {
+        return iface.cast(this);
+      }
+      return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+      checkOpen();
+      return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+      checkOpen();
+      return delegate.createStatement();
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+      checkOpen();
+      return delegate.prepareStatement(sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+      checkOpen();
+      return delegate.prepareCall(sql);
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+      checkOpen();
+      return delegate.nativeSQL(sql);
+    }
+
+    @Override
+    public void commit() throws SQLException {
+      checkOpen();
+      delegate.commit();
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+      checkOpen();
+      delegate.rollback();
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+      checkOpen();
+      return delegate.getMetaData();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+      checkOpen();
+      delegate.setCatalog(catalog);
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+      checkOpen();
+      return delegate.getCatalog();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+      checkOpen();
+      return delegate.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+      checkOpen();
+      delegate.clearWarnings();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency)
+        throws SQLException {
+      checkOpen();
+      return delegate.createStatement(resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType,
+        int resultSetConcurrency) throws SQLException {
+      checkOpen();
+      return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+        throws SQLException {
+      checkOpen();
+      return delegate.prepareCall(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+      checkOpen();
+      return delegate.getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+      checkOpen();
+      delegate.setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+      checkOpen();
+      delegate.setHoldability(holdability);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+      checkOpen();
+      return delegate.getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+      checkOpen();
+      return delegate.setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+      checkOpen();
+      return delegate.setSavepoint(name);
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+      checkOpen();
+      delegate.rollback(savepoint);
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+      checkOpen();
+      delegate.releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency,
+        int resultSetHoldability) throws SQLException {
+      checkOpen();
+      return delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType,
+        int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+      checkOpen();
+      return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency,
+          resultSetHoldability);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+        int resultSetHoldability) throws SQLException {
+      checkOpen();
+      return delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys)
+        throws SQLException {
+      checkOpen();
+      return delegate.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes)
+        throws SQLException {
+      checkOpen();
+      return delegate.prepareStatement(sql, columnIndexes);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames)
+        throws SQLException {
+      checkOpen();
+      return delegate.prepareStatement(sql, columnNames);
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+      checkOpen();
+      return delegate.createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+      checkOpen();
+      return delegate.createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+      checkOpen();
+      return delegate.createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+      checkOpen();
+      return delegate.createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+      checkOpen();
+      return delegate.isValid(timeout);
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+      delegate.setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+      delegate.setClientInfo(properties);
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+      checkOpen();
+      return delegate.getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+      checkOpen();
+      return delegate.getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+      checkOpen();
+      return delegate.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+      checkOpen();
+      return delegate.createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+      checkOpen();
+      delegate.setSchema(schema);
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+      checkOpen();
+      return delegate.getSchema();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+      checkOpen();
+      delegate.abort(executor);
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+      checkOpen();
+      delegate.setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+      checkOpen();
+      return delegate.getNetworkTimeout();
+    }
+
+    private void checkOpen() throws SQLException {
+      if (leases.get() != generation) {
+        throw new SQLException(CLOSED_MESSAGE);
+      }
+    }
+  }
+}
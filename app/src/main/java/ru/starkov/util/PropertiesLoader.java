@@ -0,0 +1,94 @@
+package ru.starkov.util;
+
+import java.io.IOException;
+import java.util.Properties;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The PropertiesLoader class is responsible for loading properties from the application.properties
+ * file. It provides a method to retrieve a property value by its key. A system property of the same
+ * key overrides the value of the file, so a property can be changed without rebuilding.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PropertiesLoader {
+
+  private static final Properties PROPERTIES = new Properties();
+
+  static {
+    loadProperties();
+  }
+
+  /**
+   * Retrieves the value of the property associated with the specified key.
+   *
+   * @param key the key of the property
+   * @return the value of the property, or null if the key is not found
+   */
+  public static String get(String key) {
+    return PROPERTIES.getProperty(key);
+  }
+
+  /**
+   * Retrieves the value of the property associated with the specified key as an integer.
+   *
+   * @param key          the key of the property
+   * @param defaultValue the value to return if the key is not found
+   * @return the value of the property, or the default value if the key is not found
+   */
+  public static int getInt(String key, int defaultValue) {
+    var value = PROPERTIES.getProperty(key);
+    return value == null ? defaultValue : Integer.parseInt(value.trim());
+  }
+
+  /**
+   * Retrieves the value of the property associated with the specified key as a long.
+   *
+   * @param key          the key of the property
+   * @param defaultValue the value to return if the key is not found
+   * @return the value of the property, or the default value if the key is not found
+   */
+  public static long getLong(String key, long defaultValue) {
+    var value = PROPERTIES.getProperty(key);
+    return value == null ? defaultValue : Long.parseLong(value.trim());
+  }
+
+  /**
+   * Retrieves the value of the property associated with the specified key as a double.
+   *
+   * @param key          the key of the property
+   * @param defaultValue the value to return if the key is not found
+   * @return the value of the property, or the default value if the key is not found
+   */
+  public static double getDouble(String key, double defaultValue) {
+    var value = PROPERTIES.getProperty(key);
+    return value == null ? defaultValue : Double.parseDouble(value.trim());
+  }
+
+  /**
+   * Retrieves the value of the property associated with the specified key as a boolean.
+   *
+   * @param key          the key of the property
+   * @param defaultValue the value to return if the key is not found
+   * @return the value of the property, or the default value if the key is not found
+   */
+  public static boolean getBoolean(String key, boolean defaultValue) {
+    var value = PROPERTIES.getProperty(key);
+    return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+  }
+
+  private static void loadProperties() {
+    try (var propertiesStream = PropertiesLoader.class.getClassLoader()
+        .getResourceAsStream("application.properties")) {
+      PROPERTIES.load(propertiesStream);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    for (String key : PROPERTIES.stringPropertyNames()) {
+      var override = System.getProperty(key);
+      if (override != null) {
+        PROPERTIES.setProperty(key, override);
+      }
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package ru.starkov.util;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The RequestParser class validates and parses request values by scanning their characters in
+ * place. It replaces regular expressions, string replacements and repeated {@link BigDecimal}
+ * construction on the request path, which is the first code every request runs.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RequestParser {
+
+  public static final int CURRENCY_CODE_LENGTH = 3;
+  public static final int CURRENCY_PAIR_LENGTH = 2 * CURRENCY_CODE_LENGTH;
+  private static final int MAX_LONG_DIGITS = 18;
+
+  /**
+   * Checks whether the value is a currency code, that is exactly three Latin letters.
+   *
+   * @param value the value to check, may be null
+   * @return true if the value is a currency code
+   */
+  public static boolean isCurrencyCode(String value) {
+    return value != null && value.length() == CURRENCY_CODE_LENGTH && isCurrencyCode(value, 0);
+  }
+
+  /**
+   * Checks whether the three characters at the offset are Latin letters.
+   *
+   * @param value  the value to check
+   * @param offset the index of the first character of the code
+   * @return true if the characters form a currency code
+   */
+  public static boolean isCurrencyCode(String value, int offset) {
+    if (offset < 0 || offset + CURRENCY_CODE_LENGTH > value.length()) {
+      return false;
+    }
+    for (int i = offset; i < offset + CURRENCY_CODE_LENGTH; i++) {
+      var c = value.charAt(i);
+      if ((c < 'A' || c > 'Z') && (c < 'a' || c > 'z')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses a comma-separated list of currency codes or currency pairs, such as
+   * {@code USD,EUR} or {@code USDEUR,EURRUB}. Every item must be made of whole currency codes.
+   * The items are upper-cased and repeated items are dropped, keeping the order of the first
+   * occurrence.
+   *
+   * @param value    the value to parse, may be null
+   * @param codes    the number of currency codes in every item, 1 for codes and 2 for pairs
+   * @param maxItems the maximum number of distinct items
+   * @return the items, or null if the value is empty, has an invalid item or too many items
+   */
+  public static List<String> parseCodeList(String value, int codes, int maxItems) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    var itemLength = codes * CURRENCY_CODE_LENGTH;
+    List<String> items = new ArrayList<>();
+    var start = 0;
+    while (start <= value.length()) {
+      var end = value.indexOf(',', start);
+      if (end == -1) {
+        end = value.length();
+      }
+      if (end - start != itemLength) {
+        return null;
+      }
+      for (int offset = start; offset < end; offset += CURRENCY_CODE_LENGTH) {
+        if (!isCurrencyCode(value, offset)) {
+          return null;
+        }
+      }
+      var item = value.substring(start, end).toUpperCase(Locale.ROOT);
+      if (!items.contains(item)) {
+        if (items.size() == maxItems) {
+          return null;
+        }
+        items.add(item);
+      }
+      start = end + 1;
+    }
+    return items;
+  }
+
+  /**
+   * Returns the index where the last path segment of the URI starts.
+   *
+   * @param uri the request URI
+   * @return the index of the first character after the last slash, or -1 if the last segment is
+   *     missing or empty
+   */
+  public static int lastSegmentStart(String uri) {
+    var lastSlashIndex = uri.lastIndexOf('/');
+    return lastSlashIndex != -1 && lastSlashIndex + 1 < uri.length() ? lastSlashIndex + 1 : -1;
+  }
+
+  /**
+   * Parses a non-negative whole number made of digits only.
+   *
+   * @param value the value to parse, may be null
+   * @return the parsed number, or -1 if the value is not a non-negative number that fits in a long
+   */
+  public static long parseNonNegativeLong(String value) {
+    if (value == null || value.isEmpty() || value.length() > MAX_LONG_DIGITS) {
+      return -1;
+    }
+    var result = 0L;
+    for (int i = 0; i < value.length(); i++) {
+      var c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      result = result * 10 + (c - '0');
+    }
+    return result;
+  }
+
+  /**
+   * Parses a positive decimal number made of digits with at most one decimal separator, which may
+   * be a dot or a comma. The result has the same scale as {@code new BigDecimal} would give for
+   * the same digits.
+   *
+   * @param value the value to parse, may be null
+   * @return the parsed number, or null if the value is not a number greater than zero
+   */
+  public static BigDecimal parsePositiveDecimal(String value) {
+    if (value == null) {
+      return null;
+    }
+    var length = value.length();
+    var separatorIndex = -1;
+    var digits = 0;
+    var significantDigits = 0;
+    var unscaled = 0L;
+    for (int i = 0; i < length; i++) {
+      var c = value.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits++;
+        if (significantDigits > 0 || c != '0') {
+          significantDigits++;
+        }
+        if (significantDigits <= MAX_LONG_DIGITS) {
+          unscaled = unscaled * 10 + (c - '0');
+        }
+      } else if ((c == '.' || c == ',') && separatorIndex == -1) {
+        separatorIndex = i;
+      } else {
+        return null;
+      }
+    }
+    if (digits == 0 || significantDigits == 0) {
+      return null;
+    }
+    var scale = separatorIndex == -1 ? 0 : length - separatorIndex - 1;
+    if (significantDigits <= MAX_LONG_DIGITS) {
+      return BigDecimal.valueOf(unscaled, scale);
+    }
+    return parseLongDecimal(value, separatorIndex);
+  }
+
+  private static BigDecimal parseLongDecimal(String value, int separatorIndex) {
+    var chars = value.toCharArray();
+    if (separatorIndex != -1) {
+      chars[separatorIndex] = '.';
+    }
+    return new BigDecimal(chars);
+  }
+}
@@ -0,0 +1,44 @@
+package ru.starkov.util;
+
+import java.util.Map;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The ValidationUtils class provides utility methods for validating data. It includes methods to
+ * check if a map is null or empty, if a string is null or blank, and if a client form has exactly
+ * the expected parameters.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ValidationUtils {
+
+  public static <K, V> boolean isNullOrEmpty(Map<K, V> map) {
+    return map == null || map.isEmpty();
+  }
+
+  public static boolean isNullOrBlank(String value) {
+    return value == null || value.isBlank();
+  }
+
+  /**
+   * Checks that the client form has exactly the parameters of the server-side form, without
+   * copying the key set of the client form.
+   *
+   * @param clientSideForm the parameters sent by the client
+   * @param serverSideForm the names of the expected parameters
+   * @return true if both forms have the same parameter names
+   */
+  public static boolean isClientFormMatchesServerSideForm(Map<String, String[]> clientSideForm,
+      Set<String> serverSideForm) {
+    if (clientSideForm.size() != serverSideForm.size()) {
+      return false;
+    }
+    for (String parameter : serverSideForm) {
+      if (!clientSideForm.containsKey(parameter)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,341 @@
+package ru.starkov.benchmark;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.fixture.InMemoryCurrencyDao;
+import ru.starkov.fixture.InMemoryExchangeRateDao;
+import ru.starkov.metrics.RequestTiming;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+import ru.starkov.servlet.CurrenciesServlet;
+import ru.starkov.servlet.ExchangeRateServlet;
+import ru.starkov.servlet.ExchangeRatesServlet;
+import ru.starkov.servlet.ExchangeServlet;
+import ru.starkov.servlet.filter.currency.CurrenciesValidationFilter;
+import ru.starkov.servlet.filter.exchange.ExchangeValidationFilter;
+import ru.starkov.servlet.filter.exchangerate.ExchangeRateValidationFilter;
+import ru.starkov.servlet.filter.exchangerate.ExchangeRatesValidationFilter;
+import ru.starkov.servlet.listener.ContextListener;
+import ru.starkov.util.Constants;
+
+/**
+ * Fails the build when a request to a hot endpoint allocates more than its budget. The beans are
+ * created by the {@link ContextListener} over in-memory DAOs with the cache loaded, and each
+ * endpoint is driven in-process through its validation filter and servlet with mock requests. The
+ * request executor is replaced with one running the handler on the calling thread, so the whole
+ * request runs on one platform thread and the bytes it allocates are read from the allocation
+ * counter of that thread.
+ *
+ * <p>Each endpoint is warmed up until the JIT compiler has settled, then measured over several
+ * rounds, and the lowest bytes per request of a round is compared with the budget of
+ * {@code allocation-budget.properties}. The lowest round is the steady state; the others include
+ * late compilations and are noise. A budget of 0 only reports the endpoint. The check runs in the
+ * {@code test} phase of this module in a JVM of its own and is skipped with {@code -DskipTests}.
+ * Run from the benchmark jar, any key of the budget file can be overridden with a system property
+ * of the same name:
+ *
+ * <pre>
+ * java -Dallocation.budget.exchange.direct=0 -cp benchmarks/target/benchmarks.jar \
+ *     ru.starkov.benchmark.AllocationBudgetCheck
+ * </pre>
+ *
+ * <p>A budget should be lowered whenever a change makes a path cheaper, so the saving cannot be
+ * lost silently, and raised only with a reason in the commit.
+ */
+public final class AllocationBudgetCheck {
+
+  private static final String FILE = "allocation-budget.properties";
+  private static final String PREFIX = "allocation.";
+  private static final String BUDGET_PREFIX = PREFIX + "budget.";
+  private static final int EXIT_BUDGET_EXCEEDED = 1;
+
+  private final Properties properties;
+  private final List<Endpoint> endpoints = new ArrayList<>();
+
+  private AllocationBudgetCheck(Properties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * An endpoint driven with the same request over and over.
+   *
+   * @param name     the name of the budget of the endpoint
+   * @param filter   the validation filter of the servlet
+   * @param chain    the rest of the chain, the servlet
+   * @param request  the request to send
+   * @param response the response to write to
+   */
+  private record Endpoint(String name, Filter filter, FilterChain chain,
+                          MockHttpServletRequest request, MockHttpServletResponse response) {
+
+    void send() throws ServletException, IOException {
+      filter.doFilter(request, response, chain);
+    }
+  }
+
+  /**
+   * An executor running every task on the calling thread, in place of the virtual threads of the
+   * application, whose allocation the counters of the thread do not report.
+   */
+  private static final class CallerRunsExecutorService extends AbstractExecutorService {
+
+    private volatile boolean shutdown;
+
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown = true;
+      return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return shutdown;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    var properties = loadProperties();
+    // The cache is loaded below; the warm-up would race with the measurement
+    if (System.getProperty("warmup.enabled") == null) {
+      System.setProperty("warmup.enabled", "false");
+    }
+    var currencyDao = new InMemoryCurrencyDao();
+    var exchangeRateDao = new InMemoryExchangeRateDao();
+    populate(currencyDao, exchangeRateDao);
+
+    var servletContext = MockServletContext.create();
+    servletContext.setAttribute(CurrencyDao.class.getName(), currencyDao);
+    servletContext.setAttribute(ExchangeRateDao.class.getName(), exchangeRateDao);
+    var listener = new ContextListener();
+    var event = new ServletContextEvent(servletContext);
+    listener.contextInitialized(event);
+    boolean passed;
+    try {
+      ((ExecutorService) servletContext.getAttribute(ExecutorService.class.getName())).shutdown();
+      servletContext.setAttribute(ExecutorService.class.getName(),
+          new CallerRunsExecutorService());
+      ((ExchangeRateCache) servletContext.getAttribute(ExchangeRateCache.class.getName()))
+          .refresh(currencyDao, exchangeRateDao);
+
+      var check = new AllocationBudgetCheck(properties);
+      check.addEndpoints(servletContext);
+      passed = check.run(System.out);
+    } finally {
+      listener.contextDestroyed(event);
+    }
+    if (!passed) {
+      System.exit(EXIT_BUDGET_EXCEEDED);
+    }
+  }
+
+  private void addEndpoints(ServletContext servletContext) throws ServletException {
+    add("exchange.direct", new ExchangeValidationFilter(),
+        init(new ExchangeServlet(), servletContext),
+        MockHttpServletRequest.get(Constants.EXCHANGE_PATH, conversion("USD", "EUR")));
+    add("exchange.cross", new ExchangeValidationFilter(),
+        init(new ExchangeServlet(), servletContext),
+        MockHttpServletRequest.get(Constants.EXCHANGE_PATH, conversion("EUR", "GBP")));
+    add("exchangeRate", new ExchangeRateValidationFilter(),
+        init(new ExchangeRateServlet(), servletContext),
+        MockHttpServletRequest.get(
+            Constants.WEB_APP_PATH + Constants.EXCHANGE_RATE_PATH + "/USDEUR", Map.of()));
+    add("exchangeRates", new ExchangeRatesValidationFilter(),
+        init(new ExchangeRatesServlet(), servletContext),
+        MockHttpServletRequest.get(Constants.EXCHANGE_RATES_PATH, Map.of()));
+    add("currencies", new CurrenciesValidationFilter(),
+        init(new CurrenciesServlet(), servletContext),
+        MockHttpServletRequest.get(Constants.CURRENCIES_PATH, Map.of()));
+  }
+
+  private void add(String name, Filter filter, HttpServlet servlet,
+      MockHttpServletRequest request) {
+    endpoints.add(new Endpoint(name, filter, servlet::service, request,
+        new MockHttpServletResponse()));
+  }
+
+  /**
+   * Measures every endpoint, prints the results and checks them against the budgets.
+   *
+   * @return whether every endpoint stayed within its budget
+   */
+  private boolean run(PrintStream out) throws ServletException, IOException {
+    var warmupRequests = getInt("warmup.requests");
+    var measuredRequests = getInt("measured.requests");
+    var rounds = getInt("rounds");
+    var passed = true;
+    out.printf("%-16s %14s %14s%n", "endpoint", "bytes/request", "budget");
+    for (Endpoint endpoint : endpoints) {
+      sendAll(endpoint, warmupRequests);
+      var bytesPerRequest = Long.MAX_VALUE;
+      for (int round = 0; round < rounds; round++) {
+        bytesPerRequest = Math.min(bytesPerRequest, measure(endpoint, measuredRequests));
+      }
+      var budget = getLong(BUDGET_PREFIX + endpoint.name());
+      var exceeded = budget > 0 && bytesPerRequest > budget;
+      passed &= !exceeded;
+      out.printf("%-16s %14d %14s%s%n", endpoint.name(), bytesPerRequest,
+          budget > 0 ? String.valueOf(budget) : "-", exceeded ? "  EXCEEDED" : "");
+    }
+    out.println(passed ? "PASSED: every endpoint is within its allocation budget"
+        : "FAILED: an endpoint allocates more than its budget");
+    return passed;
+  }
+
+  /**
+   * Returns the bytes the calling thread allocates per request, on average over the requests.
+   */
+  private static long measure(Endpoint endpoint, int requests)
+      throws ServletException, IOException {
+    var start = RequestTiming.allocatedBytes();
+    if (start < 0) {
+      throw new IllegalStateException("The JVM does not report the allocation of threads");
+    }
+    sendAll(endpoint, requests);
+    return (RequestTiming.allocatedBytes() - start) / requests;
+  }
+
+  /**
+   * Sends the request of the endpoint and checks that every one of them was answered with 200, so
+   * that an error path is not measured in place of the endpoint.
+   */
+  private static void sendAll(Endpoint endpoint, int requests)
+      throws ServletException, IOException {
+    var completions = endpoint.request().getMockAsyncContext().getCompletions();
+    for (int i = 0; i < requests; i++) {
+      endpoint.send();
+    }
+    var completed = endpoint.request().getMockAsyncContext().getCompletions() - completions;
+    if (endpoint.response().getStatus() != HttpServletResponse.SC_OK || completed != requests) {
+      throw new IllegalStateException("The " + endpoint.name() + " endpoint answered with "
+          + endpoint.response().getStatus() + " after " + completed + " of " + requests
+          + " completed requests");
+    }
+  }
+
+  private static HttpServlet init(HttpServlet servlet, ServletContext servletContext)
+      throws ServletException {
+    servlet.init(new ServletConfig() {
+      @Override
+      public String getServletName() {
+        return servlet.getClass().getSimpleName();
+      }
+
+      @Override
+      public ServletContext getServletContext() {
+        return servletContext;
+      }
+
+      @Override
+      public String getInitParameter(String name) {
+        return null;
+      }
+
+      @Override
+      public Enumeration<String> getInitParameterNames() {
+        return Collections.emptyEnumeration();
+      }
+    });
+    return servlet;
+  }
+
+  private static Map<String, String[]> conversion(String from, String to) {
+    return Map.of(
+        Constants.FROM_CURRENCY_CODE, new String[] {from},
+        Constants.TO_CURRENCY_CODE, new String[] {to},
+        Constants.AMOUNT, new String[] {"1000,50"});
+  }
+
+  /**
+   * Saves a few currencies quoted against the US dollar, so a conversion between two other
+   * currencies is resolved across it.
+   */
+  private static void populate(CurrencyDao currencyDao, ExchangeRateDao exchangeRateDao) {
+    var usd = currencyDao.save(currency("USD", "US Dollar", "$"));
+    String[][] quoted = {
+        {"EUR", "Euro", "€", "0.925431"},
+        {"GBP", "Pound Sterling", "£", "0.791102"},
+        {"JPY", "Yen", "¥", "149.372"},
+        {"CHF", "Swiss Franc", "Fr", "0.884516"},
+    };
+    for (String[] values : quoted) {
+      var target = currencyDao.save(currency(values[0], values[1], values[2]));
+      exchangeRateDao.save(ExchangeRate.builder()
+          .baseCurrency(usd)
+          .targetCurrency(target)
+          .rate(new BigDecimal(values[3]))
+          .build());
+    }
+  }
+
+  private static Currency currency(String code, String fullName, String sign) {
+    return Currency.builder().code(code).fullName(fullName).sign(sign).build();
+  }
+
+  private static Properties loadProperties() {
+    var properties = new Properties();
+    try (var stream = AllocationBudgetCheck.class.getClassLoader().getResourceAsStream(FILE)) {
+      properties.load(stream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read " + FILE, e);
+    }
+    for (String key : System.getProperties().stringPropertyNames()) {
+      if (key.startsWith(PREFIX)) {
+        properties.setProperty(key, System.getProperty(key));
+      }
+    }
+    return properties;
+  }
+
+  private int getInt(String key) {
+    return Math.toIntExact(getLong(PREFIX + key));
+  }
+
+  private long getLong(String key) {
+    var value = properties.getProperty(key);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing property " + key);
+    }
+    return Long.parseLong(value.trim());
+  }
+}
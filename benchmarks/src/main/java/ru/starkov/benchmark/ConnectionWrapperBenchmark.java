@@ -0,0 +1,125 @@
+package ru.starkov.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.starkov.util.PooledConnection;
+
+/**
+ * Measures what the pooled connection wrapper adds to each JDBC call, comparing the reflective
+ * proxy the pool used to hand out with {@link PooledConnection}. Both wrap a
+ * {@link NoOpConnection}, so the scores are the wrapper overhead alone. The {@code transaction}
+ * benchmarks borrow a connection from a queue, commit a transaction the way the services do and
+ * close the connection, which resets it and returns it to the queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionWrapperBenchmark {
+
+  private static final String SQL =
+      "SELECT id, code, full_name, sign FROM currencies WHERE code = ?";
+
+  private final Queue<Connection> proxyPool = new ArrayDeque<>(1);
+  private final Queue<PooledConnection> wrapperPool = new ArrayDeque<>(1);
+  private Connection proxy;
+  private Connection wrapper;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ConnectionWrapperBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+
+  @Setup
+  public void setUp() throws SQLException {
+    proxy = proxy(new NoOpConnection(), proxyPool);
+    wrapper = new PooledConnection(new NoOpConnection(), wrapperPool::add).lease();
+    proxyPool.add(proxy(new NoOpConnection(), proxyPool));
+    wrapperPool.add(new PooledConnection(new NoOpConnection(), wrapperPool::add));
+  }
+
+  @Benchmark
+  public PreparedStatement proxyPrepareStatement() throws SQLException {
+    return proxy.prepareStatement(SQL);
+  }
+
+  @Benchmark
+  public PreparedStatement wrapperPrepareStatement() throws SQLException {
+    return wrapper.prepareStatement(SQL);
+  }
+
+  @Benchmark
+  public boolean proxyGetAutoCommit() throws SQLException {
+    return proxy.getAutoCommit();
+  }
+
+  @Benchmark
+  public boolean wrapperGetAutoCommit() throws SQLException {
+    return wrapper.getAutoCommit();
+  }
+
+  @Benchmark
+  public PreparedStatement proxyTransaction() throws SQLException {
+    try (var connection = proxyPool.poll()) {
+      connection.setAutoCommit(false);
+      connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      var statement = connection.prepareStatement(SQL);
+      connection.commit();
+      return statement;
+    }
+  }
+
+  @Benchmark
+  public PreparedStatement wrapperTransaction() throws SQLException {
+    try (var connection = wrapperPool.poll().lease()) {
+      connection.setAutoCommit(false);
+      connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      var statement = connection.prepareStatement(SQL);
+      connection.commit();
+      return statement;
+    }
+  }
+
+  /**
+   * Creates the proxy the pool handed out before {@link PooledConnection}: every call is matched
+   * by name and invoked reflectively, and close enables auto-commit and returns the proxy.
+   */
+  private static Connection proxy(Connection connection, Queue<Connection> pool) {
+    return (Connection) Proxy.newProxyInstance(
+        ConnectionWrapperBenchmark.class.getClassLoader(),
+        new Class[]{Connection.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("close")) {
+            Connection returnedProxyConnection = (Connection) proxy;
+            returnedProxyConnection.setAutoCommit(true);
+            pool.add(returnedProxyConnection);
+            return null;
+          } else {
+            return method.invoke(connection, args);
+          }
+        });
+  }
+}
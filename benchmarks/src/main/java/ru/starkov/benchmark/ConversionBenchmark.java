@@ -0,0 +1,148 @@
+package ru.starkov.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dto.ConversionResult;
+import ru.starkov.dto.mapper.CurrencyMapper;
+import ru.starkov.fixture.InMemoryCurrencyDao;
+import ru.starkov.fixture.InMemoryExchangeRateDao;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+import ru.starkov.service.ExchangeService;
+
+/**
+ * Measures {@link ExchangeService#convert} on each of its resolution paths over currency graphs of
+ * growing size. The data access objects are in-memory stubs, so the benchmark measures the
+ * resolution itself: with {@code source=dao} the cache is left empty and every lookup goes to the
+ * stubs, as on a cache miss; with {@code source=cache} the cache is loaded from the stubs first,
+ * as in steady state.
+ *
+ * <p>The graph has a hub currency quoted against half of the others and a pivot currency that the
+ * other half is quoted against, and the hub is quoted against the pivot too. The cross paths scan
+ * the quotes of the hub or of the pivot, so their cost grows with the graph.
+ * <ul>
+ *   <li>{@code DIRECT}: from the hub to one of its quoted currencies</li>
+ *   <li>{@code INVERSE}: the other way round</li>
+ *   <li>{@code CROSS_VIA_TARGET}: from the hub to a currency quoted against the pivot, through
+ *   their common target, the pivot</li>
+ *   <li>{@code CROSS_VIA_BASE}: from the pivot to a currency quoted by the hub, through their
+ *   common base, the hub</li>
+ * </ul>
+ * Run with {@code -prof gc}, or through {@link #main}, which adds the profiler, to see the
+ * allocation rate next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+  private static final BigDecimal AMOUNT = new BigDecimal("1000.50");
+  private static final int HUB = 0;
+  private static final int PIVOT = 1;
+  private static final int ALPHABET = 26;
+
+  @Param({"10", "100", "1000"})
+  private int currencyCount;
+
+  @Param({"DIRECT", "INVERSE", "CROSS_VIA_TARGET", "CROSS_VIA_BASE"})
+  private String path;
+
+  @Param({"dao", "cache"})
+  private String source;
+
+  private ExchangeService exchangeService;
+  private String fromCurrencyCode;
+  private String toCurrencyCode;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ConversionBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+
+  @Setup
+  public void setUp() {
+    var currencyDao = new InMemoryCurrencyDao();
+    var exchangeRateDao = new InMemoryExchangeRateDao();
+    var currencies = new Currency[currencyCount];
+    for (int i = 0; i < currencyCount; i++) {
+      currencies[i] = currencyDao.save(Currency.builder()
+          .code(code(i))
+          .fullName("Currency " + i)
+          .sign("¤")
+          .build());
+    }
+    saveRate(exchangeRateDao, currencies[HUB], currencies[PIVOT], "0.5");
+    for (int i = 2; i < currencyCount; i++) {
+      if (i % 2 == 0) {
+        saveRate(exchangeRateDao, currencies[HUB], currencies[i], "1." + i);
+      } else {
+        saveRate(exchangeRateDao, currencies[i], currencies[PIVOT], "0." + i);
+      }
+    }
+    var lastQuoted = (currencyCount - 1) / 2 * 2;
+    switch (path) {
+      case "DIRECT" -> route(currencies[HUB], currencies[lastQuoted]);
+      case "INVERSE" -> route(currencies[lastQuoted], currencies[HUB]);
+      case "CROSS_VIA_TARGET" -> route(currencies[HUB], currencies[3]);
+      case "CROSS_VIA_BASE" -> route(currencies[PIVOT], currencies[2]);
+      default -> throw new IllegalArgumentException("Unknown path: " + path);
+    }
+    var exchangeRateCache = new ExchangeRateCache(Long.MAX_VALUE);
+    if ("cache".equals(source)) {
+      exchangeRateCache.refresh(currencyDao, exchangeRateDao);
+    }
+    exchangeService = new ExchangeService(exchangeRateDao, currencyDao, CurrencyMapper.INSTANCE,
+        exchangeRateCache);
+    exchangeService.convert(fromCurrencyCode, toCurrencyCode, AMOUNT);
+  }
+
+  @Benchmark
+  public ConversionResult convert() {
+    return exchangeService.convert(fromCurrencyCode, toCurrencyCode, AMOUNT);
+  }
+
+  private void route(Currency from, Currency to) {
+    fromCurrencyCode = from.getCode();
+    toCurrencyCode = to.getCode();
+  }
+
+  private static void saveRate(InMemoryExchangeRateDao exchangeRateDao, Currency base,
+      Currency target, String rate) {
+    exchangeRateDao.save(ExchangeRate.builder()
+        .baseCurrency(base)
+        .targetCurrency(target)
+        .rate(new BigDecimal(rate))
+        .build());
+  }
+
+  /**
+   * Returns a distinct three-letter code for every index below 26 cubed.
+   */
+  private static String code(int index) {
+    return new String(new char[] {
+        (char) ('A' + index / (ALPHABET * ALPHABET)),
+        (char) ('A' + index / ALPHABET % ALPHABET),
+        (char) ('A' + index % ALPHABET)});
+  }
+}
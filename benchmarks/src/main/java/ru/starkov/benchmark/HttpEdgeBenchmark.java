@@ -0,0 +1,200 @@
+package ru.starkov.benchmark;
+
+import com.google.gson.Gson;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.starkov.dto.ConversionRequest;
+import ru.starkov.dto.ConversionResult;
+import ru.starkov.dto.CurrencyRequestDto;
+import ru.starkov.dto.ExchangeRateDto;
+import ru.starkov.dto.ExchangeRateInfo;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.json.JsonWriters;
+import ru.starkov.dto.mapper.CurrencyMapper;
+import ru.starkov.dto.mapper.ExchangeRateMapper;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+import ru.starkov.servlet.filter.exchange.ExchangeValidationFilter;
+import ru.starkov.servlet.filter.exchangerate.ExchangeRateValidationFilter;
+import ru.starkov.util.Constants;
+
+/**
+ * Measures the work a request costs at the HTTP edge, outside the database: the validation
+ * filters driven with mock requests, the MapStruct mappers and {@code Gson.toJson}. The
+ * {@code exchangeRequest} and {@code exchangeRatesRequest} benchmarks chain the steps of a
+ * conversion and of an exchange rate list the way the servlets do, with the response written
+ * through {@link JsonWriters}. Run with {@code -prof gc} for the allocation per request, the
+ * baseline any change to validation, mapping or serialization has to beat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpEdgeBenchmark {
+
+  private static final FilterChain END_OF_CHAIN = (request, response) -> {
+  };
+
+  private final Gson gson = new Gson();
+  private final JsonSerializer jsonSerializer = new JsonSerializer();
+  private final OutputStream sink = OutputStream.nullOutputStream();
+  private final ExchangeValidationFilter exchangeValidationFilter = new ExchangeValidationFilter();
+  private final ExchangeRateValidationFilter exchangeRateValidationFilter =
+      new ExchangeRateValidationFilter();
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+  private MockHttpServletRequest exchangeRequest;
+  private MockHttpServletRequest exchangeRateGetRequest;
+  private MockHttpServletRequest exchangeRatePatchRequest;
+  private Currency usd;
+  private Currency eur;
+  private BigDecimal rate;
+
+  /**
+   * The exchange rates of a list response, in the sizes of a single pair, a page and a full
+   * table.
+   */
+  @State(Scope.Benchmark)
+  public static class ExchangeRates {
+
+    @Param({"1", "10", "100"})
+    private int exchangeRateCount;
+
+    private List<ExchangeRate> models;
+    private List<ExchangeRateDto> dtos;
+
+    @Setup
+    public void setUp() {
+      models = new ArrayList<>(exchangeRateCount);
+      for (int i = 0; i < exchangeRateCount; i++) {
+        models.add(ExchangeRate.builder()
+            .id(i + 1)
+            .baseCurrency(currency(i, "USD", "US Dollar", "$"))
+            .targetCurrency(currency(i + exchangeRateCount, "EUR", "Euro", "€"))
+            .rate(new BigDecimal("0.9" + i))
+            .build());
+      }
+      dtos = ExchangeRateMapper.INSTANCE.collectionToListDto(models);
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    exchangeRequest = MockHttpServletRequest.get(Constants.EXCHANGE_PATH, Map.of(
+        Constants.FROM_CURRENCY_CODE, new String[] {"USD"},
+        Constants.TO_CURRENCY_CODE, new String[] {"EUR"},
+        Constants.AMOUNT, new String[] {"1000,50"}));
+    exchangeRateGetRequest = MockHttpServletRequest.get(
+        Constants.WEB_APP_PATH + Constants.EXCHANGE_RATE_PATH + "/USDEUR", Map.of());
+    exchangeRatePatchRequest = new MockHttpServletRequest("PATCH",
+        Constants.WEB_APP_PATH + Constants.EXCHANGE_RATE_PATH + "/USDEUR", Map.of(),
+        "application/x-www-form-urlencoded", "rate=0.93".getBytes(StandardCharsets.UTF_8));
+    usd = currency(1, "USD", "US Dollar", "$");
+    eur = currency(2, "EUR", "Euro", "€");
+    rate = new BigDecimal("0.925431");
+  }
+
+  @Benchmark
+  public Object exchangeValidation() throws ServletException, IOException {
+    exchangeValidationFilter.doFilter(exchangeRequest, response, END_OF_CHAIN);
+    return exchangeRequest.getAttribute(Constants.PARSED_REQUEST);
+  }
+
+  @Benchmark
+  public Object exchangeRateGetValidation() throws ServletException, IOException {
+    exchangeRateValidationFilter.doFilter(exchangeRateGetRequest, response, END_OF_CHAIN);
+    return exchangeRateGetRequest.getAttribute(Constants.PARSED_REQUEST);
+  }
+
+  @Benchmark
+  public Object exchangeRatePatchValidation() throws ServletException, IOException {
+    exchangeRateValidationFilter.doFilter(exchangeRatePatchRequest, response, END_OF_CHAIN);
+    return exchangeRatePatchRequest.getAttribute(Constants.PARSED_REQUEST);
+  }
+
+  @Benchmark
+  public CurrencyRequestDto currencyToDto() {
+    return CurrencyMapper.INSTANCE.toDto(usd);
+  }
+
+  @Benchmark
+  public List<ExchangeRateDto> exchangeRatesToListDto(ExchangeRates exchangeRates) {
+    return ExchangeRateMapper.INSTANCE.collectionToListDto(exchangeRates.models);
+  }
+
+  @Benchmark
+  public String gsonConversionResult() {
+    return gson.toJson(conversionResult(new ConversionRequest("USD", "EUR",
+        new BigDecimal("1000.50"))));
+  }
+
+  @Benchmark
+  public String gsonExchangeRates(ExchangeRates exchangeRates) {
+    return gson.toJson(exchangeRates.dtos);
+  }
+
+  @Benchmark
+  public void exchangeRequest() throws ServletException, IOException {
+    exchangeValidationFilter.doFilter(exchangeRequest, response, END_OF_CHAIN);
+    var conversionRequest = (ConversionRequest) exchangeRequest.getAttribute(
+        Constants.PARSED_REQUEST);
+    jsonSerializer.write(conversionResult(conversionRequest), JsonWriters.CONVERSION_RESULT,
+        sink);
+  }
+
+  @Benchmark
+  public void exchangeRatesRequest(ExchangeRates exchangeRates) throws IOException {
+    jsonSerializer.write(ExchangeRateMapper.INSTANCE.collectionToListDto(exchangeRates.models),
+        JsonWriters.EXCHANGE_RATES, sink);
+  }
+
+  @Benchmark
+  public ExchangeRateInfo exchangeRateRequest() throws ServletException, IOException {
+    exchangeRateValidationFilter.doFilter(exchangeRateGetRequest, response, END_OF_CHAIN);
+    var info = (ExchangeRateInfo) exchangeRateGetRequest.getAttribute(Constants.PARSED_REQUEST);
+    jsonSerializer.write(ExchangeRateMapper.INSTANCE.toDto(ExchangeRate.builder()
+        .baseCurrency(usd)
+        .targetCurrency(eur)
+        .rate(rate)
+        .build()), JsonWriters.EXCHANGE_RATE, sink);
+    return info;
+  }
+
+  /**
+   * Builds the result the way {@code ExchangeService} does once the rate is known.
+   */
+  private ConversionResult conversionResult(ConversionRequest request) {
+    var currencyMapper = CurrencyMapper.INSTANCE;
+    return new ConversionResult(
+        currencyMapper.toDto(usd),
+        currencyMapper.toDto(eur),
+        rate.setScale(6, RoundingMode.HALF_UP).toPlainString(),
+        request.amount().setScale(2, RoundingMode.HALF_UP).toPlainString(),
+        rate.multiply(request.amount()).setScale(2, RoundingMode.HALF_UP).toPlainString());
+  }
+
+  private static Currency currency(int id, String code, String fullName, String sign) {
+    return Currency.builder().id(id).code(code).fullName(fullName).sign(sign).build();
+  }
+}
@@ -0,0 +1,148 @@
+package ru.starkov.benchmark;
+
+import com.google.gson.Gson;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import ru.starkov.dto.ConversionResult;
+import ru.starkov.dto.CurrencyRequestDto;
+import ru.starkov.dto.ExchangeRateDto;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.json.JsonWriter;
+import ru.starkov.dto.json.JsonWriters;
+
+/**
+ * Fails the build when a hand-written writer of {@link JsonWriters} produces other bytes than the
+ * default {@code Gson} instance it replaced, whose output was the UTF-8 encoding of
+ * {@code Gson.toJson}. Every value is written with a serializer of the default buffer size and
+ * with one of the smallest buffer, so the flushes in the middle of a string or a number are
+ * covered too.
+ *
+ * <p>The values cover the escaping of quotes, backslashes, control characters and the HTML-safe
+ * characters, the line and paragraph separators, characters of two, three and four UTF-8 bytes,
+ * unpaired surrogates, which the encoder of a servlet writer replaces with {@code ?}, null fields
+ * and null list elements, and the {@link BigDecimal} forms with and without an exponent at the
+ * edges of the fast path. The check runs in the {@code test} phase of this module and is skipped
+ * with {@code -DskipTests}.
+ */
+public final class JsonParityCheck {
+
+  private static final int SMALL_BUFFER_SIZE = 64;
+  private static final int EXIT_MISMATCH = 1;
+
+  private final Gson gson = new Gson();
+  private final List<JsonSerializer> serializers = List.of(new JsonSerializer(),
+      new JsonSerializer(SMALL_BUFFER_SIZE, 1));
+  private final List<String> mismatches = new ArrayList<>();
+  private int checked;
+
+  private JsonParityCheck() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    var check = new JsonParityCheck();
+    check.checkStrings();
+    check.checkNulls();
+    check.checkNumbers();
+    check.checkLists();
+    System.out.println(check.checked + " values compared with Gson");
+    if (!check.mismatches.isEmpty()) {
+      check.mismatches.forEach(System.out::println);
+      System.out.println("FAILED: " + check.mismatches.size() + " mismatches");
+      System.exit(EXIT_MISMATCH);
+    }
+    System.out.println("PASSED: every writer matches Gson byte for byte");
+  }
+
+  private void checkStrings() throws IOException {
+    var strings = new ArrayList<>(List.of("", "USD", "US Dollar", "quote \" backslash \\ slash /",
+        "\t\b\n\r\f", "html <script>&amp;='x'</script>", "\u007f\u0080\u00ff",
+        "Euro \u20ac ruble \u20bd yen \u00a5", "line \u2028 paragraph \u2029",
+        "\ud83d\udcb0 \ud83d\udcb5", "high \ud83d alone", "low \udcb0 alone", "ends high \ud83d",
+        "\udcb0\ud83d reversed", "\ufffd\uffff\ufeff"));
+    var controls = new StringBuilder();
+    for (char c = 0; c < 0x20; c++) {
+      controls.append(c);
+    }
+    strings.add(controls.toString());
+    // Long enough to cross the small buffer in the middle of multi-byte characters
+    strings.add("\u20ac\ud83d\udcb0<".repeat(40));
+    for (String string : strings) {
+      var currency = new CurrencyRequestDto(string, string, string);
+      compare(currency, JsonWriters.CURRENCY, currency);
+      compare(string, JsonWriters.STATUS, Map.of("status", string));
+    }
+  }
+
+  private void checkNulls() throws IOException {
+    var usd = new CurrencyRequestDto("USD", "US Dollar", "$");
+    var nameless = new CurrencyRequestDto("XXX", null, null);
+    var empty = new CurrencyRequestDto(null, null, null);
+    compare(nameless, JsonWriters.CURRENCY, nameless);
+    compare(empty, JsonWriters.CURRENCY, empty);
+    var noTarget = new ExchangeRateDto(usd, null, BigDecimal.ONE);
+    compare(noTarget, JsonWriters.EXCHANGE_RATE, noTarget);
+    var noRate = new ExchangeRateDto(empty, nameless, null);
+    compare(noRate, JsonWriters.EXCHANGE_RATE, noRate);
+    var partial = new ConversionResult(usd, null, "0.92", null, "9.20");
+    compare(partial, JsonWriters.CONVERSION_RESULT, partial);
+    var none = new ConversionResult(null, null, null, null, null);
+    compare(none, JsonWriters.CONVERSION_RESULT, none);
+  }
+
+  private void checkNumbers() throws IOException {
+    var usd = new CurrencyRequestDto("USD", "US Dollar", "$");
+    var eur = new CurrencyRequestDto("EUR", "Euro", "\u20ac");
+    List<BigDecimal> numbers = new ArrayList<>(Arrays.asList(BigDecimal.ZERO, BigDecimal.ONE,
+        BigDecimal.TEN, new BigDecimal("0.00"), new BigDecimal("-0.5"), new BigDecimal("0.92"),
+        new BigDecimal("1E+3"), new BigDecimal("-1E+3"), new BigDecimal("1.0E+2"),
+        new BigDecimal("0.000001"), new BigDecimal("0.0000001"), new BigDecimal("-0.0000001"),
+        new BigDecimal("1E-7"), new BigDecimal("0.0000012345"), new BigDecimal("123456.000000"),
+        new BigDecimal("123456789012345678"), new BigDecimal("-123456789012345678"),
+        new BigDecimal("1234567890123456789"), new BigDecimal("0.123456789012345678"),
+        new BigDecimal("0.1234567890123456789"), BigDecimal.valueOf(Long.MAX_VALUE, 6),
+        BigDecimal.valueOf(Long.MIN_VALUE, 3),
+        new BigDecimal(BigInteger.TWO.pow(100), 20), new BigDecimal(BigInteger.TEN, -5)));
+    for (BigDecimal number : numbers) {
+      var exchangeRate = new ExchangeRateDto(usd, eur, number);
+      compare(exchangeRate, JsonWriters.EXCHANGE_RATE, exchangeRate);
+    }
+  }
+
+  private void checkLists() throws IOException {
+    var usd = new CurrencyRequestDto("USD", "US Dollar", "$");
+    var eur = new CurrencyRequestDto("EUR", "Euro", "\u20ac");
+    compare(List.of(), JsonWriters.CURRENCIES, List.of());
+    var currencies = Arrays.asList(usd, null, eur, null);
+    compare(currencies, JsonWriters.CURRENCIES, currencies);
+    List<ExchangeRateDto> exchangeRates = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      exchangeRates.add(new ExchangeRateDto(usd, eur, new BigDecimal("0.9" + i)));
+    }
+    exchangeRates.add(null);
+    compare(exchangeRates, JsonWriters.EXCHANGE_RATES, exchangeRates);
+  }
+
+  /**
+   * Compares the bytes of the writer with the UTF-8 encoding of the JSON Gson makes of the
+   * equivalent value.
+   */
+  private <T> void compare(T value, JsonWriter<T> writer, Object gsonValue) throws IOException {
+    var expected = gson.toJson(gsonValue).getBytes(StandardCharsets.UTF_8);
+    for (JsonSerializer serializer : serializers) {
+      var actual = new ByteArrayOutputStream();
+      serializer.write(value, writer, actual);
+      checked++;
+      if (!Arrays.equals(expected, actual.toByteArray())) {
+        mismatches.add("Expected " + new String(expected, StandardCharsets.UTF_8)
+            + System.lineSeparator() + "but was  " + actual.toString(StandardCharsets.UTF_8));
+      }
+    }
+  }
+}
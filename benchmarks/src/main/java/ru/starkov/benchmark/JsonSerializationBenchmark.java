@@ -0,0 +1,88 @@
+package ru.starkov.benchmark;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.starkov.dto.ConversionResult;
+import ru.starkov.dto.CurrencyRequestDto;
+import ru.starkov.dto.ExchangeRateDto;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.json.JsonWriters;
+
+/**
+ * Compares the previous response path, {@code Gson.toJson} followed by a write through the servlet
+ * writer, with the hand-written writers of {@link JsonWriters} streaming into the output stream.
+ * Both sides write into a null stream so only the serialization is measured. Run with
+ * {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int exchangeRateCount;
+
+  private final Gson gson = new Gson();
+  private final JsonSerializer jsonSerializer = new JsonSerializer();
+  private final OutputStream sink = OutputStream.nullOutputStream();
+  private ConversionResult conversionResult;
+  private List<ExchangeRateDto> exchangeRates;
+
+  @Setup
+  public void setUp() {
+    var usd = new CurrencyRequestDto("USD", "US Dollar", "$");
+    var eur = new CurrencyRequestDto("EUR", "Euro", "€");
+    conversionResult = new ConversionResult(usd, eur, "0.92", "10", "9.20");
+    exchangeRates = new ArrayList<>(exchangeRateCount);
+    for (int i = 0; i < exchangeRateCount; i++) {
+      exchangeRates.add(new ExchangeRateDto(usd, eur, new BigDecimal("0.9" + i)));
+    }
+  }
+
+  @Benchmark
+  public void gsonConversionResult() throws IOException {
+    writeWithGson(conversionResult);
+  }
+
+  @Benchmark
+  public void writerConversionResult() throws IOException {
+    jsonSerializer.write(conversionResult, JsonWriters.CONVERSION_RESULT, sink);
+  }
+
+  @Benchmark
+  public void gsonExchangeRates() throws IOException {
+    writeWithGson(exchangeRates);
+  }
+
+  @Benchmark
+  public void writerExchangeRates() throws IOException {
+    jsonSerializer.write(exchangeRates, JsonWriters.EXCHANGE_RATES, sink);
+  }
+
+  private void writeWithGson(Object value) throws IOException {
+    var writer = new OutputStreamWriter(sink, StandardCharsets.UTF_8);
+    writer.write(gson.toJson(value));
+    writer.flush();
+  }
+}
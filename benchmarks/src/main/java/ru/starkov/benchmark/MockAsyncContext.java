@@ -0,0 +1,118 @@
+package ru.starkov.benchmark;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The asynchronous context of a {@link MockHttpServletRequest}. Completing it notifies the
+ * listeners and counts the completion, since there is no container to hand the response back to;
+ * the timeout never fires and dispatching is not supported.
+ */
+final class MockAsyncContext implements AsyncContext {
+
+  private ServletRequest request;
+  private ServletResponse response;
+  private long timeout;
+  private long completions;
+  private final List<AsyncListener> listeners = new ArrayList<>();
+
+  /**
+   * Starts the asynchronous mode of the request again. The context is reused, so starting it
+   * allocates nothing.
+   */
+  void start(ServletRequest request, ServletResponse response) {
+    this.request = request;
+    this.response = response;
+  }
+
+  long getCompletions() {
+    return completions;
+  }
+
+  @Override
+  public ServletRequest getRequest() {
+    return request;
+  }
+
+  @Override
+  public ServletResponse getResponse() {
+    return response;
+  }
+
+  @Override
+  public boolean hasOriginalRequestAndResponse() {
+    return true;
+  }
+
+  @Override
+  public void dispatch() {
+    throw new UnsupportedOperationException("dispatch");
+  }
+
+  @Override
+  public void dispatch(String path) {
+    throw new UnsupportedOperationException("dispatch");
+  }
+
+  @Override
+  public void dispatch(ServletContext context, String path) {
+    throw new UnsupportedOperationException("dispatch");
+  }
+
+  @Override
+  public void complete() {
+    completions++;
+    if (listeners.isEmpty()) {
+      return;
+    }
+    var event = new AsyncEvent(this, request, response);
+    try {
+      for (AsyncListener listener : listeners) {
+        listener.onComplete(event);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      listeners.clear();
+    }
+  }
+
+  @Override
+  public void start(Runnable run) {
+    throw new UnsupportedOperationException("start");
+  }
+
+  @Override
+  public void addListener(AsyncListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void addListener(AsyncListener listener, ServletRequest servletRequest,
+      ServletResponse servletResponse) {
+    throw new UnsupportedOperationException("addListener");
+  }
+
+  @Override
+  public <T extends AsyncListener> T createListener(Class<T> type) {
+    throw new UnsupportedOperationException("createListener");
+  }
+
+  @Override
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+
+  @Override
+  public long getTimeout() {
+    return timeout;
+  }
+}
@@ -0,0 +1,142 @@
+package ru.starkov.benchmark;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A request for driving filters and servlets outside a container. It answers the methods the
+ * validation filters and the asynchronous servlets use from its own fields; any other method
+ * throws, so a benchmark cannot silently measure a code path it did not set up.
+ */
+final class MockHttpServletRequest extends HttpServletRequestWrapper {
+
+  private final String method;
+  private final String requestUri;
+  private final Map<String, String[]> parameterMap;
+  private final String contentType;
+  private final byte[] body;
+  private final Map<String, Object> attributes = new HashMap<>();
+  private final MockAsyncContext asyncContext = new MockAsyncContext();
+
+  MockHttpServletRequest(String method, String requestUri, Map<String, String[]> parameterMap,
+      String contentType, byte[] body) {
+    super(unsupported());
+    this.method = method;
+    this.requestUri = requestUri;
+    this.parameterMap = parameterMap;
+    this.contentType = contentType;
+    this.body = body;
+  }
+
+  static MockHttpServletRequest get(String requestUri, Map<String, String[]> parameterMap) {
+    return new MockHttpServletRequest("GET", requestUri, parameterMap, null, new byte[0]);
+  }
+
+  @Override
+  public String getMethod() {
+    return method;
+  }
+
+  @Override
+  public String getRequestURI() {
+    return requestUri;
+  }
+
+  @Override
+  public Map<String, String[]> getParameterMap() {
+    return parameterMap;
+  }
+
+  @Override
+  public String getParameter(String name) {
+    var values = parameterMap.get(name);
+    return values == null || values.length == 0 ? null : values[0];
+  }
+
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public String getHeader(String name) {
+    return null;
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    attributes.put(name, value);
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    attributes.remove(name);
+  }
+
+  @Override
+  public AsyncContext startAsync(ServletRequest servletRequest,
+      ServletResponse servletResponse) {
+    asyncContext.start(servletRequest, servletResponse);
+    return asyncContext;
+  }
+
+  MockAsyncContext getMockAsyncContext() {
+    return asyncContext;
+  }
+
+  /**
+   * Returns a new stream over the body on every call, so the same request can be filtered again.
+   */
+  @Override
+  public ServletInputStream getInputStream() {
+    var stream = new ByteArrayInputStream(body);
+    return new ServletInputStream() {
+      @Override
+      public int read() {
+        return stream.read();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+        return stream.read(b, off, len);
+      }
+
+      @Override
+      public boolean isFinished() {
+        return stream.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener readListener) {
+        throw new UnsupportedOperationException("setReadListener");
+      }
+    };
+  }
+
+  private static HttpServletRequest unsupported() {
+    return (HttpServletRequest) Proxy.newProxyInstance(
+        MockHttpServletRequest.class.getClassLoader(), new Class[] {HttpServletRequest.class},
+        (proxy, method, args) -> {
+          throw new UnsupportedOperationException(method.getName());
+        });
+  }
+}
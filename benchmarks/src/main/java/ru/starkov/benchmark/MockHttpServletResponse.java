@@ -0,0 +1,92 @@
+package ru.starkov.benchmark;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.lang.reflect.Proxy;
+
+/**
+ * A response for driving filters and servlets outside a container. The status is kept and the
+ * body is discarded; any method it does not implement throws.
+ */
+final class MockHttpServletResponse extends HttpServletResponseWrapper {
+
+  private final ServletOutputStream outputStream = new ServletOutputStream() {
+    @Override
+    public void write(int b) {
+      // Discarded
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      // Discarded
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      throw new UnsupportedOperationException("setWriteListener");
+    }
+  };
+  private int status = SC_OK;
+
+  MockHttpServletResponse() {
+    super(unsupported());
+  }
+
+  @Override
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  @Override
+  public int getStatus() {
+    return status;
+  }
+
+  @Override
+  public void sendError(int status) {
+    this.status = status;
+  }
+
+  @Override
+  public void sendError(int status, String message) {
+    this.status = status;
+  }
+
+  @Override
+  public void setContentLength(int length) {
+    // The body is discarded
+  }
+
+  @Override
+  public void setHeader(String name, String value) {
+    // Headers are not inspected
+  }
+
+  @Override
+  public boolean isCommitted() {
+    return false;
+  }
+
+  /**
+   * Returns the same stream on every call, so writing a body allocates nothing here.
+   */
+  @Override
+  public ServletOutputStream getOutputStream() {
+    return outputStream;
+  }
+
+  private static HttpServletResponse unsupported() {
+    return (HttpServletResponse) Proxy.newProxyInstance(
+        MockHttpServletResponse.class.getClassLoader(), new Class[] {HttpServletResponse.class},
+        (proxy, method, args) -> {
+          throw new UnsupportedOperationException(method.getName());
+        });
+  }
+}
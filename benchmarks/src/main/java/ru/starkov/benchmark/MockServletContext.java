@@ -0,0 +1,43 @@
+package ru.starkov.benchmark;
+
+import jakarta.servlet.FilterRegistration;
+import jakarta.servlet.ServletContext;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A servlet context for running the context listener and initializing servlets outside a
+ * container. It keeps the attributes the beans are registered as and accepts the filter
+ * registrations of the listener without applying them; any other method throws.
+ */
+final class MockServletContext {
+
+  private MockServletContext() {
+  }
+
+  static ServletContext create() {
+    Map<String, Object> attributes = new HashMap<>();
+    return (ServletContext) Proxy.newProxyInstance(MockServletContext.class.getClassLoader(),
+        new Class[] {ServletContext.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "getAttribute" -> attributes.get((String) args[0]);
+          case "setAttribute" -> attributes.put((String) args[0], args[1]);
+          case "removeAttribute" -> attributes.remove((String) args[0]);
+          case "getAttributeNames" -> Collections.enumeration(attributes.keySet());
+          case "getContextPath" -> "";
+          case "addFilter" -> ignoredRegistration();
+          case "hashCode" -> System.identityHashCode(proxy);
+          case "equals" -> proxy == args[0];
+          case "toString" -> MockServletContext.class.getSimpleName();
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  private static FilterRegistration.Dynamic ignoredRegistration() {
+    return (FilterRegistration.Dynamic) Proxy.newProxyInstance(
+        MockServletContext.class.getClassLoader(), new Class[] {FilterRegistration.Dynamic.class},
+        (proxy, method, args) -> method.getReturnType() == boolean.class ? false : null);
+  }
+}
@@ -0,0 +1,107 @@
+package ru.starkov.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.starkov.dto.ConversionRequest;
+import ru.starkov.dto.ExchangeRateInfo;
+import ru.starkov.util.RequestParser;
+import ru.starkov.util.ValidationUtils;
+
+/**
+ * Compares the allocation and time per request of the validation done by the exchange and exchange
+ * rate filters. The {@code previous} benchmarks repeat what the filters did before the values were
+ * scanned in place: a regex match per code, a key set comparison, a comma replacement, a
+ * {@code Map.of} for the pair and two {@link BigDecimal} constructions. Run with {@code -prof gc}
+ * and compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestValidationBenchmark {
+
+  private static final Pattern CURRENCY_CODE_PATTERN = Pattern.compile("^[a-zA-Z]{3}$");
+  private static final Set<String> QUERY_PARAMS = Set.of("from", "to", "amount");
+  private static final String URI = "/currency-exchange-app/exchangeRate/USDEUR";
+
+  private final Map<String, String[]> parameterMap = Map.of(
+      "from", new String[] {"USD"},
+      "to", new String[] {"EUR"},
+      "amount", new String[] {"1000,50"});
+
+  @Benchmark
+  public ConversionRequest previousExchange() {
+    if (!parameterMap.keySet().equals(QUERY_PARAMS)) {
+      return null;
+    }
+    var from = parameterMap.get("from")[0];
+    var to = parameterMap.get("to")[0];
+    if (!CURRENCY_CODE_PATTERN.matcher(from).matches()
+        || !CURRENCY_CODE_PATTERN.matcher(to).matches()) {
+      return null;
+    }
+    var amount = parameterMap.get("amount")[0].replace(",", ".");
+    if (new BigDecimal(amount).compareTo(BigDecimal.ZERO) <= 0) {
+      return null;
+    }
+    return new ConversionRequest(from, to, new BigDecimal(amount));
+  }
+
+  @Benchmark
+  public ConversionRequest parsedExchange() {
+    if (!ValidationUtils.isClientFormMatchesServerSideForm(parameterMap, QUERY_PARAMS)) {
+      return null;
+    }
+    var from = parameterMap.get("from")[0];
+    var to = parameterMap.get("to")[0];
+    if (!RequestParser.isCurrencyCode(from) || !RequestParser.isCurrencyCode(to)) {
+      return null;
+    }
+    var amount = RequestParser.parsePositiveDecimal(parameterMap.get("amount")[0]);
+    return amount == null ? null : new ConversionRequest(from, to, amount);
+  }
+
+  @Benchmark
+  public ExchangeRateInfo previousExchangeRate() {
+    var lastSlashIndex = URI.lastIndexOf("/");
+    var codes = URI.substring(lastSlashIndex + 1);
+    if (codes.length() != 6) {
+      return null;
+    }
+    var pair = Map.of("base", codes.substring(0, 3), "target", codes.substring(3));
+    var base = pair.get("base");
+    var target = pair.get("target");
+    if (!CURRENCY_CODE_PATTERN.matcher(base).matches()
+        || !CURRENCY_CODE_PATTERN.matcher(target).matches()) {
+      return null;
+    }
+    return new ExchangeRateInfo(base, target, null);
+  }
+
+  @Benchmark
+  public ExchangeRateInfo parsedExchangeRate() {
+    var pairStart = RequestParser.lastSegmentStart(URI);
+    if (pairStart == -1 || URI.length() - pairStart != RequestParser.CURRENCY_PAIR_LENGTH
+        || !RequestParser.isCurrencyCode(URI, pairStart)
+        || !RequestParser.isCurrencyCode(URI, pairStart + RequestParser.CURRENCY_CODE_LENGTH)) {
+      return null;
+    }
+    var targetStart = pairStart + RequestParser.CURRENCY_CODE_LENGTH;
+    return new ExchangeRateInfo(URI.substring(pairStart, targetStart),
+        URI.substring(targetStart), null);
+  }
+}
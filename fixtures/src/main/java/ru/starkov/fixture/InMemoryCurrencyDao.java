@@ -0,0 +1,83 @@
+package ru.starkov.fixture;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.exception.CurrencyAlreadyExistException;
+import ru.starkov.model.Currency;
+
+/**
+ * A {@link CurrencyDao} keeping the currencies in memory in place of the database, so the
+ * benchmarks and the load test measure the code above the data access objects. It is indexed by
+ * code like the table of the database, is safe for concurrent use and, like a query, returns
+ * copies, so a caller changing a currency does not change the stored one.
+ */
+public final class InMemoryCurrencyDao implements CurrencyDao {
+
+  private final ConcurrentMap<String, Currency> byCode = new ConcurrentHashMap<>();
+  private final AtomicInteger lastId = new AtomicInteger();
+
+  @Override
+  public Currency save(Currency currency) {
+    var stored = copy(currency);
+    // Like a database sequence, an ID taken by a failed insert is not reused
+    stored.setId(lastId.incrementAndGet());
+    if (byCode.putIfAbsent(currency.getCode(), stored) != null) {
+      throw new CurrencyAlreadyExistException(
+          String.format("The currency with the code '%s' already exists in the database.",
+              currency.getCode()));
+    }
+    currency.setId(stored.getId());
+    return currency;
+  }
+
+  @Override
+  public void update(Currency currency) {
+    byCode.computeIfPresent(currency.getCode(), (code, stored) -> copy(currency));
+  }
+
+  @Override
+  public List<Currency> findAll() {
+    List<Currency> currencies = new ArrayList<>(byCode.size());
+    byCode.values().forEach(currency -> currencies.add(copy(currency)));
+    currencies.sort(Comparator.comparing(Currency::getId));
+    return currencies;
+  }
+
+  @Override
+  public List<Currency> loadAll() {
+    return findAll();
+  }
+
+  @Override
+  public Optional<Currency> findByCode(String code) {
+    return Optional.ofNullable(byCode.get(code)).map(InMemoryCurrencyDao::copy);
+  }
+
+  @Override
+  public List<Currency> findAllByCodes(List<String> codes) {
+    List<Currency> currencies = new ArrayList<>(codes.size());
+    for (String code : codes) {
+      var currency = byCode.get(code);
+      if (currency != null) {
+        currencies.add(copy(currency));
+      }
+    }
+    currencies.sort(Comparator.comparing(Currency::getId));
+    return currencies;
+  }
+
+  static Currency copy(Currency currency) {
+    return Currency.builder()
+        .id(currency.getId())
+        .code(currency.getCode())
+        .fullName(currency.getFullName())
+        .sign(currency.getSign())
+        .build();
+  }
+}
@@ -0,0 +1,147 @@
+package ru.starkov.fixture;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.exception.ExchangeRateAlreadyExistException;
+import ru.starkov.exception.ExchangeRateNotFoundException;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+
+/**
+ * An {@link ExchangeRateDao} keeping the exchange rates in memory in place of the database,
+ * indexed by pair, ID, base and target currency like the table of the database. It is safe for
+ * concurrent use and, like a query, returns copies, so a caller changing an exchange rate does not
+ * change the stored one. Like the JDBC one, {@link #updateAll(List)} fails on an exchange rate
+ * that does not exist, while {@link #update(ExchangeRate)} ignores it.
+ */
+public final class InMemoryExchangeRateDao implements ExchangeRateDao {
+
+  private final ConcurrentMap<String, ExchangeRate> byPair = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Integer, String> pairById = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<String>> pairsByBase = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<String>> pairsByTarget = new ConcurrentHashMap<>();
+  private final AtomicInteger lastId = new AtomicInteger();
+
+  @Override
+  public ExchangeRate save(ExchangeRate exchangeRate) {
+    var pair = getPair(exchangeRate);
+    var stored = copy(exchangeRate);
+    // Like a database sequence, an ID taken by a failed insert is not reused
+    stored.setId(lastId.incrementAndGet());
+    pairById.put(stored.getId(), pair);
+    if (byPair.putIfAbsent(pair, stored) != null) {
+      pairById.remove(stored.getId());
+      throw new ExchangeRateAlreadyExistException(String.format(
+          "The exchange rate for the currency pair '%s' already exists in the database.", pair));
+    }
+    pairsByBase.computeIfAbsent(exchangeRate.getBaseCurrency().getCode(),
+        code -> ConcurrentHashMap.newKeySet()).add(pair);
+    pairsByTarget.computeIfAbsent(exchangeRate.getTargetCurrency().getCode(),
+        code -> ConcurrentHashMap.newKeySet()).add(pair);
+    exchangeRate.setId(stored.getId());
+    return exchangeRate;
+  }
+
+  @Override
+  public void update(ExchangeRate exchangeRate) {
+    var pair = pairById.get(exchangeRate.getId());
+    if (pair != null) {
+      byPair.computeIfPresent(pair, (key, stored) -> {
+        var updated = copy(stored);
+        updated.setRate(exchangeRate.getRate());
+        return updated;
+      });
+    }
+  }
+
+  /**
+   * Updates the rates of the exchange rates. Every exchange rate is checked to exist before any
+   * is updated, as the transaction of the JDBC one would be rolled back.
+   *
+   * @param exchangeRates the exchange rates holding the new rates
+   * @throws ExchangeRateNotFoundException if one of the exchange rates does not exist
+   */
+  @Override
+  public void updateAll(List<ExchangeRate> exchangeRates) {
+    for (ExchangeRate exchangeRate : exchangeRates) {
+      if (!pairById.containsKey(exchangeRate.getId())) {
+        throw new ExchangeRateNotFoundException(String.format(
+            "The exchange rate for the currency pair '%s' no longer exists in the database.",
+            getPair(exchangeRate)));
+      }
+    }
+    exchangeRates.forEach(this::update);
+  }
+
+  @Override
+  public List<ExchangeRate> findAll() {
+    List<ExchangeRate> exchangeRates = new ArrayList<>(byPair.size());
+    byPair.values().forEach(exchangeRate -> exchangeRates.add(copy(exchangeRate)));
+    exchangeRates.sort(Comparator.comparing(ExchangeRate::getId));
+    return exchangeRates;
+  }
+
+  @Override
+  public List<ExchangeRate> loadAll() {
+    return findAll();
+  }
+
+  @Override
+  public Optional<ExchangeRate> findByCurrencies(Currency baseCurrency, Currency targetCurrency) {
+    return findByCurrencyCodes(baseCurrency.getCode(), targetCurrency.getCode());
+  }
+
+  @Override
+  public Optional<ExchangeRate> findByCurrencyCodes(String baseCurrencyCode,
+      String targetCurrencyCode) {
+    return Optional.ofNullable(byPair.get(baseCurrencyCode + targetCurrencyCode))
+        .map(InMemoryExchangeRateDao::copy);
+  }
+
+  @Override
+  public List<ExchangeRate> findAllByBaseCurrencyCode(String baseCurrencyCode) {
+    return findAllByPairs(pairsByBase.getOrDefault(baseCurrencyCode, Set.of()));
+  }
+
+  @Override
+  public List<ExchangeRate> findAllByTargetCurrencyCode(String targetCurrencyCode) {
+    return findAllByPairs(pairsByTarget.getOrDefault(targetCurrencyCode, Set.of()));
+  }
+
+  @Override
+  public List<ExchangeRate> findAllByCurrencyPairs(List<String> pairs) {
+    return findAllByPairs(pairs);
+  }
+
+  private List<ExchangeRate> findAllByPairs(Iterable<String> pairs) {
+    List<ExchangeRate> exchangeRates = new ArrayList<>();
+    for (String pair : pairs) {
+      var exchangeRate = byPair.get(pair);
+      if (exchangeRate != null) {
+        exchangeRates.add(copy(exchangeRate));
+      }
+    }
+    exchangeRates.sort(Comparator.comparing(ExchangeRate::getId));
+    return exchangeRates;
+  }
+
+  private static String getPair(ExchangeRate exchangeRate) {
+    return exchangeRate.getBaseCurrency().getCode() + exchangeRate.getTargetCurrency().getCode();
+  }
+
+  private static ExchangeRate copy(ExchangeRate exchangeRate) {
+    return ExchangeRate.builder()
+        .id(exchangeRate.getId())
+        .baseCurrency(InMemoryCurrencyDao.copy(exchangeRate.getBaseCurrency()))
+        .targetCurrency(InMemoryCurrencyDao.copy(exchangeRate.getTargetCurrency()))
+        .rate(exchangeRate.getRate())
+        .build();
+  }
+}
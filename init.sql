@@ -13,6 +13,9 @@ CREATE TABLE currencies
     sign      VARCHAR(2)
 );
 
+-- Индекс для поиска валют по коду без учёта регистра
+CREATE INDEX currencies_upper_code_idx ON currencies (UPPER(code));
+
 -- Создание таблицы exchange_rates
 CREATE TABLE exchange_rates
 (
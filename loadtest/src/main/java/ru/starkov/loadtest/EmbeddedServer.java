@@ -0,0 +1,135 @@
+package ru.starkov.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.loader.WebappLoader;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.JarResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+import org.apache.tomcat.util.scan.StandardJarScanner;
+import ru.starkov.dao.CurrencyDao;
+import ru.starkov.dao.ExchangeRateDao;
+import ru.starkov.servlet.listener.ContextListener;
+import ru.starkov.util.Constants;
+
+/**
+ * Runs the application in an embedded Tomcat listening on the loopback interface only. The
+ * application classes are mounted as the {@code WEB-INF/classes} of the web application, so the
+ * servlets and the listener are found by their annotations and the listener registers the filters
+ * as in a deployed WAR. The given DAOs are registered before the {@link ContextListener} runs,
+ * which then uses them in place of the database. The web application class loader delegates to
+ * the class path first, so the DAOs and the application share the same classes.
+ */
+final class EmbeddedServer implements AutoCloseable {
+
+  private static final String LOOPBACK_ADDRESS = "127.0.0.1";
+  private static final String WEB_INF_CLASSES = "/WEB-INF/classes";
+
+  private final Tomcat tomcat;
+  private final Path baseDir;
+  private final URI uri;
+
+  private EmbeddedServer(Tomcat tomcat, Path baseDir, URI uri) {
+    this.tomcat = tomcat;
+    this.baseDir = baseDir;
+    this.uri = uri;
+  }
+
+  /**
+   * Starts the server on a free port.
+   *
+   * @param currencyDao     the DAO the application uses for currencies
+   * @param exchangeRateDao the DAO the application uses for exchange rates
+   * @return the started server
+   * @throws LifecycleException if Tomcat fails to start
+   * @throws IOException        if the working directory of Tomcat cannot be created
+   */
+  static EmbeddedServer start(CurrencyDao currencyDao, ExchangeRateDao exchangeRateDao)
+      throws LifecycleException, IOException {
+    var baseDir = Files.createTempDirectory("loadtest-tomcat");
+    var docBase = Files.createDirectory(baseDir.resolve("webapp"));
+    var tomcat = new Tomcat();
+    tomcat.setBaseDir(baseDir.toString());
+    tomcat.setAddDefaultWebXmlToWebapp(false);
+
+    var connector = new Connector();
+    connector.setPort(0);
+    connector.setProperty("address", LOOPBACK_ADDRESS);
+    tomcat.setConnector(connector);
+
+    var context = (StandardContext) tomcat.addWebapp(Constants.WEB_APP_PATH, docBase.toString());
+    // The leak checks need opened JDK internals and only warn when the server stops
+    context.setClearReferencesThreadLocals(false);
+    context.setClearReferencesRmiTargets(false);
+    var loader = new WebappLoader();
+    loader.setDelegate(true);
+    context.setLoader(loader);
+    context.setParentClassLoader(EmbeddedServer.class.getClassLoader());
+    // Only the application classes are scanned, not the jars on the class path
+    ((StandardJarScanner) context.getJarScanner()).setScanClassPath(false);
+    WebResourceRoot resources = new StandardRoot(context);
+    var classes = applicationClasses();
+    if (Files.isDirectory(classes)) {
+      resources.addPreResources(
+          new DirResourceSet(resources, WEB_INF_CLASSES, classes.toString(), "/"));
+    } else {
+      resources.addPreResources(
+          new JarResourceSet(resources, WEB_INF_CLASSES, classes.toString(), "/"));
+    }
+    context.setResources(resources);
+    context.addServletContainerInitializer((types, servletContext) -> {
+      servletContext.setAttribute(CurrencyDao.class.getName(), currencyDao);
+      servletContext.setAttribute(ExchangeRateDao.class.getName(), exchangeRateDao);
+    }, null);
+
+    tomcat.start();
+    var uri = URI.create("http://" + LOOPBACK_ADDRESS + ":" + connector.getLocalPort()
+        + Constants.WEB_APP_PATH);
+    return new EmbeddedServer(tomcat, baseDir, uri);
+  }
+
+  /**
+   * Returns the URI of the web application, without a trailing slash.
+   *
+   * @return the base URI of the application
+   */
+  URI getUri() {
+    return uri;
+  }
+
+  @Override
+  public void close() throws LifecycleException, IOException {
+    try {
+      tomcat.stop();
+      tomcat.destroy();
+    } finally {
+      try (Stream<Path> paths = Files.walk(baseDir)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the directory or jar the application classes are loaded from.
+   */
+  private static Path applicationClasses() {
+    try {
+      return Path.of(ContextListener.class.getProtectionDomain().getCodeSource().getLocation()
+          .toURI());
+    } catch (URISyntaxException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
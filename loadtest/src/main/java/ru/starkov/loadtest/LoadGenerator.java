@@ -0,0 +1,110 @@
+package ru.starkov.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests on a fixed schedule, an open workload model: the n-th request is due at the start
+ * plus n times the interval of the rate, whether or not earlier requests have been answered, the
+ * way independent users arrive. Requests are sent asynchronously from a single scheduling thread.
+ * The latency of every request is measured from the time it was due, so a stalled server, or a
+ * generator that cannot keep up, shows in the response times instead of slowing the load down.
+ * Requests due during the warm-up are sent but not recorded.
+ */
+final class LoadGenerator {
+
+  private static final long RANDOM_SEED = 42;
+  private static final long OUTSTANDING_POLL_MILLIS = 10;
+  private static final long OUTSTANDING_GRACE_MILLIS = 1_000;
+
+  private final HttpClient client;
+  private final Traffic traffic;
+  private final LoadTestConfig config;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  LoadGenerator(HttpClient client, Traffic traffic, LoadTestConfig config) {
+    this.client = client;
+    this.traffic = traffic;
+    this.config = config;
+  }
+
+  /**
+   * Runs the warm-up and the measurement and waits for the outstanding requests.
+   *
+   * @return the statistics of the measurement, by operation
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  Map<Operation, Statistics> run() throws InterruptedException {
+    Map<Operation, Statistics> statistics = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      statistics.put(operation, new Statistics());
+    }
+    var random = new SplittableRandom(RANDOM_SEED);
+    var intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+    var start = System.nanoTime();
+    var measurementStart = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+    var end = measurementStart + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+    for (long i = 0; ; i++) {
+      var due = start + (long) (i * intervalNanos);
+      if (due - end >= 0) {
+        break;
+      }
+      var wait = due - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      var operation = traffic.nextOperation(random);
+      var request = traffic.request(operation, random);
+      send(request, due, due - measurementStart >= 0 ? statistics.get(operation) : null);
+    }
+    awaitOutstanding();
+    return statistics;
+  }
+
+  /**
+   * Sends a request due at the given time, unless too many are outstanding.
+   *
+   * @param statistics the statistics to record the request in, or null during the warm-up
+   */
+  private void send(HttpRequest request, long due, Statistics statistics) {
+    // Only this thread sends, so the count cannot grow between the check and the increment
+    if (inFlight.get() >= config.maxInFlight()) {
+      if (statistics != null) {
+        statistics.recordDropped();
+      }
+      return;
+    }
+    inFlight.incrementAndGet();
+    var sent = System.nanoTime();
+    client.sendAsync(request, BodyHandlers.discarding()).whenComplete((response, error) -> {
+      var completed = System.nanoTime();
+      if (statistics != null) {
+        // Updates answer with a redirect to the updated exchange rate
+        var successful = error == null && response.statusCode() < 400;
+        statistics.record(successful, completed - due, completed - sent);
+      }
+      inFlight.decrementAndGet();
+    });
+  }
+
+  /**
+   * Waits for the outstanding requests, which the request timeout bounds.
+   */
+  private void awaitOutstanding() throws InterruptedException {
+    var deadline = System.nanoTime()
+        + TimeUnit.MILLISECONDS.toNanos(config.requestTimeoutMillis() + OUTSTANDING_GRACE_MILLIS);
+    while (inFlight.get() > 0 && System.nanoTime() - deadline < 0) {
+      Thread.sleep(OUTSTANDING_POLL_MILLIS);
+    }
+  }
+}
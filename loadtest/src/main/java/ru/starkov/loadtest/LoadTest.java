@@ -0,0 +1,91 @@
+package ru.starkov.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.catalina.LifecycleException;
+import ru.starkov.fixture.InMemoryCurrencyDao;
+import ru.starkov.fixture.InMemoryExchangeRateDao;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+import ru.starkov.util.Constants;
+
+/**
+ * Runs a load test of the application on a single machine without a database or a network: the
+ * application runs in an {@link EmbeddedServer} on the loopback interface with in-memory DAOs, and
+ * a {@link LoadGenerator} sends it the traffic mix of the configuration at a fixed rate once the
+ * warm-up of the application has finished. The {@link Report} is printed to the standard output,
+ * and the process exits with status 1 if a gate failed, so a release can be gated on throughput
+ * and p99 regressions.
+ *
+ * <pre>
+ * mvn -B package -DskipTests
+ * java -Dloadtest.rate=2000 -Dloadtest.gate.max.p99.ms=50 -jar loadtest/target/loadtest.jar
+ * </pre>
+ *
+ * <p>The generator shares the machine with the server, so for stable numbers the rate should stay
+ * well below what saturates the CPUs, and runs should be compared on the same machine only.
+ */
+public final class LoadTest {
+
+  private static final long READY_TIMEOUT_SECONDS = 120;
+  private static final long READY_POLL_MILLIS = 100;
+  private static final int EXIT_GATE_FAILED = 1;
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    var config = LoadTestConfig.load();
+    var currencyDao = new InMemoryCurrencyDao();
+    var exchangeRateDao = new InMemoryExchangeRateDao();
+    SeedData.populate(currencyDao, exchangeRateDao);
+    boolean passed;
+    try (var server = EmbeddedServer.start(currencyDao, exchangeRateDao);
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        var client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(executor)
+            .build()) {
+      awaitReady(client, server.getUri());
+      var traffic = new Traffic(server.getUri(),
+          Duration.ofMillis(config.requestTimeoutMillis()),
+          currencyDao.findAll().stream().map(Currency::getCode).toList(),
+          exchangeRateDao.findAll().stream()
+              .map(exchangeRate -> exchangeRate.getBaseCurrency().getCode()
+                  + exchangeRate.getTargetCurrency().getCode())
+              .toList(),
+          config.mix());
+      var report = new Report(config, new LoadGenerator(client, traffic, config).run());
+      report.print(System.out);
+      passed = report.check(System.out);
+    }
+    if (!passed) {
+      System.exit(EXIT_GATE_FAILED);
+    }
+  }
+
+  /**
+   * Waits until the readiness endpoint reports the warm-up of the application as finished.
+   */
+  private static void awaitReady(HttpClient client, URI uri)
+      throws IOException, InterruptedException, LifecycleException {
+    var request = HttpRequest.newBuilder(
+            URI.create(uri + Constants.HEALTH_PATH + Constants.READY_PATH))
+        .GET()
+        .build();
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(READY_TIMEOUT_SECONDS);
+    while (client.send(request, BodyHandlers.discarding()).statusCode() != 200) {
+      if (System.nanoTime() - deadline > 0) {
+        throw new LifecycleException("The application did not get ready in "
+            + READY_TIMEOUT_SECONDS + " s");
+      }
+      Thread.sleep(READY_POLL_MILLIS);
+    }
+  }
+}
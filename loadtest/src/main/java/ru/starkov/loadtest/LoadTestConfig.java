@@ -0,0 +1,95 @@
+package ru.starkov.loadtest;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The settings of a load test run, read from the {@code loadtest.properties} file. A system
+ * property of the same key overrides the value of the file, so a run is configured on the command
+ * line, for example {@code -Dloadtest.rate=2000}. Keys starting with {@code app.} are application
+ * properties: they are passed on to the application as system properties without the prefix,
+ * unless that system property is set already.
+ *
+ * @param rate                 the requests sent per second
+ * @param warmupSeconds        how long requests are sent before latencies are recorded
+ * @param durationSeconds      how long latencies are recorded
+ * @param requestTimeoutMillis how long a request may take before it counts as failed
+ * @param maxInFlight          how many requests may be outstanding; a request due while this many
+ *                             are outstanding is not sent and counts as failed
+ * @param mix                  the relative weight of every operation
+ * @param minThroughput        the successful requests per second a run must reach, or 0
+ * @param maxP99Millis         the 99th percentile response time a run must stay below, or 0
+ * @param maxErrorRate         the share of failed requests a run must stay below
+ */
+record LoadTestConfig(double rate, long warmupSeconds, long durationSeconds,
+                      long requestTimeoutMillis, int maxInFlight, Map<Operation, Integer> mix,
+                      double minThroughput, double maxP99Millis, double maxErrorRate) {
+
+  private static final String FILE = "loadtest.properties";
+  private static final String PREFIX = "loadtest.";
+  private static final String APPLICATION_PREFIX = "app.";
+  private static final String MIX_PREFIX = PREFIX + "mix.";
+
+  /**
+   * Reads the settings and passes the application properties on.
+   *
+   * @return the settings of the run
+   */
+  static LoadTestConfig load() {
+    var properties = new Properties();
+    try (var stream = LoadTestConfig.class.getClassLoader().getResourceAsStream(FILE)) {
+      properties.load(stream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read " + FILE, e);
+    }
+    for (String key : System.getProperties().stringPropertyNames()) {
+      if (key.startsWith(PREFIX)) {
+        properties.setProperty(key, System.getProperty(key));
+      }
+    }
+    for (String key : properties.stringPropertyNames()) {
+      if (key.startsWith(APPLICATION_PREFIX)) {
+        var applicationKey = key.substring(APPLICATION_PREFIX.length());
+        if (System.getProperty(applicationKey) == null) {
+          System.setProperty(applicationKey, properties.getProperty(key).trim());
+        }
+      }
+    }
+    Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      var weight = Integer.parseInt(
+          properties.getProperty(MIX_PREFIX + operation.getLabel(), "0").trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("Negative weight of " + operation.getLabel());
+      }
+      mix.put(operation, weight);
+    }
+    if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+      throw new IllegalArgumentException("No operation has a weight in the traffic mix");
+    }
+    var config = new LoadTestConfig(
+        Double.parseDouble(get(properties, "rate")),
+        Long.parseLong(get(properties, "warmup.seconds")),
+        Long.parseLong(get(properties, "duration.seconds")),
+        Long.parseLong(get(properties, "request.timeout.ms")),
+        Integer.parseInt(get(properties, "max.inflight")),
+        mix,
+        Double.parseDouble(get(properties, "gate.min.throughput")),
+        Double.parseDouble(get(properties, "gate.max.p99.ms")),
+        Double.parseDouble(get(properties, "gate.max.error.rate")));
+    if (config.rate() <= 0 || config.durationSeconds() <= 0) {
+      throw new IllegalArgumentException("The rate and the duration must be positive");
+    }
+    return config;
+  }
+
+  private static String get(Properties properties, String key) {
+    var value = properties.getProperty(PREFIX + key);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing property " + PREFIX + key);
+    }
+    return value.trim();
+  }
+}
@@ -0,0 +1,30 @@
+package ru.starkov.loadtest;
+
+/**
+ * The Operation enum names the kinds of requests the load test sends, each to one endpoint of the
+ * application. The label names the operation in the configuration and in the report.
+ */
+enum Operation {
+
+  CONVERSION("conversion", "GET /exchange"),
+  EXCHANGE_RATE("exchangeRate", "GET /exchangeRate/{pair}"),
+  EXCHANGE_RATES("exchangeRates", "GET /exchangeRates"),
+  CURRENCIES("currencies", "GET /currencies"),
+  RATE_UPDATE("rateUpdate", "PATCH /exchangeRate/{pair}");
+
+  private final String label;
+  private final String endpoint;
+
+  Operation(String label, String endpoint) {
+    this.label = label;
+    this.endpoint = endpoint;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+}
@@ -0,0 +1,474 @@
+package ru.starkov.loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import ru.starkov.cache.ExchangeRateCache;
+import ru.starkov.dao.impl.CurrencyDaoImpl;
+import ru.starkov.dao.impl.ExchangeRateDaoImpl;
+import ru.starkov.dto.ExchangeRateInfo;
+import ru.starkov.dto.json.JsonSerializer;
+import ru.starkov.dto.mapper.CurrencyMapper;
+import ru.starkov.dto.mapper.ExchangeRateMapper;
+import ru.starkov.exception.CurrencyNotFoundException;
+import ru.starkov.exception.DatabaseException;
+import ru.starkov.exception.DeadlineExceededException;
+import ru.starkov.exception.ExchangeRateNotFoundException;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+import ru.starkov.service.ExchangeRateService;
+import ru.starkov.service.ExchangeService;
+import ru.starkov.stream.RateChangeBroadcaster;
+import ru.starkov.util.ConnectionManager;
+import ru.starkov.util.Deadline;
+import ru.starkov.util.PropertiesLoader;
+
+/**
+ * Runs concurrent conversions, saves and updates through the {@link ConnectionManager} and the
+ * JDBC DAO singletons, and fails if the pool lets a race through. The database is an in-memory H2
+ * in PostgreSQL mode behind the {@link TrackingDriver}, which reports a connection used by two
+ * threads at once, a transaction continued by another thread, and pending work committed by a
+ * reset. The cache is never loaded, so every conversion runs its read-only transaction against
+ * the database and every read of an exchange rate is a query of its own.
+ *
+ * <p>The pool runs elastic with a short grow threshold, idle timeout and maintenance interval,
+ * so it grows, shrinks and validates its connections in the background while the workers run.
+ *
+ * <p>The workers are platform threads of a fixed pool, reused from round to round the way the
+ * threads of a container are, so a transactional connection left bound to a thread shows in a
+ * later operation of that thread. Some operations fail on purpose, on an unknown currency or a
+ * missing exchange rate, and some run with a deadline of a few milliseconds, so the rollback paths
+ * run as often as the commits. Some borrow and return a connection and keep its handle, which a
+ * later operation, usually of another worker, closes again and calls; by then the connection is
+ * likely lent out to someone else, whose transaction the stale handle must not reach. Between
+ * rounds, with every worker idle:
+ * <ul>
+ *   <li>every connection must be back in the pool, or one has leaked;</li>
+ *   <li>the pool must hold no more than its maximum of open connections, counting the physical
+ *   connections the driver has open, or one has been lost by the pool;</li>
+ *   <li>every connection must be outside a transaction, in auto-commit mode, with the default
+ *   isolation level and writable, or a setting has leaked into the pool.</li>
+ * </ul>
+ * At the end, the rate of every exchange rate must be the last one its worker updated it to, and
+ * a saved exchange rate must exist exactly when its save succeeded, or work has been lost or
+ * committed on behalf of another transaction. Left idle, the pool must then shrink back to its
+ * minimum.
+ *
+ * <p>The check runs in the {@code test} phase of this module and is skipped with
+ * {@code -DskipTests}. The size of the run is set with the {@code stress.threads},
+ * {@code stress.rounds}, {@code stress.operations} and {@code stress.seed} system properties, and
+ * the pool with the {@code db.pool} properties of the application:
+ *
+ * <pre>
+ * java -Dstress.threads=64 -Dstress.rounds=50 -Ddb.pool.max=8 \
+ *     -cp loadtest/target/loadtest.jar ru.starkov.loadtest.PoolStressTest
+ * </pre>
+ */
+public final class PoolStressTest {
+
+  private static final String DATABASE_URL =
+      "h2:mem:currency_exchange_app;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+  private static final String DB_URL = "db.url";
+  private static final String DB_USERNAME = "db.username";
+  private static final String DB_PASSWORD = "db.password";
+  private static final String POOL_MIN = "db.pool.min";
+  private static final String POOL_MAX = "db.pool.max";
+  private static final String POOL_GROW_THRESHOLD = "db.pool.grow.threshold.ms";
+  private static final String POOL_IDLE_TIMEOUT = "db.pool.idle.timeout.ms";
+  private static final String POOL_MAINTENANCE_INTERVAL = "db.pool.maintenance.interval.ms";
+  private static final long SHRINK_TIMEOUT_MILLIS = 5_000;
+  private static final long SHRINK_POLL_MILLIS = 10;
+  private static final String UNKNOWN_CODE = "ZZZ";
+  private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+  private static final int MAX_DEADLINE_MILLIS = 3;
+  private static final int MAX_REPORTED_VIOLATIONS = 20;
+  private static final int EXIT_VIOLATION = 1;
+
+  private final int threads;
+  private final Queue<String> violations;
+  private final Queue<Connection> staleConnections = new ConcurrentLinkedQueue<>();
+  private final ExchangeService exchangeService;
+  private final ExchangeRateService exchangeRateService;
+  private final List<String> codes = new ArrayList<>();
+  private final List<String[]> savablePairs = new ArrayList<>();
+  private final AtomicInteger nextSavablePair = new AtomicInteger();
+  private final Map<String, BigDecimal> committedRates = new ConcurrentHashMap<>();
+  private final Map<String, Boolean> savedPairs = new ConcurrentHashMap<>();
+  private final LongAdder committed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder deadlineExceeded = new LongAdder();
+
+  private PoolStressTest(int threads, Queue<String> violations,
+      ExchangeService exchangeService, ExchangeRateService exchangeRateService) {
+    this.threads = threads;
+    this.violations = violations;
+    this.exchangeService = exchangeService;
+    this.exchangeRateService = exchangeRateService;
+  }
+
+  public static void main(String[] args) throws Exception {
+    var threads = Integer.getInteger("stress.threads", 16);
+    var rounds = Integer.getInteger("stress.rounds", 10);
+    var operations = Integer.getInteger("stress.operations", 100);
+    var seed = Long.getLong("stress.seed", 42);
+    System.setProperty(DB_URL, TrackingDriver.URL_PREFIX + DATABASE_URL);
+    setDefault(POOL_MIN, "2");
+    setDefault(POOL_MAX, "8");
+    setDefault(POOL_GROW_THRESHOLD, "1");
+    setDefault(POOL_IDLE_TIMEOUT, "100");
+    setDefault(POOL_MAINTENANCE_INTERVAL, "20");
+
+    Queue<String> violations = new ConcurrentLinkedQueue<>();
+    var driver = TrackingDriver.register(violations::add);
+    createSchema();
+    ConnectionManager.initConnectionPool();
+    var currencyDao = CurrencyDaoImpl.getInstance();
+    var exchangeRateDao = ExchangeRateDaoImpl.getInstance();
+    var exchangeRateCache = new ExchangeRateCache(Long.MAX_VALUE);
+    var broadcaster = new RateChangeBroadcaster(new JsonSerializer(),
+        ExchangeRateMapper.INSTANCE, 1, 1, 1);
+    var test = new PoolStressTest(threads, violations,
+        new ExchangeService(exchangeRateDao, currencyDao, CurrencyMapper.INSTANCE,
+            exchangeRateCache),
+        new ExchangeRateService(exchangeRateDao, currencyDao, exchangeRateCache, broadcaster));
+    try {
+      test.populate(currencyDao, exchangeRateDao);
+      var workers = Executors.newFixedThreadPool(threads);
+      try {
+        for (int round = 0; round < rounds; round++) {
+          test.runRound(workers, operations, seed + round);
+          test.checkPool(driver);
+        }
+      } finally {
+        workers.shutdown();
+      }
+      test.checkData();
+      test.checkShrink(driver);
+    } finally {
+      broadcaster.shutdown();
+      ConnectionManager.closeConnections();
+    }
+    System.out.printf("%d threads, %d rounds of %d operations: %d committed, %d rejected,"
+            + " %d past their deadline, %d connections opened%n", threads, rounds, operations,
+        test.committed.sum(), test.rejected.sum(), test.deadlineExceeded.sum(),
+        driver.getConnections().size());
+    if (!violations.isEmpty()) {
+      violations.stream().limit(MAX_REPORTED_VIOLATIONS).forEach(System.out::println);
+      System.out.println("FAILED: " + violations.size() + " violations");
+      System.exit(EXIT_VIOLATION);
+    }
+    System.out.println("PASSED: no connection leaked, crossed or kept its settings");
+  }
+
+  /**
+   * Creates the tables of the application, as {@code init.sql} does, on a connection of its own.
+   * The first connection creates the in-memory database and its user, so it logs in as the pool
+   * does.
+   */
+  private static void setDefault(String key, String value) {
+    if (System.getProperty(key) == null) {
+      System.setProperty(key, value);
+    }
+  }
+
+  private static void createSchema() throws SQLException {
+    try (var connection = DriverManager.getConnection("jdbc:" + DATABASE_URL,
+        PropertiesLoader.get(DB_USERNAME), PropertiesLoader.get(DB_PASSWORD));
+        var statement = connection.createStatement()) {
+      statement.execute("""
+          CREATE TABLE currencies
+          (
+              id        SERIAL PRIMARY KEY,
+              code      VARCHAR(3) UNIQUE NOT NULL,
+              full_name VARCHAR,
+              sign      VARCHAR(2)
+          )
+          """);
+      statement.execute("""
+          CREATE TABLE exchange_rates
+          (
+              id                 SERIAL PRIMARY KEY,
+              base_currency_id   INTEGER,
+              target_currency_id INTEGER,
+              rate               DECIMAL(20, 6),
+              CONSTRAINT fk_base_currency_id FOREIGN KEY (base_currency_id)
+                  REFERENCES currencies (id),
+              CONSTRAINT fk_target_currency_id FOREIGN KEY (target_currency_id)
+                  REFERENCES currencies (id),
+              CONSTRAINT base_target_id_unique UNIQUE (base_currency_id, target_currency_id)
+          )
+          """);
+    }
+  }
+
+  /**
+   * Saves a hub currency quoted against two currencies per worker. The quotes of a worker are
+   * updated by that worker only, so the last rate it committed is the one to find at the end. The
+   * pairs of two other currencies are left for the saves.
+   */
+  private void populate(CurrencyDaoImpl currencyDao, ExchangeRateDaoImpl exchangeRateDao) {
+    var currencyCount = 2 * threads + 1;
+    List<Currency> currencies = new ArrayList<>(currencyCount);
+    for (int i = 0; i < currencyCount; i++) {
+      var code = code(i);
+      codes.add(code);
+      currencies.add(currencyDao.save(Currency.builder()
+          .code(code)
+          .fullName("Currency " + code)
+          .sign("¤")
+          .build()));
+    }
+    for (int i = 1; i < currencyCount; i++) {
+      var rate = new BigDecimal(i).setScale(6, RoundingMode.UNNECESSARY);
+      exchangeRateDao.save(ExchangeRate.builder()
+          .baseCurrency(currencies.get(0))
+          .targetCurrency(currencies.get(i))
+          .rate(rate)
+          .build());
+      committedRates.put(codes.get(0) + codes.get(i), rate);
+    }
+    for (int i = 1; i < currencyCount; i++) {
+      for (int j = 1; j < currencyCount; j++) {
+        if (i != j) {
+          savablePairs.add(new String[] {codes.get(i), codes.get(j)});
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs the operations of a round on every worker and waits for all of them.
+   */
+  private void runRound(ExecutorService workers, int operations, long seed)
+      throws InterruptedException {
+    List<Future<?>> futures = new ArrayList<>(threads);
+    for (int worker = 0; worker < threads; worker++) {
+      var index = worker;
+      var random = new SplittableRandom(seed * threads + worker);
+      futures.add(workers.submit(() -> {
+        for (int i = 0; i < operations; i++) {
+          runOperation(index, random);
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        violations.add("A worker failed: " + e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Runs a random operation and checks its outcome. An operation fails as expected when it names
+   * an unknown currency or exchange rate, or when its deadline passes; any other failure is a
+   * violation.
+   */
+  private void runOperation(int worker, SplittableRandom random) {
+    var withDeadline = random.nextInt(20) == 0;
+    if (withDeadline) {
+      Deadline.set(Deadline.after(random.nextInt(MAX_DEADLINE_MILLIS) + 1L));
+    }
+    var operation = random.nextInt(100);
+    try {
+      if (operation < 40) {
+        convert(worker, random);
+      } else if (operation < 65) {
+        update(worker, random);
+      } else if (operation < 75) {
+        find(worker, random);
+      } else if (operation < 85) {
+        save();
+      } else if (operation < 90) {
+        exchangeService.convert(UNKNOWN_CODE, codes.get(0), AMOUNT);
+      } else if (operation < 95) {
+        exchangeRateService.update(new ExchangeRateInfo(codes.get(1), codes.get(0),
+            BigDecimal.ONE));
+      } else if (operation < 98) {
+        closeStale();
+      } else {
+        exchangeRateService.save(new ExchangeRateInfo(codes.get(1), UNKNOWN_CODE,
+            BigDecimal.ONE));
+      }
+    } catch (CurrencyNotFoundException | ExchangeRateNotFoundException e) {
+      rejected.increment();
+    } catch (DeadlineExceededException e) {
+      if (!withDeadline) {
+        violations.add("Deadline exceeded without a deadline: " + e);
+      }
+      deadlineExceeded.increment();
+    } catch (DatabaseException e) {
+      violations.add(Thread.currentThread().getName() + " failed: " + e + ", caused by "
+          + e.getCause());
+    } finally {
+      Deadline.set(null);
+    }
+  }
+
+  /**
+   * Converts along one of the exchange rates of the worker, which must come out at the rate the
+   * worker last committed.
+   */
+  private void convert(int worker, SplittableRandom random) {
+    var target = codes.get(1 + worker + threads * random.nextInt(2));
+    var pair = codes.get(0) + target;
+    var expected = committedRates.get(pair);
+    var result = exchangeService.convert(codes.get(0), target, AMOUNT);
+    committed.increment();
+    if (!result.rate().equals(expected.setScale(6, RoundingMode.HALF_UP).toPlainString())) {
+      violations.add("Conversion " + pair + " on " + Thread.currentThread().getName()
+          + " read the rate " + result.rate() + " after committing " + expected);
+    }
+  }
+
+  /**
+   * Reads one of the exchange rates of the worker outside a transaction, as a request does on a
+   * cache miss, on a connection of its own unless one is still bound to the thread.
+   */
+  private void find(int worker, SplittableRandom random) {
+    var target = codes.get(1 + worker + threads * random.nextInt(2));
+    var expected = committedRates.get(codes.get(0) + target);
+    var rate = exchangeRateService.findByCurrencyCodes(codes.get(0), target).getRate();
+    committed.increment();
+    if (rate.compareTo(expected) != 0) {
+      violations.add("Exchange rate " + codes.get(0) + target + " on "
+          + Thread.currentThread().getName() + " read " + rate + " after committing " + expected);
+    }
+  }
+
+  private void update(int worker, SplittableRandom random) {
+    var target = codes.get(1 + worker + threads * random.nextInt(2));
+    var rate = BigDecimal.valueOf(random.nextInt(1, 1_000_000_000), 6);
+    exchangeRateService.update(new ExchangeRateInfo(codes.get(0), target, rate));
+    committedRates.put(codes.get(0) + target, rate);
+    committed.increment();
+  }
+
+  private void save() {
+    var index = nextSavablePair.getAndIncrement();
+    if (index >= savablePairs.size()) {
+      return;
+    }
+    var pair = savablePairs.get(index);
+    var key = pair[0] + pair[1];
+    savedPairs.put(key, false);
+    exchangeRateService.save(new ExchangeRateInfo(pair[0], pair[1], BigDecimal.TEN));
+    savedPairs.put(key, true);
+    committed.increment();
+  }
+
+  /**
+   * Closes a handle returned to the pool by an earlier operation once more and calls it, both of
+   * which must leave the connection alone, then borrows and returns a connection and keeps its
+   * handle for a later operation.
+   */
+  private void closeStale() {
+    var stale = staleConnections.poll();
+    try {
+      if (stale != null) {
+        stale.close();
+        if (!stale.isClosed()) {
+          violations.add("A connection handle is open again after it was closed");
+        }
+        try {
+          stale.rollback();
+          violations.add("A closed connection handle rolled back a transaction");
+        } catch (SQLException e) {
+          // Expected: the handle was closed
+        }
+      }
+      var connection = ConnectionManager.getConnection();
+      connection.close();
+      staleConnections.add(connection);
+    } catch (SQLException e) {
+      violations.add("Closing a connection handle failed: " + e);
+    }
+  }
+
+  /**
+   * Checks the pool while no worker runs.
+   */
+  private void checkPool(TrackingDriver driver) {
+    if (ConnectionManager.getBorrowedCount() != 0) {
+      violations.add(ConnectionManager.getBorrowedCount()
+          + " connections were not returned to the pool");
+    }
+    for (TrackedConnection connection : driver.getConnections()) {
+      connection.checkIdle();
+    }
+    var max = PropertiesLoader.getInt(POOL_MAX, 0);
+    if (ConnectionManager.getSize() > max) {
+      violations.add("The pool holds " + ConnectionManager.getSize()
+          + " connections, above its maximum of " + max);
+    }
+    var open = driver.getConnections().stream().filter(TrackedConnection::isOpen).count();
+    if (open > max) {
+      violations.add(open + " connections are open, above the maximum of " + max
+          + " of the pool");
+    }
+  }
+
+  /**
+   * Checks that the pool, left idle, closes its connections above the minimum.
+   */
+  private void checkShrink(TrackingDriver driver) throws InterruptedException {
+    var min = PropertiesLoader.getInt(POOL_MIN, 0);
+    var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHRINK_TIMEOUT_MILLIS);
+    long open;
+    do {
+      Thread.sleep(SHRINK_POLL_MILLIS);
+      open = driver.getConnections().stream().filter(TrackedConnection::isOpen).count();
+    } while (open > min && System.nanoTime() < deadline);
+    if (open != min || ConnectionManager.getSize() != min) {
+      violations.add("The idle pool holds " + ConnectionManager.getSize() + " connections and "
+          + open + " are open, instead of its minimum of " + min);
+    }
+  }
+
+  /**
+   * Checks that the database holds exactly the committed work.
+   */
+  private void checkData() {
+    var exchangeRateDao = ExchangeRateDaoImpl.getInstance();
+    committedRates.forEach((pair, rate) -> {
+      var stored = exchangeRateDao.findByCurrencyCodes(pair.substring(0, 3), pair.substring(3))
+          .map(ExchangeRate::getRate)
+          .orElse(null);
+      if (stored == null || stored.compareTo(rate) != 0) {
+        violations.add("Exchange rate " + pair + " is " + stored + ", but " + rate
+            + " was committed last");
+      }
+    });
+    savedPairs.forEach((pair, saved) -> {
+      var stored = exchangeRateDao.findByCurrencyCodes(pair.substring(0, 3), pair.substring(3));
+      if (stored.isPresent() != saved) {
+        violations.add("Exchange rate " + pair + (saved
+            ? " was saved but is missing" : " failed to save but exists"));
+      }
+    });
+  }
+
+  /**
+   * Returns a code of three letters unique to the index.
+   */
+  private static String code(int index) {
+    return "Q" + (char) ('A' + index / 26) + (char) ('A' + index % 26);
+  }
+}
@@ -0,0 +1,107 @@
+package ru.starkov.loadtest;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Prints the results of a load test run and checks them against the gates of the configuration.
+ * Percentiles are printed for the response times, corrected for coordinated omission, and for
+ * comparison the 99th percentile of the service times, which are not.
+ */
+final class Report {
+
+  private static final double MICROS_PER_MILLI = 1_000.0;
+  private static final String ALL = "all";
+  private static final String ROW_FORMAT =
+      "%-15s %9d %8d %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f %12.3f%n";
+  private static final String HEADER_FORMAT =
+      "%-15s %9s %8s %9s %9s %9s %9s %9s %9s %12s%n";
+
+  private final LoadTestConfig config;
+  private final Map<Operation, Statistics> statistics;
+  private final Statistics total = new Statistics();
+
+  Report(LoadTestConfig config, Map<Operation, Statistics> statistics) {
+    this.config = config;
+    this.statistics = statistics;
+    statistics.values().forEach(total::add);
+  }
+
+  /**
+   * Prints the results: a line per operation with traffic and a line for all of them.
+   *
+   * @param out the stream to print to
+   */
+  void print(PrintStream out) {
+    out.printf(Locale.ROOT, "%n%.0f requests/s for %d s after a %d s warm-up, %d requests%n",
+        config.rate(), config.durationSeconds(), config.warmupSeconds(), total.getTotal());
+    out.println("Response times in ms from the scheduled start; service p99 from the actual send");
+    out.printf(Locale.ROOT, HEADER_FORMAT, "operation", "requests", "errors", "ok/s", "p50",
+        "p90", "p99", "p99.9", "max", "service p99");
+    statistics.forEach((operation, operationStatistics) -> {
+      if (operationStatistics.getTotal() > 0) {
+        printRow(out, operation.getLabel(), operationStatistics);
+      }
+    });
+    printRow(out, ALL, total);
+    for (Operation operation : Operation.values()) {
+      if (statistics.get(operation).getTotal() > 0) {
+        out.printf("%-15s %s%n", operation.getLabel(), operation.getEndpoint());
+      }
+    }
+  }
+
+  /**
+   * Checks the results against the gates and prints the failed ones.
+   *
+   * @param out the stream to print to
+   * @return true if every gate passed
+   */
+  boolean check(PrintStream out) {
+    List<String> failures = new ArrayList<>();
+    var throughput = getThroughput(total);
+    if (config.minThroughput() > 0 && throughput < config.minThroughput()) {
+      failures.add(String.format(Locale.ROOT, "throughput %.1f/s is below %.1f/s", throughput,
+          config.minThroughput()));
+    }
+    var p99 = percentileMillis(total.getResponseTimes(), 99);
+    if (config.maxP99Millis() > 0 && p99 > config.maxP99Millis()) {
+      failures.add(String.format(Locale.ROOT, "p99 %.3f ms is above %.3f ms", p99,
+          config.maxP99Millis()));
+    }
+    if (total.getErrorRate() > config.maxErrorRate()) {
+      failures.add(String.format(Locale.ROOT, "error rate %.4f is above %.4f",
+          total.getErrorRate(), config.maxErrorRate()));
+    }
+    if (failures.isEmpty()) {
+      out.println("PASSED");
+      return true;
+    }
+    failures.forEach(failure -> out.println("FAILED: " + failure));
+    return false;
+  }
+
+  private void printRow(PrintStream out, String label, Statistics rowStatistics) {
+    var responseTimes = rowStatistics.getResponseTimes();
+    out.printf(Locale.ROOT, ROW_FORMAT, label, rowStatistics.getTotal(),
+        rowStatistics.getFailed() + rowStatistics.getDropped(), getThroughput(rowStatistics),
+        percentileMillis(responseTimes, 50),
+        percentileMillis(responseTimes, 90),
+        percentileMillis(responseTimes, 99),
+        percentileMillis(responseTimes, 99.9),
+        responseTimes.getMaxValue() / MICROS_PER_MILLI,
+        percentileMillis(rowStatistics.getServiceTimes(), 99));
+  }
+
+  private double getThroughput(Statistics rowStatistics) {
+    return (double) rowStatistics.getSucceeded() / config.durationSeconds();
+  }
+
+  private static double percentileMillis(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+  }
+}
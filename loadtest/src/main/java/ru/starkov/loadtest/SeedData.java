@@ -0,0 +1,82 @@
+package ru.starkov.loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import ru.starkov.fixture.InMemoryCurrencyDao;
+import ru.starkov.fixture.InMemoryExchangeRateDao;
+import ru.starkov.model.Currency;
+import ru.starkov.model.ExchangeRate;
+
+/**
+ * Fills the in-memory DAOs with the currencies and exchange rates the load test runs against.
+ * Every currency is quoted against the US dollar and a part of them against the euro as well, so
+ * every pair converts, directly, through the inverse rate or through a cross rate. The rates are
+ * random but the same on every run.
+ */
+final class SeedData {
+
+  private static final String[][] CURRENCIES = {
+      {"USD", "US Dollar", "$"},
+      {"EUR", "Euro", "€"},
+      {"RUB", "Russian Ruble", "₽"},
+      {"AUD", "Australian Dollar", "A$"},
+      {"GBP", "Pound Sterling", "£"},
+      {"JPY", "Yen", "¥"},
+      {"CNY", "Yuan Renminbi", "¥"},
+      {"CHF", "Swiss Franc", "CHF"},
+      {"CAD", "Canadian Dollar", "C$"},
+      {"SEK", "Swedish Krona", "kr"},
+      {"NOK", "Norwegian Krone", "kr"},
+      {"PLN", "Zloty", "zł"},
+      {"CZK", "Czech Koruna", "Kč"},
+      {"TRY", "Turkish Lira", "₺"},
+      {"INR", "Indian Rupee", "₹"},
+      {"BRL", "Brazilian Real", "R$"},
+      {"KZT", "Tenge", "₸"},
+      {"AMD", "Armenian Dram", "֏"},
+      {"GEL", "Lari", "₾"},
+      {"SGD", "Singapore Dollar", "S$"}};
+  private static final int HUB = 0;
+  private static final int SECOND_HUB = 1;
+  private static final long RANDOM_SEED = 42;
+
+  private SeedData() {
+  }
+
+  /**
+   * Saves the currencies and exchange rates.
+   *
+   * @param currencyDao     the DAO to save the currencies to
+   * @param exchangeRateDao the DAO to save the exchange rates to
+   */
+  static void populate(InMemoryCurrencyDao currencyDao, InMemoryExchangeRateDao exchangeRateDao) {
+    var random = new Random(RANDOM_SEED);
+    var currencies = new Currency[CURRENCIES.length];
+    for (int i = 0; i < CURRENCIES.length; i++) {
+      currencies[i] = currencyDao.save(Currency.builder()
+          .code(CURRENCIES[i][0])
+          .fullName(CURRENCIES[i][1])
+          .sign(CURRENCIES[i][2])
+          .build());
+    }
+    for (int i = 0; i < currencies.length; i++) {
+      if (i != HUB) {
+        saveRate(exchangeRateDao, currencies[HUB], currencies[i], random);
+      }
+      if (i != HUB && i != SECOND_HUB && i % 2 == 0) {
+        saveRate(exchangeRateDao, currencies[SECOND_HUB], currencies[i], random);
+      }
+    }
+  }
+
+  private static void saveRate(InMemoryExchangeRateDao exchangeRateDao, Currency base,
+      Currency target, Random random) {
+    exchangeRateDao.save(ExchangeRate.builder()
+        .baseCurrency(base)
+        .targetCurrency(target)
+        .rate(BigDecimal.valueOf(0.01 + random.nextDouble() * 100)
+            .setScale(6, RoundingMode.HALF_UP))
+        .build());
+  }
+}
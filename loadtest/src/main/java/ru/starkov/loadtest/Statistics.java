@@ -0,0 +1,97 @@
+package ru.starkov.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The latencies and outcomes of the requests of one operation. Every completed request records two
+ * latencies in microseconds: the response time, measured from the moment the schedule meant the
+ * request to be sent, and the service time, measured from the moment it was sent. When the server
+ * or the generator falls behind, requests wait before they are sent; the response time includes
+ * that wait and is the latency a user would see, while the service time hides it, the error known
+ * as coordinated omission.
+ */
+final class Statistics {
+
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private final Histogram responseTimes = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+  private final Histogram serviceTimes = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+  private final LongAdder succeeded = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * Records a completed request.
+   *
+   * @param successful    whether a response came back with a status below 400
+   * @param responseNanos the time from the intended start to the response
+   * @param serviceNanos  the time from sending the request to the response
+   */
+  void record(boolean successful, long responseNanos, long serviceNanos) {
+    responseTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+    serviceTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+    (successful ? succeeded : failed).increment();
+  }
+
+  /**
+   * Records a request that was due but not sent, because too many requests were outstanding.
+   */
+  void recordDropped() {
+    dropped.increment();
+  }
+
+  /**
+   * Adds the statistics of another operation to these.
+   *
+   * @param other the statistics to add
+   */
+  void add(Statistics other) {
+    responseTimes.add(other.responseTimes);
+    serviceTimes.add(other.serviceTimes);
+    succeeded.add(other.getSucceeded());
+    failed.add(other.getFailed());
+    dropped.add(other.getDropped());
+  }
+
+  Histogram getResponseTimes() {
+    return responseTimes;
+  }
+
+  Histogram getServiceTimes() {
+    return serviceTimes;
+  }
+
+  long getSucceeded() {
+    return succeeded.sum();
+  }
+
+  long getFailed() {
+    return failed.sum();
+  }
+
+  long getDropped() {
+    return dropped.sum();
+  }
+
+  /**
+   * Returns the number of requests that were due, whatever their outcome.
+   *
+   * @return the number of requests
+   */
+  long getTotal() {
+    return getSucceeded() + getFailed() + getDropped();
+  }
+
+  /**
+   * Returns the share of the requests that failed or were not sent.
+   *
+   * @return the error rate between 0 and 1
+   */
+  double getErrorRate() {
+    var total = getTotal();
+    return total == 0 ? 0 : (double) (getFailed() + getDropped()) / total;
+  }
+}
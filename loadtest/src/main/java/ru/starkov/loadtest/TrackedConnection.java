@@ -0,0 +1,217 @@
+package ru.starkov.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Watches a physical connection for the races a pool can let through. Every call on the
+ * connection, and on the statements it creates, is checked against two owners: the thread inside a
+ * call, since a JDBC connection is not meant to be used by two threads at once, and the thread
+ * that began the current transaction by turning auto-commit off, since no other thread may run
+ * statements in it until it ends. Statements run in a transaction mark it as pending until it is
+ * committed or rolled back; turning auto-commit back on while work is pending would commit it
+ * silently, so that is reported too.
+ *
+ * <p>{@link #checkIdle} verifies the state a connection must be in while it waits in the pool.
+ * Only the background thread of the pool may use an idle connection, to validate or close it.
+ */
+final class TrackedConnection implements InvocationHandler {
+
+  private static final String POOL_THREAD = "connection-pool";
+  private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery",
+      "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+  private final Connection delegate;
+  private final Consumer<String> violations;
+  private final String name;
+  private final int defaultTransactionIsolation;
+  private final AtomicReference<Thread> user = new AtomicReference<>();
+  private volatile Thread transactionOwner;
+  private volatile boolean pendingWork;
+  private volatile boolean closed;
+
+  private TrackedConnection(Connection delegate, Consumer<String> violations, String name)
+      throws SQLException {
+    this.delegate = delegate;
+    this.violations = violations;
+    this.name = name;
+    this.defaultTransactionIsolation = delegate.getTransactionIsolation();
+  }
+
+  /**
+   * Wraps a physical connection.
+   *
+   * @param delegate   the connection to watch
+   * @param violations receives a description of every race seen
+   * @param name       the name of the connection in the descriptions
+   * @return the tracker of the connection
+   * @throws SQLException if the settings of the connection cannot be read
+   */
+  static TrackedConnection track(Connection delegate, Consumer<String> violations, String name)
+      throws SQLException {
+    return new TrackedConnection(delegate, violations, name);
+  }
+
+  /**
+   * Returns the connection to hand out in place of the physical one.
+   *
+   * @return the watched connection
+   */
+  Connection getConnection() {
+    return (Connection) Proxy.newProxyInstance(TrackedConnection.class.getClassLoader(),
+        new Class[] {Connection.class}, this);
+  }
+
+  /**
+   * Tells whether the connection is still open.
+   *
+   * @return false once the pool has closed the connection
+   */
+  boolean isOpen() {
+    return !closed;
+  }
+
+  /**
+   * Reports the connection if it is not in the state of a connection waiting in the pool: outside
+   * a transaction, in auto-commit mode and with the default isolation level, writable, and not
+   * used by any thread but the one of the pool. A closed connection has left the pool and is not
+   * checked.
+   */
+  void checkIdle() {
+    if (closed) {
+      return;
+    }
+    var current = user.get();
+    if (current != null && !POOL_THREAD.equals(current.getName())) {
+      violations.accept(name + " is used by " + current.getName() + " while idle in the pool");
+    }
+    var owner = transactionOwner;
+    if (owner != null) {
+      violations.accept(name + " is idle in the pool inside a transaction of "
+          + owner.getName());
+    }
+    try {
+      if (!delegate.getAutoCommit()) {
+        violations.accept(name + " went back to the pool with auto-commit off");
+      }
+      if (delegate.getTransactionIsolation() != defaultTransactionIsolation) {
+        violations.accept(name + " went back to the pool with isolation level "
+            + delegate.getTransactionIsolation());
+      }
+      if (delegate.isReadOnly()) {
+        violations.accept(name + " went back to the pool read-only");
+      }
+    } catch (SQLException e) {
+      if (!closed) {
+        violations.accept(name + " cannot be inspected: " + e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    var current = Thread.currentThread();
+    var holder = enter(current);
+    try {
+      switch (method.getName()) {
+        case "setAutoCommit" -> {
+          if ((Boolean) args[0]) {
+            if (pendingWork) {
+              violations.accept(name + ": auto-commit turned on by " + current.getName()
+                  + " with the work of the transaction pending, which commits it");
+            }
+            transactionOwner = null;
+            pendingWork = false;
+          } else {
+            transactionOwner = current;
+          }
+        }
+        case "commit", "rollback" -> pendingWork = false;
+        case "close" -> closed = true;
+        case "hashCode" -> {
+          return System.identityHashCode(proxy);
+        }
+        case "equals" -> {
+          return proxy == args[0];
+        }
+        case "toString" -> {
+          return name;
+        }
+        default -> {
+          // Passed on as is
+        }
+      }
+      var result = invokeDelegate(delegate, method, args);
+      if (result instanceof Statement statement
+          && method.getReturnType().isInterface()
+          && Statement.class.isAssignableFrom(method.getReturnType())) {
+        return trackStatement(statement, method.getReturnType());
+      }
+      return result;
+    } finally {
+      exit(holder);
+    }
+  }
+
+  private Object trackStatement(Statement statement, Class<?> type) {
+    return Proxy.newProxyInstance(TrackedConnection.class.getClassLoader(), new Class[] {type},
+        (proxy, method, args) -> {
+          var holder = enter(Thread.currentThread());
+          try {
+            if (EXECUTE_METHODS.contains(method.getName()) && transactionOwner != null) {
+              pendingWork = true;
+            }
+            return switch (method.getName()) {
+              case "hashCode" -> System.identityHashCode(proxy);
+              case "equals" -> proxy == args[0];
+              default -> invokeDelegate(statement, method, args);
+            };
+          } finally {
+            exit(holder);
+          }
+        });
+  }
+
+  /**
+   * Marks the calling thread as the user of the connection and reports another user or another
+   * owner of the transaction.
+   *
+   * @return the previous user, the calling thread itself on a nested call, or null
+   */
+  private Thread enter(Thread current) {
+    var holder = user.compareAndExchange(null, current);
+    if (holder != null && holder != current) {
+      violations.accept(name + " is used by " + current.getName() + " and "
+          + holder.getName() + " at once");
+    }
+    var owner = transactionOwner;
+    if (owner != null && owner != current) {
+      violations.accept(name + ": the transaction of " + owner.getName()
+          + " is used by " + current.getName());
+    }
+    return holder;
+  }
+
+  private void exit(Thread holder) {
+    if (holder == null) {
+      user.set(null);
+    }
+  }
+
+  private static Object invokeDelegate(Object target, Method method, Object[] args)
+      throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package ru.starkov.loadtest;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver for URLs of the form {@code jdbc:tracking:<url>}, which opens the connection of
+ * {@code jdbc:<url>} with another driver and hands it out watched by a {@link TrackedConnection}.
+ * Only the user and the password are passed on, so the connection properties of one database
+ * cannot break the driver of another.
+ */
+final class TrackingDriver implements Driver {
+
+  static final String URL_PREFIX = "jdbc:tracking:";
+
+  private static final String JDBC_PREFIX = "jdbc:";
+  private static final String USER = "user";
+  private static final String PASSWORD = "password";
+
+  private final Consumer<String> violations;
+  private final List<TrackedConnection> connections = new CopyOnWriteArrayList<>();
+  private final AtomicInteger opened = new AtomicInteger();
+
+  private TrackingDriver(Consumer<String> violations) {
+    this.violations = violations;
+  }
+
+  /**
+   * Registers a driver with the {@link DriverManager}.
+   *
+   * @param violations receives a description of every race seen on a connection
+   * @return the registered driver
+   * @throws SQLException if the driver cannot be registered
+   */
+  static TrackingDriver register(Consumer<String> violations) throws SQLException {
+    var driver = new TrackingDriver(violations);
+    DriverManager.registerDriver(driver);
+    return driver;
+  }
+
+  /**
+   * Returns the trackers of every connection opened so far.
+   *
+   * @return the trackers in the order the connections were opened
+   */
+  List<TrackedConnection> getConnections() {
+    return connections;
+  }
+
+  @Override
+  public Connection connect(String url, Properties info) throws SQLException {
+    if (!acceptsURL(url)) {
+      return null;
+    }
+    var credentials = new Properties();
+    if (info.getProperty(USER) != null) {
+      credentials.setProperty(USER, info.getProperty(USER));
+    }
+    if (info.getProperty(PASSWORD) != null) {
+      credentials.setProperty(PASSWORD, info.getProperty(PASSWORD));
+    }
+    var physical = DriverManager.getConnection(
+        JDBC_PREFIX + url.substring(URL_PREFIX.length()), credentials);
+    var tracked = TrackedConnection.track(physical, violations,
+        "connection " + opened.incrementAndGet());
+    connections.add(tracked);
+    return tracked.getConnection();
+  }
+
+  @Override
+  public boolean acceptsURL(String url) {
+    return url != null && url.startsWith(URL_PREFIX);
+  }
+
+  @Override
+  public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+    return new DriverPropertyInfo[0];
+  }
+
+  @Override
+  public int getMajorVersion() {
+    return 1;
+  }
+
+  @Override
+  public int getMinorVersion() {
+    return 0;
+  }
+
+  @Override
+  public boolean jdbcCompliant() {
+    return false;
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException("getParentLogger");
+  }
+}
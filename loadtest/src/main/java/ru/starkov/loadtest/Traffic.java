@@ -0,0 +1,114 @@
+package ru.starkov.loadtest;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+import ru.starkov.util.Constants;
+
+/**
+ * Picks the requests of the load test by the weights of the traffic mix. Conversions go between
+ * two distinct random currencies, so they take the direct, inverse and cross rate paths; exchange
+ * rates are read and updated on random existing pairs.
+ */
+final class Traffic {
+
+  private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+  private static final String CONTENT_TYPE_HEADER = "Content-Type";
+
+  private final String baseUri;
+  private final Duration timeout;
+  private final List<String> currencyCodes;
+  private final List<String> pairs;
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+
+  /**
+   * Creates the traffic for an application.
+   *
+   * @param baseUri       the URI of the application
+   * @param timeout       the timeout of every request
+   * @param currencyCodes the codes of the existing currencies, at least two
+   * @param pairs         the existing currency pairs, such as {@code USDEUR}
+   * @param mix           the relative weight of every operation
+   */
+  Traffic(URI baseUri, Duration timeout, List<String> currencyCodes, List<String> pairs,
+      Map<Operation, Integer> mix) {
+    this.baseUri = baseUri.toString();
+    this.timeout = timeout;
+    this.currencyCodes = List.copyOf(currencyCodes);
+    this.pairs = List.copyOf(pairs);
+    var weighted = mix.entrySet().stream().filter(entry -> entry.getValue() > 0).toList();
+    this.operations = new Operation[weighted.size()];
+    this.cumulativeWeights = new int[weighted.size()];
+    var total = 0;
+    for (int i = 0; i < weighted.size(); i++) {
+      total += weighted.get(i).getValue();
+      operations[i] = weighted.get(i).getKey();
+      cumulativeWeights[i] = total;
+    }
+  }
+
+  /**
+   * Picks the operation of the next request.
+   *
+   * @param random the source of randomness of the calling thread
+   * @return the operation
+   */
+  Operation nextOperation(RandomGenerator random) {
+    var point = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    var index = 0;
+    while (point >= cumulativeWeights[index]) {
+      index++;
+    }
+    return operations[index];
+  }
+
+  /**
+   * Builds a request of an operation with random arguments.
+   *
+   * @param operation the operation
+   * @param random    the source of randomness of the calling thread
+   * @return the request
+   */
+  HttpRequest request(Operation operation, RandomGenerator random) {
+    return switch (operation) {
+      case CONVERSION -> {
+        var from = random.nextInt(currencyCodes.size());
+        var to = (from + 1 + random.nextInt(currencyCodes.size() - 1)) % currencyCodes.size();
+        var amount = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+        yield get(Constants.EXCHANGE_PATH + "?" + Constants.FROM_CURRENCY_CODE + "="
+            + currencyCodes.get(from) + "&" + Constants.TO_CURRENCY_CODE + "="
+            + currencyCodes.get(to) + "&" + Constants.AMOUNT + "=" + amount.toPlainString());
+      }
+      case EXCHANGE_RATE -> get(Constants.EXCHANGE_RATE_PATH + "/" + randomPair(random));
+      case EXCHANGE_RATES -> get(Constants.EXCHANGE_RATES_PATH);
+      case CURRENCIES -> get(Constants.CURRENCIES_PATH);
+      case RATE_UPDATE -> {
+        var rate = BigDecimal.valueOf(1 + random.nextInt(10_000_000), 6);
+        yield HttpRequest.newBuilder(
+                URI.create(baseUri + Constants.EXCHANGE_RATE_PATH + "/" + randomPair(random)))
+            .timeout(timeout)
+            .header(CONTENT_TYPE_HEADER, FORM_CONTENT_TYPE)
+            .method("PATCH",
+                BodyPublishers.ofString(Constants.RATE + "=" + rate.toPlainString()))
+            .build();
+      }
+    };
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUri + path))
+        .timeout(timeout)
+        .GET()
+        .build();
+  }
+
+  private String randomPair(RandomGenerator random) {
+    return pairs.get(random.nextInt(pairs.size()));
+  }
+}